@@ -133,6 +133,18 @@ public abstract class AbstractService<C extends EdmEnabledODataClient> {
     return persistenceManager;
   }
 
+  /**
+   * Replaces the persistence manager chosen at construction time, e.g. with a
+   * {@link org.apache.olingo.ext.proxy.commons.BatchedPersistenceManagerImpl} for large units of work.
+   *
+   * @param persistenceManager persistence manager to be used from now on
+   */
+  public void setPersistenceManager(final PersistenceManager persistenceManager) {
+    synchronized (this) {
+      this.persistenceManager = persistenceManager;
+    }
+  }
+
   /**
    * Return an initialized concrete implementation of the passed EntityContainer interface.
    *
@@ -0,0 +1,517 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.commons;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.olingo.client.api.communication.ODataClientErrorException;
+import org.apache.olingo.client.api.communication.ODataServerErrorException;
+import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.communication.request.ODataRequest;
+import org.apache.olingo.client.api.communication.request.ODataStreamedRequest;
+import org.apache.olingo.client.api.communication.request.batch.BatchManager;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchRequest;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchResponseItem;
+import org.apache.olingo.client.api.communication.request.batch.ODataChangeset;
+import org.apache.olingo.client.api.communication.request.cud.ODataEntityUpdateRequest;
+import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
+import org.apache.olingo.client.api.communication.response.ODataEntityCreateResponse;
+import org.apache.olingo.client.api.communication.response.ODataEntityUpdateResponse;
+import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientLink;
+import org.apache.olingo.client.api.domain.ClientProperty;
+import org.apache.olingo.client.core.communication.header.ODataErrorResponseChecker;
+import org.apache.olingo.client.core.communication.request.batch.ODataChangesetResponseItem;
+import org.apache.olingo.client.core.uri.URIUtils;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.ext.proxy.AbstractService;
+import org.apache.olingo.ext.proxy.api.ODataFlushException;
+import org.apache.olingo.ext.proxy.api.ODataResponseError;
+
+/**
+ * {@link org.apache.olingo.ext.proxy.api.PersistenceManager} implementation for large units of work: when calling
+ * <tt>flush()</tt>
+ * <ul>
+ * <li>PATCH requests targeting the same entity are coalesced into a single request;</li>
+ * <li>changes are ordered so that every request comes after the inserts it refers to (via <tt>$n</tt>);</li>
+ * <li>changes are split into several size-bounded batch requests which are sent concurrently, using the executor
+ * of the client configuration.</li>
+ * </ul>
+ * Changes referring to each other are always kept in the same batch request. Each batch request contains one
+ * changeset, so atomicity is guaranteed per batch request only, not for the whole unit of work.
+ */
+public class BatchedPersistenceManagerImpl extends AbstractPersistenceManager {
+
+  private static final long serialVersionUID = 4275812343529145946L;
+
+  public static final int DEFAULT_MAX_CHANGES_PER_BATCH = 500;
+
+  public static final int DEFAULT_PARALLELISM = 4;
+
+  private final int maxChangesPerBatch;
+
+  private final int parallelism;
+
+  public BatchedPersistenceManagerImpl(final AbstractService<?> factory) {
+    this(factory, DEFAULT_MAX_CHANGES_PER_BATCH, DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param factory service
+   * @param maxChangesPerBatch maximum number of changes sent in one batch request
+   * @param parallelism maximum number of batch requests sent concurrently
+   */
+  public BatchedPersistenceManagerImpl(
+          final AbstractService<?> factory, final int maxChangesPerBatch, final int parallelism) {
+    super(factory);
+    if (maxChangesPerBatch < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("Batch size and parallelism must be positive");
+    }
+    this.maxChangesPerBatch = maxChangesPerBatch;
+    this.parallelism = parallelism;
+  }
+
+  @Override
+  protected void doFlush(final PersistenceChanges changes, final TransactionItems items) {
+    final List<List<Change>> batches = split(order(coalesce(changes)));
+    if (batches.isEmpty()) {
+      return;
+    }
+
+    // Batches are taken from a shared counter by the calling thread and by up to parallelism - 1 helpers running on
+    // the client executor. The calling thread only waits for batches already taken by a helper, so the flush does
+    // not depend on the executor having free threads; helpers still queued afterwards are cancelled.
+    final AtomicInteger next = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(batches.size());
+    final AtomicReferenceArray<List<ODataResponseError>> results =
+        new AtomicReferenceArray<List<ODataResponseError>>(batches.size());
+    final AtomicReferenceArray<RuntimeException> failures = new AtomicReferenceArray<RuntimeException>(batches.size());
+    final Runnable worker = new Runnable() {
+      @Override
+      public void run() {
+        for (int i = next.getAndIncrement(); i < batches.size(); i = next.getAndIncrement()) {
+          try {
+            results.set(i, send(batches.get(i)));
+          } catch (final RuntimeException e) {
+            failures.set(i, e);
+          } finally {
+            done.countDown();
+          }
+        }
+      }
+    };
+
+    final List<Future<?>> helpers = new ArrayList<Future<?>>();
+    try {
+      final ExecutorService executor = service.getClient().getConfiguration().getExecutor();
+      for (int i = 1; i < Math.min(parallelism, batches.size()); i++) {
+        helpers.add(executor.submit(worker));
+      }
+    } catch (final RejectedExecutionException e) {
+      LOG.debug("Sending remaining batch requests sequentially", e);
+    }
+    worker.run();
+    try {
+      done.await();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ODataRuntimeException(e);
+    } finally {
+      for (Future<?> helper : helpers) {
+        helper.cancel(false);
+      }
+    }
+
+    final List<ODataResponseError> errors = new ArrayList<ODataResponseError>();
+    for (int i = 0; i < batches.size(); i++) {
+      if (failures.get(i) != null) {
+        throw failures.get(i);
+      }
+      if (results.get(i) == null) {
+        throw new ODataRuntimeException("While sending batch request");
+      }
+      errors.addAll(results.get(i));
+    }
+    if (!errors.isEmpty()) {
+      throw new ODataFlushException(getStatusCode(errors), errors);
+    }
+  }
+
+  /**
+   * Gets the status of the first failed change whose response carried one; server errors without details
+   * do not keep their status, so they are reported as 500.
+   */
+  private static int getStatusCode(final List<ODataResponseError> errors) {
+    for (ODataResponseError error : errors) {
+      if (error.getException() instanceof ODataClientErrorException) {
+        return ((ODataClientErrorException) error.getException()).getStatusLine().getStatusCode();
+      }
+    }
+    return HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
+  }
+
+  /**
+   * Collects the changes, merging PATCH requests on the same entity URI into the first of them.
+   */
+  protected List<Change> coalesce(final PersistenceChanges changes) {
+    final List<Change> result = new ArrayList<Change>();
+    final Map<String, Change> patches = new HashMap<String, Change>();
+    final Map<Integer, Change> byContentId = new HashMap<Integer, Change>();
+
+    int contentId = 0;
+    for (Map.Entry<ODataBatchableRequest, EntityInvocationHandler> entry : changes.getChanges().entrySet()) {
+      contentId++;
+      final ODataBatchableRequest request = entry.getKey();
+      final ClientEntity payload = changes.getPayload(request);
+
+      final String patchKey = request instanceof ODataEntityUpdateRequest
+          && request.getMethod() == HttpMethod.PATCH && payload != null && !isReference(request.getURI())
+          ? URIUtils.getURI(service.getClient().getServiceRoot(), request.getURI().toASCIIString()).toASCIIString()
+          : null;
+
+      final Change existing = patchKey == null ? null : patches.get(patchKey);
+      if (existing == null) {
+        final Change change = new Change(contentId, request, entry.getValue(), payload);
+        result.add(change);
+        byContentId.put(contentId, change);
+        if (patchKey != null) {
+          patches.put(patchKey, change);
+        }
+      } else {
+        LOG.debug("Coalesce update of '{}'", patchKey);
+        merge(payload, existing.payload);
+        existing.handlers.add(entry.getValue());
+        byContentId.put(contentId, existing);
+      }
+    }
+
+    // resolve references to content ids; references to merged changes point to the surviving change
+    for (Change change : result) {
+      for (Integer reference : change.references()) {
+        final Change target = byContentId.get(reference);
+        if (target != null && target != change) {
+          change.dependencies.add(target);
+          change.resolved.put(reference, target);
+        }
+      }
+    }
+
+    return result;
+  }
+
+  private void merge(final ClientEntity source, final ClientEntity target) {
+    for (ClientProperty property : source.getProperties()) {
+      final ClientProperty existing = target.getProperty(property.getName());
+      if (existing != null) {
+        target.getProperties().remove(existing);
+      }
+      target.getProperties().add(property);
+    }
+    for (ClientLink link : source.getNavigationLinks()) {
+      target.addLink(link);
+    }
+    target.getAnnotations().addAll(source.getAnnotations());
+  }
+
+  /**
+   * Sorts the changes so that every change comes after the changes it refers to,
+   * keeping the original order wherever possible.
+   */
+  protected List<Change> order(final List<Change> changes) {
+    final List<Change> ordered = new ArrayList<Change>(changes.size());
+    final Set<Change> done = new LinkedHashSet<Change>();
+    final List<Change> pending = new ArrayList<Change>(changes);
+
+    boolean progress = true;
+    while (!pending.isEmpty() && progress) {
+      progress = false;
+      for (final Iterator<Change> itor = pending.iterator(); itor.hasNext();) {
+        final Change change = itor.next();
+        if (done.containsAll(change.dependencies)) {
+          ordered.add(change);
+          done.add(change);
+          itor.remove();
+          progress = true;
+        }
+      }
+    }
+    if (!pending.isEmpty()) {
+      LOG.warn("Circular references between {} changes; keeping their original order", pending.size());
+      ordered.addAll(pending);
+    }
+    return ordered;
+  }
+
+  /**
+   * Groups the changes into batches of at most <tt>maxChangesPerBatch</tt> changes;
+   * changes referring to each other (directly or indirectly) always end up in the same batch.
+   */
+  protected List<List<Change>> split(final List<Change> ordered) {
+    // union-find over the references
+    final Map<Change, Change> parents = new HashMap<Change, Change>();
+    for (Change change : ordered) {
+      parents.put(change, change);
+    }
+    for (Change change : ordered) {
+      for (Change dependency : change.dependencies) {
+        parents.put(root(parents, change), root(parents, dependency));
+      }
+    }
+
+    final Map<Change, List<Change>> groups = new LinkedHashMap<Change, List<Change>>();
+    for (Change change : ordered) {
+      final Change root = root(parents, change);
+      List<Change> group = groups.get(root);
+      if (group == null) {
+        group = new ArrayList<Change>();
+        groups.put(root, group);
+      }
+      group.add(change);
+    }
+
+    final List<List<Change>> batches = new ArrayList<List<Change>>();
+    List<Change> current = new ArrayList<Change>();
+    for (List<Change> group : groups.values()) {
+      if (!current.isEmpty() && current.size() + group.size() > maxChangesPerBatch) {
+        batches.add(current);
+        current = new ArrayList<Change>();
+      }
+      current.addAll(group);
+    }
+    if (!current.isEmpty()) {
+      batches.add(current);
+    }
+
+    // restore the reference order inside each batch
+    final Map<Change, Integer> positions = new HashMap<Change, Integer>();
+    for (int i = 0; i < ordered.size(); i++) {
+      positions.put(ordered.get(i), i);
+    }
+    for (List<Change> batch : batches) {
+      Collections.sort(batch, new Comparator<Change>() {
+        @Override
+        public int compare(final Change o1, final Change o2) {
+          return positions.get(o1).compareTo(positions.get(o2));
+        }
+      });
+    }
+    return batches;
+  }
+
+  private Change root(final Map<Change, Change> parents, final Change change) {
+    Change root = change;
+    while (parents.get(root) != root) {
+      root = parents.get(root);
+    }
+    // path compression
+    Change current = change;
+    while (parents.get(current) != root) {
+      final Change next = parents.get(current);
+      parents.put(current, root);
+      current = next;
+    }
+    return root;
+  }
+
+  /**
+   * Sends the given changes as a single batch request, renumbering the content ids they refer to.
+   *
+   * @return errors reported for single changes
+   */
+  protected List<ODataResponseError> send(final List<Change> batch) {
+    final Map<Change, Integer> contentIds = new HashMap<Change, Integer>();
+    for (int i = 0; i < batch.size(); i++) {
+      contentIds.put(batch.get(i), i + 1);
+    }
+    for (Change change : batch) {
+      change.renumber(contentIds);
+    }
+
+    final ODataBatchRequest request =
+            service.getClient().getBatchRequestFactory().getBatchRequest(service.getClient().getServiceRoot());
+    ((ODataRequest) request).setAccept(
+            service.getClient().getConfiguration().getDefaultBatchAcceptFormat().toContentTypeString());
+
+    final BatchManager batchManager = (BatchManager) ((ODataStreamedRequest<?, ?>) request).payloadManager();
+    final ODataChangeset changeset = batchManager.addChangeset();
+    for (Change change : batch) {
+      changeset.addRequest(change.request);
+    }
+
+    final ODataBatchResponse response = batchManager.getResponse();
+    if (response.getStatusCode() != 202 && response.getStatusCode() != 200) {
+      throw new ODataServerErrorException(new ResponseStatusLine(response));
+    }
+
+    final List<ODataResponseError> errors = new ArrayList<ODataResponseError>();
+    try {
+      final Iterator<ODataBatchResponseItem> batchResItor = response.getBody();
+      if (!batchResItor.hasNext()) {
+        throw new IllegalStateException("Unexpected operation result");
+      }
+      final ODataBatchResponseItem item = batchResItor.next();
+      if (!(item instanceof ODataChangesetResponseItem)) {
+        throw new IllegalStateException("Unexpected batch response item " + item.getClass().getSimpleName());
+      }
+      final ODataChangesetResponseItem chgres = (ODataChangesetResponseItem) item;
+
+      for (Change change : batch) {
+        final ODataResponse res = chgres.next();
+        if (res.getStatusCode() >= 400) {
+          errors.add(new ODataResponseError(ODataErrorResponseChecker.checkResponse(
+                  service.getClient(),
+                  new ResponseStatusLine(res),
+                  res.getRawResponse(),
+                  ((ODataRequest) request).getAccept()), change.contentId - 1, change.request));
+          if (!service.getClient().getConfiguration().isContinueOnError()) {
+            break;
+          }
+        } else {
+          change.apply(res);
+        }
+      }
+    } finally {
+      response.close();
+    }
+    return errors;
+  }
+
+  private static boolean isReference(final URI uri) {
+    return uri != null && uri.toASCIIString().startsWith("$");
+  }
+
+  /**
+   * Parses the content id at the beginning of a reference like <tt>$3</tt> or <tt>$3/$value</tt>.
+   */
+  private static Integer parseReference(final String reference) {
+    int end = 1;
+    while (end < reference.length() && Character.isDigit(reference.charAt(end))) {
+      end++;
+    }
+    return end > 1 ? Integer.valueOf(reference.substring(1, end)) : null;
+  }
+
+  /**
+   * A single change to be sent, possibly the result of several coalesced requests.
+   */
+  protected static class Change {
+
+    private final int contentId;
+
+    private final ODataBatchableRequest request;
+
+    private final List<EntityInvocationHandler> handlers = new ArrayList<EntityInvocationHandler>();
+
+    private final ClientEntity payload;
+
+    private final Set<Change> dependencies = new LinkedHashSet<Change>();
+
+    private final Map<Integer, Change> resolved = new HashMap<Integer, Change>();
+
+    Change(final int contentId, final ODataBatchableRequest request, final EntityInvocationHandler handler,
+            final ClientEntity payload) {
+      this.contentId = contentId;
+      this.request = request;
+      this.handlers.add(handler);
+      this.payload = payload;
+    }
+
+    private Set<Integer> references() {
+      final Set<Integer> references = new LinkedHashSet<Integer>();
+      if (isReference(request.getURI())) {
+        references.add(parseReference(request.getURI().toASCIIString()));
+      }
+      if (payload != null) {
+        for (ClientLink link : payload.getNavigationLinks()) {
+          if (isReference(link.getLink())) {
+            references.add(parseReference(link.getLink().toASCIIString()));
+          }
+        }
+      }
+      references.remove(null);
+      return references;
+    }
+
+    private String renumber(final String reference, final Map<Change, Integer> contentIds) {
+      final Integer original = parseReference(reference);
+      final Change target = original == null ? null : resolved.get(original);
+      return target == null || !contentIds.containsKey(target)
+          ? reference
+          : "$" + contentIds.get(target) + reference.substring(1 + String.valueOf(original).length());
+    }
+
+    private void renumber(final Map<Change, Integer> contentIds) {
+      if (isReference(request.getURI())) {
+        request.setURI(URI.create(renumber(request.getURI().toASCIIString(), contentIds)));
+      }
+      if (payload != null) {
+        final List<ClientLink> links = new ArrayList<ClientLink>(payload.getNavigationLinks());
+        payload.getNavigationLinks().clear();
+        for (ClientLink link : links) {
+          if (isReference(link.getLink())) {
+            final ClientLink renumbered = new ClientLink(
+                    URI.create(renumber(link.getLink().toASCIIString(), contentIds)), link.getType(), link.getName());
+            renumbered.getAnnotations().addAll(link.getAnnotations());
+            payload.getNavigationLinks().add(renumbered);
+          } else {
+            payload.getNavigationLinks().add(link);
+          }
+        }
+      }
+    }
+
+    private void apply(final ODataResponse res) {
+      for (EntityInvocationHandler handler : handlers) {
+        if (handler == null) {
+          continue;
+        }
+        if (res instanceof ODataEntityCreateResponse && res.getStatusCode() == 201) {
+          handler.setEntity(((ODataEntityCreateResponse<?>) res).getBody());
+          LOG.debug("Upgrade created object '{}'", handler);
+        } else if (res instanceof ODataEntityUpdateResponse && res.getStatusCode() == 200) {
+          handler.setEntity(((ODataEntityUpdateResponse<?>) res).getBody());
+          LOG.debug("Upgrade updated object '{}'", handler);
+        } else if (res instanceof ODataEntityCreateResponse || res instanceof ODataEntityUpdateResponse) {
+          handler.applyChanges();
+        }
+      }
+    }
+  }
+}
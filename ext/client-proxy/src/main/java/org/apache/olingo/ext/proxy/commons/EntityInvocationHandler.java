@@ -43,13 +43,13 @@ import org.apache.olingo.ext.proxy.AbstractService;
 import org.apache.olingo.ext.proxy.api.AbstractTerm;
 import org.apache.olingo.ext.proxy.api.Annotatable;
 import org.apache.olingo.ext.proxy.api.EdmStreamValue;
-import org.apache.olingo.ext.proxy.api.annotations.EntityType;
 import org.apache.olingo.ext.proxy.api.annotations.Namespace;
 import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
 import org.apache.olingo.ext.proxy.api.annotations.Term;
 import org.apache.olingo.ext.proxy.context.AttachedEntityStatus;
 import org.apache.olingo.ext.proxy.context.EntityUUID;
 import org.apache.olingo.ext.proxy.utils.CoreUtils;
+import org.apache.olingo.ext.proxy.utils.TypeDescriptor;
 
 public class EntityInvocationHandler extends AbstractStructuredInvocationHandler implements Annotatable {
 
@@ -125,11 +125,11 @@ public class EntityInvocationHandler extends AbstractStructuredInvocationHandler
 
     super(typeRef, service);
 
-    final String name = typeRef.getAnnotation(org.apache.olingo.ext.proxy.api.annotations.EntityType.class).name();
-    final String namespace = typeRef.getAnnotation(Namespace.class).value();
+    final TypeDescriptor descriptor = TypeDescriptor.get(typeRef);
 
-    this.internal = service.getClient().getObjectFactory().newEntity(new FullQualifiedName(namespace, name));
-    ClientEntity.class.cast(this.internal).setMediaEntity(typeRef.getAnnotation(EntityType.class).hasStream());
+    this.internal = service.getClient().getObjectFactory().newEntity(
+        new FullQualifiedName(descriptor.getNamespace(), descriptor.getEntityTypeName()));
+    ClientEntity.class.cast(this.internal).setMediaEntity(descriptor.hasStream());
 
     this.uuid = new EntityUUID(null, typeRef, null);
   }
@@ -141,11 +141,11 @@ public class EntityInvocationHandler extends AbstractStructuredInvocationHandler
 
     super(typeRef, service);
 
-    final String name = typeRef.getAnnotation(org.apache.olingo.ext.proxy.api.annotations.EntityType.class).name();
-    final String namespace = typeRef.getAnnotation(Namespace.class).value();
+    final TypeDescriptor descriptor = TypeDescriptor.get(typeRef);
 
-    this.internal = service.getClient().getObjectFactory().newEntity(new FullQualifiedName(namespace, name));
-    ClientEntity.class.cast(this.internal).setMediaEntity(typeRef.getAnnotation(EntityType.class).hasStream());
+    this.internal = service.getClient().getObjectFactory().newEntity(
+        new FullQualifiedName(descriptor.getNamespace(), descriptor.getEntityTypeName()));
+    ClientEntity.class.cast(this.internal).setMediaEntity(descriptor.hasStream());
 
     this.baseURI = entityURI;
     this.uri = entityURI == null ? null : getClient().newURIBuilder(baseURI.toASCIIString());
@@ -170,7 +170,7 @@ public class EntityInvocationHandler extends AbstractStructuredInvocationHandler
     }
 
     this.internal = entity;
-    getEntity().setMediaEntity(typeRef.getAnnotation(EntityType.class).hasStream());
+    getEntity().setMediaEntity(TypeDescriptor.get(typeRef).hasStream());
 
     this.uuid = new EntityUUID(entitySetURI, typeRef, null);
   }
@@ -202,14 +202,14 @@ public class EntityInvocationHandler extends AbstractStructuredInvocationHandler
     }
 
     this.internal = entity;
-    getEntity().setMediaEntity(typeRef.getAnnotation(EntityType.class).hasStream());
+    getEntity().setMediaEntity(TypeDescriptor.get(typeRef).hasStream());
 
     this.uuid = new EntityUUID(entitySetURI, typeRef, key);
   }
 
   public void setEntity(final ClientEntity entity) {
     this.internal = entity;
-    getEntity().setMediaEntity(typeRef.getAnnotation(EntityType.class).hasStream());
+    getEntity().setMediaEntity(TypeDescriptor.get(typeRef).hasStream());
 
     final Object key = CoreUtils.getKey(getClient(), this, typeRef, entity);
 
@@ -307,7 +307,7 @@ public class EntityInvocationHandler extends AbstractStructuredInvocationHandler
   }
 
   public void uploadStream(final EdmStreamValue stream) {
-    if (typeRef.getAnnotation(EntityType.class).hasStream()) {
+    if (TypeDescriptor.get(typeRef).hasStream()) {
       if (this.stream != null) {
         this.stream.close();
       }
@@ -326,7 +326,7 @@ public class EntityInvocationHandler extends AbstractStructuredInvocationHandler
         : getEntity().getMediaContentSource();
 
     if (this.stream == null
-        && typeRef.getAnnotation(EntityType.class).hasStream()
+        && TypeDescriptor.get(typeRef).hasStream()
         && contentSource != null) {
 
       final ODataMediaRequest retrieveReq =
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.domain.ClientCollectionValue;
+import org.apache.olingo.client.api.domain.ClientEnumValue;
+import org.apache.olingo.client.api.domain.ClientProperty;
+import org.apache.olingo.client.api.domain.ClientValue;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+
+/**
+ * Conversions used by the beans generated by pojogen (<tt>generateBeans</tt> mode) to bind their fields from and
+ * unbind them to client domain objects, without going through proxies and reflection.
+ */
+public final class BindingUtils {
+
+  private BindingUtils() {
+    // Empty private constructor for static utility classes
+  }
+
+  public static <T> T toPrimitive(final ClientValue value, final Class<T> reference) {
+    if (value == null || !value.isPrimitive()) {
+      return null;
+    }
+
+    // values already of the requested type are not converted through their string representation
+    final Object raw = value.asPrimitive().toValue();
+    if (raw == null || reference.isInstance(raw)) {
+      return reference.cast(raw);
+    }
+
+    try {
+      return value.asPrimitive().toCastValue(reference);
+    } catch (EdmPrimitiveTypeException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Gets the enum constant named by the given value. A value combining several members of a flags enumeration type
+   * (e.g. <tt>Read,Write</tt>) cannot be held by a single Java enum constant and is rejected.
+   *
+   * @param value enum value
+   * @param reference Java enum type
+   * @return enum constant, or <tt>null</tt> for a null value
+   * @throws IllegalArgumentException for combined flags or for names not matching any constant
+   */
+  public static <E extends Enum<E>> E toEnum(final ClientValue value, final Class<E> reference) {
+    if (value == null || !value.isEnum() || value.asEnum().getValue() == null) {
+      return null;
+    }
+
+    final String name = value.asEnum().getValue().trim();
+    if (name.indexOf(',') >= 0) {
+      throw new IllegalArgumentException("Combined flags value '" + name + "' cannot be bound to a single "
+          + reference.getSimpleName() + " constant");
+    }
+    return Enum.valueOf(reference, name);
+  }
+
+  public static <T> List<T> toPrimitives(final ClientValue value, final Class<T> reference) {
+    if (value == null || !value.isCollection()) {
+      return null;
+    }
+
+    final List<T> res = new ArrayList<T>();
+    for (ClientValue item : value.asCollection()) {
+      res.add(toPrimitive(item, reference));
+    }
+    return res;
+  }
+
+  public static <E extends Enum<E>> List<E> toEnums(final ClientValue value, final Class<E> reference) {
+    if (value == null || !value.isCollection()) {
+      return null;
+    }
+
+    final List<E> res = new ArrayList<E>();
+    for (ClientValue item : value.asCollection()) {
+      res.add(toEnum(item, reference));
+    }
+    return res;
+  }
+
+  public static ClientProperty newPrimitiveProperty(
+      final ODataClient client, final String name, final EdmPrimitiveTypeKind kind, final Object value) {
+
+    return client.getObjectFactory().newPrimitiveProperty(name, value == null
+        ? null
+        : client.getObjectFactory().newPrimitiveValueBuilder().setType(kind).setValue(value).build());
+  }
+
+  public static ClientProperty newEnumProperty(
+      final ODataClient client, final String name, final String typeName, final Enum<?> value) {
+
+    return value == null
+        ? client.getObjectFactory().newPrimitiveProperty(name, null)
+        : client.getObjectFactory().newEnumProperty(name,
+            client.getObjectFactory().newEnumValue(typeName, value.name()));
+  }
+
+  public static ClientProperty newPrimitiveCollectionProperty(
+      final ODataClient client, final String name, final EdmPrimitiveTypeKind kind, final Collection<?> values) {
+
+    if (values == null) {
+      return client.getObjectFactory().newPrimitiveProperty(name, null);
+    }
+
+    final ClientCollectionValue<ClientValue> collection =
+        client.getObjectFactory().newCollectionValue("Collection(" + kind.getFullQualifiedName() + ")");
+    for (Object item : values) {
+      collection.add(client.getObjectFactory().newPrimitiveValueBuilder().setType(kind).setValue(item).build());
+    }
+    return client.getObjectFactory().newCollectionProperty(name, collection);
+  }
+
+  public static ClientProperty newEnumCollectionProperty(
+      final ODataClient client, final String name, final String typeName, final Collection<? extends Enum<?>> values) {
+
+    if (values == null) {
+      return client.getObjectFactory().newPrimitiveProperty(name, null);
+    }
+
+    final ClientCollectionValue<ClientValue> collection =
+        client.getObjectFactory().newCollectionValue("Collection(" + typeName + ")");
+    for (Enum<?> item : values) {
+      final ClientEnumValue value = client.getObjectFactory().newEnumValue(typeName, item == null ? null : item.name());
+      collection.add(value);
+    }
+    return client.getObjectFactory().newCollectionProperty(name, collection);
+  }
+
+  public static ClientProperty newComplexCollectionProperty(
+      final ODataClient client, final String name, final String typeName,
+      final Collection<? extends ClientValue> values) {
+
+    if (values == null) {
+      return client.getObjectFactory().newPrimitiveProperty(name, null);
+    }
+
+    final ClientCollectionValue<ClientValue> collection =
+        client.getObjectFactory().newCollectionValue("Collection(" + typeName + ")");
+    for (ClientValue item : values) {
+      collection.add(item);
+    }
+    return client.getObjectFactory().newCollectionProperty(name, collection);
+  }
+}
@@ -23,8 +23,6 @@ import org.apache.olingo.ext.proxy.api.annotations.EntityType;
 import org.apache.olingo.ext.proxy.api.annotations.Key;
 import org.apache.olingo.ext.proxy.api.annotations.KeyRef;
 import org.apache.olingo.ext.proxy.api.annotations.Namespace;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
@@ -40,11 +38,6 @@ import java.util.Set;
 
 public final class ClassUtils {
 
-  /**
-   * Logger.
-   */
-  private static final Logger LOG = LoggerFactory.getLogger(ClassUtils.class);
-
   private ClassUtils() {
     // Empty private constructor for static utility classes
   }
@@ -78,23 +71,8 @@ public final class ClassUtils {
 
   public static Method findGetterByAnnotatedName(
           final Class<?> clazz, final Class<? extends Annotation> ann, final String name) {
-    final Method[] methods = clazz.getMethods();
-
-    Method result = null;
-    for (int i = 0; i < methods.length && result == null; i++) {
-      final Annotation annotation = methods[i].getAnnotation(ann);
-      try {
-        if ((annotation != null)
-                && methods[i].getName().startsWith("get") // Assumption: getter is always prefixed by 'get' word 
-                && name.equals(ann.getMethod("name").invoke(annotation))) {
-          result = methods[i];
-        }
-      } catch (Exception e) {
-        LOG.warn("Error retrieving value annotation name for {}.{}", clazz.getName(), methods[i].getName());
-      }
-    }
 
-    return result;
+    return TypeDescriptor.get(clazz).findGetterByAnnotatedName(ann, name);
   }
 
   public static <ANN extends Annotation> ANN getAnnotation(final Class<ANN> reference, final AccessibleObject obj) {
@@ -115,6 +93,10 @@ public final class ClassUtils {
   }
 
   public static Class<?> getKeyRef(final Class<?> entityTypeRef) {
+    return TypeDescriptor.get(entityTypeRef).getKeyRef();
+  }
+
+  static Class<?> findKeyRef(final Class<?> entityTypeRef) {
     Class<?> res = getCompoundKeyRef(entityTypeRef);
 
     if (res == null) {
@@ -137,6 +119,10 @@ public final class ClassUtils {
   }
 
   public static String getEntityTypeName(final Class<?> ref) {
+    return TypeDescriptor.get(ref).getEntityTypeName();
+  }
+
+  static String findEntityTypeName(final Class<?> ref) {
     final Annotation annotation = ref.getAnnotation(EntityType.class);
     if (!(annotation instanceof EntityType)) {
       throw new IllegalArgumentException(ref.getPackage().getName()
@@ -146,6 +132,10 @@ public final class ClassUtils {
   }
 
   public static String getNamespace(final Class<?> ref) {
+    return TypeDescriptor.get(ref).getNamespace();
+  }
+
+  static String findNamespace(final Class<?> ref) {
     final Annotation annotation = ref.getAnnotation(Namespace.class);
     if (!(annotation instanceof Namespace)) {
       throw new IllegalArgumentException(ref.getName()
@@ -0,0 +1,362 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.ext.proxy.api.EdmStreamValue;
+import org.apache.olingo.ext.proxy.api.annotations.EntityType;
+import org.apache.olingo.ext.proxy.api.annotations.NavigationProperty;
+import org.apache.olingo.ext.proxy.api.annotations.Property;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reflection metadata of a proxied interface (or of an invocation handler class), computed once per class and shared
+ * by all invocation handlers.
+ * <br/>
+ * Lookups are lazy and their results kept, so that repeated proxy invocations do not go through
+ * <tt>getMethods()</tt> / <tt>getAnnotation()</tt> again.
+ */
+public final class TypeDescriptor {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOG = LoggerFactory.getLogger(TypeDescriptor.class);
+
+  /**
+   * Descriptors by class, read without locking. Keys are weak and values soft, since a descriptor refers to its class
+   * (and its methods): classes of an undeployed application can then be unloaded together with their class loader.
+   */
+  private static final ConcurrentMap<ClassKey, SoftReference<TypeDescriptor>> DESCRIPTORS =
+      new ConcurrentHashMap<ClassKey, SoftReference<TypeDescriptor>>();
+
+  private static final ReferenceQueue<Class<?>> COLLECTED = new ReferenceQueue<Class<?>>();
+
+  /**
+   * Marks methods not found, since concurrent maps do not hold null values.
+   */
+  private static final Method NONE;
+
+  static {
+    try {
+      NONE = Object.class.getMethod("toString");
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private final Class<?> ref;
+
+  private final ConcurrentMap<String, Accessor> accessors = new ConcurrentHashMap<String, Accessor>();
+
+  private final ConcurrentMap<Class<? extends Annotation>, Map<String, Method>> annotatedGetters =
+      new ConcurrentHashMap<Class<? extends Annotation>, Map<String, Method>>();
+
+  private final ConcurrentMap<Method, Method> publicMethods = new ConcurrentHashMap<Method, Method>();
+
+  private volatile Set<String> propertyNames;
+
+  // the values below can be null: each one is published by the write of its volatile 'found' flag
+
+  private Class<?> keyRef;
+
+  private volatile boolean keyRefFound;
+
+  private String entityTypeName;
+
+  private volatile boolean entityTypeNameFound;
+
+  private String namespace;
+
+  private volatile boolean namespaceFound;
+
+  private volatile Boolean stream;
+
+  private TypeDescriptor(final Class<?> ref) {
+    this.ref = ref;
+  }
+
+  /**
+   * Gets the descriptor of the given class.
+   *
+   * @param ref class
+   * @return shared descriptor
+   */
+  public static TypeDescriptor get(final Class<?> ref) {
+    final SoftReference<TypeDescriptor> cached = DESCRIPTORS.get(new ClassKey(ref, null));
+    TypeDescriptor descriptor = cached == null ? null : cached.get();
+    if (descriptor == null) {
+      expungeCollected();
+      descriptor = new TypeDescriptor(ref);
+      final SoftReference<TypeDescriptor> created = new SoftReference<TypeDescriptor>(descriptor);
+      final SoftReference<TypeDescriptor> previous = DESCRIPTORS.putIfAbsent(new ClassKey(ref, COLLECTED), created);
+      if (previous != null) {
+        final TypeDescriptor existing = previous.get();
+        if (existing == null) {
+          DESCRIPTORS.replace(new ClassKey(ref, null), previous, created);
+        } else {
+          descriptor = existing;
+        }
+      }
+    }
+    return descriptor;
+  }
+
+  private static void expungeCollected() {
+    Reference<? extends Class<?>> collected;
+    while ((collected = COLLECTED.poll()) != null) {
+      DESCRIPTORS.remove(collected);
+    }
+  }
+
+  public Class<?> getRef() {
+    return ref;
+  }
+
+  /**
+   * Gets the property accessor invoked by the given getter or setter name; a setter is resolved through the
+   * corresponding getter.
+   *
+   * @param methodName getter or setter name
+   * @return property accessor
+   * @throws NoSuchMethodException if no public getter exists
+   */
+  public Accessor getAccessor(final String methodName) throws NoSuchMethodException {
+    Accessor accessor = accessors.get(methodName);
+    if (accessor == null) {
+      final String getterName = methodName.startsWith("set") ? methodName.replaceFirst("set", "get") : methodName;
+      accessor = new Accessor(ref.getMethod(getterName));
+      final Accessor previous = accessors.putIfAbsent(methodName, accessor);
+      if (previous != null) {
+        accessor = previous;
+      }
+    }
+    return accessor;
+  }
+
+  /**
+   * Gets the first public getter annotated with the given annotation, whose <tt>name()</tt> is the given one.
+   *
+   * @param ann annotation, exposing a <tt>name()</tt> attribute
+   * @param name annotated name
+   * @return getter; null if not found
+   */
+  public Method findGetterByAnnotatedName(final Class<? extends Annotation> ann, final String name) {
+    Map<String, Method> getters = annotatedGetters.get(ann);
+    if (getters == null) {
+      getters = new LinkedHashMap<String, Method>();
+      for (Method method : ref.getMethods()) {
+        final Annotation annotation = method.getAnnotation(ann);
+        // Assumption: getter is always prefixed by 'get' word
+        if (annotation != null && method.getName().startsWith("get")) {
+          try {
+            final Object annotatedName = ann.getMethod("name").invoke(annotation);
+            if (annotatedName instanceof String && !getters.containsKey(annotatedName)) {
+              getters.put((String) annotatedName, method);
+            }
+          } catch (Exception e) {
+            LOG.warn("Error retrieving value annotation name for {}.{}", ref.getName(), method.getName());
+          }
+        }
+      }
+      annotatedGetters.putIfAbsent(ann, Collections.unmodifiableMap(getters));
+    }
+    return getters.get(name);
+  }
+
+  /**
+   * Gets names of all the properties declared through {@link Property} annotated getters.
+   *
+   * @return property names
+   */
+  public Set<String> getPropertyNames() {
+    Set<String> names = propertyNames;
+    if (names == null) {
+      names = new HashSet<String>();
+      for (Method method : ref.getMethods()) {
+        final Property property = method.getAnnotation(Property.class);
+        if (property != null) {
+          names.add(property.name());
+        }
+      }
+      names = Collections.unmodifiableSet(names);
+      propertyNames = names;
+    }
+    return names;
+  }
+
+  /**
+   * Gets the public method of the described class having the same name and parameter types as the given one.
+   *
+   * @param method method, usually declared by a proxied interface
+   * @return public method; null if not found
+   */
+  public Method getPublicMethod(final Method method) {
+    Method found = publicMethods.get(method);
+    if (found == null) {
+      try {
+        found = ref.getMethod(method.getName(), method.getParameterTypes());
+      } catch (NoSuchMethodException e) {
+        found = NONE;
+      }
+      publicMethods.putIfAbsent(method, found);
+    }
+    return found == NONE ? null : found;
+  }
+
+  /**
+   * @see ClassUtils#getKeyRef(Class)
+   */
+  public Class<?> getKeyRef() {
+    if (!keyRefFound) {
+      keyRef = ClassUtils.findKeyRef(ref);
+      keyRefFound = true;
+    }
+    return keyRef;
+  }
+
+  /**
+   * @see ClassUtils#getEntityTypeName(Class)
+   */
+  public String getEntityTypeName() {
+    if (!entityTypeNameFound) {
+      entityTypeName = ClassUtils.findEntityTypeName(ref);
+      entityTypeNameFound = true;
+    }
+    return entityTypeName;
+  }
+
+  /**
+   * @see ClassUtils#getNamespace(Class)
+   */
+  public String getNamespace() {
+    if (!namespaceFound) {
+      namespace = ClassUtils.findNamespace(ref);
+      namespaceFound = true;
+    }
+    return namespace;
+  }
+
+  /**
+   * Checks whether the described entity type is a media entity.
+   *
+   * @return 'TRUE' if annotated as {@link EntityType} having stream
+   */
+  public boolean hasStream() {
+    Boolean res = stream;
+    if (res == null) {
+      final EntityType entityType = ref.getAnnotation(EntityType.class);
+      res = entityType != null && entityType.hasStream();
+      stream = res;
+    }
+    return res;
+  }
+
+  /**
+   * Weak reference to a class, comparing by identity of the referenced class.
+   */
+  private static final class ClassKey extends WeakReference<Class<?>> {
+
+    private final int hash;
+
+    ClassKey(final Class<?> ref, final ReferenceQueue<Class<?>> queue) {
+      super(ref, queue);
+      hash = System.identityHashCode(ref);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof ClassKey)) {
+        return false;
+      }
+      final Class<?> ref = get();
+      return ref != null && ref == ((ClassKey) obj).get();
+    }
+  }
+
+  /**
+   * Getter of a structural or navigation property, with its annotations.
+   */
+  public static final class Accessor {
+
+    private final Method getter;
+
+    private final Type type;
+
+    private final Property property;
+
+    private final NavigationProperty navigationProperty;
+
+    private Accessor(final Method getter) {
+      this.getter = getter;
+      this.type = getter.getGenericReturnType();
+      this.property = getter.getAnnotation(Property.class);
+      this.navigationProperty = property == null ? getter.getAnnotation(NavigationProperty.class) : null;
+    }
+
+    public Method getGetter() {
+      return getter;
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    /**
+     * @return structural property annotation; null for navigation or unsupported properties
+     */
+    public Property getProperty() {
+      return property;
+    }
+
+    /**
+     * @return navigation property annotation; null for structural or unsupported properties
+     */
+    public NavigationProperty getNavigationProperty() {
+      return navigationProperty;
+    }
+
+    public boolean isStream() {
+      return getter.getReturnType() == EdmStreamValue.class;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.domain.ClientComplexValue;
+import org.apache.olingo.client.api.domain.ClientProperty;
+import org.apache.olingo.client.api.domain.ClientValue;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.junit.Test;
+
+public class BindingUtilsTest {
+
+  private static final String COLOR = "Test.Color";
+
+  public enum Color {
+    Red, Green, Blue
+  }
+
+  private final ODataClient client = ODataClientFactory.getClient();
+
+  @Test
+  public void primitive() {
+    final String value = "text";
+    final ClientProperty property = BindingUtils.newPrimitiveProperty(client, "P", EdmPrimitiveTypeKind.String, value);
+    // no string round trip for values already of the requested type
+    assertSame(value, BindingUtils.toPrimitive(property.getValue(), String.class));
+
+    final ClientProperty number = BindingUtils.newPrimitiveProperty(client, "P", EdmPrimitiveTypeKind.Int16, 42);
+    assertEquals(Long.valueOf(42), BindingUtils.toPrimitive(number.getValue(), Long.class));
+  }
+
+  @Test
+  public void enumeration() {
+    final ClientProperty property = BindingUtils.newEnumProperty(client, "P", COLOR, Color.Green);
+    assertEquals("Green", property.getEnumValue().getValue());
+    assertEquals(Color.Green, BindingUtils.toEnum(property.getValue(), Color.class));
+    assertEquals(Color.Blue, BindingUtils.toEnum(client.getObjectFactory().newEnumValue(COLOR, " Blue"), Color.class));
+  }
+
+  @Test
+  public void combinedFlags() {
+    try {
+      BindingUtils.toEnum(client.getObjectFactory().newEnumValue(COLOR, "Red,Blue"), Color.class);
+      fail("Combined flags bound to a single constant");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("Red,Blue"));
+    }
+    try {
+      BindingUtils.toEnum(client.getObjectFactory().newEnumValue(COLOR, "Yellow"), Color.class);
+      fail("Unknown member bound");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void collections() {
+    final ClientProperty primitives = BindingUtils.newPrimitiveCollectionProperty(client, "P",
+        EdmPrimitiveTypeKind.Int32, Arrays.asList(1, 2, 3));
+    assertEquals("Collection(Edm.Int32)", primitives.getCollectionValue().getTypeName());
+    assertEquals(Arrays.asList(1, 2, 3), BindingUtils.toPrimitives(primitives.getValue(), Integer.class));
+
+    final ClientProperty enums = BindingUtils.newEnumCollectionProperty(client, "P", COLOR,
+        Arrays.asList(Color.Blue, Color.Red));
+    assertEquals(Arrays.asList(Color.Blue, Color.Red), BindingUtils.toEnums(enums.getValue(), Color.class));
+
+    final ClientComplexValue complex = client.getObjectFactory().newComplexValue("Test.Address");
+    complex.add(BindingUtils.newPrimitiveProperty(client, "City", EdmPrimitiveTypeKind.String, "Rome"));
+    final ClientProperty complexes = BindingUtils.newComplexCollectionProperty(client, "P", "Test.Address",
+        Collections.<ClientValue> singletonList(complex));
+    assertEquals("Collection(Test.Address)", complexes.getCollectionValue().getTypeName());
+    assertSame(complex, complexes.getCollectionValue().iterator().next());
+
+    final List<Integer> empty = BindingUtils.toPrimitives(BindingUtils.newPrimitiveCollectionProperty(client, "P",
+        EdmPrimitiveTypeKind.Int32, Collections.emptyList()).getValue(), Integer.class);
+    assertTrue(empty.isEmpty());
+  }
+
+  @Test
+  public void nulls() {
+    assertTrue(BindingUtils.newPrimitiveProperty(client, "P", EdmPrimitiveTypeKind.String, null).hasNullValue());
+    assertTrue(BindingUtils.newEnumProperty(client, "P", COLOR, null).hasNullValue());
+    assertTrue(BindingUtils.newPrimitiveCollectionProperty(client, "P", EdmPrimitiveTypeKind.String, null)
+        .hasNullValue());
+    assertTrue(BindingUtils.newEnumCollectionProperty(client, "P", COLOR, null).hasNullValue());
+    assertTrue(BindingUtils.newComplexCollectionProperty(client, "P", "Test.Address", null).hasNullValue());
+
+    assertNull(BindingUtils.toPrimitive(null, String.class));
+    assertNull(BindingUtils.toEnum(null, Color.class));
+    assertNull(BindingUtils.toPrimitives(null, String.class));
+    assertNull(BindingUtils.toEnums(null, Color.class));
+    // a value of another kind is not bound
+    final ClientValue primitive =
+        BindingUtils.newPrimitiveProperty(client, "P", EdmPrimitiveTypeKind.String, "Red").getValue();
+    assertNull(BindingUtils.toEnum(primitive, Color.class));
+    assertNull(BindingUtils.toPrimitives(primitive, String.class));
+  }
+}
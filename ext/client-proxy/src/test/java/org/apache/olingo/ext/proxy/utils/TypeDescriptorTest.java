@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.ext.proxy.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TypeDescriptorTest {
+
+  public interface Probe {
+
+    String getName();
+  }
+
+  @Test
+  public void shared() throws Exception {
+    final TypeDescriptor descriptor = TypeDescriptor.get(Probe.class);
+    assertSame(descriptor, TypeDescriptor.get(Probe.class));
+    assertEquals(Probe.class.getMethod("getName"), descriptor.getAccessor("getName").getGetter());
+  }
+
+  @Test
+  public void classLoaderIsNotRetained() throws Exception {
+    final WeakReference<ClassLoader> loader = describeInOwnClassLoader();
+
+    for (int i = 0; i < 3 && loader.get() != null; i++) {
+      exhaustMemory();
+    }
+    assertNull(loader.get());
+  }
+
+  private WeakReference<ClassLoader> describeInOwnClassLoader() throws Exception {
+    final URL classes = Probe.class.getProtectionDomain().getCodeSource().getLocation();
+    final ClassLoader loader = new URLClassLoader(new URL[] { classes }, null);
+    final Class<?> probe = loader.loadClass(Probe.class.getName());
+    assertNotSame(Probe.class, probe);
+
+    final TypeDescriptor descriptor = TypeDescriptor.get(probe);
+    assertSame(descriptor, TypeDescriptor.get(probe));
+    descriptor.getAccessor("getName");
+    return new WeakReference<ClassLoader>(loader);
+  }
+
+  private void exhaustMemory() {
+    // a full collection clearing all soft references is guaranteed to happen before an OutOfMemoryError is thrown
+    try {
+      final List<byte[]> garbage = new ArrayList<byte[]>();
+      while (true) {
+        garbage.add(new byte[16 * 1024 * 1024]);
+      }
+    } catch (OutOfMemoryError e) {
+      // expected
+    }
+  }
+}
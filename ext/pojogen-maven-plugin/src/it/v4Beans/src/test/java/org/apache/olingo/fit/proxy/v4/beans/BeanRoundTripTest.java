@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.fit.proxy.v4.beans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.fit.proxy.v4.beans.microsoft.test.odata.services.odatawcfservice.types.AccessLevel;
+import org.apache.olingo.fit.proxy.v4.beans.microsoft.test.odata.services.odatawcfservice.types.AddressBean;
+import org.apache.olingo.fit.proxy.v4.beans.microsoft.test.odata.services.odatawcfservice.types.Color;
+import org.apache.olingo.fit.proxy.v4.beans.microsoft.test.odata.services.odatawcfservice.types.PersonBean;
+import org.apache.olingo.fit.proxy.v4.beans.microsoft.test.odata.services.odatawcfservice.types.ProductBean;
+import org.junit.Test;
+
+/**
+ * Unbinds generated beans to client entities, writes and reads these as JSON and binds them again.
+ */
+public class BeanRoundTripTest {
+
+  private final ODataClient client = ODataClientFactory.getClient();
+
+  @Test
+  public void primitiveComplexCollectionAndNull() throws Exception {
+    final AddressBean address = new AddressBean();
+    address.setStreet("1 Microsoft Way");
+    address.setCity("Redmond");
+    address.setPostalCode("98052");
+
+    final PersonBean person = new PersonBean();
+    person.setPersonID(42);
+    person.setFirstName("Bob");
+    person.setLastName("Cat");
+    person.setHomeAddress(address);
+    person.setNumbers(Arrays.asList("111-111-1111", "012"));
+
+    final ClientEntity entity = person.toClientEntity(client);
+    // null fields are not unbound
+    assertNull(entity.getProperty("MiddleName"));
+    assertNull(entity.getProperty("Emails"));
+
+    final PersonBean read = PersonBean.fromClientEntity(roundTrip(entity));
+    assertEquals(Integer.valueOf(42), read.getPersonID());
+    assertEquals("Bob", read.getFirstName());
+    assertEquals("Cat", read.getLastName());
+    assertNull(read.getMiddleName());
+    assertEquals("1 Microsoft Way", read.getHomeAddress().getStreet());
+    assertEquals("Redmond", read.getHomeAddress().getCity());
+    assertEquals("98052", read.getHomeAddress().getPostalCode());
+    assertEquals(Arrays.asList("111-111-1111", "012"), read.getNumbers());
+    assertNull(read.getEmails());
+  }
+
+  @Test
+  public void enums() throws Exception {
+    final ProductBean product = new ProductBean();
+    product.setProductID(6);
+    product.setName("Mushrooms");
+    product.setUnitPrice(3.24F);
+    product.setDiscontinued(false);
+    product.setUserAccess(AccessLevel.ReadWrite);
+    product.setSkinColor(Color.Blue);
+    product.setCoverColors(Arrays.asList(Color.Red, Color.Green));
+
+    final ProductBean read = ProductBean.fromClientEntity(roundTrip(product.toClientEntity(client)));
+    assertEquals(Integer.valueOf(6), read.getProductID());
+    assertEquals("Mushrooms", read.getName());
+    assertEquals(Float.valueOf(3.24F), read.getUnitPrice());
+    assertFalse(read.getDiscontinued());
+    assertEquals(AccessLevel.ReadWrite, read.getUserAccess());
+    assertEquals(Color.Blue, read.getSkinColor());
+    assertEquals(Arrays.asList(Color.Red, Color.Green), read.getCoverColors());
+    assertNull(read.getQuantityInStock());
+  }
+
+  @Test
+  public void combinedFlagsAreRejected() throws Exception {
+    final ClientEntity entity = client.getObjectFactory().newEntity(ProductBean.TYPE_NAME);
+    entity.getProperties().add(client.getObjectFactory().newEnumProperty("UserAccess",
+        client.getObjectFactory().newEnumValue("Microsoft.Test.OData.Services.ODataWCFService.AccessLevel",
+            "Read,Write")));
+    try {
+      ProductBean.fromClientEntity(entity);
+      fail("Combined flags bound to a single enum constant");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  private ClientEntity roundTrip(final ClientEntity entity) throws Exception {
+    return client.getReader().readEntity(
+        client.getWriter().writeEntity(entity, ContentType.JSON_FULL_METADATA), ContentType.JSON_FULL_METADATA);
+  }
+}
@@ -0,0 +1,31 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+File basepkg = new File( basedir, "target/generated-sources/ojc-plugin/org/apache/olingo/fit/proxy/v4/beans" );
+assert basepkg.isDirectory() && basepkg.listFiles().length>0;
+
+def beans = [];
+basepkg.eachFileRecurse { if (it.name.endsWith("Bean.java")) beans << it };
+assert beans.size() > 0;
+
+beans.each { bean ->
+  String path = bean.path.substring(bean.path.indexOf("ojc-plugin") + "ojc-plugin".length()).replace(".java", ".class");
+  File compiled = new File( basedir, "target/classes" + path );
+  assert compiled.isFile() : "Not compiled: " + bean;
+}
+return true;
@@ -54,6 +54,7 @@ import org.apache.olingo.commons.api.edm.EdmEntitySet;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmEnumType;
 import org.apache.olingo.commons.api.edm.EdmSchema;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
 import org.apache.olingo.commons.api.edm.EdmTerm;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.velocity.Template;
@@ -88,6 +89,13 @@ public abstract class AbstractPOJOGenMojo extends AbstractMojo {
   @Parameter(property = "basePackage", required = false)
   protected String basePackage;
 
+  /**
+   * Whether to generate, besides the proxy interfaces, a concrete bean for each entity and complex type, storing
+   * property values in fields and binding them from / to client domain objects without dynamic proxies.
+   */
+  @Parameter(property = "generateBeans", defaultValue = "false")
+  protected boolean generateBeans;
+
   protected final Set<String> namespaces = new HashSet<String>();
 
   protected static String TOOL_DIR = "ojc-plugin";
@@ -192,6 +200,15 @@ public abstract class AbstractPOJOGenMojo extends AbstractMojo {
     writeFile(out, base, ctx, template, append);
   }
 
+  protected void parseBean(final File base, final String pkg, final EdmStructuredType type, final boolean isEntity,
+      final String className) throws MojoExecutionException {
+
+    final Map<String, Object> objs = new HashMap<String, Object>();
+    objs.put("structuredType", type);
+    objs.put("isEntity", isEntity);
+    parseObj(base, pkg, "bean", className + "Bean.java", objs);
+  }
+
   protected abstract void createUtility(Edm edm, EdmSchema schema, String basePackage);
 
   protected abstract AbstractUtility getUtility();
@@ -304,6 +321,9 @@ public abstract class AbstractPOJOGenMojo extends AbstractMojo {
                   "complexCollection", className + "Collection.java", objs);
           parseObj(typesBaseDir, typesPkg, 
                   "complexCollectionComposableInvoker", className + "CollectionComposableInvoker.java", objs);
+          if (generateBeans) {
+            parseBean(typesBaseDir, typesPkg, complex, false, className);
+          }
         }
 
         for (EdmEntityType entity : schema.getEntityTypes()) {
@@ -348,6 +368,9 @@ public abstract class AbstractPOJOGenMojo extends AbstractMojo {
                   "entityCollection", className + "Collection.java", objs);
           parseObj(typesBaseDir, typesPkg, 
                   "entityCollectionComposableInvoker", className + "CollectionComposableInvoker.java", objs);
+          if (generateBeans) {
+            parseBean(typesBaseDir, typesPkg, entity, true, className);
+          }
         }
 
         // write container and top entity sets into the base package
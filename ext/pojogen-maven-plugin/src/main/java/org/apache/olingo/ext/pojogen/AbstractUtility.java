@@ -35,6 +35,7 @@ import org.apache.olingo.commons.api.edm.EdmSingleton;
 import org.apache.olingo.commons.api.edm.EdmStructuredType;
 import org.apache.olingo.commons.api.edm.EdmType;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
 import org.apache.olingo.commons.core.edm.EdmTypeInfo;
 
@@ -349,6 +350,29 @@ public abstract class AbstractUtility {
     return res.toString();
   }
 
+  /**
+   * Gets the Java type of a generated bean field for the given (item) type: complex types are mapped to their
+   * generated bean, other types as in {@link #getJavaType(EdmType)}.
+   *
+   * @param type property (item) type
+   * @return Java type
+   */
+  public String getBeanType(final EdmType type) {
+    return type.getKind() == EdmTypeKind.COMPLEX ? getJavaType(type) + "Bean" : getJavaType(type);
+  }
+
+  /**
+   * Gets the Java type of the generated bean field for the given property.
+   *
+   * @param property property
+   * @return Java type
+   */
+  public String getBeanType(final EdmProperty property) {
+    return property.isCollection()
+        ? "java.util.List<" + getBeanType(property.getType()) + ">"
+        : getBeanType(property.getType());
+  }
+
   public EdmTypeInfo getEdmType(final EdmEntitySet entitySet) {
     return getEdmTypeInfo(entitySet.getEntityType().getFullQualifiedName().toString());
   }
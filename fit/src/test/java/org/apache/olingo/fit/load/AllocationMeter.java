@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.fit.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Allocated bytes as reported by the HotSpot thread management extension.
+ * <br/>
+ * All methods return -1 when the running JVM does not provide the extension.
+ */
+public final class AllocationMeter {
+
+  private static final com.sun.management.ThreadMXBean THREADS = lookup();
+
+  private AllocationMeter() {
+    // static helpers only
+  }
+
+  private static com.sun.management.ThreadMXBean lookup() {
+    try {
+      final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      if (threads instanceof com.sun.management.ThreadMXBean) {
+        final com.sun.management.ThreadMXBean hotSpot = (com.sun.management.ThreadMXBean) threads;
+        if (hotSpot.isThreadAllocatedMemorySupported()) {
+          hotSpot.setThreadAllocatedMemoryEnabled(true);
+          return hotSpot;
+        }
+      }
+    } catch (final LinkageError e) {
+      // not a HotSpot-based JVM
+    } catch (final UnsupportedOperationException e) {
+      // measurement cannot be enabled
+    }
+    return null;
+  }
+
+  public static boolean isSupported() {
+    return THREADS != null;
+  }
+
+  /**
+   * Gets the bytes allocated so far by the calling thread.
+   */
+  public static long currentThread() {
+    return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Gets the bytes allocated so far by all live threads, i.e. by the client workers and the server alike.
+   */
+  public static long allThreads() {
+    if (THREADS == null) {
+      return -1;
+    }
+    long total = 0;
+    for (final long bytes : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+      if (bytes > 0) {
+        total += bytes;
+      }
+    }
+    return total;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.fit.load;
+
+import java.util.Arrays;
+
+/**
+ * Latencies and allocations of one scenario, as recorded by one or more workers.
+ * <br/>
+ * All samples are kept, so that percentiles are exact; a recorder is not thread-safe, every worker fills its own and
+ * they are merged once the run is over.
+ */
+public class LatencyRecorder {
+
+  private long[] latencies = new long[1024];
+
+  private int count;
+
+  private long allocated;
+
+  private int errors;
+
+  private Throwable firstError;
+
+  private boolean sorted;
+
+  /**
+   * Records a successful operation.
+   *
+   * @param nanos elapsed time
+   * @param bytes bytes allocated by the calling thread, or a negative value if unknown
+   */
+  public void record(final long nanos, final long bytes) {
+    if (count == latencies.length) {
+      latencies = Arrays.copyOf(latencies, count * 2);
+    }
+    latencies[count++] = nanos;
+    allocated = allocated < 0 || bytes < 0 ? -1 : allocated + bytes;
+    sorted = false;
+  }
+
+  public void fail(final Throwable error) {
+    if (firstError == null) {
+      firstError = error;
+    }
+    errors++;
+  }
+
+  public void merge(final LatencyRecorder other) {
+    if (count + other.count > latencies.length) {
+      latencies = Arrays.copyOf(latencies, count + other.count);
+    }
+    System.arraycopy(other.latencies, 0, latencies, count, other.count);
+    count += other.count;
+    allocated = allocated < 0 || other.allocated < 0 ? -1 : allocated + other.allocated;
+    errors += other.errors;
+    if (firstError == null) {
+      firstError = other.firstError;
+    }
+    sorted = false;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public int getErrors() {
+    return errors;
+  }
+
+  public Throwable getFirstError() {
+    return firstError;
+  }
+
+  /**
+   * Gets the average number of bytes allocated per operation by the client thread, or -1 if unknown.
+   */
+  public long getAllocatedPerOperation() {
+    return allocated < 0 || count == 0 ? -1 : allocated / count;
+  }
+
+  /**
+   * Gets the latency (in nanoseconds) below which the given fraction of the operations completed.
+   *
+   * @param fraction between 0 and 1, e.g. 0.999 for the 99.9th percentile
+   */
+  public long getPercentile(final double fraction) {
+    if (count == 0) {
+      return 0;
+    }
+    if (!sorted) {
+      Arrays.sort(latencies, 0, count);
+      sorted = true;
+    }
+    final int rank = (int) Math.ceil(fraction * count);
+    return latencies[Math.min(count, Math.max(rank, 1)) - 1];
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.fit.load;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Iterator;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.batch.BatchManager;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchResponseItem;
+import org.apache.olingo.client.api.communication.request.cud.ODataDeleteRequest;
+import org.apache.olingo.client.api.communication.request.cud.UpdateType;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataRetrieveRequest;
+import org.apache.olingo.client.api.communication.request.streamed.ODataMediaEntityCreateRequest;
+import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
+import org.apache.olingo.client.api.communication.response.ODataEntityCreateResponse;
+import org.apache.olingo.client.api.communication.response.ODataMediaEntityCreateResponse;
+import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientLink;
+import org.apache.olingo.client.api.domain.ClientObjectFactory;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.format.ContentType;
+
+/**
+ * Operations driven by the load test against the technical service.
+ * <br/>
+ * Each execution is timed as a whole; the optional clean-up, which keeps the session data from growing during long
+ * runs, is not.
+ */
+public enum LoadScenario {
+
+  /**
+   * Single entity read by key.
+   */
+  KEY_READ("keyRead") {
+    @Override
+    public Object execute(final LoadSession session) {
+      return retrieve(session, session.getClient().getRetrieveRequestFactory().getEntityRequest(
+          session.newURIBuilder().appendEntitySetSegment(ES_ALL_PRIM).appendKeySegment(32767).build()));
+    }
+  },
+
+  /**
+   * Filtered and ordered entity collection.
+   */
+  FILTERED_COLLECTION("filter") {
+    @Override
+    public Object execute(final LoadSession session) {
+      return retrieve(session, session.getClient().getRetrieveRequestFactory().getEntitySetRequest(
+          session.newURIBuilder().appendEntitySetSegment(ES_ALL_PRIM)
+              .filter("PropertyInt16 ge 0 and PropertyString ne 'load'")
+              .orderBy("PropertyString desc")
+              .build()));
+    }
+  },
+
+  /**
+   * Entity collection expanded over three levels of navigation.
+   */
+  DEEP_EXPAND("expand") {
+    @Override
+    public Object execute(final LoadSession session) {
+      return retrieve(session, session.getClient().getRetrieveRequestFactory().getEntitySetRequest(
+          session.newURIBuilder().appendEntitySetSegment("ESKeyNav")
+              .expand("NavPropertyETKeyNavOne",
+                  "NavPropertyETTwoKeyNavMany($expand=NavPropertyETKeyNavMany($expand=NavPropertyETTwoKeyNavOne))")
+              .build()));
+    }
+  },
+
+  /**
+   * Batch with three reads and a change set updating one entity.
+   */
+  BATCH("batch") {
+    @Override
+    public Object execute(final LoadSession session) {
+      final ODataClient client = session.getClient();
+      final BatchManager payload =
+          session.prepare(client.getBatchRequestFactory().getBatchRequest(session.getServiceRoot())).payloadManager();
+
+      for (final int key : new int[] { 32767, -32768, 0 }) {
+        payload.addRequest(client.getRetrieveRequestFactory().getEntityRequest(
+            session.newURIBuilder().appendEntitySetSegment(ES_ALL_PRIM).appendKeySegment(key).build()));
+      }
+
+      final ClientObjectFactory factory = client.getObjectFactory();
+      final ClientEntity changes = factory.newEntity(ET_ALL_PRIM);
+      changes.getProperties().add(factory.newPrimitiveProperty("PropertyString",
+          factory.newPrimitiveValueBuilder().buildString("batch")));
+      payload.addChangeset().addRequest(client.getCUDRequestFactory().getEntityUpdateRequest(
+          session.newURIBuilder().appendEntitySetSegment(ES_ALL_PRIM).appendKeySegment(0).build(),
+          UpdateType.PATCH, changes));
+
+      final ODataBatchResponse response = session.track(payload.getResponse());
+      try {
+        final Iterator<ODataBatchResponseItem> items = response.getBody();
+        while (items.hasNext()) {
+          final ODataBatchResponseItem item = items.next();
+          while (item.hasNext()) {
+            final ODataResponse part = item.next();
+            if (part.getStatusCode() >= 400) {
+              throw new IllegalStateException("Batch item failed: " + part.getStatusCode() + ' '
+                  + part.getStatusMessage());
+            }
+            if (part instanceof ODataRetrieveResponse) {
+              ((ODataRetrieveResponse<?>) part).getBody();
+            }
+          }
+        }
+      } finally {
+        response.close();
+      }
+      return null;
+    }
+  },
+
+  /**
+   * Media entity upload followed by the download of its content.
+   */
+  MEDIA("media") {
+    @Override
+    public Object execute(final LoadSession session) throws Exception {
+      final ODataClient client = session.getClient();
+      final ODataMediaEntityCreateRequest<ClientEntity> request = session.prepare(
+          client.getCUDRequestFactory().getMediaEntityCreateRequest(
+              session.newURIBuilder().appendEntitySetSegment(ES_MEDIA).build(),
+              new ByteArrayInputStream(session.getMedia())));
+      request.setContentType(ContentType.APPLICATION_OCTET_STREAM.toContentTypeString());
+
+      final ODataMediaEntityCreateResponse<ClientEntity> response =
+          session.track(request.payloadManager().getResponse());
+      final Object key;
+      try {
+        key = getKey(response.getBody());
+      } finally {
+        response.close();
+      }
+
+      final ODataRetrieveResponse<InputStream> media = session.prepare(
+          client.getRetrieveRequestFactory().getMediaRequest(
+              session.newURIBuilder().appendEntitySetSegment(ES_MEDIA).appendKeySegment(key).appendValueSegment()
+                  .build()))
+          .execute();
+      try {
+        final long length = IOUtils.skip(media.getBody(), Long.MAX_VALUE);
+        if (length != session.getMedia().length) {
+          throw new IllegalStateException("Downloaded " + length + " bytes instead of " + session.getMedia().length);
+        }
+      } finally {
+        media.close();
+      }
+      return key;
+    }
+
+    @Override
+    public void cleanUp(final LoadSession session, final Object result) {
+      delete(session, ES_MEDIA, result);
+    }
+  },
+
+  /**
+   * Entity creation together with three related entities in a single request.
+   */
+  DEEP_INSERT("deepInsert") {
+    @Override
+    public Object execute(final LoadSession session) {
+      final ODataClient client = session.getClient();
+      final ClientObjectFactory factory = client.getObjectFactory();
+
+      // the related entities have a mandatory navigation property, bound to an existing entity
+      final URI twoPrim = session.newURIBuilder().appendEntitySetSegment(ES_TWO_PRIM).appendKeySegment(32766).build();
+      final ClientEntity entity = newEntity(factory, ET_TWO_PRIM, 1);
+      entity.addLink(factory.newDeepInsertEntity(NAV_ALL_PRIM_ONE, newAllPrim(factory, 1, twoPrim)));
+      final ClientEntitySet many = factory.newEntitySet();
+      many.getEntities().add(newAllPrim(factory, 2, twoPrim));
+      many.getEntities().add(newAllPrim(factory, 3, twoPrim));
+      entity.addLink(factory.newDeepInsertEntitySet(NAV_ALL_PRIM_MANY, many));
+
+      final ODataEntityCreateResponse<ClientEntity> response = session.track(session.prepare(
+          client.getCUDRequestFactory().getEntityCreateRequest(
+              session.newURIBuilder().appendEntitySetSegment(ES_TWO_PRIM).build(), entity))
+          .execute());
+      try {
+        return response.getBody();
+      } finally {
+        response.close();
+      }
+    }
+
+    @Override
+    public void cleanUp(final LoadSession session, final Object result) {
+      final ClientEntity created = (ClientEntity) result;
+      final ClientLink one = created.getNavigationLink(NAV_ALL_PRIM_ONE);
+      if (one != null && one.asInlineEntity() != null) {
+        delete(session, ES_ALL_PRIM, getKey(one.asInlineEntity().getEntity()));
+      }
+      final ClientLink many = created.getNavigationLink(NAV_ALL_PRIM_MANY);
+      if (many != null && many.asInlineEntitySet() != null) {
+        for (final ClientEntity related : many.asInlineEntitySet().getEntitySet().getEntities()) {
+          delete(session, ES_ALL_PRIM, getKey(related));
+        }
+      }
+      delete(session, ES_TWO_PRIM, getKey(created));
+    }
+  };
+
+  private static final String NAMESPACE = "olingo.odata.test1";
+
+  private static final FullQualifiedName ET_ALL_PRIM = new FullQualifiedName(NAMESPACE, "ETAllPrim");
+
+  private static final FullQualifiedName ET_TWO_PRIM = new FullQualifiedName(NAMESPACE, "ETTwoPrim");
+
+  private static final String ES_ALL_PRIM = "ESAllPrim";
+
+  private static final String ES_TWO_PRIM = "ESTwoPrim";
+
+  private static final String ES_MEDIA = "ESMedia";
+
+  private static final String NAV_ALL_PRIM_ONE = "NavPropertyETAllPrimOne";
+
+  private static final String NAV_ALL_PRIM_MANY = "NavPropertyETAllPrimMany";
+
+  private static final String PROPERTY_INT16 = "PropertyInt16";
+
+  private final String name;
+
+  LoadScenario(final String name) {
+    this.name = name;
+  }
+
+  /**
+   * Gets the name used for this scenario in the load mix and in reports.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Runs one (timed) operation of this scenario.
+   *
+   * @param session worker session
+   * @return whatever {@link #cleanUp(LoadSession, Object)} needs to undo the operation
+   */
+  public abstract Object execute(LoadSession session) throws Exception;
+
+  /**
+   * Removes the data created by {@link #execute(LoadSession)}; not timed.
+   */
+  public void cleanUp(final LoadSession session, final Object result) {
+    // read-only scenarios have nothing to undo
+  }
+
+  public static LoadScenario fromName(final String name) {
+    for (final LoadScenario scenario : values()) {
+      if (scenario.name.equalsIgnoreCase(name)) {
+        return scenario;
+      }
+    }
+    final StringBuilder known = new StringBuilder();
+    for (final LoadScenario scenario : values()) {
+      known.append(known.length() == 0 ? "" : ", ").append(scenario.name);
+    }
+    throw new IllegalArgumentException("Unknown load scenario '" + name + "' (known: " + known + ")");
+  }
+
+  private static <T> T retrieve(final LoadSession session, final ODataRetrieveRequest<T> request) {
+    final ODataRetrieveResponse<T> response = session.track(session.prepare(request).execute());
+    try {
+      return response.getBody();
+    } finally {
+      response.close();
+    }
+  }
+
+  private static void delete(final LoadSession session, final String entitySet, final Object key) {
+    final ODataDeleteRequest request = session.prepare(session.getClient().getCUDRequestFactory().getDeleteRequest(
+        session.newURIBuilder().appendEntitySetSegment(entitySet).appendKeySegment(key).build()));
+    request.setIfMatch("*");
+    request.execute().close();
+  }
+
+  private static Object getKey(final ClientEntity entity) {
+    return entity.getProperty(PROPERTY_INT16).getPrimitiveValue().toValue();
+  }
+
+  private static ClientEntity newEntity(final ClientObjectFactory factory, final FullQualifiedName type,
+      final int index) {
+    final ClientEntity entity = factory.newEntity(type);
+    entity.getProperties().add(factory.newPrimitiveProperty(PROPERTY_INT16,
+        factory.newPrimitiveValueBuilder().buildInt16((short) index)));
+    entity.getProperties().add(factory.newPrimitiveProperty("PropertyString",
+        factory.newPrimitiveValueBuilder().buildString("load " + index)));
+    return entity;
+  }
+
+  private static ClientEntity newAllPrim(final ClientObjectFactory factory, final int index, final URI twoPrim) {
+    final ClientEntity entity = newEntity(factory, ET_ALL_PRIM, index);
+    entity.addLink(factory.newEntityNavigationLink("NavPropertyETTwoPrimOne", twoPrim));
+    return entity;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.fit.load;
+
+import static org.junit.Assert.assertEquals;
+
+import org.apache.olingo.fit.tecsvc.TecSvcConst;
+import org.apache.olingo.fit.tecsvc.client.AbstractParamTecSvcITCase;
+import org.junit.Test;
+
+/**
+ * Runs every load scenario a few times, so that the load test does not break unnoticed.
+ */
+public class LoadScenarioITCase extends AbstractParamTecSvcITCase {
+
+  @Test
+  public void allScenarios() throws Exception {
+    final LoadSession session = new LoadSession(TecSvcConst.BASE_URI, getContentType(), new byte[1000]);
+    try {
+      for (final LoadScenario scenario : LoadScenario.values()) {
+        for (int i = 0; i < 2; i++) {
+          scenario.cleanUp(session, scenario.execute(session));
+        }
+      }
+    } finally {
+      session.close();
+    }
+  }
+
+  @Test
+  public void mix() {
+    final LoadTestRunner.Mix mix = LoadTestRunner.Mix.parse("keyRead:3, batch");
+    assertEquals("keyRead:3,batch:1", mix.toString());
+  }
+}
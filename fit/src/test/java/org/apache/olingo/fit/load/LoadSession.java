@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.fit.load;
+
+import java.util.Collection;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.ODataRequest;
+import org.apache.olingo.client.api.communication.response.ODataResponse;
+import org.apache.olingo.client.api.uri.URIBuilder;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+
+/**
+ * Client side of a load-test worker: an OData client bound to its own server session.
+ * <br/>
+ * The technical service keeps its data per HTTP session, so every worker owns a session and never shares the
+ * (non thread-safe) data of another worker.
+ */
+public class LoadSession {
+
+  private final ODataClient client;
+
+  private final String serviceRoot;
+
+  private final ContentType contentType;
+
+  private final byte[] media;
+
+  private String cookie;
+
+  public LoadSession(final String serviceRoot, final ContentType contentType, final byte[] media) {
+    this.serviceRoot = serviceRoot;
+    this.contentType = contentType;
+    this.media = media;
+
+    client = ODataClientFactory.getClient();
+    client.getConfiguration().setDefaultPubFormat(contentType);
+  }
+
+  public ODataClient getClient() {
+    return client;
+  }
+
+  public ContentType getContentType() {
+    return contentType;
+  }
+
+  /**
+   * Gets the payload uploaded by media scenarios.
+   */
+  public byte[] getMedia() {
+    return media;
+  }
+
+  public URIBuilder newURIBuilder() {
+    return client.newURIBuilder(serviceRoot);
+  }
+
+  public String getServiceRoot() {
+    return serviceRoot;
+  }
+
+  /**
+   * Releases the threads used by the client for streamed requests.
+   */
+  public void close() {
+    client.getConfiguration().getExecutor().shutdown();
+  }
+
+  /**
+   * Binds the given request to the session of this worker.
+   */
+  public <T extends ODataRequest> T prepare(final T request) {
+    if (cookie != null) {
+      request.addCustomHeader(HttpHeader.COOKIE, cookie);
+    }
+    return request;
+  }
+
+  /**
+   * Remembers the session created by the server for the first request of this worker.
+   */
+  public <T extends ODataResponse> T track(final T response) {
+    if (cookie == null) {
+      final Collection<String> header = response.getHeader(HttpHeader.SET_COOKIE);
+      if (header != null && !header.isEmpty()) {
+        cookie = header.iterator().next();
+      }
+    }
+    return response;
+  }
+}
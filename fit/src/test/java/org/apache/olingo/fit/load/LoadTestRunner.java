@@ -0,0 +1,321 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.fit.load;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.fit.server.TomcatTestServer;
+import org.apache.olingo.server.tecsvc.TechnicalServlet;
+
+/**
+ * Offline load test: boots the technical service in-process and drives a configurable mix of {@link LoadScenario}s
+ * from many client threads, then reports throughput, latency percentiles and allocations per scenario.
+ * <br/>
+ * Run it with <code>mvn test -Pload</code> in the <code>fit</code> module; the following system properties are
+ * recognized:
+ * <ul>
+ * <li><code>load.threads</code>: number of client threads (default 8)</li>
+ * <li><code>load.warmup</code>: warm-up seconds, not measured (default 10)</li>
+ * <li><code>load.duration</code>: measured seconds (default 30)</li>
+ * <li><code>load.mix</code>: weighted scenarios, e.g. <code>keyRead:30,filter:20,expand:15</code>
+ * (default: all scenarios)</li>
+ * <li><code>load.format</code>: <code>json</code> or <code>xml</code> (default json)</li>
+ * <li><code>load.mediaSize</code>: bytes uploaded by the media scenario (default 65536)</li>
+ * <li><code>load.port</code>: port of the embedded server (default 9090)</li>
+ * <li><code>load.report</code>: CSV file the results are appended to, e.g. to compare releases (optional)</li>
+ * <li><code>load.label</code>: label of the run in the CSV file (default: none)</li>
+ * </ul>
+ */
+public final class LoadTestRunner {
+
+  private static final String DEFAULT_MIX = "keyRead:30,filter:20,expand:15,batch:15,media:10,deepInsert:10";
+
+  private final int threads;
+
+  private final int warmup;
+
+  private final int duration;
+
+  private final Mix mix;
+
+  private final ContentType contentType;
+
+  private final byte[] media;
+
+  private final int port;
+
+  private final String report;
+
+  private final String label;
+
+  private LoadTestRunner() {
+    threads = Integer.getInteger("load.threads", 8);
+    warmup = Integer.getInteger("load.warmup", 10);
+    duration = Integer.getInteger("load.duration", 30);
+    mix = Mix.parse(System.getProperty("load.mix", DEFAULT_MIX));
+    contentType = "xml".equalsIgnoreCase(System.getProperty("load.format", "json")) ?
+        ContentType.APPLICATION_XML : ContentType.APPLICATION_JSON;
+    media = new byte[Integer.getInteger("load.mediaSize", 65536)];
+    new Random(0).nextBytes(media);
+    port = Integer.getInteger("load.port", 9090);
+    report = System.getProperty("load.report");
+    label = System.getProperty("load.label", "");
+  }
+
+  public static void main(final String[] args) throws Exception {
+    new LoadTestRunner().run();
+  }
+
+  private void run() throws Exception {
+    final TomcatTestServer server = TomcatTestServer.init(port)
+        .addServlet(TechnicalServlet.class, "/odata-server-tecsvc/odata.svc/*")
+        .start();
+    try {
+      final String serviceRoot = "http://localhost:" + port + "/odata-server-tecsvc/odata.svc";
+      final long start = System.nanoTime();
+      final long measureStart = start + TimeUnit.SECONDS.toNanos(warmup);
+      final long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(duration);
+
+      final List<Worker> workers = new ArrayList<Worker>(threads);
+      for (int i = 0; i < threads; i++) {
+        final Worker worker = new Worker(i, new LoadSession(serviceRoot, contentType, media), mix,
+            measureStart, measureEnd);
+        workers.add(worker);
+        worker.start();
+      }
+
+      sleepUntil(measureStart);
+      final long allocatedBefore = AllocationMeter.allThreads();
+      sleepUntil(measureEnd);
+      final long allocatedAfter = AllocationMeter.allThreads();
+
+      final LatencyRecorder[] results = new LatencyRecorder[LoadScenario.values().length];
+      for (int i = 0; i < results.length; i++) {
+        results[i] = new LatencyRecorder();
+      }
+      for (final Worker worker : workers) {
+        worker.join();
+        for (int i = 0; i < results.length; i++) {
+          results[i].merge(worker.recorders[i]);
+        }
+      }
+
+      print(System.out, results, allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+      if (report != null) {
+        append(new File(report), results);
+      }
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static void sleepUntil(final long deadline) throws InterruptedException {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0) {
+      TimeUnit.NANOSECONDS.sleep(remaining);
+    }
+  }
+
+  private void print(final PrintStream out, final LatencyRecorder[] results, final long allocated) {
+    out.println();
+    out.println(String.format(Locale.ROOT, "Load test: %d threads, %ds warm-up, %ds measured, %s, mix %s",
+        threads, warmup, duration, contentType.toContentTypeString(), mix));
+    out.println(String.format(Locale.ROOT, "%-12s %10s %8s %10s %10s %10s %10s %10s %12s",
+        "scenario", "ops", "errors", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "client KB/op"));
+    for (final LoadScenario scenario : mix.scenarios) {
+      final LatencyRecorder result = results[scenario.ordinal()];
+      final long perOperation = result.getAllocatedPerOperation();
+      out.println(String.format(Locale.ROOT, "%-12s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f %12s",
+          scenario.getName(), result.getCount(), result.getErrors(), (double) result.getCount() / duration,
+          millis(result.getPercentile(0.5)), millis(result.getPercentile(0.99)),
+          millis(result.getPercentile(0.999)), millis(result.getPercentile(1)),
+          perOperation < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f", perOperation / 1024.0)));
+    }
+    out.println(allocated < 0 ?
+        "Allocation rate: not supported by this JVM" :
+        String.format(Locale.ROOT, "Allocation rate (client and server threads): %.1f MB/s",
+            allocated / (1024.0 * 1024.0) / duration));
+    for (final LoadScenario scenario : mix.scenarios) {
+      final Throwable error = results[scenario.ordinal()].getFirstError();
+      if (error != null) {
+        out.println("First error in " + scenario.getName() + ':');
+        error.printStackTrace(out);
+      }
+    }
+  }
+
+  private void append(final File file, final LatencyRecorder[] results) throws IOException {
+    final boolean header = !file.exists() || file.length() == 0;
+    final PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+        new FileOutputStream(file, true), Constants.UTF8));
+    try {
+      if (header) {
+        writer.println("label,scenario,threads,format,ops,errors,opsPerSecond,p50Ms,p99Ms,p999Ms,maxMs,"
+            + "clientBytesPerOp");
+      }
+      for (final LoadScenario scenario : mix.scenarios) {
+        final LatencyRecorder result = results[scenario.ordinal()];
+        writer.println(String.format(Locale.ROOT, "%s,%s,%d,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%d",
+            label, scenario.getName(), threads, contentType.getSubtype(), result.getCount(), result.getErrors(),
+            (double) result.getCount() / duration,
+            millis(result.getPercentile(0.5)), millis(result.getPercentile(0.99)),
+            millis(result.getPercentile(0.999)), millis(result.getPercentile(1)),
+            result.getAllocatedPerOperation()));
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static double millis(final long nanos) {
+    return nanos / 1000000.0;
+  }
+
+  /**
+   * Client thread: picks scenarios at random according to the mix and records them once the warm-up is over.
+   */
+  private static class Worker extends Thread {
+
+    private final LoadSession session;
+
+    private final Mix mix;
+
+    private final Random random;
+
+    private final long measureStart;
+
+    private final long measureEnd;
+
+    private final LatencyRecorder[] recorders = new LatencyRecorder[LoadScenario.values().length];
+
+    Worker(final int index, final LoadSession session, final Mix mix, final long measureStart,
+        final long measureEnd) {
+      super("load-worker-" + index);
+      this.session = session;
+      this.mix = mix;
+      this.measureStart = measureStart;
+      this.measureEnd = measureEnd;
+      random = new Random(index);
+      for (int i = 0; i < recorders.length; i++) {
+        recorders[i] = new LatencyRecorder();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        runScenarios();
+      } finally {
+        session.close();
+      }
+    }
+
+    private void runScenarios() {
+      long now = System.nanoTime();
+      while (now < measureEnd) {
+        final LoadScenario scenario = mix.pick(random);
+        final LatencyRecorder recorder = recorders[scenario.ordinal()];
+        final boolean measured = now >= measureStart;
+
+        final long allocated = AllocationMeter.currentThread();
+        final long start = System.nanoTime();
+        try {
+          final Object result = scenario.execute(session);
+          final long elapsed = System.nanoTime() - start;
+          if (measured) {
+            recorder.record(elapsed, allocated < 0 ? -1 : AllocationMeter.currentThread() - allocated);
+          }
+          scenario.cleanUp(session, result);
+        } catch (final Exception e) {
+          if (measured) {
+            recorder.fail(e);
+          }
+        }
+        now = System.nanoTime();
+      }
+    }
+  }
+
+  /**
+   * Weighted choice among scenarios.
+   */
+  static final class Mix {
+
+    private final LoadScenario[] scenarios;
+
+    private final int[] cumulative;
+
+    private Mix(final LoadScenario[] scenarios, final int[] cumulative) {
+      this.scenarios = scenarios;
+      this.cumulative = cumulative;
+    }
+
+    /**
+     * Parses a comma-separated list of <code>name:weight</code> pairs; the weight defaults to 1.
+     */
+    static Mix parse(final String value) {
+      final String[] entries = value.split(",");
+      final LoadScenario[] scenarios = new LoadScenario[entries.length];
+      final int[] cumulative = new int[entries.length];
+      int total = 0;
+      for (int i = 0; i < entries.length; i++) {
+        final String[] entry = entries[i].trim().split(":");
+        scenarios[i] = LoadScenario.fromName(entry[0].trim());
+        final int weight = entry.length > 1 ? Integer.parseInt(entry[1].trim()) : 1;
+        if (weight <= 0) {
+          throw new IllegalArgumentException("Invalid weight for load scenario " + scenarios[i].getName());
+        }
+        total += weight;
+        cumulative[i] = total;
+      }
+      return new Mix(scenarios, cumulative);
+    }
+
+    LoadScenario pick(final Random random) {
+      final int value = random.nextInt(cumulative[cumulative.length - 1]);
+      int i = 0;
+      while (value >= cumulative[i]) {
+        i++;
+      }
+      return scenarios[i];
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder result = new StringBuilder();
+      for (int i = 0; i < scenarios.length; i++) {
+        result.append(i == 0 ? "" : ",").append(scenarios[i].getName()).append(':')
+            .append(cumulative[i] - (i == 0 ? 0 : cumulative[i - 1]));
+      }
+      return result.toString();
+    }
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.fit.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.apache.olingo.client.api.communication.ODataClientErrorException;
+import org.apache.olingo.client.api.communication.request.ODataBatchableRequest;
+import org.apache.olingo.client.api.communication.request.cud.UpdateType;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.ext.proxy.AbstractService;
+import org.apache.olingo.ext.proxy.api.ODataFlushException;
+import org.apache.olingo.ext.proxy.api.ODataResponseError;
+import org.apache.olingo.ext.proxy.commons.BatchedPersistenceManagerImpl;
+import org.apache.olingo.ext.proxy.commons.PersistenceChanges;
+import org.apache.olingo.ext.proxy.commons.TransactionItems;
+import org.apache.olingo.fit.proxy.staticservice.odatawcfservice.types.Customer;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Checks how {@link BatchedPersistenceManagerImpl} coalesces, orders and splits the changes of a flush.
+ */
+public class BatchedPersistenceManagerTestITCase extends AbstractTestITCase {
+
+  private static final String NAMESPACE = "Microsoft.Test.OData.Services.ODataWCFService";
+
+  /**
+   * Records the changes and batches of each flush.
+   */
+  private static class RecordingPersistenceManager extends BatchedPersistenceManagerImpl {
+
+    private static final long serialVersionUID = -2335496163950412346L;
+
+    private int changes;
+
+    private final List<Integer> batchSizes = new ArrayList<Integer>();
+
+    RecordingPersistenceManager(final AbstractService<?> factory, final int maxChangesPerBatch) {
+      super(factory, maxChangesPerBatch, 2);
+    }
+
+    void flush(final PersistenceChanges persistenceChanges) {
+      doFlush(persistenceChanges, new TransactionItems());
+    }
+
+    @Override
+    protected List<Change> coalesce(final PersistenceChanges persistenceChanges) {
+      final List<Change> result = super.coalesce(persistenceChanges);
+      changes = result.size();
+      return result;
+    }
+
+    @Override
+    protected List<List<Change>> split(final List<Change> ordered) {
+      final List<List<Change>> batches = super.split(ordered);
+      batchSizes.clear();
+      for (List<Change> batch : batches) {
+        batchSizes.add(batch.size());
+      }
+      return batches;
+    }
+  }
+
+  @After
+  public void resetPersistenceManager() {
+    service.setPersistenceManager(null);
+    service.getClient().getConfiguration().setContinueOnError(false);
+    service.getContext().detachAll();
+  }
+
+  private RecordingPersistenceManager useBatches(final int maxChangesPerBatch) {
+    final RecordingPersistenceManager manager = new RecordingPersistenceManager(service, maxChangesPerBatch);
+    service.setPersistenceManager(manager);
+    return manager;
+  }
+
+  private URI uri(final String segment, final Object key) {
+    return service.getClient().newURIBuilder(testStaticServiceRootURL)
+        .appendEntitySetSegment(segment).appendKeySegment(key).build();
+  }
+
+  private ClientEntity entity(final String type) {
+    return service.getClient().getObjectFactory().newEntity(new FullQualifiedName(NAMESPACE, type));
+  }
+
+  private ClientEntity with(final ClientEntity entity, final String name, final EdmPrimitiveTypeKind kind,
+      final Object value) {
+    entity.getProperties().add(service.getClient().getObjectFactory().newPrimitiveProperty(name,
+        service.getClient().getObjectFactory().newPrimitiveValueBuilder().setType(kind).setValue(value).build()));
+    return entity;
+  }
+
+  private ODataBatchableRequest patch(final PersistenceChanges changes, final URI uri, final ClientEntity entity) {
+    final ODataBatchableRequest request =
+        service.getClient().getCUDRequestFactory().getEntityUpdateRequest(uri, UpdateType.PATCH, entity);
+    changes.addChange(request, null, entity);
+    return request;
+  }
+
+  private ODataBatchableRequest create(final PersistenceChanges changes, final String entitySet,
+      final ClientEntity entity) {
+    final ODataBatchableRequest request = service.getClient().getCUDRequestFactory().getEntityCreateRequest(
+        service.getClient().newURIBuilder(testStaticServiceRootURL).appendEntitySetSegment(entitySet).build(),
+        entity);
+    changes.addChange(request, null, entity);
+    return request;
+  }
+
+  private ClientEntity order(final int id) {
+    final Calendar orderDate = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+    orderDate.clear();
+    orderDate.set(2011, 3, 4, 16, 3, 57);
+    return with(with(with(entity("Order"), "OrderID", EdmPrimitiveTypeKind.Int32, id),
+        "OrderDate", EdmPrimitiveTypeKind.DateTimeOffset, new Timestamp(orderDate.getTimeInMillis())),
+        "ShelfLife", EdmPrimitiveTypeKind.Duration, BigDecimal.ONE);
+  }
+
+  private ClientEntity names(final String firstName, final String lastName) {
+    final ClientEntity entity = entity("Customer");
+    if (firstName != null) {
+      with(entity, "FirstName", EdmPrimitiveTypeKind.String, firstName);
+    }
+    if (lastName != null) {
+      with(entity, "LastName", EdmPrimitiveTypeKind.String, lastName);
+    }
+    return entity;
+  }
+
+  @Test
+  public void coalescedPatches() {
+    final RecordingPersistenceManager manager = useBatches(10);
+    final Customer original = readCustomer(container, 1);
+    final String firstName = original.getFirstName();
+    final String lastName = original.getLastName();
+
+    PersistenceChanges changes = new PersistenceChanges();
+    patch(changes, uri("Customers", 1), names("Patched", null));
+    patch(changes, uri("Customers", 1), names(null, "Twice"));
+    manager.flush(changes);
+    assertEquals(1, manager.changes);
+    assertEquals(Arrays.asList(1), manager.batchSizes);
+
+    service.getContext().detachAll();
+    final Customer actual = readCustomer(container, 1);
+    assertEquals("Patched", actual.getFirstName());
+    assertEquals("Twice", actual.getLastName());
+
+    changes = new PersistenceChanges();
+    patch(changes, uri("Customers", 1), names(firstName, null));
+    patch(changes, uri("Customers", 1), names(null, lastName));
+    manager.flush(changes);
+    assertEquals(1, manager.changes);
+
+    service.getContext().detachAll();
+    assertEquals(lastName, readCustomer(container, 1).getLastName());
+  }
+
+  @Test
+  public void referenceAcrossInsertsAndSplit() {
+    final RecordingPersistenceManager manager = useBatches(2);
+
+    final PersistenceChanges changes = new PersistenceChanges();
+    create(changes, "Orders", order(131));
+    create(changes, "Orders", order(132));
+    // refers to the second insert, which becomes the first request of its batch
+    patch(changes, URI.create("$2"), with(entity("Order"), "ShelfLife", EdmPrimitiveTypeKind.Duration, BigDecimal.TEN));
+    manager.flush(changes);
+    assertEquals(3, manager.changes);
+    assertEquals(Arrays.asList(1, 2), manager.batchSizes);
+
+    service.getContext().detachAll();
+    assertEquals(131, container.getOrders().getByKey(131).load().getOrderID(), 0);
+    assertEquals(BigDecimal.TEN, container.getOrders().getByKey(132).load().getShelfLife());
+
+    container.getOrders().delete(131);
+    container.getOrders().delete(132);
+    container.flush();
+    assertEquals(Arrays.asList(2), manager.batchSizes);
+
+    service.getContext().detachAll();
+    try {
+      container.getOrders().getByKey(132).load();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void errorMappedToOriginalChange() {
+    final RecordingPersistenceManager manager = useBatches(1);
+    service.getClient().getConfiguration().setContinueOnError(true);
+    final String firstName = readCustomer(container, 1).getFirstName();
+
+    final PersistenceChanges changes = new PersistenceChanges();
+    patch(changes, uri("Customers", 1), names(firstName, null));
+    final ODataBatchableRequest failing = create(changes, "People", entity("Person"));
+    try {
+      manager.flush(changes);
+      fail();
+    } catch (ODataFlushException e) {
+      assertEquals(Arrays.asList(1, 1), manager.batchSizes);
+      assertEquals(1, e.getErrors().size());
+      final ODataResponseError error = e.getErrors().get(0);
+      assertEquals(((ODataClientErrorException) error.getException()).getStatusLine().getStatusCode(),
+          e.getStatusCode());
+      assertTrue(e.getStatusCode() >= 400);
+      assertEquals(1, error.getIndex());
+      assertSame(failing, error.getRequest());
+    }
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.olingo.client.api.communication.request.retrieve.ODataEntitySe
 import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
 import org.apache.olingo.client.api.domain.ClientEntity;
 import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientLink;
 import org.apache.olingo.client.api.uri.QueryOption;
 import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.junit.Test;
@@ -44,6 +45,7 @@ public class ExpandWithSystemQueryOptionsITCase extends AbstractParamTecSvcITCas
   private static final String ES_KEY_NAV = "ESKeyNav";
   private static final String ES_TWO_KEY_NAV = "ESTwoKeyNav";
   private static final String NAV_PROPERTY_ET_KEY_NAV_MANY = "NavPropertyETKeyNavMany";
+  private static final String NAV_PROPERTY_ET_KEY_NAV_ONE = "NavPropertyETKeyNavOne";
   private static final String NAV_PROPERTY_ET_TWO_KEY_NAV_MANY = "NavPropertyETTwoKeyNavMany";
   private static final String PROPERTY_INT16 = "PropertyInt16";
   private static final String PROPERTY_STRING = "PropertyString";
@@ -505,69 +507,68 @@ public class ExpandWithSystemQueryOptionsITCase extends AbstractParamTecSvcITCas
  
   @Test
   public void expandWithLevels() {
-    final ODataClient client = getEdmEnabledClient();
-
     // expand=*($levels=2)
-    URI uri = client.newURIBuilder(SERVICE_URI).appendEntitySetSegment(ES_KEY_NAV)
-            .expandWithOptions("*", Collections.<QueryOption, Object> singletonMap(QueryOption.LEVELS, 2))
-            .build();
-
-    try {
-      client.getRetrieveRequestFactory().getEntitySetRequest(uri);
-    } catch (ODataServerErrorException e) {
-      assertEquals("HTTP/1.1 501 Not Implemented", e.getMessage());
-    }
+    ClientEntity entity = getFirstEntity(buildRequest(ES_KEY_NAV, "*",
+        Collections.<QueryOption, Object> singletonMap(QueryOption.LEVELS, 2)));
+    assertEquals(2, getDepth(entity, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY));
+    assertEquals(2, getDepth(entity, NAV_PROPERTY_ET_KEY_NAV_ONE));
 
     // expand=NavPropertyETTwoKeyNavMany($levels=2)
-    uri = client.newURIBuilder(SERVICE_URI).appendEntitySetSegment(ES_KEY_NAV)
-            .expandWithOptions(NAV_PROPERTY_ET_TWO_KEY_NAV_MANY,
-                Collections.<QueryOption, Object> singletonMap(QueryOption.LEVELS, 2))
-            .build();
-
-    try {
-      client.getRetrieveRequestFactory().getEntitySetRequest(uri);
-    } catch (ODataServerErrorException e) {
-      assertEquals("HTTP/1.1 501 Not Implemented", e.getMessage());
-    }
+    entity = getFirstEntity(buildRequest(ES_KEY_NAV, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY,
+        Collections.<QueryOption, Object> singletonMap(QueryOption.LEVELS, 2)));
+    assertEquals(2, getDepth(entity, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY));
+    assertEquals(0, getDepth(entity, NAV_PROPERTY_ET_KEY_NAV_ONE));
+    final List<ClientEntity> firstLevel = getInlineEntities(entity, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY);
+    assertEquals(2, firstLevel.size());
+    assertEquals("1", firstLevel.get(0).getProperty(PROPERTY_STRING).getPrimitiveValue().toValue());
+    assertEquals(2, getInlineEntities(firstLevel.get(0), NAV_PROPERTY_ET_TWO_KEY_NAV_MANY).size());
 
     // expand=NavPropertyETTwoKeyNavMany($expand=NavPropertyETTwoKeyNavMany($levels=2))
-    uri = client.newURIBuilder(SERVICE_URI).appendEntitySetSegment(ES_KEY_NAV)
-            .expandWithOptions(NAV_PROPERTY_ET_TWO_KEY_NAV_MANY,
-                Collections.<QueryOption, Object> singletonMap(QueryOption.EXPAND,
-                    NAV_PROPERTY_ET_TWO_KEY_NAV_MANY + "($levels=2)"))
-            .build();
-
-    try {
-      client.getRetrieveRequestFactory().getEntitySetRequest(uri);
-    } catch (ODataServerErrorException e) {
-      assertEquals("HTTP/1.1 501 Not Implemented", e.getMessage());
-    }
+    entity = getFirstEntity(buildRequest(ES_KEY_NAV, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY,
+        Collections.<QueryOption, Object> singletonMap(QueryOption.EXPAND,
+            NAV_PROPERTY_ET_TWO_KEY_NAV_MANY + "($levels=2)")));
+    assertEquals(3, getDepth(entity, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY));
 
     // expand=NavPropertyETTwoKeyNavMany($expand=NavPropertyETTwoKeyNavMany($levels=2);$levels=3)
-    uri = client.newURIBuilder(SERVICE_URI).appendEntitySetSegment(ES_KEY_NAV)
-            .expandWithOptions(NAV_PROPERTY_ET_TWO_KEY_NAV_MANY,
-                Collections.<QueryOption, Object> singletonMap(QueryOption.LEVELS, 2))
-            .build();
-
-    try {
-      client.getRetrieveRequestFactory().getEntitySetRequest(uri);
-    } catch (ODataServerErrorException e) {
-      assertEquals("HTTP/1.1 501 Not Implemented", e.getMessage());
-    }
-
-    // expand=NavPropertyETTwoKeyNavMany($expand=NavPropertyETTwoKeyNavMany($levels=2))
-    Map<QueryOption, Object> expandOptions = new EnumMap<QueryOption, Object>(QueryOption.class);
+    // The entities of ESTwoKeyNav refer to each other; the serializer stops at the cycle after three levels.
+    final Map<QueryOption, Object> expandOptions = new EnumMap<QueryOption, Object>(QueryOption.class);
     expandOptions.put(QueryOption.EXPAND, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY + "($levels=2)");
     expandOptions.put(QueryOption.LEVELS, 3);
-    uri = client.newURIBuilder(SERVICE_URI).appendEntitySetSegment(ES_KEY_NAV)
-            .expandWithOptions(NAV_PROPERTY_ET_TWO_KEY_NAV_MANY, expandOptions)
-            .build();
+    entity = getFirstEntity(buildRequest(ES_KEY_NAV, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY, expandOptions));
+    assertEquals(3, getDepth(entity, NAV_PROPERTY_ET_TWO_KEY_NAV_MANY));
+
+    // expand=NavPropertyETKeyNavOne($levels=max)
+    entity = getFirstEntity(buildRequest(ES_KEY_NAV, NAV_PROPERTY_ET_KEY_NAV_ONE,
+        Collections.<QueryOption, Object> singletonMap(QueryOption.LEVELS, "max")));
+    assertEquals(2, getDepth(entity, NAV_PROPERTY_ET_KEY_NAV_ONE));
+    final ClientEntity secondLevel = entity.getNavigationLink(NAV_PROPERTY_ET_KEY_NAV_ONE).asInlineEntity().getEntity()
+        .getNavigationLink(NAV_PROPERTY_ET_KEY_NAV_ONE).asInlineEntity().getEntity();
+    assertShortOrInt(3, secondLevel.getProperty(PROPERTY_INT16).getPrimitiveValue().toValue());
+  }
 
-    try {
-      client.getRetrieveRequestFactory().getEntitySetRequest(uri);
-    } catch (ODataServerErrorException e) {
-      assertEquals("HTTP/1.1 501 Not Implemented", e.getMessage());
+  private ClientEntity getFirstEntity(final ODataRetrieveResponse<ClientEntitySet> response) {
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    final ClientEntity entity = response.getBody().getEntities().get(0);
+    assertShortOrInt(1, entity.getProperty(PROPERTY_INT16).getPrimitiveValue().toValue());
+    return entity;
+  }
+
+  private List<ClientEntity> getInlineEntities(final ClientEntity entity, final String navigationProperty) {
+    return entity.getNavigationLink(navigationProperty).asInlineEntitySet().getEntitySet().getEntities();
+  }
+
+  /** Gets the number of levels the given navigation property has been expanded to, starting at the entity. */
+  private int getDepth(final ClientEntity entity, final String navigationProperty) {
+    final ClientLink link = entity.getNavigationLink(navigationProperty);
+    int depth = 0;
+    if (link != null && link.asInlineEntitySet() != null) {
+      for (final ClientEntity inlineEntity : link.asInlineEntitySet().getEntitySet().getEntities()) {
+        depth = Math.max(depth, 1 + getDepth(inlineEntity, navigationProperty));
+      }
+    } else if (link != null && link.asInlineEntity() != null && link.asInlineEntity().getEntity() != null) {
+      depth = 1 + getDepth(link.asInlineEntity().getEntity(), navigationProperty);
     }
+    return depth;
   }
 
   private ODataRetrieveResponse<ClientEntitySet> buildRequest(final String entitySet, final String navigationProperty,
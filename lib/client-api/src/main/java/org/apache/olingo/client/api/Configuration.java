@@ -22,6 +22,7 @@ import java.util.concurrent.ExecutorService;
 
 import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.HttpUriRequestFactory;
+import org.apache.olingo.client.api.http.ResponseCache;
 import org.apache.olingo.commons.api.format.ContentType;
 
 /**
@@ -266,4 +267,19 @@ public interface Configuration {
    * @param executorService new executor services.
    */
   void setExecutor(ExecutorService executorService);
+
+  /**
+   * Gets the cache for responses to metadata, entity and value requests.
+   *
+   * @return provided implementation (if configured via <tt>setResponseCache</tt>) or <tt>null</tt>.
+   */
+  ResponseCache getResponseCache();
+
+  /**
+   * Sets the cache for responses to metadata, entity and value requests; <tt>null</tt> disables caching.
+   *
+   * @param cache implementation of <tt>ResponseCache</tt>.
+   * @see ResponseCache
+   */
+  void setResponseCache(ResponseCache cache);
 }
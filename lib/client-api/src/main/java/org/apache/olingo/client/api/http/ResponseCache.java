@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.http;
+
+/**
+ * Cache for responses to <tt>GET</tt> requests carrying an <tt>ETag</tt>.
+ * <br/>
+ * Cached responses are revalidated with <tt>If-None-Match</tt>: as long as the service answers
+ * <tt>304 Not Modified</tt>, the cached response is served instead of downloading the payload again.
+ * Responses to authenticated requests are cached per identity; they are not cached at all when the identity is
+ * not known before sending the request, e.g. when an <tt>HttpClientFactory</tt> adds the <tt>Authorization</tt>
+ * header by itself.
+ * <br/>
+ * Only payloads are cached: a metadata document served from the cache is still parsed by the caller, which is
+ * expected to keep the resulting <tt>Edm</tt> itself if parsing it again is too expensive.
+ * Implementations must be safe for concurrent use.
+ */
+public interface ResponseCache {
+
+  /**
+   * Gets the maximum size (in bytes) of a payload to be cached; larger responses are streamed as usual.
+   *
+   * @return maximum payload size in bytes.
+   */
+  long getMaxEntrySize();
+
+  /**
+   * Gets the cached response for the given key.
+   *
+   * @param key cache key, i.e. the ASCII representation of the request URI, followed by a digest of the
+   * identity for authenticated requests.
+   * @return cached response or <tt>null</tt> if not found.
+   */
+  ResponseCacheEntry get(String key);
+
+  /**
+   * Stores a response.
+   *
+   * @param key cache key, i.e. the ASCII representation of the request URI, followed by a digest of the
+   * identity for authenticated requests.
+   * @param entry response to be cached.
+   */
+  void put(String key, ResponseCacheEntry entry);
+
+  /**
+   * Removes the cached response for the given key, if any.
+   *
+   * @param key cache key, i.e. the ASCII representation of the request URI, followed by a digest of the
+   * identity for authenticated requests.
+   */
+  void remove(String key);
+
+  /**
+   * Removes all cached responses.
+   */
+  void clear();
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.api.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response stored in a {@link ResponseCache}.
+ * <br/>
+ * An entry may only be used for a request sending the same values of its selecting request headers: the
+ * <tt>Accept</tt> header and the headers named by the <tt>Vary</tt> header of the response.
+ */
+public final class ResponseCacheEntry {
+
+  private final Map<String, String> requestHeaders;
+
+  private final String eTag;
+
+  private final int statusCode;
+
+  private final String statusMessage;
+
+  private final Map<String, List<String>> headers;
+
+  private final byte[] content;
+
+  /**
+   * Constructor.
+   *
+   * @param requestHeaders selecting request headers the response has been requested with; values may be null.
+   * @param eTag entity tag used for revalidation.
+   * @param statusCode response status code.
+   * @param statusMessage response status message.
+   * @param headers response headers.
+   * @param content response payload.
+   */
+  public ResponseCacheEntry(final Map<String, String> requestHeaders, final String eTag, final int statusCode,
+      final String statusMessage, final Map<String, List<String>> headers, final byte[] content) {
+
+    this.requestHeaders = new LinkedHashMap<String, String>(requestHeaders);
+    this.eTag = eTag;
+    this.statusCode = statusCode;
+    this.statusMessage = statusMessage;
+    this.headers = new LinkedHashMap<String, List<String>>();
+    for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+      this.headers.put(header.getKey(), new ArrayList<String>(header.getValue()));
+    }
+    this.content = content;
+  }
+
+  public Map<String, String> getRequestHeaders() {
+    return Collections.unmodifiableMap(requestHeaders);
+  }
+
+  public String getETag() {
+    return eTag;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public String getStatusMessage() {
+    return statusMessage;
+  }
+
+  public Map<String, List<String>> getHeaders() {
+    return Collections.unmodifiableMap(headers);
+  }
+
+  /**
+   * Gets the response payload; the returned array must not be modified.
+   *
+   * @return response payload.
+   */
+  public byte[] getContent() {
+    return content;
+  }
+}
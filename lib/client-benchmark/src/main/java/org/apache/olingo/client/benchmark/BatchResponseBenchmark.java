@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchLineIterator;
+import org.apache.olingo.client.api.serialization.ODataDeserializerException;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.client.core.communication.request.batch.ODataBatchController;
+import org.apache.olingo.client.core.communication.request.batch.ODataBatchLineIteratorImpl;
+import org.apache.olingo.client.core.communication.request.batch.ODataBatchStreamLineIterator;
+import org.apache.olingo.client.core.communication.request.batch.ODataBatchUtilities;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Splitting of batch responses into their items with {@link ODataBatchUtilities}, once through the byte-oriented
+ * {@link ODataBatchStreamLineIterator} used by the batch response manager and once through the line-oriented
+ * {@link ODataBatchLineIteratorImpl}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchResponseBenchmark {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  @Param({ "1", "10", "100" })
+  public int parts;
+
+  @Param({ "10", "100" })
+  public int size;
+
+  private ODataClient client;
+
+  private String boundary;
+
+  private byte[] payload;
+
+  @Setup
+  public void setUp() {
+    client = ODataClientFactory.getClient();
+    boundary = ODataBatchUtilities.getBoundaryFromHeader(Collections.singleton(
+        ContentType.MULTIPART_MIXED.toContentTypeString() + ";boundary=" + BenchmarkPayloads.BATCH_BOUNDARY));
+    payload = BenchmarkPayloads.batch(parts, "Products", size);
+  }
+
+  @Benchmark
+  public void streamLines(final Blackhole blackhole) throws IOException {
+    final ODataBatchStreamLineIterator iterator = new ODataBatchStreamLineIterator(new ByteArrayInputStream(payload));
+    while (nextItem(iterator, blackhole)) {
+      final InputStream body = iterator.nextPart(boundary);
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      long count = 0;
+      for (int read = body.read(buffer); read >= 0; read = body.read(buffer)) {
+        count += read;
+      }
+      body.close();
+      blackhole.consume(count);
+    }
+  }
+
+  @Benchmark
+  public void streamLinesAndDeserialize(final Blackhole blackhole) throws IOException, ODataDeserializerException {
+    final ODataBatchStreamLineIterator iterator = new ODataBatchStreamLineIterator(new ByteArrayInputStream(payload));
+    while (nextItem(iterator, blackhole)) {
+      final InputStream body = iterator.nextPart(boundary);
+      blackhole.consume(client.getDeserializer(ContentType.JSON).toEntitySet(body));
+      body.close();
+    }
+  }
+
+  @Benchmark
+  public void textLines(final Blackhole blackhole) throws IOException {
+    final ODataBatchLineIterator iterator = new ODataBatchLineIteratorImpl(
+        IOUtils.lineIterator(new ByteArrayInputStream(payload), Constants.UTF8));
+    while (nextItem(iterator, blackhole)) {
+      final ByteArrayOutputStream body = new ByteArrayOutputStream();
+      ODataBatchUtilities.readBatchPart(new ODataBatchController(iterator, boundary), body, true);
+      blackhole.consume(body.size());
+    }
+  }
+
+  /**
+   * Reads the headers of the next item and of the response it wraps.
+   *
+   * @return 'FALSE' if no item is left.
+   */
+  private boolean nextItem(final ODataBatchLineIterator iterator, final Blackhole blackhole) {
+    final Map<String, Collection<String>> itemHeaders = ODataBatchUtilities.nextItemHeaders(iterator, boundary);
+    if (itemHeaders.isEmpty()) {
+      return false;
+    }
+    blackhole.consume(ODataBatchUtilities.readResponseLine(iterator));
+    blackhole.consume(ODataBatchUtilities.readHeaders(iterator));
+    return true;
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.serialization.ODataSerializer;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.client.core.serialization.AtomSerializer;
+import org.apache.olingo.client.core.serialization.JsonSerializer;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.format.ContentType;
+
+/**
+ * Canned payloads for the client benchmarks, generated from the metadata of the fit static service.
+ * <br/>
+ * Entity sets are filled with the given number of entities, each carrying a value for every structural property of
+ * the entity type (geospatial properties excepted); the entity width is therefore chosen by picking the entity set:
+ * <tt>Departments</tt> (3 primitive properties), <tt>Products</tt> (9 properties, enums included) or
+ * <tt>Customers</tt> (11 properties, complex and collection values included).
+ */
+public final class BenchmarkPayloads {
+
+  public static final String SERVICE_ROOT = "http://localhost:9080/StaticService/V40/Static.svc";
+
+  public static final String BATCH_BOUNDARY = "batchresponse_7c2f4e5a-1b3d-4c6e-8f90-a1b2c3d4e5f6";
+
+  private static final String METADATA = "metadata.xml";
+
+  /**
+   * Number of items of generated collection values.
+   */
+  private static final int COLLECTION_SIZE = 3;
+
+  /**
+   * Maximum nesting of generated complex values.
+   */
+  private static final int MAX_DEPTH = 2;
+
+  private static final long BASE_TIME = 1475366400000L;
+
+  private static Edm edm;
+
+  private BenchmarkPayloads() {
+    // empty constructor for static utility class
+  }
+
+  /**
+   * Gets the metadata of the fit static service.
+   *
+   * @return metadata.
+   */
+  public static synchronized Edm getEdm() {
+    if (edm == null) {
+      final InputStream input = BenchmarkPayloads.class.getResourceAsStream(METADATA);
+      try {
+        edm = ODataClientFactory.getClient().getReader().readMetadata(input);
+      } finally {
+        IOUtils.closeQuietly(input);
+      }
+    }
+    return edm;
+  }
+
+  /**
+   * Generates the content of an entity set.
+   *
+   * @param entitySetName entity set name.
+   * @param size number of entities.
+   * @return entity set content.
+   */
+  public static EntityCollection entitySet(final String entitySetName, final int size) {
+    final EdmEntitySet entitySet = getEdm().getEntityContainer().getEntitySet(entitySetName);
+    if (entitySet == null) {
+      throw new IllegalArgumentException("Unknown entity set " + entitySetName);
+    }
+
+    final EntityCollection entities = new EntityCollection();
+    for (int i = 1; i <= size; i++) {
+      final Entity entity = new Entity();
+      entity.setType(entitySet.getEntityType().getFullQualifiedName().getFullQualifiedNameAsString());
+      entity.setId(URI.create(SERVICE_ROOT + '/' + entitySetName + '(' + i + ')'));
+      entity.getProperties().addAll(properties(entitySet.getEntityType(), i, 0));
+      entities.getEntities().add(entity);
+    }
+    return entities;
+  }
+
+  /**
+   * Generates an entity set response in JSON format with minimal metadata, as sent by a server.
+   *
+   * @param entitySetName entity set name.
+   * @param size number of entities.
+   * @return payload.
+   */
+  public static byte[] json(final String entitySetName, final int size) {
+    // a server-side serializer writes the context URL, 'metadata=none' leaves the type annotations out
+    return write(new JsonSerializer(true, ContentType.JSON_NO_METADATA), entitySetName, size);
+  }
+
+  /**
+   * Generates an entity set response in Atom format.
+   *
+   * @param entitySetName entity set name.
+   * @param size number of entities.
+   * @return payload.
+   */
+  public static byte[] atom(final String entitySetName, final int size) {
+    return write(new AtomSerializer(true), entitySetName, size);
+  }
+
+  /**
+   * Generates a batch response made of the given number of JSON entity set responses.
+   *
+   * @param parts number of batch items.
+   * @param entitySetName entity set name.
+   * @param size number of entities of each item.
+   * @return payload, delimited by {@link #BATCH_BOUNDARY}.
+   */
+  public static byte[] batch(final int parts, final String entitySetName, final int size) {
+    final byte[] item = json(entitySetName, size);
+    final ByteArrayOutputStream output = new ByteArrayOutputStream(parts * (item.length + 256));
+    try {
+      for (int i = 0; i < parts; i++) {
+        output.write(("--" + BATCH_BOUNDARY + "\r\n"
+            + "Content-Type: application/http\r\n"
+            + "Content-Transfer-Encoding: binary\r\n"
+            + "\r\n"
+            + "HTTP/1.1 200 OK\r\n"
+            + "Content-Type: application/json;odata.metadata=minimal\r\n"
+            + "OData-Version: 4.0\r\n"
+            + "Content-Length: " + item.length + "\r\n"
+            + "\r\n").getBytes(Constants.UTF8));
+        output.write(item);
+        output.write("\r\n".getBytes(Constants.UTF8));
+      }
+      output.write(("--" + BATCH_BOUNDARY + "--\r\n").getBytes(Constants.UTF8));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return output.toByteArray();
+  }
+
+  private static byte[] write(final ODataSerializer serializer, final String entitySetName, final int size) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      final Writer writer = new OutputStreamWriter(output, Constants.UTF8);
+      serializer.write(writer, new ResWrap<EntityCollection>(
+          URI.create(SERVICE_ROOT + '/' + Constants.METADATA + '#' + entitySetName), null,
+          entitySet(entitySetName, size)));
+      writer.flush();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+    return output.toByteArray();
+  }
+
+  private static List<Property> properties(final EdmStructuredType type, final int index, final int depth) {
+    final List<Property> properties = new ArrayList<Property>();
+    for (String name : type.getPropertyNames()) {
+      final EdmProperty property = type.getStructuralProperty(name);
+      if (property == null) {
+        continue;
+      }
+
+      final String typeName = property.getType().getFullQualifiedName().getFullQualifiedNameAsString();
+      if (property.isCollection()) {
+        final List<Object> values = new ArrayList<Object>();
+        for (int i = 0; i < COLLECTION_SIZE; i++) {
+          final Object value = value(property.getType(), index + i, depth);
+          if (value != null) {
+            values.add(value);
+          }
+        }
+        if (!values.isEmpty()) {
+          properties.add(new Property("Collection(" + typeName + ')', name,
+              collectionValueType(property.getType()), values));
+        }
+      } else {
+        final Object value = value(property.getType(), index, depth);
+        if (value != null) {
+          properties.add(new Property(typeName, name, valueType(property.getType()), value));
+        }
+      }
+    }
+    return properties;
+  }
+
+  private static ValueType valueType(final EdmType type) {
+    switch (type.getKind()) {
+    case ENUM:
+      return ValueType.ENUM;
+    case COMPLEX:
+      return ValueType.COMPLEX;
+    default:
+      return ValueType.PRIMITIVE;
+    }
+  }
+
+  private static ValueType collectionValueType(final EdmType type) {
+    switch (type.getKind()) {
+    case ENUM:
+      return ValueType.COLLECTION_ENUM;
+    case COMPLEX:
+      return ValueType.COLLECTION_COMPLEX;
+    default:
+      return ValueType.COLLECTION_PRIMITIVE;
+    }
+  }
+
+  /**
+   * Generates a value of the given type.
+   *
+   * @return value, or null if no value is generated for this type.
+   */
+  private static Object value(final EdmType type, final int index, final int depth) {
+    switch (type.getKind()) {
+    case PRIMITIVE:
+      return primitiveValue(EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName()), index);
+
+    case ENUM:
+      final List<String> members = ((EdmEnumType) type).getMemberNames();
+      return members.get(index % members.size());
+
+    case COMPLEX:
+      if (depth >= MAX_DEPTH) {
+        return null;
+      }
+      final ComplexValue complexValue = new ComplexValue();
+      complexValue.setTypeName(type.getFullQualifiedName().getFullQualifiedNameAsString());
+      complexValue.getValue().addAll(properties((EdmStructuredType) type, index, depth + 1));
+      return complexValue;
+
+    default:
+      return null;
+    }
+  }
+
+  private static Object primitiveValue(final EdmPrimitiveTypeKind kind, final int index) {
+    switch (kind) {
+    case Boolean:
+      return index % 2 == 0;
+    case Byte:
+      return (short) (index % 256);
+    case SByte:
+      return (byte) (index % 128);
+    case Int16:
+      return (short) (index % Short.MAX_VALUE);
+    case Int32:
+      return index;
+    case Int64:
+      return 1000000000000L + index;
+    case Single:
+      return index + 0.25F;
+    case Double:
+      return index + 0.125D;
+    case Decimal:
+      return BigDecimal.valueOf(index, 2);
+    case Duration:
+      return BigDecimal.valueOf(86400L + index);
+    case DateTimeOffset:
+      return new Timestamp(BASE_TIME + index * 1000L);
+    case Date:
+    case TimeOfDay:
+      final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+      calendar.clear();
+      calendar.setTimeInMillis(BASE_TIME + index * 60000L);
+      return calendar;
+    case Guid:
+      return new UUID(0L, index);
+    case Binary:
+      return new byte[] { (byte) index, (byte) (index >> 8), (byte) (index >> 16) };
+    case String:
+      return "Value " + index + " abcdefghijklmnopqrstuvwxyz";
+    default:
+      // geospatial and stream values are not generated
+      return null;
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and formatting of date and time literals, as done for every such value of a payload.
+ * <br/>
+ * Each benchmark has a <code>legacy</code> counterpart running the former implementation, see
+ * {@link LegacyDateTimeTypes}, on the same input.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateTimeBenchmark {
+
+  private static final String DATE_TIME_OFFSET = "2016-10-02T14:25:36.1234567+02:00";
+
+  private static final String DATE = "2016-10-02";
+
+  private static final String TIME_OF_DAY = "14:25:36.123";
+
+  private static final String DURATION = "P12DT23H59M59.999S";
+
+  private EdmPrimitiveType dateTimeOffset;
+
+  private EdmPrimitiveType date;
+
+  private EdmPrimitiveType timeOfDay;
+
+  private EdmPrimitiveType duration;
+
+  private EdmPrimitiveType legacyDateTimeOffset;
+
+  private EdmPrimitiveType legacyDate;
+
+  private EdmPrimitiveType legacyTimeOfDay;
+
+  private EdmPrimitiveType legacyDuration;
+
+  private Timestamp timestamp;
+
+  private Calendar calendar;
+
+  private BigDecimal seconds;
+
+  @Setup
+  public void setUp() throws EdmPrimitiveTypeException {
+    dateTimeOffset = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.DateTimeOffset);
+    date = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Date);
+    timeOfDay = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.TimeOfDay);
+    duration = EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Duration);
+    legacyDateTimeOffset = new LegacyDateTimeTypes.EdmDateTimeOffset();
+    legacyDate = new LegacyDateTimeTypes.EdmDate();
+    legacyTimeOfDay = new LegacyDateTimeTypes.EdmTimeOfDay();
+    legacyDuration = new LegacyDateTimeTypes.EdmDuration();
+    timestamp = dateTimeOffset.valueOfString(DATE_TIME_OFFSET, null, null, 7, null, null, Timestamp.class);
+    calendar = dateTimeOffset.valueOfString(DATE + 'T' + TIME_OF_DAY + "+02:00", null, null, 3, null, null,
+        Calendar.class);
+    seconds = duration.valueOfString(DURATION, null, null, 3, null, null, BigDecimal.class);
+  }
+
+  @Benchmark
+  public Timestamp parseDateTimeOffset() throws EdmPrimitiveTypeException {
+    return dateTimeOffset.valueOfString(DATE_TIME_OFFSET, null, null, 7, null, null, Timestamp.class);
+  }
+
+  @Benchmark
+  public String formatDateTimeOffset() throws EdmPrimitiveTypeException {
+    return dateTimeOffset.valueToString(timestamp, null, null, 7, null, null);
+  }
+
+  @Benchmark
+  public Calendar parseDate() throws EdmPrimitiveTypeException {
+    return date.valueOfString(DATE, null, null, null, null, null, Calendar.class);
+  }
+
+  @Benchmark
+  public String formatDate() throws EdmPrimitiveTypeException {
+    return date.valueToString(calendar, null, null, null, null, null);
+  }
+
+  @Benchmark
+  public Calendar parseTimeOfDay() throws EdmPrimitiveTypeException {
+    return timeOfDay.valueOfString(TIME_OF_DAY, null, null, 3, null, null, Calendar.class);
+  }
+
+  @Benchmark
+  public String formatTimeOfDay() throws EdmPrimitiveTypeException {
+    return timeOfDay.valueToString(calendar, null, null, 3, null, null);
+  }
+
+  @Benchmark
+  public BigDecimal parseDuration() throws EdmPrimitiveTypeException {
+    return duration.valueOfString(DURATION, null, null, 3, null, null, BigDecimal.class);
+  }
+
+  @Benchmark
+  public String formatDuration() throws EdmPrimitiveTypeException {
+    return duration.valueToString(seconds, null, null, 3, null, null);
+  }
+
+  @Benchmark
+  public Timestamp legacyParseDateTimeOffset() throws EdmPrimitiveTypeException {
+    return legacyDateTimeOffset.valueOfString(DATE_TIME_OFFSET, null, null, 7, null, null, Timestamp.class);
+  }
+
+  @Benchmark
+  public String legacyFormatDateTimeOffset() throws EdmPrimitiveTypeException {
+    return legacyDateTimeOffset.valueToString(timestamp, null, null, 7, null, null);
+  }
+
+  @Benchmark
+  public Calendar legacyParseDate() throws EdmPrimitiveTypeException {
+    return legacyDate.valueOfString(DATE, null, null, null, null, null, Calendar.class);
+  }
+
+  @Benchmark
+  public String legacyFormatDate() throws EdmPrimitiveTypeException {
+    return legacyDate.valueToString(calendar, null, null, null, null, null);
+  }
+
+  @Benchmark
+  public Calendar legacyParseTimeOfDay() throws EdmPrimitiveTypeException {
+    return legacyTimeOfDay.valueOfString(TIME_OF_DAY, null, null, 3, null, null, Calendar.class);
+  }
+
+  @Benchmark
+  public String legacyFormatTimeOfDay() throws EdmPrimitiveTypeException {
+    return legacyTimeOfDay.valueToString(calendar, null, null, 3, null, null);
+  }
+
+  @Benchmark
+  public BigDecimal legacyParseDuration() throws EdmPrimitiveTypeException {
+    return legacyDuration.valueOfString(DURATION, null, null, 3, null, null, BigDecimal.class);
+  }
+
+  @Benchmark
+  public String legacyFormatDuration() throws EdmPrimitiveTypeException {
+    return legacyDuration.valueToString(seconds, null, null, 3, null, null);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.client.api.EdmEnabledODataClient;
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientEntitySetIterator;
+import org.apache.olingo.client.api.serialization.ODataDeserializerException;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading of entity set responses, for growing numbers of entities and entity widths.
+ * <br/>
+ * Covers the single steps (deserialization into the commons data model, binding into client domain objects) as well
+ * as the complete paths used by the retrieve requests and by {@link ClientEntitySetIterator}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntitySetReadBenchmark {
+
+  @Param({ "Departments", "Products", "Customers" })
+  public String entitySet;
+
+  @Param({ "10", "100", "1000" })
+  public int size;
+
+  private EdmEnabledODataClient client;
+
+  private byte[] json;
+
+  private byte[] atom;
+
+  private ResWrap<EntityCollection> deserialized;
+
+  @Setup
+  public void setUp() throws ODataDeserializerException {
+    client = ODataClientFactory.getEdmEnabledClient(BenchmarkPayloads.SERVICE_ROOT, BenchmarkPayloads.getEdm(), null);
+    json = BenchmarkPayloads.json(entitySet, size);
+    atom = BenchmarkPayloads.atom(entitySet, size);
+    deserialized = client.getDeserializer(ContentType.JSON).toEntitySet(new ByteArrayInputStream(json));
+  }
+
+  @Benchmark
+  public ResWrap<EntityCollection> deserializeJson() throws ODataDeserializerException {
+    return client.getDeserializer(ContentType.JSON).toEntitySet(new ByteArrayInputStream(json));
+  }
+
+  @Benchmark
+  public ResWrap<EntityCollection> deserializeAtom() throws ODataDeserializerException {
+    return client.getDeserializer(ContentType.APPLICATION_ATOM_XML).toEntitySet(new ByteArrayInputStream(atom));
+  }
+
+  @Benchmark
+  public ClientEntitySet bind() {
+    return client.getBinder().getODataEntitySet(deserialized);
+  }
+
+  /**
+   * Deserialization followed by binding, the path taken for Atom and for clients without metadata.
+   */
+  @Benchmark
+  public ClientEntitySet deserializeAndBindJson() throws ODataDeserializerException {
+    return client.getBinder().getODataEntitySet(
+        client.getDeserializer(ContentType.JSON).toEntitySet(new ByteArrayInputStream(json)));
+  }
+
+  /**
+   * Path taken by entity set requests of metadata-aware clients.
+   */
+  @Benchmark
+  public ClientEntitySet readJson() throws ODataDeserializerException {
+    return client.getReader().readEntitySet(new ByteArrayInputStream(json), ContentType.JSON);
+  }
+
+  @Benchmark
+  public ClientEntitySet readAtom() throws ODataDeserializerException {
+    return client.getReader().readEntitySet(new ByteArrayInputStream(atom), ContentType.APPLICATION_ATOM_XML);
+  }
+
+  @Benchmark
+  public void iterateJson(final Blackhole blackhole) {
+    iterate(json, ContentType.JSON, blackhole);
+  }
+
+  @Benchmark
+  public void iterateAtom(final Blackhole blackhole) {
+    iterate(atom, ContentType.APPLICATION_ATOM_XML, blackhole);
+  }
+
+  private void iterate(final byte[] payload, final ContentType contentType, final Blackhole blackhole) {
+    final ClientEntitySetIterator<ClientEntitySet, ClientEntity> iterator =
+        new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(
+            client, new ByteArrayInputStream(payload), contentType);
+    try {
+      while (iterator.hasNext()) {
+        blackhole.consume(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+  }
+}
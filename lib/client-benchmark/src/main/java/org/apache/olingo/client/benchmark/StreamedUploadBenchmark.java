@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.client.core.communication.request.BufferedPipedOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transfer of a large request payload from the thread writing it to the thread sending it, through the
+ * {@link BufferedPipedOutputStream} used by the stream managers and through the JDK piped streams it replaced.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamedUploadBenchmark {
+
+  private static final int CHUNK_SIZE = 8192;
+
+  private static final long MEGABYTE = 1024L * 1024L;
+
+  @Param({ "buffered", "jdk" })
+  public String pipe;
+
+  @Param({ "1024", "4096" })
+  public int megabytes;
+
+  private ExecutorService writer;
+
+  private byte[] chunk;
+
+  @Setup
+  public void setUp() {
+    writer = Executors.newSingleThreadExecutor();
+    chunk = new byte[CHUNK_SIZE];
+    for (int i = 0; i < CHUNK_SIZE; i++) {
+      chunk[i] = (byte) ('a' + i % 26);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    writer.shutdownNow();
+  }
+
+  @Benchmark
+  public long transfer() throws Exception {
+    final PipedOutputStream output;
+    final InputStream input;
+    if ("jdk".equals(pipe)) {
+      output = new PipedOutputStream();
+      input = new PipedInputStream(output);
+    } else {
+      output = new BufferedPipedOutputStream();
+      input = ((BufferedPipedOutputStream) output).getInputStream();
+    }
+
+    final Future<Void> written = writer.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws IOException {
+        write(output, megabytes * MEGABYTE);
+        return null;
+      }
+    });
+
+    final byte[] buffer = new byte[CHUNK_SIZE];
+    long count = 0;
+    for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+      count += read;
+    }
+    input.close();
+    written.get();
+    return count;
+  }
+
+  private void write(final OutputStream output, final long length) throws IOException {
+    try {
+      for (long remaining = length; remaining > 0; remaining -= CHUNK_SIZE) {
+        output.write(chunk, 0, (int) Math.min(CHUNK_SIZE, remaining));
+      }
+    } finally {
+      output.close();
+    }
+  }
+}
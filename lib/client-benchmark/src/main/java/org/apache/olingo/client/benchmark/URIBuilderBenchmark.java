@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.benchmark;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building of request URIs, from a single key access to a collection with a full set of system query options.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class URIBuilderBenchmark {
+
+  private ODataClient client;
+
+  private Map<String, Object> compoundKey;
+
+  @Setup
+  public void setUp() {
+    client = ODataClientFactory.getClient();
+    compoundKey = new LinkedHashMap<String, Object>();
+    compoundKey.put("ProductID", 5);
+    compoundKey.put("ProductDetailID", 2);
+  }
+
+  @Benchmark
+  public URI key() {
+    return client.newURIBuilder(BenchmarkPayloads.SERVICE_ROOT)
+        .appendEntitySetSegment("Products").appendKeySegment(5).build();
+  }
+
+  @Benchmark
+  public URI navigation() {
+    return client.newURIBuilder(BenchmarkPayloads.SERVICE_ROOT)
+        .appendEntitySetSegment("ProductDetails").appendKeySegment(compoundKey)
+        .appendNavigationSegment("Reviews").appendKeySegment(compoundKey)
+        .appendPropertySegment("Comment").appendValueSegment().build();
+  }
+
+  @Benchmark
+  public URI queryOptions() {
+    return client.newURIBuilder(BenchmarkPayloads.SERVICE_ROOT)
+        .appendEntitySetSegment("Customers")
+        .filter("City eq 'London' and contains(FirstName,'Bob')")
+        .select("PersonID", "FirstName", "LastName", "HomeAddress")
+        .expandWithSelect("Orders", "OrderID", "OrderDate")
+        .orderBy("LastName desc")
+        .top(20).skip(40).count(true)
+        .build();
+  }
+}
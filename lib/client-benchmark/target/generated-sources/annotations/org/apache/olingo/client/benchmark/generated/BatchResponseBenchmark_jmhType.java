@@ -0,0 +1,4 @@
+package org.apache.olingo.client.benchmark.generated;
+public class BatchResponseBenchmark_jmhType extends BatchResponseBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.olingo.client.benchmark.generated;
+public class DateTimeBenchmark_jmhType extends DateTimeBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.olingo.client.benchmark.generated;
+public class EntitySetReadBenchmark_jmhType extends EntitySetReadBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.apache.olingo.client.benchmark.generated;
+public class StreamedUploadBenchmark_jmhType extends StreamedUploadBenchmark_jmhType_B3 {
+}
+
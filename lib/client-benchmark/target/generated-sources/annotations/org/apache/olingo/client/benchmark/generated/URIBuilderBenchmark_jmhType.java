@@ -0,0 +1,4 @@
+package org.apache.olingo.client.benchmark.generated;
+public class URIBuilderBenchmark_jmhType extends URIBuilderBenchmark_jmhType_B3 {
+}
+
@@ -26,6 +26,7 @@ import java.util.concurrent.Executors;
 import org.apache.olingo.client.api.Configuration;
 import org.apache.olingo.client.api.http.HttpClientFactory;
 import org.apache.olingo.client.api.http.HttpUriRequestFactory;
+import org.apache.olingo.client.api.http.ResponseCache;
 import org.apache.olingo.client.core.http.DefaultHttpClientFactory;
 import org.apache.olingo.client.core.http.DefaultHttpUriRequestFactory;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -58,6 +59,8 @@ public class ConfigurationImpl implements Configuration {
 
   private static final String CONTINUE_ON_ERROR = "continueOnError";
 
+  private static final String RESPONSE_CACHE = "responseCache";
+
   private final Map<String, Object> CONF = new HashMap<String, Object>();
 
   private transient ExecutorService executor = Executors.newFixedThreadPool(10);
@@ -229,4 +232,14 @@ public class ConfigurationImpl implements Configuration {
   public void setExecutor(final ExecutorService executorService) {
     executor = executorService;
   }
+
+  @Override
+  public ResponseCache getResponseCache() {
+    return (ResponseCache) getProperty(RESPONSE_CACHE, null);
+  }
+
+  @Override
+  public void setResponseCache(final ResponseCache cache) {
+    setProperty(RESPONSE_CACHE, cache);
+  }
 }
@@ -18,22 +18,42 @@
  */
 package org.apache.olingo.client.core.communication.request;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.lang.reflect.Constructor;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.AbstractHttpClient;
 import org.apache.http.impl.client.DecompressingHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.header.ODataHeaders;
@@ -41,10 +61,13 @@ import org.apache.olingo.client.api.communication.request.ODataRequest;
 import org.apache.olingo.client.api.communication.request.ODataStreamer;
 import org.apache.olingo.client.api.communication.response.ODataResponse;
 import org.apache.olingo.client.api.http.HttpClientException;
+import org.apache.olingo.client.api.http.ResponseCache;
+import org.apache.olingo.client.api.http.ResponseCacheEntry;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 
 /**
  * Abstract representation of an OData request. Get instance by using factories.
@@ -78,6 +101,11 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
    */
   protected HttpClient httpClient;
 
+  /**
+   * Credentials of the HTTP client, if known.
+   */
+  private CredentialsProvider credentialsProvider;
+
   /**
    * HTTP request.
    */
@@ -290,6 +318,21 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
       request.addHeader(key, odataHeaders.getHeader(key));
     }
 
+    // Revalidate a cached response, if available
+    final ResponseCache cache = isCacheable() && StringUtils.isBlank(getIfNoneMatch())
+        ? odataClient.getConfiguration().getResponseCache()
+        : null;
+    final String identity = cache == null ? null : getCacheIdentity();
+    final String cacheKey = cache == null ? null
+        : identity == null ? uri.toASCIIString() : uri.toASCIIString() + " " + digest(identity);
+    ResponseCacheEntry cached = cache == null ? null : cache.get(cacheKey);
+    if (cached != null && !isSelectedBy(cached)) {
+      cached = null;
+    }
+    if (cached != null) {
+      request.setHeader(HttpHeader.IF_NONE_MATCH, cached.getETag());
+    }
+
     if (LOG.isDebugEnabled()) {
       for (Header header : request.getAllHeaders()) {
         LOG.debug("HTTP header being sent: " + header);
@@ -298,7 +341,14 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
 
     HttpResponse response;
     try {
-      response = httpClient.execute(request);
+      if (cache == null) {
+        response = httpClient.execute(request);
+      } else {
+        final HttpContext context = new BasicHttpContext();
+        response = httpClient.execute(request, context);
+        response = applyResponseCache(cache, cacheKey, cached, response,
+            identity != null || !isSentWithAuthorization(context));
+      }
     } catch (IOException e) {
       throw new HttpClientException(e);
     } catch (RuntimeException e) {
@@ -309,6 +359,8 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
     try {
       checkResponse(odataClient, response, getAccept());
     } catch (ODataRuntimeException e) {
+      // give a pooled connection back
+      EntityUtils.consumeQuietly(response.getEntity());
       odataClient.getConfiguration().getHttpClientFactory().close(httpClient);
       throw e;
     }
@@ -316,6 +368,193 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
     return response;
   }
 
+  /**
+   * Checks whether responses to this request can be served from the configured <tt>ResponseCache</tt>.
+   * <br/>
+   * Only <tt>GET</tt> requests whose payload does not depend on anything else than URI, the request headers named
+   * by the <tt>Vary</tt> response header and the identity the request is sent on behalf of should return
+   * <tt>true</tt>.
+   *
+   * @return <tt>true</tt> if cacheable; <tt>false</tt> otherwise.
+   * @see org.apache.olingo.client.api.Configuration#getResponseCache()
+   */
+  protected boolean isCacheable() {
+    return false;
+  }
+
+  /**
+   * Gets the identity the request is sent on behalf of, as far as it is known before sending it: the
+   * <tt>Authorization</tt> header set on the request and the user of the credentials configured for its URI.
+   *
+   * @return identity, or null for anonymous requests.
+   */
+  private String getCacheIdentity() {
+    final StringBuilder identity = new StringBuilder();
+    final Header authorization = request.getFirstHeader(HttpHeader.AUTHORIZATION);
+    if (authorization != null) {
+      identity.append(authorization.getValue());
+    }
+    if (credentialsProvider != null) {
+      final Credentials credentials = credentialsProvider.getCredentials(new AuthScope(uri.getHost(), uri.getPort()));
+      if (credentials != null && credentials.getUserPrincipal() != null) {
+        identity.append('\n').append(credentials.getUserPrincipal().getName());
+      }
+    }
+    return identity.length() == 0 ? null : identity.toString();
+  }
+
+  /**
+   * Checks whether the request actually sent carried an <tt>Authorization</tt> header, e.g. one added by a request
+   * interceptor of the configured <tt>HttpClientFactory</tt>.
+   */
+  private boolean isSentWithAuthorization(final HttpContext context) {
+    final Object sent = context.getAttribute(ExecutionContext.HTTP_REQUEST);
+    return sent instanceof HttpRequest && ((HttpRequest) sent).containsHeader(HttpHeader.AUTHORIZATION);
+  }
+
+  private boolean isSelectedBy(final ResponseCacheEntry cached) {
+    for (Map.Entry<String, String> header : cached.getRequestHeaders().entrySet()) {
+      final Header sent = request.getFirstHeader(header.getKey());
+      if (!StringUtils.equals(header.getValue(), sent == null ? null : sent.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the request headers selecting the given response, or null if it must not be stored.
+   */
+  private Map<String, String> getSelectingHeaders(final HttpResponse response) {
+    for (Header cacheControl : response.getHeaders(HttpHeader.CACHE_CONTROL)) {
+      if (StringUtils.containsIgnoreCase(cacheControl.getValue(), "no-store")) {
+        return null;
+      }
+    }
+
+    final Map<String, String> selecting = new LinkedHashMap<String, String>();
+    selecting.put(HttpHeader.ACCEPT, getAccept());
+    for (Header vary : response.getHeaders(HttpHeader.VARY)) {
+      for (String name : vary.getValue().split(",")) {
+        name = name.trim();
+        if ("*".equals(name) || HttpHeader.COOKIE.equalsIgnoreCase(name)) {
+          // the cookies sent are out of sight
+          return null;
+        }
+        // identities are part of the cache key, payloads are stored decoded
+        if (name.length() > 0 && !HttpHeader.AUTHORIZATION.equalsIgnoreCase(name)
+            && !HttpHeader.ACCEPT_ENCODING.equalsIgnoreCase(name)) {
+
+          final Header sent = request.getFirstHeader(name);
+          selecting.put(name, sent == null ? null : sent.getValue());
+        }
+      }
+    }
+    return selecting;
+  }
+
+  private static String digest(final String value) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(DEFAULT_CHARSET));
+      final StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0x0F, 16)).append(Character.forDigit(b & 0x0F, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Replaces a <tt>304 Not Modified</tt> response by the cached one, or stores a fresh response carrying an
+   * <tt>ETag</tt> if it fits into the cache.
+   * <br/>
+   * Responses to requests authorized on behalf of an unknown identity are never stored.
+   */
+  private HttpResponse applyResponseCache(final ResponseCache cache, final String cacheKey,
+      final ResponseCacheEntry cached, final HttpResponse response, final boolean storable) throws IOException {
+
+    final int statusCode = response.getStatusLine().getStatusCode();
+    if (cached != null && statusCode == HttpStatusCode.NOT_MODIFIED.getStatusCode()) {
+      EntityUtils.consumeQuietly(response.getEntity());
+      return toHttpResponse(cached);
+    }
+    if (statusCode != HttpStatusCode.OK.getStatusCode()) {
+      return response;
+    }
+
+    final Header eTag = response.getFirstHeader(HttpHeader.ETAG);
+    final HttpEntity entity = response.getEntity();
+    final Map<String, String> selecting = storable ? getSelectingHeaders(response) : null;
+    if (selecting == null || eTag == null || entity == null || entity.getContentLength() > cache.getMaxEntrySize()) {
+      if (cached != null) {
+        cache.remove(cacheKey);
+      }
+      return response;
+    }
+
+    final InputStream content = entity.getContent();
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+        entity.getContentLength() < 0 ? 4096 : (int) entity.getContentLength());
+    final byte[] chunk = new byte[4096];
+    long size = 0;
+    int read;
+    while (size <= cache.getMaxEntrySize() && (read = content.read(chunk)) != -1) {
+      buffer.write(chunk, 0, read);
+      size += read;
+    }
+
+    if (size > cache.getMaxEntrySize()) {
+      // too large to be cached: hand over what has been read so far, followed by the rest of the stream
+      final InputStreamEntity streamed = new InputStreamEntity(
+          new SequenceInputStream(new ByteArrayInputStream(buffer.toByteArray()), content), -1);
+      streamed.setContentType(entity.getContentType());
+      response.setEntity(streamed);
+      return response;
+    }
+    content.close();
+
+    final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+    for (Header header : response.getAllHeaders()) {
+      // the payload is stored as received by the caller, i.e. decoded and not chunked
+      if (!HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(header.getName())
+          && !HttpHeader.CONTENT_ENCODING.equalsIgnoreCase(header.getName())
+          && !"Transfer-Encoding".equalsIgnoreCase(header.getName())) {
+
+        List<String> values = headers.get(header.getName());
+        if (values == null) {
+          values = new ArrayList<String>(1);
+          headers.put(header.getName(), values);
+        }
+        values.add(header.getValue());
+      }
+    }
+    final ResponseCacheEntry entry = new ResponseCacheEntry(selecting, eTag.getValue(),
+        statusCode, response.getStatusLine().getReasonPhrase(), headers, buffer.toByteArray());
+    cache.put(cacheKey, entry);
+
+    final ByteArrayEntity buffered = new ByteArrayEntity(entry.getContent());
+    buffered.setContentType(entity.getContentType());
+    response.setEntity(buffered);
+    return response;
+  }
+
+  private HttpResponse toHttpResponse(final ResponseCacheEntry cached) {
+    final BasicHttpResponse response =
+        new BasicHttpResponse(HttpVersion.HTTP_1_1, cached.getStatusCode(), cached.getStatusMessage());
+    for (Map.Entry<String, List<String>> header : cached.getHeaders().entrySet()) {
+      for (String value : header.getValue()) {
+        response.addHeader(header.getKey(), value);
+      }
+    }
+
+    final ByteArrayEntity entity = new ByteArrayEntity(cached.getContent());
+    entity.setContentType(response.getFirstHeader(HttpHeader.CONTENT_TYPE));
+    response.setEntity(entity);
+    return response;
+  }
+
   /**
    * Gets an empty response that can be initialized by a stream.
    * <br/>
@@ -344,6 +583,9 @@ public abstract class AbstractODataRequest extends AbstractRequest implements OD
 
   private HttpClient getHttpClient(final HttpMethod method, final URI uri) {
     HttpClient client = odataClient.getConfiguration().getHttpClientFactory().create(method, uri);
+    credentialsProvider = client instanceof AbstractHttpClient
+        ? ((AbstractHttpClient) client).getCredentialsProvider()
+        : null;
     if (odataClient.getConfiguration().isGzipCompression()) {
       client = new DecompressingHttpClient(client);
     }
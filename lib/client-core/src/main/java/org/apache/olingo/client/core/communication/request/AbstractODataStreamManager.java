@@ -44,7 +44,7 @@ public abstract class AbstractODataStreamManager<T extends ODataResponse> extend
   /**
    * Body input stream.
    */
-  private final PipedInputStream body;
+  private final InputStream body;
 
   /**
    * Default body input stream.
@@ -62,7 +62,7 @@ public abstract class AbstractODataStreamManager<T extends ODataResponse> extend
    * @param futureWrap wrapper of the Future object of the HttpResponse.
    */
   public AbstractODataStreamManager(final Wrapper<Future<HttpResponse>> futureWrap) {
-    this(futureWrap, new PipedOutputStream());
+    this(futureWrap, new BufferedPipedOutputStream());
   }
 
   /**
@@ -75,10 +75,14 @@ public abstract class AbstractODataStreamManager<T extends ODataResponse> extend
     super(output);
 
     this.futureWrap = futureWrap;
-    try {
-      this.body = new PipedInputStream(getBodyStreamWriter());
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
+    if (output instanceof BufferedPipedOutputStream) {
+      this.body = ((BufferedPipedOutputStream) output).getInputStream();
+    } else {
+      try {
+        this.body = new PipedInputStream(getBodyStreamWriter());
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
     }
     this.defaultBody = this.body;
   }
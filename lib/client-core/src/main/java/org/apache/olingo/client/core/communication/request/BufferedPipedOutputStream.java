@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+/**
+ * Piped stream handing the request payload over to the HTTP client through a growable ring buffer.
+ * <br/>
+ * It replaces the pair of {@link PipedOutputStream} and {@link PipedInputStream}: those exchange data through a
+ * 1 KB buffer, wake up the other side once per second at most when it is full or empty, and fail as soon as the
+ * thread which last wrote terminates. Here writer and reader block only while the buffer is full or empty
+ * respectively, and are woken up as soon as this changes; the buffer starts small and grows up to the given
+ * capacity, so that small payloads do not pay for large buffers.
+ * <br/>
+ * The reading end is provided by {@link #getInputStream()}; this stream cannot be connected to another
+ * {@link PipedInputStream}.
+ */
+public class BufferedPipedOutputStream extends PipedOutputStream {
+
+  /**
+   * Default maximum size of the buffer.
+   */
+  public static final int DEFAULT_CAPACITY = 1024 * 1024;
+
+  private static final int INITIAL_SIZE = 8 * 1024;
+
+  private final Object lock = new Object();
+
+  private final int capacity;
+
+  private final InputStream input = new BufferedPipedInputStream();
+
+  private byte[] buffer;
+
+  /**
+   * Position of the next byte to be read.
+   */
+  private int head = 0;
+
+  /**
+   * Number of bytes available to be read.
+   */
+  private int count = 0;
+
+  private boolean writeClosed = false;
+
+  private boolean readClosed = false;
+
+  /**
+   * Constructor.
+   */
+  public BufferedPipedOutputStream() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param capacity maximum size of the buffer, in bytes.
+   */
+  public BufferedPipedOutputStream(final int capacity) {
+    super();
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Buffer capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.buffer = new byte[Math.min(INITIAL_SIZE, capacity)];
+  }
+
+  /**
+   * Gets the stream reading what is written onto this stream.
+   *
+   * @return reading end of the pipe.
+   */
+  public InputStream getInputStream() {
+    return input;
+  }
+
+  @Override
+  public void connect(final PipedInputStream snk) throws IOException {
+    throw new IOException("Already connected");
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    synchronized (lock) {
+      awaitSpace(1);
+      buffer[(head + count) % buffer.length] = (byte) b;
+      count++;
+      lock.notifyAll();
+    }
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    if (b == null) {
+      throw new NullPointerException();
+    } else if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+
+    int offset = off;
+    int remaining = len;
+    synchronized (lock) {
+      while (remaining > 0) {
+        awaitSpace(remaining);
+
+        final int length = Math.min(remaining, buffer.length - count);
+        final int tail = (head + count) % buffer.length;
+        final int first = Math.min(length, buffer.length - tail);
+        System.arraycopy(b, offset, buffer, tail, first);
+        System.arraycopy(b, offset + first, buffer, 0, length - first);
+
+        count += length;
+        offset += length;
+        remaining -= length;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Waits until the buffer has room for at least one byte, growing it first if allowed.
+   *
+   * @param wanted number of bytes to be written.
+   * @throws IOException if either end of the pipe is closed or if the writer is interrupted.
+   */
+  private void awaitSpace(final int wanted) throws IOException {
+    if (count + wanted > buffer.length && buffer.length < capacity) {
+      grow((int) Math.min(capacity, Math.max(2L * buffer.length, (long) count + wanted)));
+    }
+    while (true) {
+      if (writeClosed || readClosed) {
+        throw new IOException("Pipe closed");
+      }
+      if (count < buffer.length) {
+        return;
+      }
+      try {
+        lock.wait();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+  }
+
+  private void grow(final int size) {
+    final byte[] grown = new byte[size];
+    final int first = Math.min(count, buffer.length - head);
+    System.arraycopy(buffer, head, grown, 0, first);
+    System.arraycopy(buffer, 0, grown, first, count - first);
+    buffer = grown;
+    head = 0;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    // written bytes are readable right away
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      writeClosed = true;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Reading end of the pipe.
+   */
+  private class BufferedPipedInputStream extends InputStream {
+
+    /**
+     * Waits until there is something to read.
+     *
+     * @return <tt>false</tt> if the end of the stream is reached.
+     * @throws IOException if this stream is closed or if the reader is interrupted.
+     */
+    private boolean awaitData() throws IOException {
+      while (true) {
+        if (readClosed) {
+          throw new IOException("Pipe closed");
+        }
+        if (count > 0) {
+          return true;
+        }
+        if (writeClosed) {
+          return false;
+        }
+        try {
+          lock.wait();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        }
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      synchronized (lock) {
+        if (!awaitData()) {
+          return -1;
+        }
+        final int b = buffer[head] & 0xFF;
+        head = (head + 1) % buffer.length;
+        count--;
+        lock.notifyAll();
+        return b;
+      }
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (b == null) {
+        throw new NullPointerException();
+      } else if (off < 0 || len < 0 || len > b.length - off) {
+        throw new IndexOutOfBoundsException();
+      } else if (len == 0) {
+        return 0;
+      }
+
+      synchronized (lock) {
+        if (!awaitData()) {
+          return -1;
+        }
+        final int length = Math.min(len, count);
+        final int first = Math.min(length, buffer.length - head);
+        System.arraycopy(buffer, head, b, off, first);
+        System.arraycopy(buffer, 0, b, off + first, length - first);
+        head = (head + length) % buffer.length;
+        count -= length;
+        lock.notifyAll();
+        return length;
+      }
+    }
+
+    @Override
+    public int available() throws IOException {
+      synchronized (lock) {
+        return readClosed ? 0 : count;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      synchronized (lock) {
+        readClosed = true;
+        count = 0;
+        lock.notifyAll();
+      }
+    }
+  }
+}
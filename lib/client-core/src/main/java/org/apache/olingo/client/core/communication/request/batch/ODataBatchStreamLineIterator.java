@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request.batch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+import org.apache.olingo.client.api.communication.request.batch.ODataBatchLineIterator;
+import org.apache.olingo.commons.api.Constants;
+
+/**
+ * Batch line iterator reading the multipart payload as bytes.
+ * <br/>
+ * Lines (boundaries and headers) are decoded on demand, while item bodies are exposed through
+ * {@link #nextPart(String)} as bounded streams over the raw bytes, so that they can be handed to the deserializers
+ * without being split into lines, decoded and re-encoded.
+ */
+public class ODataBatchStreamLineIterator implements ODataBatchLineIterator {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private static final Charset UTF8 = Charset.forName(Constants.UTF8);
+
+  /**
+   * Batch payload.
+   */
+  private final InputStream input;
+
+  private byte[] buffer = new byte[BUFFER_SIZE];
+
+  private int position;
+
+  private int limit;
+
+  private boolean eof;
+
+  private byte[] line = new byte[256];
+
+  /**
+   * Last cached line.
+   */
+  private String current;
+
+  /**
+   * Constructor.
+   *
+   * @param input batch payload.
+   */
+  public ODataBatchStreamLineIterator(final InputStream input) {
+    this.input = input;
+    this.current = null;
+  }
+
+  /**
+   * Checks if batch has next line.
+   *
+   * @return 'TRUE' if has next line; 'FALSE' otherwise.
+   */
+  @Override
+  public synchronized boolean hasNext() {
+    try {
+      return fill();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Gets next line.
+   *
+   * @return next line.
+   */
+  @Override
+  public String next() {
+    return nextLine();
+  }
+
+  /**
+   * {@inheritDoc }
+   * <br/>
+   * Lines are terminated by LF, CR or CRLF, as in {@link java.io.BufferedReader#readLine()}.
+   */
+  @Override
+  public synchronized String nextLine() {
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more lines");
+    }
+
+    try {
+      int length = 0;
+      while (fill()) {
+        int end = position;
+        while (end < limit && buffer[end] != '\n' && buffer[end] != '\r') {
+          end++;
+        }
+        length = append(length, end);
+
+        if (end < limit) {
+          final byte terminator = buffer[end];
+          position = end + 1;
+          if (terminator == '\r' && fill() && buffer[position] == '\n') {
+            position++;
+          }
+          break;
+        }
+        position = end;
+      }
+
+      current = new String(line, 0, length, UTF8);
+      return current;
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Unsupported operation.
+   */
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("Unsupported operation");
+  }
+
+  /**
+   * {@inheritDoc }
+   */
+  @Override
+  public synchronized String getCurrent() {
+    return current;
+  }
+
+  /**
+   * Gets the body of the current batch item, i.e. the bytes following the current line up to the next line starting
+   * with the given boundary.
+   * <br/>
+   * The boundary line is consumed once the returned stream reaches its end, or when it is closed before: the current
+   * line becomes then the boundary line, as if the body had been read line by line.
+   *
+   * @param boundary item boundary.
+   * @return item body stream.
+   */
+  public InputStream nextPart(final String boundary) {
+    return new PartInputStream(boundary.getBytes(UTF8));
+  }
+
+  private int append(final int length, final int end) {
+    final int count = end - position;
+    if (length + count > line.length) {
+      final byte[] larger = new byte[Math.max(line.length * 2, length + count)];
+      System.arraycopy(line, 0, larger, 0, length);
+      line = larger;
+    }
+    System.arraycopy(buffer, position, line, length, count);
+    return length + count;
+  }
+
+  /**
+   * Makes at least one byte available.
+   *
+   * @return 'FALSE' at the end of the payload.
+   */
+  private boolean fill() throws IOException {
+    return position < limit || ensure(1);
+  }
+
+  /**
+   * Makes at least the given number of bytes available, unless the payload ends before.
+   *
+   * @return 'TRUE' if the given number of bytes is available.
+   */
+  private boolean ensure(final int count) throws IOException {
+    if (limit - position >= count) {
+      return true;
+    }
+
+    if (position + count > buffer.length) {
+      final byte[] target = count > buffer.length ? new byte[count] : buffer;
+      System.arraycopy(buffer, position, target, 0, limit - position);
+      buffer = target;
+      limit -= position;
+      position = 0;
+    }
+
+    while (!eof && limit - position < count) {
+      final int read = input.read(buffer, limit, buffer.length - limit);
+      if (read < 0) {
+        eof = true;
+      } else {
+        limit += read;
+      }
+    }
+
+    return limit - position >= count;
+  }
+
+  private boolean startsWith(final byte[] prefix) throws IOException {
+    if (!ensure(prefix.length)) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer[position + i] != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Item body, bounded by the next line starting with the item boundary.
+   */
+  private class PartInputStream extends InputStream {
+
+    private final byte[] boundary;
+
+    private boolean lineStart = true;
+
+    private boolean done;
+
+    private boolean closed;
+
+    PartInputStream(final byte[] boundary) {
+      this.boundary = boundary;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] single = new byte[1];
+      final int read = read(single, 0, 1);
+      return read < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (length == 0) {
+        return 0;
+      }
+
+      synchronized (ODataBatchStreamLineIterator.this) {
+        return readPart(bytes, offset, length);
+      }
+    }
+
+    private int readPart(final byte[] bytes, final int offset, final int length) throws IOException {
+      if (done) {
+        return -1;
+      }
+
+      if (lineStart) {
+        if (startsWith(boundary)) {
+          nextLine();
+          done = true;
+          return -1;
+        }
+        lineStart = false;
+      }
+
+      if (!fill()) {
+        done = true;
+        return -1;
+      }
+
+      final int end = position + Math.min(limit - position, length);
+      int count = 0;
+      while (position + count < end) {
+        if (buffer[position + count++] == '\n') {
+          lineStart = true;
+          break;
+        }
+      }
+
+      if (bytes != null) {
+        System.arraycopy(buffer, position, bytes, offset, count);
+      }
+      position += count;
+      return count;
+    }
+
+    @Override
+    public long skip(final long count) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+
+      long skipped = 0;
+      synchronized (ODataBatchStreamLineIterator.this) {
+        while (skipped < count) {
+          final int read = readPart(null, 0, (int) Math.min(Integer.MAX_VALUE, count - skipped));
+          if (read < 0) {
+            break;
+          }
+          skipped += read;
+        }
+      }
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      synchronized (ODataBatchStreamLineIterator.this) {
+        if (done || closed || lineStart) {
+          return 0;
+        }
+        int count = 0;
+        while (position + count < limit && buffer[position + count++] != '\n') {
+          // counts the bytes up to the end of the current line
+        }
+        return count;
+      }
+    }
+
+    /**
+     * Discards the rest of the item body, leaving the batch positioned on the boundary line.
+     */
+    @Override
+    public void close() throws IOException {
+      if (!closed) {
+        skip(Long.MAX_VALUE);
+        closed = true;
+      }
+    }
+  }
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.client.core.communication.request.cud;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URI;
 
@@ -111,7 +112,8 @@ public class ODataValueUpdateRequestImpl extends AbstractODataBasicRequest<OData
           resValue = odataClient.getObjectFactory().newPrimitiveValueBuilder().
                   setType(contentType.isCompatible(ContentType.TEXT_PLAIN)
                           ? EdmPrimitiveTypeKind.String : EdmPrimitiveTypeKind.Stream).
-                  setValue(getRawResponse()).
+                  // buffered: closing the response releases the underlying connection
+                  setValue(new ByteArrayInputStream(IOUtils.toByteArray(getRawResponse()))).
                   build();
         } catch (Exception e) {
           throw new HttpClientException(e);
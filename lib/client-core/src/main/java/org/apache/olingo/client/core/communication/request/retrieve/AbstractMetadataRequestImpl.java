@@ -37,6 +37,11 @@ public abstract class AbstractMetadataRequestImpl<V> extends AbstractODataRetrie
     return ContentType.APPLICATION_XML;
   }
 
+  @Override
+  protected boolean isCacheable() {
+    return true;
+  }
+
   @Override
   public ODataRequest setAccept(final String value) {
     // do nothing: Accept is application/xml
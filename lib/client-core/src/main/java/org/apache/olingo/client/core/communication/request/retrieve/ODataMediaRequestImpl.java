@@ -53,6 +53,11 @@ public class ODataMediaRequestImpl extends AbstractODataRetrieveRequest<InputStr
     return odataClient.getConfiguration().getDefaultMediaFormat();
   }
 
+  @Override
+  protected boolean isCacheable() {
+    return true;
+  }
+
   @Override
   public ODataRetrieveResponse<InputStream> execute() {
     final HttpResponse res = doExecute();
@@ -52,6 +52,11 @@ public class ODataValueRequestImpl extends AbstractODataRetrieveRequest<ClientPr
     return odataClient.getConfiguration().getDefaultValueFormat();
   }
 
+  @Override
+  protected boolean isCacheable() {
+    return true;
+  }
+
   @Override
   public ODataRetrieveResponse<ClientPrimitiveValue> execute() {
     final HttpResponse res = doExecute();
@@ -22,8 +22,6 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
@@ -35,6 +33,8 @@ import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.utils.HttpClientUtils;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.communication.request.ODataStreamer;
 import org.apache.olingo.client.api.communication.request.batch.ODataBatchLineIterator;
@@ -42,6 +42,7 @@ import org.apache.olingo.client.api.communication.response.ODataResponse;
 import org.apache.olingo.client.api.http.NoContentException;
 import org.apache.olingo.client.core.communication.request.batch.ODataBatchController;
 import org.apache.olingo.client.core.communication.request.batch.ODataBatchLineIteratorImpl;
+import org.apache.olingo.client.core.communication.request.batch.ODataBatchStreamLineIterator;
 import org.apache.olingo.client.core.communication.request.batch.ODataBatchUtilities;
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
@@ -243,6 +244,7 @@ public abstract class AbstractODataResponse implements ODataResponse {
 
   @Override
   public void close() {
+    releaseConnection();
     odataClient.getConfiguration().getHttpClientFactory().close(httpClient);
 
     if (batchInfo != null) {
@@ -250,6 +252,22 @@ public abstract class AbstractODataResponse implements ODataResponse {
     }
   }
 
+  /**
+   * A pooled connection is given back by consuming the rest of the payload, so that it can be reused; any other
+   * connection is aborted instead, so that a caller abandoning a large payload does not wait for all of it.
+   */
+  private void releaseConnection() {
+    if (httpClient != null && httpClient.getConnectionManager() instanceof PoolingClientConnectionManager) {
+      IOUtils.closeQuietly(payload);
+    } else if (payload instanceof ConnectionReleaseTrigger) {
+      try {
+        ((ConnectionReleaseTrigger) payload).abortConnection();
+      } catch (IOException e) {
+        LOG.debug("Error aborting connection", e);
+      }
+    }
+  }
+
   @Override
   public InputStream getRawResponse() {
     if (HttpStatus.SC_NO_CONTENT == getStatusCode()) {
@@ -258,26 +276,12 @@ public abstract class AbstractODataResponse implements ODataResponse {
 
     if (payload == null && batchInfo.isValidBatch()) {
       // get input stream till the end of item
-      payload = new PipedInputStream();
-
-      try {
-        final PipedOutputStream os = new PipedOutputStream((PipedInputStream) payload);
-
-        new Thread(new Runnable() {
-          @Override
-          public void run() {
-            try {
-              ODataBatchUtilities.readBatchPart(batchInfo, os, true);
-            } catch (Exception e) {
-              LOG.error("Error streaming batch item payload", e);
-            } finally {
-              IOUtils.closeQuietly(os);
-            }
-          }
-        }).start();
-      } catch (IOException e) {
-        LOG.error("Error streaming payload response", e);
-        throw new IllegalStateException(e);
+      if (batchInfo.getBatchLineIterator() instanceof ODataBatchStreamLineIterator) {
+        payload = ((ODataBatchStreamLineIterator) batchInfo.getBatchLineIterator()).nextPart(batchInfo.getBoundary());
+      } else {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ODataBatchUtilities.readBatchPart(batchInfo, os, true);
+        payload = new ByteArrayInputStream(os.toByteArray());
       }
     }
 
@@ -18,21 +18,18 @@
  */
 package org.apache.olingo.client.core.communication.response.batch;
 
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.olingo.client.api.communication.request.batch.ODataBatchLineIterator;
 import org.apache.olingo.client.api.communication.request.batch.ODataBatchResponseItem;
 import org.apache.olingo.client.api.communication.response.ODataBatchResponse;
-import org.apache.olingo.client.core.communication.request.batch.ODataBatchLineIteratorImpl;
+import org.apache.olingo.client.core.communication.request.batch.ODataBatchStreamLineIterator;
 import org.apache.olingo.client.core.communication.request.batch.ODataBatchUtilities;
 import org.apache.olingo.client.core.communication.request.batch.ODataChangesetResponseItem;
-import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,19 +86,13 @@ public class ODataBatchResponseManager implements Iterator<ODataBatchResponseIte
 
     this.continueOnError = continueOnError;
 
-    try {
-      this.expectedItemsIterator = expectedItems.iterator();
-      this.batchLineIterator = new ODataBatchLineIteratorImpl(
-              IOUtils.lineIterator(res.getRawResponse(), Constants.UTF8));
-
-      // search for boundary
-      batchBoundary = ODataBatchUtilities.getBoundaryFromHeader(
-          res.getHeader(HttpHeader.CONTENT_TYPE));
-      LOG.debug("Retrieved batch response bondary '{}'", batchBoundary);
-    } catch (IOException e) {
-      LOG.error("Error parsing batch response", e);
-      throw new IllegalStateException(e);
-    }
+    this.expectedItemsIterator = expectedItems.iterator();
+    this.batchLineIterator = new ODataBatchStreamLineIterator(res.getRawResponse());
+
+    // search for boundary
+    batchBoundary = ODataBatchUtilities.getBoundaryFromHeader(
+        res.getHeader(HttpHeader.CONTENT_TYPE));
+    LOG.debug("Retrieved batch response bondary '{}'", batchBoundary);
   }
 
   @Override
@@ -27,19 +27,50 @@ import org.apache.olingo.commons.api.http.HttpMethod;
 
 /**
  * Default implementation returning HttpClients with default parameters.
+ * <br/>
+ * Unless a {@link HttpClientConnectionPool} is provided, each HttpClient gets its own connection, which is closed
+ * together with the response.
  */
 public class DefaultHttpClientFactory extends AbstractHttpClientFactory {
 
+  private final HttpClientConnectionPool connectionPool;
+
+  public DefaultHttpClientFactory() {
+    this(null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param connectionPool pool of connections shared by all created HttpClients; can be <tt>null</tt>.
+   */
+  public DefaultHttpClientFactory(final HttpClientConnectionPool connectionPool) {
+    this.connectionPool = connectionPool;
+  }
+
+  public HttpClientConnectionPool getConnectionPool() {
+    return connectionPool;
+  }
+
   @Override
   public DefaultHttpClient create(final HttpMethod method, final URI uri) {
-    final DefaultHttpClient client = new DefaultHttpClient();
+    final DefaultHttpClient client;
+    if (connectionPool == null) {
+      client = new DefaultHttpClient();
+    } else {
+      client = new DefaultHttpClient(connectionPool.getConnectionManager());
+      client.setKeepAliveStrategy(connectionPool.getKeepAliveStrategy());
+    }
     client.getParams().setParameter(CoreProtocolPNames.USER_AGENT, USER_AGENT);
     return client;
   }
 
   @Override
   public void close(final HttpClient httpClient) {
-    httpClient.getConnectionManager().shutdown();
+    // pooled connections are given back as soon as the response content has been consumed or closed
+    if (connectionPool == null) {
+      httpClient.getConnectionManager().shutdown();
+    }
   }
 
 }
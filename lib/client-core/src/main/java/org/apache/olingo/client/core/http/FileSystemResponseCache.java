@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.http.ResponseCache;
+import org.apache.olingo.client.api.http.ResponseCacheEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Response cache storing one file per response in a given directory.
+ * <br/>
+ * Files are written to a temporary name first and then renamed, so the same directory can be shared by several
+ * (short-lived) processes; unreadable files are treated as cache misses and removed.
+ * <br/>
+ * Entries are stored as plain data records (no Java serialization), so files planted in the directory cannot
+ * make the reader instantiate arbitrary classes.
+ */
+public class FileSystemResponseCache implements ResponseCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(FileSystemResponseCache.class);
+
+  private static final String SUFFIX = ".response";
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /** Marks the record format; increase when changing what {@link #write} stores. */
+  private static final int FORMAT = 0x4F444302;
+
+  private final File directory;
+
+  private final long maxEntrySize;
+
+  public FileSystemResponseCache(final File directory) {
+    this(directory, InMemoryResponseCache.DEFAULT_MAX_ENTRY_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param directory directory holding cached responses; created if not existing.
+   * @param maxEntrySize maximum size (in bytes) of a cached payload.
+   */
+  public FileSystemResponseCache(final File directory, final long maxEntrySize) {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalArgumentException("Cannot create cache directory " + directory);
+    }
+    this.directory = directory;
+    this.maxEntrySize = maxEntrySize;
+  }
+
+  @Override
+  public long getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  @Override
+  public ResponseCacheEntry get(final String key) {
+    final File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    DataInputStream input = null;
+    boolean discard = false;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (input.readInt() != FORMAT) {
+        throw new IOException("Unknown cached response format");
+      }
+      // the file name is a digest: make sure this is really the requested key
+      return key.equals(input.readUTF()) ? read(input) : null;
+    } catch (IOException e) {
+      LOG.debug("Discarding unreadable cached response {}", file, e);
+      discard = true;
+      return null;
+    } finally {
+      IOUtils.closeQuietly(input);
+      if (discard) {
+        file.delete();
+      }
+    }
+  }
+
+  @Override
+  public void put(final String key, final ResponseCacheEntry entry) {
+    if (entry.getContent().length > maxEntrySize) {
+      return;
+    }
+
+    final File file = getFile(key);
+    DataOutputStream output = null;
+    File temp = null;
+    try {
+      temp = File.createTempFile("olingo-", ".tmp", directory);
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      output.writeInt(FORMAT);
+      output.writeUTF(key);
+      write(output, entry);
+      output.close();
+      output = null;
+
+      if (!temp.renameTo(file)) {
+        // some platforms do not allow to rename over an existing file
+        file.delete();
+        if (!temp.renameTo(file)) {
+          LOG.debug("Could not store cached response {}", file);
+        }
+      }
+    } catch (IOException e) {
+      LOG.debug("Could not store cached response {}", file, e);
+    } finally {
+      IOUtils.closeQuietly(output);
+      if (temp != null && temp.exists()) {
+        temp.delete();
+      }
+    }
+  }
+
+  @Override
+  public void remove(final String key) {
+    getFile(key).delete();
+  }
+
+  @Override
+  public void clear() {
+    final File[] files = directory.listFiles(new FilenameFilter() {
+
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return name.endsWith(SUFFIX);
+      }
+    });
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  private void write(final DataOutputStream output, final ResponseCacheEntry entry) throws IOException {
+    output.writeInt(entry.getRequestHeaders().size());
+    for (Map.Entry<String, String> header : entry.getRequestHeaders().entrySet()) {
+      output.writeUTF(header.getKey());
+      writeString(output, header.getValue());
+    }
+    writeString(output, entry.getETag());
+    output.writeInt(entry.getStatusCode());
+    writeString(output, entry.getStatusMessage());
+    output.writeInt(entry.getHeaders().size());
+    for (Map.Entry<String, List<String>> header : entry.getHeaders().entrySet()) {
+      output.writeUTF(header.getKey());
+      output.writeInt(header.getValue().size());
+      for (String value : header.getValue()) {
+        writeString(output, value);
+      }
+    }
+    output.writeInt(entry.getContent().length);
+    output.write(entry.getContent());
+  }
+
+  private ResponseCacheEntry read(final DataInputStream input) throws IOException {
+    final int requestHeaderCount = readCount(input, Short.MAX_VALUE);
+    final Map<String, String> requestHeaders = new LinkedHashMap<String, String>();
+    for (int i = 0; i < requestHeaderCount; i++) {
+      requestHeaders.put(input.readUTF(), readString(input));
+    }
+    final String eTag = readString(input);
+    final int statusCode = input.readInt();
+    final String statusMessage = readString(input);
+    final int headerCount = readCount(input, Short.MAX_VALUE);
+    final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+    for (int i = 0; i < headerCount; i++) {
+      final String name = input.readUTF();
+      final int valueCount = readCount(input, Short.MAX_VALUE);
+      final List<String> values = new ArrayList<String>(valueCount);
+      for (int j = 0; j < valueCount; j++) {
+        values.add(readString(input));
+      }
+      headers.put(name, values);
+    }
+    final byte[] content = new byte[readCount(input, maxEntrySize)];
+    input.readFully(content);
+    if (input.read() != -1) {
+      throw new IOException("Unexpected data after cached response");
+    }
+    return new ResponseCacheEntry(requestHeaders, eTag, statusCode, statusMessage, headers, content);
+  }
+
+  private static void writeString(final DataOutputStream output, final String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeUTF(value);
+    }
+  }
+
+  private static String readString(final DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+
+  private static int readCount(final DataInputStream input, final long max) throws IOException {
+    final int count = input.readInt();
+    if (count < 0 || count > max) {
+      throw new IOException("Invalid length " + count + " in cached response");
+    }
+    return count;
+  }
+
+  private File getFile(final String key) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(UTF8));
+      final StringBuilder name = new StringBuilder(digest.length * 2 + SUFFIX.length());
+      for (byte b : digest) {
+        name.append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+      }
+      return new File(directory, name.append(SUFFIX).toString());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Pool of keep-alive connections, to be shared by all the HttpClients created by one or more
+ * {@link DefaultHttpClientFactory} instances.
+ * <br/>
+ * Connections are kept alive as long as the service allows via the <tt>Keep-Alive</tt> response header, but never
+ * longer than the configured keep-alive duration; a background thread periodically closes expired and idle
+ * connections. Call {@link #shutdown()} when the pool is no longer needed.
+ */
+public class HttpClientConnectionPool {
+
+  public static final int DEFAULT_MAX_TOTAL = 50;
+
+  public static final int DEFAULT_MAX_PER_ROUTE = 10;
+
+  public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60000;
+
+  private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+  private final PoolingClientConnectionManager connectionManager;
+
+  private final ConnectionKeepAliveStrategy keepAliveStrategy;
+
+  private final ScheduledExecutorService evictor;
+
+  public HttpClientConnectionPool() {
+    this(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE,
+        DEFAULT_KEEP_ALIVE_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxTotal maximum number of connections.
+   * @param maxPerRoute default maximum number of connections per route (i.e. per target host).
+   * @param keepAlive maximum time a connection is kept alive, if the service does not ask for less.
+   * @param idleTimeout time after which an idle connection is closed.
+   * @param unit time unit of <tt>keepAlive</tt> and <tt>idleTimeout</tt>.
+   */
+  public HttpClientConnectionPool(final int maxTotal, final int maxPerRoute,
+      final long keepAlive, final long idleTimeout, final TimeUnit unit) {
+
+    connectionManager = new PoolingClientConnectionManager();
+    connectionManager.setMaxTotal(maxTotal);
+    connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+    final long keepAliveMillis = unit.toMillis(keepAlive);
+    keepAliveStrategy = new DefaultConnectionKeepAliveStrategy() {
+
+      @Override
+      public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+        final long duration = super.getKeepAliveDuration(response, context);
+        return duration > 0 ? Math.min(duration, keepAliveMillis) : keepAliveMillis;
+      }
+    };
+
+    final int poolNumber = POOL_COUNT.incrementAndGet();
+    evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+      @Override
+      public Thread newThread(final Runnable runnable) {
+        final Thread thread = new Thread(runnable, "olingo-connection-evictor-" + poolNumber);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    final long idleTimeoutMillis = unit.toMillis(idleTimeout);
+    final long period = Math.max(1000, Math.min(idleTimeoutMillis, keepAliveMillis) / 2);
+    evictor.scheduleWithFixedDelay(new Runnable() {
+
+      @Override
+      public void run() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS);
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Sets the maximum number of connections to the given host, overriding the default per-route limit.
+   *
+   * @param host target host, including port if not the default one of the scheme.
+   * @param max maximum number of connections.
+   */
+  public void setMaxPerRoute(final HttpHost host, final int max) {
+    connectionManager.setMaxPerRoute(new HttpRoute(host), max);
+  }
+
+  public ClientConnectionManager getConnectionManager() {
+    return connectionManager;
+  }
+
+  public ConnectionKeepAliveStrategy getKeepAliveStrategy() {
+    return keepAliveStrategy;
+  }
+
+  /**
+   * Gets leased, pending, available and maximum connections of the whole pool.
+   *
+   * @return connection statistics.
+   */
+  public PoolStats getTotalStats() {
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * Gets leased, pending, available and maximum connections to the given host.
+   *
+   * @param host target host, including port if not the default one of the scheme.
+   * @return connection statistics.
+   */
+  public PoolStats getStats(final HttpHost host) {
+    return connectionManager.getStats(new HttpRoute(host));
+  }
+
+  /**
+   * Closes all connections and stops the eviction of idle connections.
+   */
+  public void shutdown() {
+    evictor.shutdownNow();
+    connectionManager.shutdown();
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.olingo.client.api.http.ResponseCache;
+import org.apache.olingo.client.api.http.ResponseCacheEntry;
+
+/**
+ * Bounded, least-recently-used in-memory response cache.
+ * <br/>
+ * An optional second level cache (typically a {@link FileSystemResponseCache}) can be provided: it is written through
+ * and looked up on in-memory misses, so that responses survive the client instance.
+ */
+public class InMemoryResponseCache implements ResponseCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+
+  public static final long DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+  private final long maxEntrySize;
+
+  private final ResponseCache secondLevel;
+
+  private final Map<String, ResponseCacheEntry> entries;
+
+  public InMemoryResponseCache() {
+    this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_ENTRY_SIZE, null);
+  }
+
+  public InMemoryResponseCache(final int maxEntries, final long maxEntrySize) {
+    this(maxEntries, maxEntrySize, null);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries maximum number of responses kept in memory.
+   * @param maxEntrySize maximum size (in bytes) of a cached payload.
+   * @param secondLevel second level cache; can be <tt>null</tt>.
+   */
+  public InMemoryResponseCache(final int maxEntries, final long maxEntrySize, final ResponseCache secondLevel) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("Maximum number of entries must be positive");
+    }
+    this.maxEntrySize = maxEntrySize;
+    this.secondLevel = secondLevel;
+    this.entries = new LinkedHashMap<String, ResponseCacheEntry>(16, 0.75f, true) {
+
+      private static final long serialVersionUID = 4213484387428939446L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, ResponseCacheEntry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  @Override
+  public long getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  @Override
+  public ResponseCacheEntry get(final String key) {
+    synchronized (entries) {
+      final ResponseCacheEntry entry = entries.get(key);
+      if (entry != null || secondLevel == null) {
+        return entry;
+      }
+    }
+
+    final ResponseCacheEntry entry = secondLevel.get(key);
+    if (entry != null) {
+      synchronized (entries) {
+        entries.put(key, entry);
+      }
+    }
+    return entry;
+  }
+
+  @Override
+  public void put(final String key, final ResponseCacheEntry entry) {
+    if (entry.getContent().length > maxEntrySize) {
+      return;
+    }
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+    if (secondLevel != null) {
+      secondLevel.put(key, entry);
+    }
+  }
+
+  @Override
+  public void remove(final String key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+    if (secondLevel != null) {
+      secondLevel.remove(key);
+    }
+  }
+
+  @Override
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+    if (secondLevel != null) {
+      secondLevel.clear();
+    }
+  }
+
+  /**
+   * Gets the number of responses currently kept in memory.
+   *
+   * @return number of in-memory responses.
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+}
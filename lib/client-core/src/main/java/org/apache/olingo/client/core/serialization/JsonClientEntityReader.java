@@ -0,0 +1,874 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.olingo.client.api.EdmEnabledODataClient;
+import org.apache.olingo.client.api.data.ResWrap;
+import org.apache.olingo.client.api.domain.ClientComplexValue;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientInlineEntity;
+import org.apache.olingo.client.api.domain.ClientInlineEntitySet;
+import org.apache.olingo.client.api.domain.ClientLink;
+import org.apache.olingo.client.api.domain.ClientLinkType;
+import org.apache.olingo.client.api.domain.ClientObjectFactory;
+import org.apache.olingo.client.api.domain.ClientOperation;
+import org.apache.olingo.client.api.domain.ClientProperty;
+import org.apache.olingo.client.api.domain.ClientValue;
+import org.apache.olingo.client.api.serialization.ODataDeserializerException;
+import org.apache.olingo.client.core.domain.ClientPropertyImpl;
+import org.apache.olingo.client.core.uri.URIUtils;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Annotation;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmElement;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.core.edm.EdmTypeInfo;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Reads JSON entities and entity sets straight into {@link ClientEntity} and {@link ClientEntitySet}.
+ * <br/>
+ * The default path deserializes a payload into the commons data model and lets {@link ODataBinderImpl} copy
+ * that graph into client domain objects, resolving the type of every entity and property again on the way.
+ * This reader does both steps in one pass: the entities of a feed are bound one by one while the feed is
+ * streamed, and property types are taken from binding plans which are built once per structured type and
+ * metadata document.
+ * <br/>
+ * The result is the same as with the default path. Whatever this reader does not bind itself (media entities,
+ * custom annotations, properties with explicit type annotations, ...) is handed over to the default deserializer
+ * and binder, one entity or property at a time.
+ */
+public class JsonClientEntityReader {
+
+  private static final FullQualifiedName STRING_TYPE = EdmPrimitiveTypeKind.String.getFullQualifiedName();
+
+  private final EdmEnabledODataClient client;
+
+  private final ODataBinderImpl binder;
+
+  private volatile BindingPlans plans;
+
+  public JsonClientEntityReader(final EdmEnabledODataClient client, final ODataBinderImpl binder) {
+    this.client = client;
+    this.binder = binder;
+  }
+
+  public ResWrap<ClientEntitySet> readEntitySet(final InputStream input) throws ODataDeserializerException {
+    try {
+      final JsonParser parser = new JsonFactory(new ObjectMapper()).createParser(input);
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected OData EntitySet");
+      }
+
+      URI contextURL = null;
+      boolean hasContext = false;
+      String metadataETag = null;
+      Reading reading = null;
+      Scope scope = null;
+      boolean hasValue = false;
+      final List<ClientEntity> entities = new ArrayList<ClientEntity>();
+      JsonNode bufferedValue = null;
+      Integer count = null;
+      URI next = null;
+      URI deltaLink = null;
+      final EntityCollection annotations = new EntityCollection();
+      final List<String> operationNames = new ArrayList<String>();
+      final List<JsonNode> operations = new ArrayList<JsonNode>();
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String name = parser.getCurrentName();
+        final JsonToken token = parser.nextToken();
+        if (Constants.VALUE.equals(name)) {
+          hasValue = true;
+          if (token == JsonToken.START_ARRAY && hasContext) {
+            // the context URL precedes the entities, so they can be bound while the feed is read
+            if (reading == null) {
+              reading = new Reading(parser.getCodec(), metadataETag);
+              scope = new Scope(contextURL);
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              entities.add(reading.entity(parser.<JsonNode> readValueAsTree(), scope, false));
+            }
+          } else {
+            bufferedValue = parser.readValueAsTree();
+          }
+        } else if (token == JsonToken.VALUE_NULL) {
+          if (name.charAt(0) == '@') {
+            annotation(annotations, name, parser.<JsonNode> readValueAsTree(), parser.getCodec());
+          }
+        } else if (Constants.JSON_CONTEXT.equals(name)) {
+          contextURL = URI.create(parser.<JsonNode> readValueAsTree().textValue());
+          hasContext = true;
+        } else if (Constants.JSON_METADATA.equals(name)) {
+          final URI metadata = URI.create(parser.<JsonNode> readValueAsTree().textValue());
+          contextURL = hasContext ? contextURL : metadata;
+        } else if (Constants.JSON_METADATA_ETAG.equals(name)) {
+          metadataETag = parser.<JsonNode> readValueAsTree().textValue();
+        } else if (Constants.JSON_COUNT.equals(name)) {
+          count = parser.<JsonNode> readValueAsTree().asInt();
+        } else if (Constants.JSON_NEXT_LINK.equals(name)) {
+          next = URI.create(parser.<JsonNode> readValueAsTree().textValue());
+        } else if (Constants.JSON_DELTA_LINK.equals(name)) {
+          deltaLink = URI.create(parser.<JsonNode> readValueAsTree().textValue());
+        } else if (name.charAt(0) == '@') {
+          annotation(annotations, name, parser.<JsonNode> readValueAsTree(), parser.getCodec());
+        } else if (name.charAt(0) == '#') {
+          operationNames.add(name);
+          operations.add(parser.<JsonNode> readValueAsTree());
+        } else {
+          parser.skipChildren();
+        }
+      }
+
+      if (!hasValue) {
+        throw new JsonParseException(parser, "Expected OData EntitySet, found Entity");
+      }
+      if (reading == null) {
+        reading = new Reading(parser.getCodec(), metadataETag);
+        scope = new Scope(contextURL);
+      }
+      if (bufferedValue != null && !bufferedValue.isNull()) {
+        for (final JsonNode node : bufferedValue) {
+          entities.add(reading.entity(node, scope, false));
+        }
+      }
+
+      final ClientObjectFactory factory = client.getObjectFactory();
+      final ClientEntitySet entitySet = next == null
+          ? factory.newEntitySet()
+          : factory.newEntitySet(URIUtils.getURI(scope.base, next.toASCIIString()));
+      if (count != null) {
+        entitySet.setCount(count);
+      }
+      for (int i = 0; i < operations.size(); i++) {
+        entitySet.getOperations().add(operation(operationNames.get(i), operations.get(i), scope.base));
+      }
+      for (final ClientEntity entity : entities) {
+        binder.add(entitySet, entity);
+      }
+      if (deltaLink != null) {
+        entitySet.setDeltaLink(URIUtils.getURI(scope.base, deltaLink));
+      }
+      binder.odataAnnotations(annotations, entitySet);
+
+      return new ResWrap<ClientEntitySet>(contextURL, metadataETag, entitySet);
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
+  public ResWrap<ClientEntity> readEntity(final InputStream input) throws ODataDeserializerException {
+    try {
+      final JsonParser parser = new JsonFactory(new ObjectMapper()).createParser(input);
+      final ObjectNode tree = parser.getCodec().readTree(parser);
+
+      final URI contextURL = tree.hasNonNull(Constants.JSON_CONTEXT)
+          ? URI.create(tree.get(Constants.JSON_CONTEXT).textValue())
+          : tree.hasNonNull(Constants.JSON_METADATA)
+              ? URI.create(tree.get(Constants.JSON_METADATA).textValue())
+              : null;
+      final String metadataETag = tree.hasNonNull(Constants.JSON_METADATA_ETAG)
+          ? tree.get(Constants.JSON_METADATA_ETAG).textValue()
+          : null;
+
+      final ClientEntity entity =
+          new Reading(parser.getCodec(), metadataETag).entity(tree, new Scope(contextURL), true);
+      return new ResWrap<ClientEntity>(contextURL, metadataETag, entity);
+    } catch (final IOException e) {
+      throw new ODataDeserializerException(e);
+    }
+  }
+
+  private void annotation(final EntityCollection annotatable, final String name, final JsonNode node,
+      final ObjectCodec codec) throws IOException {
+
+    final Annotation annotation = new Annotation();
+    annotation.setTerm(name.substring(1));
+    try {
+      new JsonDeserializer(false).value(annotation, node, codec);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new IOException(e);
+    }
+    annotatable.getAnnotations().add(annotation);
+  }
+
+  private ClientOperation operation(final String name, final JsonNode node, final URI base) {
+    final ClientOperation operation = new ClientOperation();
+    operation.setMetadataAnchor(name);
+    operation.setTitle(node.get(Constants.ATTR_TITLE).asText());
+    operation.setTarget(URIUtils.getURI(base, URI.create(node.get(Constants.ATTR_TARGET).asText())));
+    return operation;
+  }
+
+  private BindingPlans getPlans(final Edm edm) {
+    BindingPlans current = plans;
+    if (current == null || current.edm != edm) {
+      current = new BindingPlans(edm);
+      plans = current;
+    }
+    return current;
+  }
+
+  private static boolean isPrimitiveType(final FullQualifiedName typeName) {
+    try {
+      return EdmPrimitiveTypeKind.valueOfFQN(typeName) != null;
+    } catch (final IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static boolean isLink(final String name) {
+    return name.endsWith(Constants.JSON_NAVIGATION_LINK) || name.endsWith(Constants.JSON_ASSOCIATION_LINK);
+  }
+
+  private static boolean isMediaAnnotation(final String name) {
+    return name.endsWith(Constants.JSON_MEDIA_READ_LINK) || name.endsWith(Constants.JSON_MEDIA_EDIT_LINK)
+        || name.endsWith(Constants.JSON_MEDIA_CONTENT_TYPE) || name.endsWith(Constants.JSON_MEDIA_ETAG);
+  }
+
+  /**
+   * Where an entity is found in the payload: the context URL it is bound against and the base for its links.
+   */
+  private final class Scope {
+
+    private final ContextURL context;
+
+    private final URI contextURL;
+
+    private final URI base;
+
+    private final Map<String, EdmType> types = new HashMap<String, EdmType>();
+
+    private Scope(final URI contextURL) {
+      this.contextURL = contextURL;
+      context = ContextURLParser.parse(contextURL);
+      base = context == null ? null : context.getServiceRoot();
+    }
+  }
+
+  /**
+   * State of reading one payload.
+   */
+  private final class Reading {
+
+    private final ObjectCodec codec;
+
+    private final String metadataETag;
+
+    private final Edm edm;
+
+    private final BindingPlans plans;
+
+    private final JsonDeserializer deserializer = new JsonDeserializer(false);
+
+    private final ClientObjectFactory factory = client.getObjectFactory();
+
+    private Scope inlineScope;
+
+    private Reading(final ObjectCodec codec, final String metadataETag) {
+      this.codec = codec;
+      this.metadataETag = metadataETag;
+      edm = client.getEdm(metadataETag);
+      plans = getPlans(edm);
+    }
+
+    private Scope getInlineScope() {
+      if (inlineScope == null) {
+        inlineScope = new Scope(null);
+      }
+      return inlineScope;
+    }
+
+    private EdmType findType(final String candidateTypeName, final Scope scope) {
+      final String key = candidateTypeName == null ? StringUtils.EMPTY : candidateTypeName;
+      EdmType type = scope.types.get(key);
+      if (type == null && !scope.types.containsKey(key)) {
+        type = binder.findType(candidateTypeName, scope.context, metadataETag);
+        scope.types.put(key, type);
+      }
+      return type;
+    }
+
+    /**
+     * Binds an entity carrying full control information, as found at top level, in a feed or in an expanded
+     * navigation link.
+     */
+    private ClientEntity entity(final JsonNode node, final Scope scope, final boolean topLevel) throws IOException {
+      if (!(node instanceof ObjectNode)) {
+        return fallback(node, scope);
+      }
+      final ObjectNode tree = (ObjectNode) node;
+      if (tree.has(Constants.VALUE) && tree.get(Constants.VALUE).isArray()) {
+        return fallback(node, scope);
+      }
+
+      String eTag = null;
+      String type = null;
+      URI id = null;
+      String readLink = null;
+      boolean hasReadLink = false;
+      String editLink = null;
+      boolean hasEditLink = false;
+      List<String> links = null;
+      Set<String> removed = null;
+      List<String> operations = null;
+
+      for (final Iterator<Map.Entry<String, JsonNode>> itor = tree.fields(); itor.hasNext();) {
+        final Map.Entry<String, JsonNode> field = itor.next();
+        final String name = field.getKey();
+        final JsonNode value = field.getValue();
+        if (name.isEmpty()) {
+          return fallback(node, scope);
+        }
+
+        if (Constants.JSON_CONTEXT.equals(name) || Constants.JSON_METADATA.equals(name)
+            || Constants.JSON_METADATA_ETAG.equals(name)) {
+          if (!topLevel || value.isNull()
+              || (Constants.JSON_METADATA.equals(name) && tree.hasNonNull(Constants.JSON_CONTEXT))) {
+            return fallback(node, scope);
+          }
+        } else if (Constants.JSON_ETAG.equals(name) || Constants.JSON_TYPE.equals(name)
+            || Constants.JSON_ID.equals(name) || Constants.JSON_READ_LINK.equals(name)
+            || Constants.JSON_EDIT_LINK.equals(name)) {
+          if (value.isNull() || (!value.isTextual()
+              && (Constants.JSON_TYPE.equals(name) || Constants.JSON_ID.equals(name)))) {
+            return fallback(node, scope);
+          }
+          if (Constants.JSON_ETAG.equals(name)) {
+            eTag = value.textValue();
+          } else if (Constants.JSON_TYPE.equals(name)) {
+            type = new EdmTypeInfo.Builder().setTypeExpression(value.textValue()).build().internal();
+          } else if (Constants.JSON_ID.equals(name)) {
+            id = URI.create(value.textValue());
+          } else if (Constants.JSON_READ_LINK.equals(name)) {
+            readLink = value.textValue();
+            hasReadLink = true;
+          } else {
+            editLink = value.textValue();
+            hasEditLink = true;
+          }
+        } else if (isMediaAnnotation(name) || name.charAt(0) == '@') {
+          return fallback(node, scope);
+        } else if (isLink(name)) {
+          if (links == null) {
+            links = new ArrayList<String>();
+            removed = new HashSet<String>();
+          }
+          links.add(name);
+          removed.add(name);
+          if (name.endsWith(Constants.JSON_NAVIGATION_LINK)) {
+            removed.add(name.substring(0, name.indexOf(Constants.JSON_NAVIGATION_LINK)));
+          }
+        } else if (name.charAt(0) == '#') {
+          if (!value.isObject() || !value.has(Constants.ATTR_TITLE) || !value.has(Constants.ATTR_TARGET)) {
+            return fallback(node, scope);
+          }
+          if (operations == null) {
+            operations = new ArrayList<String>();
+          }
+          operations.add(name);
+        } else if (name.indexOf('@') > 0) {
+          final Matcher customAnnotation = deserializer.CUSTOM_ANNOTATION.matcher(name);
+          if (customAnnotation.matches() && !"odata".equals(customAnnotation.group(2))) {
+            return fallback(node, scope);
+          }
+        }
+      }
+
+      final EdmType edmType = findType(type, scope);
+      final FullQualifiedName typeName = type == null
+          ? edmType == null ? null : edmType.getFullQualifiedName()
+          : new FullQualifiedName(type);
+      final ClientEntity entity = hasReadLink
+          ? factory.newEntity(typeName, URIUtils.getURI(scope.base, readLink))
+          : factory.newEntity(typeName);
+      if (StringUtils.isNotBlank(eTag)) {
+        entity.setETag(eTag);
+      }
+      if (hasEditLink) {
+        entity.setEditLink(URIUtils.getURI(scope.base, editLink));
+      }
+
+      if (links != null) {
+        for (final String name : links) {
+          if (name.endsWith(Constants.JSON_ASSOCIATION_LINK)) {
+            entity.addLink(factory.newAssociationLink(name.substring(0, name.indexOf('@')),
+                URIUtils.getURI(scope.base, tree.get(name).textValue())));
+          }
+        }
+        for (final String name : links) {
+          if (name.endsWith(Constants.JSON_NAVIGATION_LINK)) {
+            entity.addLink(navigationLink(tree, name, edmType, scope));
+          }
+        }
+      }
+      if (operations != null) {
+        for (final String name : operations) {
+          entity.getOperations().add(operation(name, tree.get(name), scope.base));
+        }
+      }
+
+      properties(entity, tree, edmType, removed);
+
+      entity.setId(id);
+      return entity;
+    }
+
+    private ClientLink navigationLink(final ObjectNode tree, final String name, final EdmType edmType,
+        final Scope scope) throws IOException {
+
+      final String title = name.substring(0, name.indexOf('@'));
+      final String prefix = name.substring(0, name.indexOf(Constants.JSON_NAVIGATION_LINK));
+      final JsonNode value = tree.get(name);
+      final String href = value.isValueNode() ? value.textValue() : null;
+      final JsonNode inline = tree.get(prefix);
+
+      if (inline != null && inline.isObject()) {
+        return new ClientInlineEntity(URIUtils.getURI(scope.base, href), ClientLinkType.ENTITY_NAVIGATION, title,
+            entity(inline, getInlineScope(), false));
+      } else if (inline != null && inline.isArray()) {
+        final ClientEntitySet entitySet = factory.newEntitySet();
+        if (tree.hasNonNull(prefix + Constants.JSON_COUNT)) {
+          entitySet.setCount(tree.get(prefix + Constants.JSON_COUNT).asInt());
+        }
+        for (final JsonNode element : inline) {
+          binder.add(entitySet, entity(element, getInlineScope(), false));
+        }
+        return new ClientInlineEntitySet(href == null ? null : URIUtils.getURI(scope.base, href),
+            ClientLinkType.ENTITY_SET_NAVIGATION, title, entitySet);
+      }
+
+      ClientLinkType linkType = null;
+      if (edmType instanceof EdmStructuredType) {
+        final EdmNavigationProperty navProp = ((EdmStructuredType) edmType).getNavigationProperty(title);
+        if (navProp != null) {
+          linkType = navProp.isCollection() ? ClientLinkType.ENTITY_SET_NAVIGATION : ClientLinkType.ENTITY_NAVIGATION;
+        }
+      }
+      if (linkType == null) {
+        linkType = value.isValueNode()
+            ? ClientLinkType.fromString(Constants.NS_NAVIGATION_LINK_REL + title,
+                Constants.ENTITY_NAVIGATION_LINK_TYPE)
+            : ClientLinkType.ENTITY_NAVIGATION;
+      }
+      return linkType == ClientLinkType.ENTITY_NAVIGATION
+          ? factory.newEntityNavigationLink(title, URIUtils.getURI(scope.base, href))
+          : factory.newEntitySetNavigationLink(title, URIUtils.getURI(scope.base, href));
+    }
+
+    /**
+     * Binds the properties of an entity, turning expanded navigation properties into inline links.
+     */
+    private void properties(final ClientEntity entity, final ObjectNode tree, final EdmType edmType,
+        final Set<String> removed) throws IOException {
+
+      final TypePlan plan = edmType instanceof EdmEntityType ? plans.get((EdmEntityType) edmType) : null;
+      Map<String, Integer> countMap = null;
+      String pendingType = null;
+      for (final Iterator<Map.Entry<String, JsonNode>> itor = tree.fields(); itor.hasNext();) {
+        final Map.Entry<String, JsonNode> field = itor.next();
+        final String name = field.getKey();
+        final JsonNode value = field.getValue();
+        if (name.isEmpty() || name.charAt(0) == '@' || name.charAt(0) == '#'
+            || (removed != null && removed.contains(name))) {
+          continue;
+        }
+
+        if (pendingType == null && name.endsWith(Constants.JSON_TYPE)) {
+          pendingType = value.asText();
+        } else if (name.endsWith(Constants.JSON_COUNT)) {
+          final Integer count = Integer.parseInt(value.asText());
+          if (plan != null) {
+            final String navigationName = name.substring(0, name.indexOf(Constants.JSON_COUNT));
+            final PropertyPlan navigation = plan.get(navigationName);
+            if (navigation != null && navigation.navigation) {
+              final ClientLink link = entity.getNavigationLink(navigationName);
+              if (link == null) {
+                if (countMap == null) {
+                  countMap = new HashMap<String, Integer>();
+                }
+                countMap.put(navigationName, count);
+              } else {
+                link.asInlineEntitySet().getEntitySet().setCount(count);
+              }
+            }
+          }
+          binder.add(entity, new ClientPropertyImpl(name, factory.newPrimitiveValueBuilder().setValue(count).build()));
+        } else {
+          final PropertyPlan property = plan == null ? null : plan.get(name);
+          if (property != null && property.navigation && !value.isNull()) {
+            final Integer count = countMap == null ? null : countMap.remove(name);
+            if (pendingType == null && isExpandable(value)) {
+              entity.addLink(expandedLink(name, value, property, count));
+            } else {
+              final Property legacy = legacyProperty(name, value, pendingType);
+              if (legacy.isNull()) {
+                if (count != null) {
+                  countMap.put(name, count);
+                }
+                binder.add(entity, binder.getODataProperty(property.type, legacy));
+              } else {
+                entity.addLink(binder.createLinkFromNavigationProperty(legacy,
+                    property.typeName.getFullQualifiedNameAsString(), count));
+              }
+            }
+          } else {
+            binder.add(entity, property(name, value, pendingType, property));
+          }
+          pendingType = null;
+        }
+      }
+
+      if (countMap != null) {
+        for (final Map.Entry<String, Integer> entry : countMap.entrySet()) {
+          final ClientEntitySet entitySet = factory.newEntitySet();
+          entitySet.setCount(entry.getValue());
+          entity.addLink(new ClientInlineEntitySet(null, ClientLinkType.ENTITY_SET_NAVIGATION, entry.getKey(),
+              entitySet));
+        }
+      }
+    }
+
+    /**
+     * Tells whether an expanded navigation property, as written without navigation link annotations, can be
+     * bound directly.
+     */
+    private boolean isExpandable(final JsonNode value) {
+      if (value.isObject()) {
+        return isExpandedEntity(value);
+      } else if (value.isArray()) {
+        for (final JsonNode element : value) {
+          if (!element.isObject() || !isExpandedEntity(element)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      return false;
+    }
+
+    private boolean isExpandedEntity(final JsonNode node) {
+      for (final Iterator<Map.Entry<String, JsonNode>> itor = node.fields(); itor.hasNext();) {
+        final Map.Entry<String, JsonNode> field = itor.next();
+        final String name = field.getKey();
+        if (name.isEmpty() || name.charAt(0) == '#' || Constants.ATTR_TYPE.equals(name)) {
+          return false;
+        } else if (name.charAt(0) == '@') {
+          if (!(Constants.JSON_ID.equals(name) || Constants.JSON_ETAG.equals(name))
+              || !field.getValue().isTextual()) {
+            return false;
+          }
+        } else if (name.indexOf('@') > 0 && !name.endsWith(Constants.JSON_COUNT)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private ClientLink expandedLink(final String name, final JsonNode value, final PropertyPlan property,
+        final Integer count) throws IOException {
+
+      final String typeName = property.typeName.getFullQualifiedNameAsString();
+      if (value.isArray()) {
+        final ClientEntitySet entitySet = factory.newEntitySet();
+        if (count != null) {
+          entitySet.setCount(count);
+        }
+        for (final JsonNode element : value) {
+          binder.add(entitySet, expandedEntity(element, typeName));
+        }
+        return new ClientInlineEntitySet(null, ClientLinkType.ENTITY_SET_NAVIGATION, name, entitySet);
+      } else {
+        return new ClientInlineEntity(null, ClientLinkType.ENTITY_NAVIGATION, name, expandedEntity(value, typeName));
+      }
+    }
+
+    private ClientEntity expandedEntity(final JsonNode node, final String typeName) throws IOException {
+      final EdmType edmType = findType(typeName, getInlineScope());
+      final ClientEntity entity = factory.newEntity(new FullQualifiedName(typeName));
+      final JsonNode eTag = node.get(Constants.JSON_ETAG);
+      if (eTag != null && StringUtils.isNotBlank(eTag.textValue())) {
+        entity.setETag(eTag.textValue());
+      }
+      properties(entity, (ObjectNode) node, edmType, null);
+      final JsonNode id = node.get(Constants.JSON_ID);
+      entity.setId(id == null ? null : URI.create(id.textValue()));
+      return entity;
+    }
+
+    /**
+     * Binds a structural property, or a navigation property with a <tt>null</tt> value.
+     */
+    private ClientProperty property(final String name, final JsonNode value, final String pendingType,
+        final PropertyPlan property) throws IOException {
+
+      if (pendingType == null) {
+        if (value.isValueNode()) {
+          return new ClientPropertyImpl(name, primitive(value, property));
+        } else if (value.isObject() && property != null && property.complexType != null && !property.collection
+            && !property.navigation && isPlainObject(value)) {
+          return new ClientPropertyImpl(name, complex(value, property));
+        } else if (value.isArray() && property != null && property.collection && !property.navigation
+            && isPrimitiveArray(value)) {
+          return new ClientPropertyImpl(name, collection(value, property));
+        }
+      }
+      return binder.getODataProperty(property == null ? null : property.type,
+          legacyProperty(name, value, pendingType));
+    }
+
+    private boolean isPlainObject(final JsonNode value) {
+      for (final Iterator<String> itor = value.fieldNames(); itor.hasNext();) {
+        final String name = itor.next();
+        if (name.isEmpty() || name.indexOf('@') != -1 || Constants.ATTR_TYPE.equals(name)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isPrimitiveArray(final JsonNode value) {
+      for (final JsonNode element : value) {
+        if (!element.isValueNode()) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private ClientValue complex(final JsonNode value, final PropertyPlan property) throws IOException {
+      final ClientComplexValue complexValue = factory.newComplexValue(property.typeName.toString());
+      final TypePlan plan = plans.get(property.complexType);
+      for (final Iterator<Map.Entry<String, JsonNode>> itor = value.fields(); itor.hasNext();) {
+        final Map.Entry<String, JsonNode> field = itor.next();
+        complexValue.add(property(field.getKey(), field.getValue(), null, plan.get(field.getKey())));
+      }
+      return complexValue;
+    }
+
+    private ClientValue collection(final JsonNode value, final PropertyPlan property) throws IOException {
+      final ClientValue collectionValue = factory.newCollectionValue("Collection(" + property.typeName + ")");
+      final EdmPrimitiveTypeKind kind = value.size() == 0 ? null : deserializer.guessPrimitiveTypeKind(value.get(0));
+      for (final JsonNode element : value) {
+        collectionValue.asCollection().add(primitive(property.typeName, property.enumType,
+            property.complexType != null, fromPrimitive(element, kind)));
+      }
+      return collectionValue;
+    }
+
+    /**
+     * Binds a JSON scalar the way {@link JsonDeserializer} followed by {@link ODataBinderImpl} does: the value is
+     * first parsed according to its JSON type, then re-typed (and possibly re-parsed) according to the metadata.
+     */
+    private ClientValue primitive(final JsonNode value, final PropertyPlan property) throws IOException {
+      final EdmPrimitiveTypeKind kind = deserializer.guessPrimitiveTypeKind(value);
+      final Object primitiveValue = fromPrimitive(value, kind);
+      if (property != null && (kind == EdmPrimitiveTypeKind.String || property.primitiveType)) {
+        return primitive(property.typeName, property.enumType, property.complexType != null, primitiveValue);
+      } else {
+        return primitive(kind.getFullQualifiedName(), null, false, primitiveValue);
+      }
+    }
+
+    private Object fromPrimitive(final JsonNode value, final EdmPrimitiveTypeKind kind) throws IOException {
+      if (value.isNull()) {
+        return null;
+      }
+      final EdmPrimitiveType type = EdmPrimitiveTypeFactory.getInstance(kind);
+      try {
+        return type.valueOfString(value.asText(), true, null,
+            Constants.DEFAULT_PRECISION, Constants.DEFAULT_SCALE, true, type.getDefaultType());
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new IOException(e);
+      }
+    }
+
+    private ClientValue primitive(final FullQualifiedName type, final EdmEnumType enumType, final boolean complex,
+        final Object value) {
+
+      if (enumType != null) {
+        return factory.newEnumValue(type.toString(), value.toString());
+      } else if (complex) {
+        return factory.newComplexValue(type.toString());
+      }
+
+      final boolean edmNamespace = EdmPrimitiveType.EDM_NAMESPACE.equals(type.getNamespace());
+      Object primitiveValue = value;
+      if (edmNamespace && value instanceof String && !STRING_TYPE.equals(type)) {
+        final EdmPrimitiveType primitiveType =
+            EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.valueOf(type.getName()));
+        final Class<?> returnType = primitiveType.getDefaultType().isAssignableFrom(Calendar.class)
+            ? Timestamp.class : primitiveType.getDefaultType();
+        try {
+          primitiveValue = primitiveType.valueOfString(value.toString(),
+              null, null, Constants.DEFAULT_PRECISION, Constants.DEFAULT_SCALE, null, returnType);
+        } catch (final EdmPrimitiveTypeException e) {
+          throw new IllegalArgumentException(e);
+        }
+      }
+      return factory.newPrimitiveValueBuilder().
+          setValue(primitiveValue).
+          setType(edmNamespace ? EdmPrimitiveTypeKind.valueOfFQN(type.toString()) : null).
+          build();
+    }
+
+    private Property legacyProperty(final String name, final JsonNode value, final String pendingType)
+        throws IOException {
+
+      final Property property = new Property();
+      property.setName(name);
+      property.setType(pendingType == null ? null
+          : new EdmTypeInfo.Builder().setTypeExpression(pendingType).build().internal());
+      try {
+        deserializer.value(property, value, codec);
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new IOException(e);
+      }
+      return property;
+    }
+
+    /**
+     * Binds an entity through the default deserializer and binder.
+     */
+    private ClientEntity fallback(final JsonNode node, final Scope scope) throws IOException {
+      final Entity entity = new JsonEntityDeserializer(false).doDeserialize(node.traverse(codec)).getPayload();
+      return binder.getODataEntity(new ResWrap<Entity>(
+          scope == inlineScope ? entity.getBaseURI() : scope.contextURL, metadataETag, entity));
+    }
+  }
+
+  /**
+   * Binding plans of the structured types of one metadata document.
+   */
+  private static final class BindingPlans {
+
+    private final Edm edm;
+
+    private final ConcurrentMap<FullQualifiedName, TypePlan> types =
+        new ConcurrentHashMap<FullQualifiedName, TypePlan>();
+
+    private BindingPlans(final Edm edm) {
+      this.edm = edm;
+    }
+
+    private TypePlan get(final EdmStructuredType type) {
+      TypePlan plan = types.get(type.getFullQualifiedName());
+      if (plan == null) {
+        plan = new TypePlan(edm, type);
+        final TypePlan previous = types.putIfAbsent(type.getFullQualifiedName(), plan);
+        if (previous != null) {
+          plan = previous;
+        }
+      }
+      return plan;
+    }
+  }
+
+  /**
+   * How the properties of a structured type are bound.
+   */
+  private static final class TypePlan {
+
+    private final Map<String, PropertyPlan> properties = new HashMap<String, PropertyPlan>();
+
+    private TypePlan(final Edm edm, final EdmStructuredType type) {
+      for (final String name : type.getPropertyNames()) {
+        properties.put(name, new PropertyPlan(edm, type.getProperty(name)));
+      }
+      for (final String name : type.getNavigationPropertyNames()) {
+        properties.put(name, new PropertyPlan(edm, type.getProperty(name)));
+      }
+    }
+
+    private PropertyPlan get(final String name) {
+      return properties.get(name);
+    }
+  }
+
+  /**
+   * What the binder would otherwise look up in the metadata for every value of a property.
+   */
+  private static final class PropertyPlan {
+
+    private final EdmType type;
+
+    private final FullQualifiedName typeName;
+
+    private final boolean navigation;
+
+    private final boolean collection;
+
+    private final boolean primitiveType;
+
+    private final EdmEnumType enumType;
+
+    private final EdmComplexType complexType;
+
+    private PropertyPlan(final Edm edm, final EdmElement element) {
+      type = element.getType();
+      typeName = type.getFullQualifiedName();
+      navigation = element instanceof EdmNavigationProperty;
+      collection = element.isCollection();
+      primitiveType = isPrimitiveType(typeName);
+      final boolean edmNamespace = EdmPrimitiveType.EDM_NAMESPACE.equals(typeName.getNamespace());
+      enumType = edmNamespace ? null : edm.getEnumType(typeName);
+      complexType = edmNamespace ? null : edm.getComplexType(typeName);
+    }
+  }
+}
@@ -225,7 +225,7 @@ public class JsonDeserializer implements ODataDeserializer {
     return new SimpleEntry<PropertyType, EdmTypeInfo>(type, typeInfo);
   }
 
-  private EdmPrimitiveTypeKind guessPrimitiveTypeKind(final JsonNode node) {
+  protected EdmPrimitiveTypeKind guessPrimitiveTypeKind(final JsonNode node) {
     return node.isShort() ? EdmPrimitiveTypeKind.Int16 :
       node.isInt() ? EdmPrimitiveTypeKind.Int32 :
         node.isLong() ? EdmPrimitiveTypeKind.Int64 :
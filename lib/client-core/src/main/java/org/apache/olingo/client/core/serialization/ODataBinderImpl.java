@@ -365,7 +365,7 @@ public class ODataBinderImpl implements ODataBinder {
     return valueResource;
   }
 
-  private void odataAnnotations(final Annotatable annotatable, final ClientAnnotatable odataAnnotatable) {
+  protected void odataAnnotations(final Annotatable annotatable, final ClientAnnotatable odataAnnotatable) {
     for (Annotation annotation : annotatable.getAnnotations()) {
       FullQualifiedName fqn = null;
       if (client instanceof EdmEnabledODataClient) {
@@ -534,7 +534,8 @@ public class ODataBinderImpl implements ODataBinder {
    * @param metadataETag metadata ETag
    * @return Edm type information
    */
-  private EdmType findType(final String candidateTypeName, final ContextURL contextURL, final String metadataETag) {
+  protected EdmType findType(final String candidateTypeName, final ContextURL contextURL,
+      final String metadataETag) {
     EdmType type = null;
 
     if (client instanceof EdmEnabledODataClient) {
@@ -576,7 +577,7 @@ public class ODataBinderImpl implements ODataBinder {
     return type;
   }
 
-  private ClientLink createLinkFromNavigationProperty(final Property property, final String propertyTypeName, 
+  protected ClientLink createLinkFromNavigationProperty(final Property property, final String propertyTypeName,
       final Integer count) {
     if (property.isCollection()) {
       EntityCollection inlineEntitySet = new EntityCollection();
@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.EdmEnabledODataClient;
 import org.apache.olingo.client.api.ODataClient;
 import org.apache.olingo.client.api.data.ResWrap;
 import org.apache.olingo.client.api.data.ServiceDocument;
@@ -58,10 +59,31 @@ public class ODataReaderImpl implements ODataReader {
 
   protected final ODataClient client;
 
+  private JsonClientEntityReader jsonEntityReader;
+
   public ODataReaderImpl(final ODataClient client) {
     this.client = client;
   }
 
+  /**
+   * Gets the reader binding JSON entities and entity sets directly into client domain objects, if it can be used
+   * for the given content type: this is the case for EDM-enabled clients using the default binder.
+   *
+   * @param contentType content type
+   * @return JSON entity reader, or <tt>null</tt> if entities must be deserialized and bound separately
+   */
+  protected JsonClientEntityReader getJsonEntityReader(final ContentType contentType) {
+    if (!(client instanceof EdmEnabledODataClient) || client.getBinder().getClass() != ODataBinderImpl.class
+        || !contentType.isCompatible(ContentType.APPLICATION_JSON)) {
+      return null;
+    }
+    if (jsonEntityReader == null) {
+      jsonEntityReader =
+          new JsonClientEntityReader((EdmEnabledODataClient) client, (ODataBinderImpl) client.getBinder());
+    }
+    return jsonEntityReader;
+  }
+
   @Override
   public Edm readMetadata(final InputStream input) {
     return readMetadata(client.getDeserializer(ContentType.APPLICATION_XML).toMetadata(input).getSchemaByNsOrAlias());
@@ -98,6 +120,13 @@ public class ODataReaderImpl implements ODataReader {
             null,
             reference.cast(new ClientEntitySetIterator<ClientEntitySet, ClientEntity>(
                 client, src, ContentType.parse(format))));
+      } else if (ClientEntitySet.class.isAssignableFrom(reference)
+          && getJsonEntityReader(ContentType.parse(format)) != null) {
+        final ResWrap<ClientEntitySet> resource = getJsonEntityReader(ContentType.parse(format)).readEntitySet(src);
+        res = new ResWrap<T>(
+            resource.getContextURL(),
+            resource.getMetadataETag(),
+            reference.cast(resource.getPayload()));
       } else if (ClientEntitySet.class.isAssignableFrom(reference)) {
         final ResWrap<EntityCollection> resource = client.getDeserializer(ContentType.parse(format))
             .toEntitySet(src);
@@ -105,6 +134,13 @@ public class ODataReaderImpl implements ODataReader {
             resource.getContextURL(),
             resource.getMetadataETag(),
             reference.cast(client.getBinder().getODataEntitySet(resource)));
+      } else if (ClientEntity.class.isAssignableFrom(reference)
+          && getJsonEntityReader(ContentType.parse(format)) != null) {
+        final ResWrap<ClientEntity> resource = getJsonEntityReader(ContentType.parse(format)).readEntity(src);
+        res = new ResWrap<T>(
+            resource.getContextURL(),
+            resource.getMetadataETag(),
+            reference.cast(resource.getPayload()));
       } else if (ClientEntity.class.isAssignableFrom(reference)) {
         final ResWrap<Entity> container = client.getDeserializer(ContentType.parse(format)).toEntity(src);
         res = new ResWrap<T>(
@@ -161,12 +197,20 @@ public class ODataReaderImpl implements ODataReader {
   @Override
   public ClientEntitySet readEntitySet(final InputStream input, final ContentType contentType)
       throws ODataDeserializerException {
+    final JsonClientEntityReader jsonReader = getJsonEntityReader(contentType);
+    if (jsonReader != null) {
+      return jsonReader.readEntitySet(input).getPayload();
+    }
     return client.getBinder().getODataEntitySet(client.getDeserializer(contentType).toEntitySet(input));
   }
 
   @Override
   public ClientEntity readEntity(final InputStream input, final ContentType contentType)
       throws ODataDeserializerException {
+    final JsonClientEntityReader jsonReader = getJsonEntityReader(contentType);
+    if (jsonReader != null) {
+      return jsonReader.readEntity(input).getPayload();
+    }
     return client.getBinder().getODataEntity(client.getDeserializer(contentType).toEntity(input));
   }
 
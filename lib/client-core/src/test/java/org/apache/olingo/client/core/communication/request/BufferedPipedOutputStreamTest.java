@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class BufferedPipedOutputStreamTest {
+
+  private static byte[] payload(final int size) {
+    final byte[] payload = new byte[size];
+    for (int i = 0; i < size; i++) {
+      payload[i] = (byte) (i * 31 + i / 251);
+    }
+    return payload;
+  }
+
+  private void transfer(final int capacity, final int size) throws Exception {
+    final byte[] payload = payload(size);
+    final BufferedPipedOutputStream output = new BufferedPipedOutputStream(capacity);
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<Void> writer = executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          int offset = 0;
+          int chunk = 1;
+          while (offset < payload.length) {
+            final int length = Math.min(chunk, payload.length - offset);
+            if (length == 1) {
+              output.write(payload[offset]);
+            } else {
+              output.write(payload, offset, length);
+            }
+            offset += length;
+            chunk = chunk * 7 % 10007;
+          }
+          output.close();
+          return null;
+        }
+      });
+
+      assertArrayEquals(payload, IOUtils.toByteArray(output.getInputStream()));
+      assertNull(writer.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void transfer() throws Exception {
+    transfer(BufferedPipedOutputStream.DEFAULT_CAPACITY, 0);
+    transfer(BufferedPipedOutputStream.DEFAULT_CAPACITY, 5 * 1024 * 1024 + 17);
+    transfer(1000, 300 * 1000 + 3);
+    transfer(1, 1000);
+  }
+
+  @Test
+  public void readAfterClose() throws IOException {
+    final BufferedPipedOutputStream output = new BufferedPipedOutputStream();
+    output.write(new byte[] { 1, 2, 3 });
+    output.close();
+
+    final InputStream input = output.getInputStream();
+    assertEquals(3, input.available());
+    assertEquals(1, input.read());
+    final byte[] rest = new byte[10];
+    assertEquals(2, input.read(rest));
+    assertEquals(-1, input.read(rest));
+    assertEquals(-1, input.read());
+  }
+
+  @Test
+  public void writeAfterReaderClosed() throws IOException {
+    final BufferedPipedOutputStream output = new BufferedPipedOutputStream();
+    output.getInputStream().close();
+    try {
+      output.write(1);
+      fail("Writing must fail once the reading end is closed");
+    } catch (final IOException e) {
+      assertEquals("Pipe closed", e.getMessage());
+    }
+  }
+}
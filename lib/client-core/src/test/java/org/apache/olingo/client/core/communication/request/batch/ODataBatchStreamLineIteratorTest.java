@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.communication.request.batch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.LineIterator;
+import org.apache.olingo.commons.api.Constants;
+import org.junit.Test;
+
+public class ODataBatchStreamLineIteratorTest {
+
+  private static final String BOUNDARY = "--batch_36522ad7-fc75-4b56-8c71-56071383e77b";
+
+  /**
+   * Returns at most a few bytes per read, to cross buffer refills everywhere.
+   */
+  private static InputStream trickle(final byte[] bytes) {
+    return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+      private int next;
+
+      @Override
+      public int read(final byte[] b, final int off, final int len) throws IOException {
+        next = next % 3 + 1;
+        return super.read(b, off, Math.min(len, next));
+      }
+    };
+  }
+
+  private static byte[] bytes(final String value) throws Exception {
+    return value.getBytes(Constants.UTF8);
+  }
+
+  private static byte[] concat(final byte[]... parts) {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (byte[] part : parts) {
+      output.write(part, 0, part.length);
+    }
+    return output.toByteArray();
+  }
+
+  @Test
+  public void linesAsLineIterator() throws Exception {
+    final String payload = "first\r\nsecond\nthird\r\rfifth è€\r\n\r\nlast";
+
+    final LineIterator expected = IOUtils.lineIterator(new ByteArrayInputStream(bytes(payload)), Constants.UTF8);
+    final ODataBatchStreamLineIterator actual = new ODataBatchStreamLineIterator(trickle(bytes(payload)));
+    while (expected.hasNext()) {
+      assertTrue(actual.hasNext());
+      assertEquals(expected.nextLine(), actual.nextLine());
+    }
+    assertFalse(actual.hasNext());
+  }
+
+  @Test
+  public void longLine() throws Exception {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      builder.append((char) ('a' + i % 26));
+    }
+    final ODataBatchStreamLineIterator iterator =
+        new ODataBatchStreamLineIterator(new ByteArrayInputStream(bytes(builder + "\r\nend")));
+    assertEquals(builder.toString(), iterator.nextLine());
+    assertEquals("end", iterator.nextLine());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void rawPartBody() throws Exception {
+    final byte[] body = new byte[30000];
+    for (int i = 0; i < body.length; i++) {
+      body[i] = (byte) (i * 7 + i / 13);
+    }
+    // makes sure no line of the binary body starts with the boundary by accident
+    for (int i = 0; i < body.length; i++) {
+      if (body[i] == '-') {
+        body[i] = '+';
+      }
+    }
+
+    final byte[] payload = concat(
+        bytes(BOUNDARY + "\r\nContent-Type: application/http\r\n\r\n"),
+        body,
+        bytes("\r\n" + BOUNDARY + "\r\nContent-Type: application/http\r\n\r\nsecond\r\n" + BOUNDARY + "--\r\n"));
+
+    final ODataBatchStreamLineIterator iterator = new ODataBatchStreamLineIterator(trickle(payload));
+    assertEquals(BOUNDARY, iterator.nextLine());
+    assertEquals("Content-Type: application/http", iterator.nextLine());
+    assertEquals("", iterator.nextLine());
+
+    final InputStream part = iterator.nextPart(BOUNDARY);
+    assertArrayEquals(concat(body, bytes("\r\n")), IOUtils.toByteArray(part));
+    assertEquals(-1, part.read());
+    assertEquals(BOUNDARY, iterator.getCurrent());
+
+    assertEquals("Content-Type: application/http", iterator.nextLine());
+    assertEquals("", iterator.nextLine());
+    assertEquals("second\r\n", IOUtils.toString(iterator.nextPart(BOUNDARY), Constants.UTF8));
+    assertEquals(BOUNDARY + "--", iterator.getCurrent());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void sameBodyAsLineByLine() throws Exception {
+    final String payload = BOUNDARY + "\r\nContent-Type: application/http\r\n\r\n"
+        + "HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n\r\n{\"value\":[\"--\",\"è\"]}\r\n\r\n"
+        + BOUNDARY + "--\r\n";
+
+    final ODataBatchLineIteratorImpl lines =
+        new ODataBatchLineIteratorImpl(IOUtils.lineIterator(new ByteArrayInputStream(bytes(payload)), Constants.UTF8));
+    final ODataBatchStreamLineIterator stream = new ODataBatchStreamLineIterator(trickle(bytes(payload)));
+    for (int i = 0; i < 3; i++) {
+      lines.nextLine();
+      stream.nextLine();
+    }
+
+    final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ODataBatchUtilities.readBatchPart(new ODataBatchController(lines, BOUNDARY), expected, true);
+
+    assertArrayEquals(expected.toByteArray(), IOUtils.toByteArray(stream.nextPart(BOUNDARY)));
+    assertEquals(lines.getCurrent(), stream.getCurrent());
+  }
+
+  @Test
+  public void closeSkipsToBoundary() throws Exception {
+    final String payload = "\r\nfirst line\r\nsecond line\r\n" + BOUNDARY + "\r\nnext";
+
+    final ODataBatchStreamLineIterator iterator = new ODataBatchStreamLineIterator(trickle(bytes(payload)));
+    assertEquals("", iterator.nextLine());
+    final InputStream part = iterator.nextPart(BOUNDARY);
+    assertEquals('f', part.read());
+    part.close();
+
+    assertEquals(BOUNDARY, iterator.getCurrent());
+    assertEquals("next", iterator.nextLine());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void bodyUntilEndOfPayload() throws Exception {
+    final ODataBatchStreamLineIterator iterator =
+        new ODataBatchStreamLineIterator(new ByteArrayInputStream(bytes("\nunterminated")));
+    iterator.nextLine();
+    assertEquals("unterminated", IOUtils.toString(iterator.nextPart(BOUNDARY), Constants.UTF8));
+    assertEquals("", iterator.getCurrent());
+  }
+}
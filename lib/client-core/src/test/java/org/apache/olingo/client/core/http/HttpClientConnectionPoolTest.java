@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.pool.PoolStats;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpClientConnectionPoolTest {
+
+  private static final byte[] CONTENT = { 1, 2, 3 };
+
+  /** Chunks of the large, slowly sent response: 2000 times 10 ms, i.e., reading all of it takes 20 seconds. */
+  private static final int LARGE_CHUNKS = 2000;
+
+  private HttpServer server;
+
+  private HttpClientConnectionPool pool;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", new HttpHandler() {
+
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, CONTENT.length);
+        final OutputStream body = exchange.getResponseBody();
+        body.write(CONTENT);
+        body.close();
+      }
+    });
+    server.createContext("/Large", new HttpHandler() {
+
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, 0);
+        final OutputStream body = exchange.getResponseBody();
+        try {
+          final byte[] chunk = new byte[1024];
+          for (int i = 0; i < LARGE_CHUNKS; i++) {
+            body.write(chunk);
+            body.flush();
+            Thread.sleep(10);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          exchange.close();
+        }
+      }
+    });
+    server.start();
+    pool = new HttpClientConnectionPool();
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdown();
+    server.stop(0);
+  }
+
+  @Test
+  public void connectionsAreReused() throws Exception {
+    final ODataClient client = ODataClientFactory.getClient();
+    client.getConfiguration().setHttpClientFactory(new DefaultHttpClientFactory(pool));
+    final URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/Media(1)/$value");
+
+    for (int i = 0; i < 3; i++) {
+      final ODataRetrieveResponse<InputStream> response =
+          client.getRetrieveRequestFactory().getMediaRequest(uri).execute();
+      assertArrayEquals(CONTENT, IOUtils.toByteArray(response.getBody()));
+      response.close();
+    }
+
+    final PoolStats stats = pool.getStats(new HttpHost("localhost", server.getAddress().getPort()));
+    assertEquals(0, stats.getLeased());
+    assertEquals(1, stats.getAvailable());
+    assertEquals(HttpClientConnectionPool.DEFAULT_MAX_PER_ROUTE, stats.getMax());
+    assertEquals(1, pool.getTotalStats().getAvailable());
+  }
+
+  @Test(timeout = 10000)
+  public void partiallyReadResponseIsAborted() throws Exception {
+    final ODataClient client = ODataClientFactory.getClient();
+    final URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/Large/$value");
+
+    final ODataRetrieveResponse<InputStream> response =
+        client.getRetrieveRequestFactory().getMediaRequest(uri).execute();
+    final byte[] start = new byte[10];
+    assertEquals(start.length, response.getBody().read(start));
+    final long begin = System.currentTimeMillis();
+    response.close();
+    // without a pool, the connection is dropped instead of reading the remaining 20 seconds of content
+    assertTrue(System.currentTimeMillis() - begin < 2000);
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.olingo.client.api.ODataClient;
+import org.apache.olingo.client.api.communication.request.retrieve.ODataMediaRequest;
+import org.apache.olingo.client.api.communication.response.ODataRetrieveResponse;
+import org.apache.olingo.client.api.http.HttpClientFactory;
+import org.apache.olingo.client.api.http.ResponseCacheEntry;
+import org.apache.olingo.client.core.ODataClientFactory;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ResponseCacheTest {
+
+  private static final URI MEDIA_URI = URI.create("http://localhost/service/Media(1)/$value");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    final InMemoryResponseCache cache = new InMemoryResponseCache(2, 10);
+    cache.put("a", entry("1", "a"));
+    cache.put("b", entry("1", "b"));
+    assertNotNull(cache.get("a"));
+    cache.put("c", entry("1", "c"));
+
+    assertEquals(2, cache.size());
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+
+    cache.put("d", entry("1", "too large to be cached"));
+    assertNull(cache.get("d"));
+  }
+
+  @Test
+  public void fileSystemRoundTrip() throws Exception {
+    final File directory = folder.newFolder("cache");
+    new FileSystemResponseCache(directory).put("key", entry("\"42\"", "content"));
+
+    final InMemoryResponseCache cache = new InMemoryResponseCache(2, 1024, new FileSystemResponseCache(directory));
+    final ResponseCacheEntry entry = cache.get("key");
+    assertNotNull(entry);
+    assertEquals("\"42\"", entry.getETag());
+    assertEquals(Collections.singletonList("text/plain"), entry.getHeaders().get(HttpHeader.CONTENT_TYPE));
+    assertEquals("en", entry.getRequestHeaders().get(HttpHeader.ACCEPT_LANGUAGE));
+    assertTrue(entry.getRequestHeaders().containsKey(HttpHeader.PREFER));
+    assertNull(entry.getRequestHeaders().get(HttpHeader.PREFER));
+    assertArrayEquals("content".getBytes("UTF-8"), entry.getContent());
+    assertEquals(1, cache.size());
+
+    cache.remove("key");
+    assertNull(new FileSystemResponseCache(directory).get("key"));
+
+    new FileSystemResponseCache(directory).put("key", entry(null, ""));
+    final ResponseCacheEntry empty = new FileSystemResponseCache(directory).get("key");
+    assertNotNull(empty);
+    assertNull(empty.getETag());
+    assertEquals(0, empty.getContent().length);
+  }
+
+  @Test
+  public void fileSystemIgnoresSerializedObjects() throws Exception {
+    final File directory = folder.newFolder("cache");
+    final FileSystemResponseCache cache = new FileSystemResponseCache(directory);
+    cache.put("key", entry("\"42\"", "content"));
+    final File[] files = directory.listFiles();
+    assertEquals(1, files.length);
+
+    final ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(files[0]));
+    try {
+      output.writeUTF("key");
+      output.writeObject(new ArrayList<String>(Collections.singletonList("content")));
+    } finally {
+      output.close();
+    }
+
+    assertNull(cache.get("key"));
+    assertFalse(files[0].exists());
+  }
+
+  @Test
+  public void revalidate() throws Exception {
+    final HttpClient httpClient = mock(HttpClient.class);
+    final BasicHttpResponse notModified = new BasicHttpResponse(HttpVersion.HTTP_1_1, 304, "Not Modified");
+    when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenReturn(ok(), notModified);
+    final ODataClient client = client(httpClient);
+
+    ODataRetrieveResponse<InputStream> response =
+        client.getRetrieveRequestFactory().getMediaRequest(MEDIA_URI).execute();
+    assertEquals(200, response.getStatusCode());
+    assertArrayEquals(new byte[] { 1, 2, 3 }, IOUtils.toByteArray(response.getBody()));
+
+    response = client.getRetrieveRequestFactory().getMediaRequest(MEDIA_URI).execute();
+    assertEquals(200, response.getStatusCode());
+    assertEquals("W/\"1\"", response.getETag());
+    assertArrayEquals(new byte[] { 1, 2, 3 }, IOUtils.toByteArray(response.getBody()));
+
+    final List<HttpUriRequest> requests = sentRequests(httpClient, 2);
+    assertNull(requests.get(0).getFirstHeader(HttpHeader.IF_NONE_MATCH));
+    assertEquals("W/\"1\"", requests.get(1).getFirstHeader(HttpHeader.IF_NONE_MATCH).getValue());
+  }
+
+  @Test
+  public void cachedPerIdentity() throws Exception {
+    final HttpClient httpClient = mock(HttpClient.class);
+    when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenAnswer(new Answer<HttpResponse>() {
+
+      @Override
+      public HttpResponse answer(final InvocationOnMock invocation) {
+        return ok();
+      }
+    });
+    final ODataClient client = client(httpClient);
+
+    for (String authorization : new String[] { "Basic YQ==", "Basic Yg==", "Basic YQ==" }) {
+      final ODataMediaRequest request = client.getRetrieveRequestFactory().getMediaRequest(MEDIA_URI);
+      request.addCustomHeader(HttpHeader.AUTHORIZATION, authorization);
+      IOUtils.toByteArray(request.execute().getBody());
+    }
+    IOUtils.toByteArray(client.getRetrieveRequestFactory().getMediaRequest(MEDIA_URI).execute().getBody());
+
+    final List<HttpUriRequest> requests = sentRequests(httpClient, 4);
+    assertNull(requests.get(0).getFirstHeader(HttpHeader.IF_NONE_MATCH));
+    assertNull(requests.get(1).getFirstHeader(HttpHeader.IF_NONE_MATCH));
+    assertNotNull(requests.get(2).getFirstHeader(HttpHeader.IF_NONE_MATCH));
+    assertNull(requests.get(3).getFirstHeader(HttpHeader.IF_NONE_MATCH));
+  }
+
+  @Test
+  public void unknownIdentityIsNotCached() throws Exception {
+    final HttpClient httpClient = mock(HttpClient.class);
+    when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenAnswer(new Answer<HttpResponse>() {
+
+      @Override
+      public HttpResponse answer(final InvocationOnMock invocation) {
+        // as if a request interceptor added the header
+        final HttpUriRequest sent = (HttpUriRequest) invocation.getArguments()[0];
+        sent.addHeader(HttpHeader.AUTHORIZATION, "Bearer token");
+        ((HttpContext) invocation.getArguments()[1]).setAttribute(ExecutionContext.HTTP_REQUEST, sent);
+        return ok();
+      }
+    });
+    final ODataClient client = client(httpClient);
+    final InMemoryResponseCache cache = (InMemoryResponseCache) client.getConfiguration().getResponseCache();
+
+    IOUtils.toByteArray(client.getRetrieveRequestFactory().getMediaRequest(MEDIA_URI).execute().getBody());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void vary() throws Exception {
+    final HttpClient httpClient = mock(HttpClient.class);
+    when(httpClient.execute(any(HttpUriRequest.class), any(HttpContext.class))).thenAnswer(new Answer<HttpResponse>() {
+
+      @Override
+      public HttpResponse answer(final InvocationOnMock invocation) {
+        final HttpUriRequest sent = (HttpUriRequest) invocation.getArguments()[0];
+        return ok(HttpHeader.VARY, sent.containsHeader("X-Wildcard") ? "*" : "Accept-Encoding, Accept-Language");
+      }
+    });
+    final ODataClient client = client(httpClient);
+    final InMemoryResponseCache cache = (InMemoryResponseCache) client.getConfiguration().getResponseCache();
+
+    for (String language : new String[] { "en", "de", "de" }) {
+      final ODataMediaRequest request = client.getRetrieveRequestFactory().getMediaRequest(MEDIA_URI);
+      request.addCustomHeader(HttpHeader.ACCEPT_LANGUAGE, language);
+      IOUtils.toByteArray(request.execute().getBody());
+    }
+    final List<HttpUriRequest> requests = sentRequests(httpClient, 3);
+    assertNull(requests.get(0).getFirstHeader(HttpHeader.IF_NONE_MATCH));
+    assertNull(requests.get(1).getFirstHeader(HttpHeader.IF_NONE_MATCH));
+    assertNotNull(requests.get(2).getFirstHeader(HttpHeader.IF_NONE_MATCH));
+
+    cache.clear();
+    final ODataMediaRequest request = client.getRetrieveRequestFactory().getMediaRequest(MEDIA_URI);
+    request.addCustomHeader("X-Wildcard", "true");
+    IOUtils.toByteArray(request.execute().getBody());
+    assertEquals(0, cache.size());
+  }
+
+  private ODataClient client(final HttpClient httpClient) {
+    final ODataClient client = ODataClientFactory.getClient();
+    client.getConfiguration().setHttpClientFactory(new HttpClientFactory() {
+
+      @Override
+      public HttpClient create(final HttpMethod method, final URI uri) {
+        return httpClient;
+      }
+
+      @Override
+      public void close(final HttpClient httpClient) {
+        // nothing to do
+      }
+    });
+    client.getConfiguration().setResponseCache(new InMemoryResponseCache());
+    return client;
+  }
+
+  private HttpResponse ok(final String... headers) {
+    final BasicHttpResponse ok = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+    ok.addHeader(HttpHeader.ETAG, "W/\"1\"");
+    ok.addHeader(HttpHeader.CONTENT_TYPE, "application/octet-stream");
+    for (int i = 0; i < headers.length; i += 2) {
+      ok.addHeader(headers[i], headers[i + 1]);
+    }
+    ok.setEntity(new ByteArrayEntity(new byte[] { 1, 2, 3 }));
+    return ok;
+  }
+
+  private List<HttpUriRequest> sentRequests(final HttpClient httpClient, final int count) throws Exception {
+    final ArgumentCaptor<HttpUriRequest> requests = ArgumentCaptor.forClass(HttpUriRequest.class);
+    verify(httpClient, times(count)).execute(requests.capture(), any(HttpContext.class));
+    return requests.getAllValues();
+  }
+
+  private ResponseCacheEntry entry(final String eTag, final String content) {
+    final Map<String, List<String>> headers =
+        Collections.singletonMap(HttpHeader.CONTENT_TYPE, Collections.singletonList("text/plain"));
+    final Map<String, String> requestHeaders = new LinkedHashMap<String, String>();
+    requestHeaders.put(HttpHeader.ACCEPT, "*/*");
+    requestHeaders.put(HttpHeader.ACCEPT_LANGUAGE, "en");
+    requestHeaders.put(HttpHeader.PREFER, null);
+    try {
+      return new ResponseCacheEntry(requestHeaders, eTag, 200, "OK", headers, content.getBytes("UTF-8"));
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
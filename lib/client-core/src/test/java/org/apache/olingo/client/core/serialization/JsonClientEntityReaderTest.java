@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.client.core.serialization;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.client.api.EdmEnabledODataClient;
+import org.apache.olingo.client.api.domain.ClientCollectionValue;
+import org.apache.olingo.client.api.domain.ClientComplexValue;
+import org.apache.olingo.client.api.domain.ClientEntity;
+import org.apache.olingo.client.api.domain.ClientEntitySet;
+import org.apache.olingo.client.api.domain.ClientInlineEntity;
+import org.apache.olingo.client.api.domain.ClientInlineEntitySet;
+import org.apache.olingo.client.api.domain.ClientLink;
+import org.apache.olingo.client.api.domain.ClientOperation;
+import org.apache.olingo.client.api.domain.ClientProperty;
+import org.apache.olingo.client.api.domain.ClientValue;
+import org.apache.olingo.client.core.AbstractTest;
+import org.apache.olingo.client.core.EdmEnabledODataClientImpl;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.junit.Test;
+
+public class JsonClientEntityReaderTest {
+
+  private static final String CONTEXT = "http://host/service/$metadata#";
+
+  private static final String NAMESPACE = "Microsoft.Test.OData.Services.ODataWCFService.";
+
+  private final EdmEnabledODataClient client = new EdmEnabledODataClientImpl(null, null, null) {
+
+    private Edm edm;
+
+    @Override
+    public Edm getEdm(final String metadataETag) {
+      return getCachedEdm();
+    }
+
+    @Override
+    public Edm getCachedEdm() {
+      if (edm == null) {
+        edm = getReader().readMetadata(AbstractTest.class.getResourceAsStream("staticservice-metadata.xml"));
+      }
+      return edm;
+    }
+  };
+
+  private final JsonClientEntityReader reader =
+      new JsonClientEntityReader(client, (ODataBinderImpl) client.getBinder());
+
+  private static byte[] resource(final String name) throws IOException {
+    final InputStream input = AbstractTest.class.getResourceAsStream(name);
+    try {
+      return IOUtils.toByteArray(input);
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  private static String describe(final Object object) {
+    // operations do not implement equals() nor toString()
+    return object.toString().replaceAll("ClientOperation@\\p{XDigit}+", "ClientOperation");
+  }
+
+  private static void assertSameOperations(final List<ClientOperation> expected, final List<ClientOperation> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getMetadataAnchor(), actual.get(i).getMetadataAnchor());
+      assertEquals(expected.get(i).getTitle(), actual.get(i).getTitle());
+      assertEquals(expected.get(i).getTarget(), actual.get(i).getTarget());
+    }
+    expected.clear();
+    actual.clear();
+  }
+
+  /**
+   * Removes annotations and operations, which are compared separately because they do not implement equals().
+   */
+  private static void strip(final ClientValue value) {
+    if (value instanceof ClientComplexValue) {
+      ((ClientComplexValue) value).getAnnotations().clear();
+      for (final ClientProperty property : value.asComplex()) {
+        property.getAnnotations().clear();
+        strip(property.getValue());
+      }
+    } else if (value instanceof ClientCollectionValue) {
+      for (final ClientValue element : value.asCollection()) {
+        strip(element);
+      }
+    }
+  }
+
+  private static void assertSame(final ClientEntity expected, final ClientEntity actual) {
+    assertEquals(describe(expected), describe(actual));
+    assertSameOperations(expected.getOperations(), actual.getOperations());
+    expected.getAnnotations().clear();
+    actual.getAnnotations().clear();
+    for (final ClientEntity entity : new ClientEntity[] { expected, actual }) {
+      for (final ClientProperty property : entity.getProperties()) {
+        property.getAnnotations().clear();
+        strip(property.getValue());
+      }
+    }
+    for (int i = 0; i < expected.getNavigationLinks().size(); i++) {
+      final ClientLink link = expected.getNavigationLinks().get(i);
+      final ClientLink other = actual.getNavigationLinks().get(i);
+      if (link instanceof ClientInlineEntity) {
+        assertSame(link.asInlineEntity().getEntity(), other.asInlineEntity().getEntity());
+      } else if (link instanceof ClientInlineEntitySet) {
+        assertSame(link.asInlineEntitySet().getEntitySet(), other.asInlineEntitySet().getEntitySet());
+      }
+    }
+    assertEquals(expected, actual);
+  }
+
+  private static void assertSame(final ClientEntitySet expected, final ClientEntitySet actual) {
+    assertEquals(describe(expected), describe(actual));
+    assertSameOperations(expected.getOperations(), actual.getOperations());
+    expected.getAnnotations().clear();
+    actual.getAnnotations().clear();
+    assertEquals(expected.getEntities().size(), actual.getEntities().size());
+    for (int i = 0; i < expected.getEntities().size(); i++) {
+      assertSame(expected.getEntities().get(i), actual.getEntities().get(i));
+    }
+    assertEquals(expected, actual);
+  }
+
+  private ClientEntity assertSameEntity(final byte[] json) throws Exception {
+    final ClientEntity expected = client.getBinder().getODataEntity(
+        client.getDeserializer(ContentType.JSON).toEntity(new ByteArrayInputStream(json)));
+    final ClientEntity actual = reader.readEntity(new ByteArrayInputStream(json)).getPayload();
+    assertSame(expected, actual);
+    return actual;
+  }
+
+  private ClientEntitySet assertSameEntitySet(final byte[] json) throws Exception {
+    final ClientEntitySet expected = client.getBinder().getODataEntitySet(
+        client.getDeserializer(ContentType.JSON).toEntitySet(new ByteArrayInputStream(json)));
+    final ClientEntitySet actual = reader.readEntitySet(new ByteArrayInputStream(json)).getPayload();
+    assertSame(expected, actual);
+    return actual;
+  }
+
+  @Test
+  public void fullMetadataEntities() throws Exception {
+    for (final String name : new String[] {
+        "Customer.json", "VipCustomer.json", "Products_5.json", "PersonDetails_1.json",
+        "Accounts_101_expand_MyPaymentInstruments.json", "Employees_3_HomeAddress.json",
+        "Advertisements_f89dee73-af9f-4cd4-b330-db93c25ff3c7.json", "annotated.json",
+        "entity.minimal.json", "entity.primitive.json", "entity.complex.json", "entity.collection.primitive.json",
+        "entity.collection.complex.json", "entity.withcomplexnavigation.json",
+        "olingo1073.json", "olingo1073_1.json", "olingo1073_2.json", "olingo390.json" }) {
+      assertSameEntity(resource(name));
+    }
+  }
+
+  @Test
+  public void fullMetadataEntitySets() throws Exception {
+    for (final String name : new String[] { "Customers.json", "collectionOfEntityReferences.json" }) {
+      assertSameEntitySet(resource(name));
+    }
+  }
+
+  @Test
+  public void minimalMetadataEntity() throws Exception {
+    final ClientEntity entity = assertSameEntity(("{\"@odata.context\":\"" + CONTEXT + "Customers/$entity\","
+        + "\"PersonID\":1,\"FirstName\":\"Bob\",\"LastName\":\"Cat\",\"MiddleName\":null,"
+        + "\"HomeAddress\":{\"Street\":\"1 Microsoft Way\",\"City\":\"London\",\"PostalCode\":\"98052\"},"
+        + "\"Numbers\":[\"111-111-1111\",\"012\"],\"Emails\":[],"
+        + "\"City\":\"London\",\"Birthday\":\"1957-04-03T00:00:00Z\",\"TimeBetweenLastTwoOrders\":\"PT0.0000001S\"}")
+        .getBytes("UTF-8"));
+
+    assertEquals(NAMESPACE + "Customer", entity.getTypeName().toString());
+    assertEquals(EdmPrimitiveTypeKind.DateTimeOffset,
+        entity.getProperty("Birthday").getPrimitiveValue().getTypeKind());
+    assertTrue(entity.getProperty("HomeAddress").hasComplexValue());
+    assertEquals(2, entity.getProperty("Numbers").getCollectionValue().size());
+  }
+
+  @Test
+  public void minimalMetadataEntitySet() throws Exception {
+    final ClientEntitySet entitySet = assertSameEntitySet(("{\"@odata.context\":\"" + CONTEXT + "Products\","
+        + "\"@odata.count\":2,\"value\":["
+        + "{\"ProductID\":5,\"Name\":\"Cheetos\",\"QuantityPerUnit\":\"100g Bag\",\"UnitPrice\":3.24,"
+        + "\"QuantityInStock\":100,\"Discontinued\":true,\"UserAccess\":\"None\",\"SkinColor\":\"Red\","
+        + "\"CoverColors\":[\"Green\",\"Blue\"]},"
+        + "{\"ProductID\":6,\"Name\":\"Mushrooms\",\"QuantityPerUnit\":\"Pound\",\"UnitPrice\":3,"
+        + "\"QuantityInStock\":100,\"Discontinued\":false,\"UserAccess\":\"ReadWrite\",\"SkinColor\":\"Blue\","
+        + "\"CoverColors\":[]}],"
+        + "\"@odata.nextLink\":\"Products?$skiptoken=6\"}").getBytes("UTF-8"));
+
+    assertEquals(2, entitySet.getEntities().size());
+    assertEquals(Integer.valueOf(2), entitySet.getCount());
+    assertNotNull(entitySet.getNext());
+    assertTrue(entitySet.getEntities().get(0).getProperty("SkinColor").hasEnumValue());
+  }
+
+  @Test
+  public void minimalMetadataExpand() throws Exception {
+    final ClientEntity entity = assertSameEntity(("{\"@odata.context\":\"" + CONTEXT
+        + "Customers(Orders(),Parent())/$entity\",\"PersonID\":1,\"FirstName\":\"Bob\",\"LastName\":\"Cat\","
+        + "\"Orders@odata.count\":2,\"Orders\":["
+        + "{\"@odata.id\":\"Orders(8)\",\"@odata.etag\":\"W/\\\"1\\\"\",\"OrderID\":8,"
+        + "\"OrderDate\":\"2011-03-04T16:03:57Z\",\"ShelfLife\":\"PT0.0000001S\","
+        + "\"OrderShelfLifes\":[\"PT0.0000001S\"],\"OrderDetails\":[]},"
+        + "{\"OrderID\":9,\"OrderDate\":\"2011-03-04T16:03:57Z\",\"ShelfLife\":null}],"
+        + "\"Parent\":{\"PersonID\":2,\"FirstName\":\"Jill\",\"LastName\":\"Jones\",\"Parent\":null}}")
+        .getBytes("UTF-8"));
+
+    final ClientLink orders = entity.getNavigationLink("Orders");
+    assertTrue(orders instanceof ClientInlineEntitySet);
+    assertEquals(Integer.valueOf(2), orders.asInlineEntitySet().getEntitySet().getCount());
+    assertEquals("W/\"1\"", orders.asInlineEntitySet().getEntitySet().getEntities().get(0).getETag());
+    assertNotNull(entity.getNavigationLink("Parent").asInlineEntity().getEntity().getProperty("FirstName"));
+  }
+
+  @Test
+  public void fallback() throws Exception {
+    // custom annotations, explicit types and properties unknown to the metadata are bound by the default binder
+    assertSameEntitySet(("{\"@odata.context\":\"" + CONTEXT + "Customers\",\"@com.contoso.feed\":\"x\","
+        + "\"value\":[{\"@com.contoso.entity\":1,\"PersonID\":1,\"FirstName\":\"Bob\"},"
+        + "{\"PersonID@odata.type\":\"#Int64\",\"PersonID\":2,\"FirstName@com.contoso.name\":true,"
+        + "\"FirstName\":\"Jill\",\"Unknown\":{\"A\":1.5,\"B\":[1,2]},\"Home\":"
+        + "{\"type\":\"Point\",\"coordinates\":[142.1,64.1],\"crs\":{\"type\":\"name\","
+        + "\"properties\":{\"name\":\"EPSG:4326\"}}}}]}").getBytes("UTF-8"));
+    assertSameEntitySet(("{\"value\":[{\"PersonID\":1}],\"@odata.context\":\"" + CONTEXT + "People\"}")
+        .getBytes("UTF-8"));
+  }
+}
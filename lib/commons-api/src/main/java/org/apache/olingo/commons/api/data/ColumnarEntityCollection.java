@@ -0,0 +1,581 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.olingo.commons.api.ex.ODataNotSupportedException;
+
+/**
+ * Compact, column-oriented collection of entities of one entity type with primitive properties.
+ * <br/>
+ * Each property is stored in a column backed by a primitive array; string columns are dictionary-encoded and
+ * null values are kept in a bitmap. No {@link Entity} or {@link Property} objects are kept per row.
+ * <br/>
+ * Iteration hands out one reusable {@link Entity} per iterator whose property values are replaced on every call
+ * of <code>next()</code>. This fits the serializers, which write an entity completely before moving on; callers
+ * which need to keep entities must use {@link #getEntity(int)} instead.
+ */
+public class ColumnarEntityCollection extends AbstractEntityCollection {
+
+  /** Storage kind of a column. */
+  public enum ColumnType {
+    BOOLEAN, INT32, INT64, DOUBLE, STRING, OBJECT
+  }
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final String entityType;
+  private final List<Column> columns = new ArrayList<Column>();
+  private PropertyIndex index;
+  private int size;
+  private int capacity = INITIAL_CAPACITY;
+
+  private Integer count;
+  private URI next;
+  private URI deltaLink;
+  private final List<Operation> operations = new ArrayList<Operation>();
+
+  /**
+   * Creates an empty collection.
+   * @param entityType full-qualified name of the entity type, used as type of the entities (can be null)
+   */
+  public ColumnarEntityCollection(final String entityType) {
+    this.entityType = entityType;
+  }
+
+  /**
+   * Adds a column. Columns can only be added as long as the collection has no rows.
+   * @param name property name
+   * @param propertyType full-qualified name of the property type, e.g., <code>Edm.Int32</code>
+   * @param columnType storage kind; values of {@link ColumnType#OBJECT} columns are kept as they are
+   * @return position of the new column
+   */
+  public int addColumn(final String name, final String propertyType, final ColumnType columnType) {
+    if (size > 0) {
+      throw new IllegalStateException("Columns must be added before the first row.");
+    }
+    final Column column;
+    switch (columnType) {
+    case BOOLEAN:
+      column = new BooleanColumn(name, propertyType);
+      break;
+    case INT32:
+      column = new IntColumn(name, propertyType);
+      break;
+    case INT64:
+      column = new LongColumn(name, propertyType);
+      break;
+    case DOUBLE:
+      column = new DoubleColumn(name, propertyType);
+      break;
+    case STRING:
+      column = new StringColumn(name, propertyType);
+      break;
+    default:
+      column = new ObjectColumn(name, propertyType);
+      break;
+    }
+    column.grow(capacity);
+    columns.add(column);
+    index = null;
+    return columns.size() - 1;
+  }
+
+  /**
+   * Gets the position of a column.
+   * @param name property name
+   * @return position, or -1 if there is no such column
+   */
+  public int getColumn(final String name) {
+    for (int i = 0; i < columns.size(); i++) {
+      if (columns.get(i).name.equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the number of columns.
+   * @return number of columns
+   */
+  public int getColumnCount() {
+    return columns.size();
+  }
+
+  /**
+   * Gets the number of rows.
+   * @return number of rows
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Appends a row with all values set to <code>null</code>.
+   * @return position of the new row
+   */
+  public int addRow() {
+    if (size == capacity) {
+      capacity *= 2;
+      for (final Column column : columns) {
+        column.grow(capacity);
+      }
+    }
+    for (final Column column : columns) {
+      column.nulls.set(size);
+    }
+    return size++;
+  }
+
+  /**
+   * Sets a value of a BOOLEAN column.
+   * @param row row position
+   * @param column column position
+   * @param value value
+   */
+  public void setBoolean(final int row, final int column, final boolean value) {
+    ((BooleanColumn) column(row, column, ColumnType.BOOLEAN)).values.set(row, value);
+    columns.get(column).nulls.clear(row);
+  }
+
+  /**
+   * Sets a value of a INT32 column.
+   * @param row row position
+   * @param column column position
+   * @param value value
+   */
+  public void setInt(final int row, final int column, final int value) {
+    ((IntColumn) column(row, column, ColumnType.INT32)).values[row] = value;
+    columns.get(column).nulls.clear(row);
+  }
+
+  /**
+   * Sets a value of a INT64 column.
+   * @param row row position
+   * @param column column position
+   * @param value value
+   */
+  public void setLong(final int row, final int column, final long value) {
+    ((LongColumn) column(row, column, ColumnType.INT64)).values[row] = value;
+    columns.get(column).nulls.clear(row);
+  }
+
+  /**
+   * Sets a value of a DOUBLE column.
+   * @param row row position
+   * @param column column position
+   * @param value value
+   */
+  public void setDouble(final int row, final int column, final double value) {
+    ((DoubleColumn) column(row, column, ColumnType.DOUBLE)).values[row] = value;
+    columns.get(column).nulls.clear(row);
+  }
+
+  /**
+   * Sets a string value; equal strings of a column are stored only once.
+   * @param row row position
+   * @param column column position
+   * @param value value (can be null)
+   */
+  public void setString(final int row, final int column, final String value) {
+    final StringColumn stringColumn = (StringColumn) column(row, column, ColumnType.STRING);
+    if (value == null) {
+      stringColumn.nulls.set(row);
+    } else {
+      stringColumn.codes[row] = stringColumn.encode(value);
+      stringColumn.nulls.clear(row);
+    }
+  }
+
+  /**
+   * Sets a value of any column type; values of typed columns must be instances of the matching wrapper class.
+   * @param row row position
+   * @param column column position
+   * @param value value (can be null)
+   */
+  public void setValue(final int row, final int column, final Object value) {
+    final Column target = column(row, column, null);
+    if (value == null) {
+      target.nulls.set(row);
+    } else {
+      target.set(row, value);
+      target.nulls.clear(row);
+    }
+  }
+
+  /**
+   * Gets a value, boxed.
+   * @param row row position
+   * @param column column position
+   * @return value or null
+   */
+  public Object getValue(final int row, final int column) {
+    final Column source = column(row, column, null);
+    return source.nulls.get(row) ? null : source.get(row);
+  }
+
+  /**
+   * Checks whether a value is <code>null</code>.
+   * @param row row position
+   * @param column column position
+   * @return true if the value is null
+   */
+  public boolean isNull(final int row, final int column) {
+    return column(row, column, null).nulls.get(row);
+  }
+
+  /**
+   * Creates a new, independent entity for a row.
+   * @param row row position
+   * @return entity
+   */
+  public Entity getEntity(final int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+    }
+    final Entity entity = newEntity();
+    fill(entity, row);
+    return entity;
+  }
+
+  /**
+   * Iterates over the rows; see the class documentation for the reuse of the returned entity.
+   */
+  @Override
+  public Iterator<Entity> iterator() {
+    return new Cursor();
+  }
+
+  private Column column(final int row, final int column, final ColumnType expected) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+    }
+    final Column result = columns.get(column);
+    if (expected != null && result.getColumnType() != expected) {
+      throw new IllegalArgumentException("Column " + result.name + " is of type " + result.getColumnType());
+    }
+    return result;
+  }
+
+  private Entity newEntity() {
+    if (index == null) {
+      final List<String> names = new ArrayList<String>(columns.size());
+      for (final Column column : columns) {
+        names.add(column.name);
+      }
+      index = new PropertyIndex(names);
+    }
+    final Entity entity = new Entity(index);
+    entity.setType(entityType);
+    for (final Column column : columns) {
+      entity.addProperty(new Property(column.propertyType, column.name, ValueType.PRIMITIVE, null));
+    }
+    return entity;
+  }
+
+  private void fill(final Entity entity, final int row) {
+    final List<Property> properties = entity.getProperties();
+    for (int i = 0; i < columns.size(); i++) {
+      final Column column = columns.get(i);
+      properties.get(i).setValue(ValueType.PRIMITIVE, column.nulls.get(row) ? null : column.get(row));
+    }
+    entity.setId(null);
+  }
+
+  /**
+   * Sets number of entries.
+   *
+   * @param count number of entries
+   */
+  public void setCount(final Integer count) {
+    this.count = count;
+  }
+
+  @Override
+  public Integer getCount() {
+    return count;
+  }
+
+  /**
+   * Sets next link.
+   *
+   * @param next next link.
+   */
+  public void setNext(final URI next) {
+    this.next = next;
+  }
+
+  @Override
+  public URI getNext() {
+    return next;
+  }
+
+  /**
+   * Sets delta link.
+   *
+   * @param deltaLink delta link.
+   */
+  public void setDeltaLink(final URI deltaLink) {
+    this.deltaLink = deltaLink;
+  }
+
+  @Override
+  public URI getDeltaLink() {
+    return deltaLink;
+  }
+
+  @Override
+  public List<Operation> getOperations() {
+    return operations;
+  }
+
+  private class Cursor implements Iterator<Entity> {
+
+    private final Entity entity = newEntity();
+    private int row;
+
+    @Override
+    public boolean hasNext() {
+      return row < size;
+    }
+
+    @Override
+    public Entity next() {
+      if (row >= size) {
+        throw new NoSuchElementException();
+      }
+      fill(entity, row++);
+      return entity;
+    }
+
+    @Override
+    public void remove() {
+      throw new ODataNotSupportedException("Columnar entity collections do not support remove()");
+    }
+  }
+
+  private abstract static class Column {
+    protected final String name;
+    protected final String propertyType;
+    protected final BitSet nulls = new BitSet();
+
+    protected Column(final String name, final String propertyType) {
+      this.name = name;
+      this.propertyType = propertyType;
+    }
+
+    protected abstract ColumnType getColumnType();
+
+    protected abstract void grow(int capacity);
+
+    protected abstract Object get(int row);
+
+    protected abstract void set(int row, Object value);
+  }
+
+  private static class BooleanColumn extends Column {
+    private final BitSet values = new BitSet();
+
+    BooleanColumn(final String name, final String propertyType) {
+      super(name, propertyType);
+    }
+
+    @Override
+    protected ColumnType getColumnType() {
+      return ColumnType.BOOLEAN;
+    }
+
+    @Override
+    protected void grow(final int capacity) {
+      // BitSet grows on its own
+    }
+
+    @Override
+    protected Object get(final int row) {
+      return values.get(row);
+    }
+
+    @Override
+    protected void set(final int row, final Object value) {
+      values.set(row, (Boolean) value);
+    }
+  }
+
+  private static class IntColumn extends Column {
+    private int[] values = new int[0];
+
+    IntColumn(final String name, final String propertyType) {
+      super(name, propertyType);
+    }
+
+    @Override
+    protected ColumnType getColumnType() {
+      return ColumnType.INT32;
+    }
+
+    @Override
+    protected void grow(final int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected Object get(final int row) {
+      return values[row];
+    }
+
+    @Override
+    protected void set(final int row, final Object value) {
+      values[row] = ((Number) value).intValue();
+    }
+  }
+
+  private static class LongColumn extends Column {
+    private long[] values = new long[0];
+
+    LongColumn(final String name, final String propertyType) {
+      super(name, propertyType);
+    }
+
+    @Override
+    protected ColumnType getColumnType() {
+      return ColumnType.INT64;
+    }
+
+    @Override
+    protected void grow(final int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected Object get(final int row) {
+      return values[row];
+    }
+
+    @Override
+    protected void set(final int row, final Object value) {
+      values[row] = ((Number) value).longValue();
+    }
+  }
+
+  private static class DoubleColumn extends Column {
+    private double[] values = new double[0];
+
+    DoubleColumn(final String name, final String propertyType) {
+      super(name, propertyType);
+    }
+
+    @Override
+    protected ColumnType getColumnType() {
+      return ColumnType.DOUBLE;
+    }
+
+    @Override
+    protected void grow(final int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected Object get(final int row) {
+      return values[row];
+    }
+
+    @Override
+    protected void set(final int row, final Object value) {
+      values[row] = ((Number) value).doubleValue();
+    }
+  }
+
+  private static class StringColumn extends Column {
+    private int[] codes = new int[0];
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+    private final List<String> values = new ArrayList<String>();
+
+    StringColumn(final String name, final String propertyType) {
+      super(name, propertyType);
+    }
+
+    private int encode(final String value) {
+      Integer code = dictionary.get(value);
+      if (code == null) {
+        code = values.size();
+        values.add(value);
+        dictionary.put(value, code);
+      }
+      return code;
+    }
+
+    @Override
+    protected ColumnType getColumnType() {
+      return ColumnType.STRING;
+    }
+
+    @Override
+    protected void grow(final int capacity) {
+      codes = Arrays.copyOf(codes, capacity);
+    }
+
+    @Override
+    protected Object get(final int row) {
+      return values.get(codes[row]);
+    }
+
+    @Override
+    protected void set(final int row, final Object value) {
+      codes[row] = encode((String) value);
+    }
+  }
+
+  private static class ObjectColumn extends Column {
+    private Object[] values = new Object[0];
+
+    ObjectColumn(final String name, final String propertyType) {
+      super(name, propertyType);
+    }
+
+    @Override
+    protected ColumnType getColumnType() {
+      return ColumnType.OBJECT;
+    }
+
+    @Override
+    protected void grow(final int capacity) {
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected Object get(final int row) {
+      return values[row];
+    }
+
+    @Override
+    protected void set(final int row, final Object value) {
+      values[row] = value;
+    }
+  }
+}
@@ -26,10 +26,23 @@ import java.util.List;
  */
 public class ComplexValue extends Linked {
 
-  private final List<Property> value = new ArrayList<Property>();
+  private final List<Property> value;
   
   private String typeName;
 
+  public ComplexValue() {
+    value = new ArrayList<Property>();
+  }
+
+  /**
+   * Creates a complex value whose properties and navigation links are looked up through the given index.
+   * @param index shared index of the complex type, see {@link PropertyIndex#of}
+   */
+  public ComplexValue(final PropertyIndex index) {
+    super(index);
+    value = IndexedList.forProperties(index);
+  }
+
   /**
    * Get list of all values for this ComplexValue.
    *
@@ -39,6 +52,24 @@ public class ComplexValue extends Linked {
     return value;
   }
 
+  /**
+   * Gets property with given name.
+   *
+   * @param name property name
+   * @return property with given name if found, null otherwise
+   */
+  public Property getProperty(final String name) {
+    if (value instanceof IndexedList) {
+      return ((IndexedList<Property>) value).getByName(name);
+    }
+    for (final Property property : value) {
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+
   @Override
   public boolean equals(final Object o) {
     return super.equals(o) && value.equals(((ComplexValue) o).value);
@@ -36,12 +36,25 @@ public class Entity extends Linked {
   private final List<Link> mediaEditLinks = new ArrayList<Link>();
   private final List<Operation> operations = new ArrayList<Operation>();
 
-  private final List<Property> properties = new ArrayList<Property>();
+  private final List<Property> properties;
 
   private URI mediaContentSource;
   private String mediaContentType;
   private String mediaETag;
 
+  public Entity() {
+    properties = new ArrayList<Property>();
+  }
+
+  /**
+   * Creates an entity whose properties and navigation links are looked up through the given index.
+   * @param index shared index of the entity type, see {@link PropertyIndex#of}
+   */
+  public Entity(final PropertyIndex index) {
+    super(index);
+    properties = IndexedList.forProperties(index);
+  }
+
   /**
    * Gets ETag.
    *
@@ -158,6 +171,10 @@ public class Entity extends Linked {
    * @return property with given name if found, null otherwise
    */
   public Property getProperty(final String name) {
+    if (properties instanceof IndexedList) {
+      return ((IndexedList<Property>) properties).getByName(name);
+    }
+
     Property result = null;
 
     for (Property property : properties) {
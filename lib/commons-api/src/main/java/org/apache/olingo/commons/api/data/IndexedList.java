@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * List of named items which additionally supports look-up by name in constant time.
+ * <br/>
+ * The slot of each name is taken from a shared {@link PropertyIndex}; names not known to the index are looked up
+ * by a linear scan. Names must not change after an item has been added to the list.
+ * @param <T> item type
+ */
+public abstract class IndexedList<T> extends AbstractList<T> implements RandomAccess {
+
+  private final PropertyIndex index;
+  private final boolean lastWins;
+  private final List<T> elements = new ArrayList<T>();
+  private final Object[] slots;
+  private boolean valid = true;
+
+  /**
+   * Creates a list for properties, looked up by {@link Property#getName()}.
+   * The first property with a given name is found, like with a linear search.
+   * @param index shared index
+   * @return new empty list
+   */
+  public static IndexedList<Property> forProperties(final PropertyIndex index) {
+    return new IndexedList<Property>(index, false) {
+      @Override
+      protected String getName(final Property item) {
+        return item == null ? null : item.getName();
+      }
+    };
+  }
+
+  /**
+   * Creates a list for links, looked up by {@link Link#getTitle()}.
+   * The last link with a given title is found, like in {@link Linked}.
+   * @param index shared index
+   * @return new empty list
+   */
+  public static IndexedList<Link> forLinks(final PropertyIndex index) {
+    return new IndexedList<Link>(index, true) {
+      @Override
+      protected String getName(final Link item) {
+        return item == null ? null : item.getTitle();
+      }
+    };
+  }
+
+  protected IndexedList(final PropertyIndex index, final boolean lastWins) {
+    this.index = index;
+    this.lastWins = lastWins;
+    slots = new Object[index.size()];
+  }
+
+  /**
+   * Gets the name under which the given item is found.
+   * @param item item (can be null)
+   * @return name or null
+   */
+  protected abstract String getName(T item);
+
+  /**
+   * Gets the index this list uses.
+   * @return index
+   */
+  public PropertyIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Gets the item with the given name.
+   * @param name name
+   * @return item with given name if found, null otherwise
+   */
+  @SuppressWarnings("unchecked")
+  public T getByName(final String name) {
+    final int slot = index.getSlot(name);
+    if (slot < 0) {
+      return scan(name);
+    }
+    if (!valid) {
+      rebuild();
+    }
+    return (T) slots[slot];
+  }
+
+  private T scan(final String name) {
+    T result = null;
+    for (final T item : elements) {
+      if (name.equals(getName(item))) {
+        result = item;
+        if (!lastWins) {
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  private void register(final T item) {
+    final int slot = index.getSlot(getName(item));
+    if (slot >= 0 && (lastWins || slots[slot] == null)) {
+      slots[slot] = item;
+    }
+  }
+
+  private void rebuild() {
+    Arrays.fill(slots, null);
+    for (final T item : elements) {
+      register(item);
+    }
+    valid = true;
+  }
+
+  @Override
+  public T get(final int position) {
+    return elements.get(position);
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public void add(final int position, final T item) {
+    elements.add(position, item);
+    modCount++;
+    if (valid && position == elements.size() - 1) {
+      register(item);
+    } else {
+      valid = false;
+    }
+  }
+
+  @Override
+  public T set(final int position, final T item) {
+    final T previous = elements.set(position, item);
+    valid = false;
+    return previous;
+  }
+
+  @Override
+  public T remove(final int position) {
+    final T previous = elements.remove(position);
+    modCount++;
+    valid = false;
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    elements.clear();
+    modCount++;
+    Arrays.fill(slots, null);
+    valid = true;
+  }
+}
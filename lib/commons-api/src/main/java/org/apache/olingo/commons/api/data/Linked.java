@@ -27,9 +27,21 @@ import java.util.List;
 public abstract class Linked extends AbstractODataObject {
 
   private final List<Link> associationLinks = new ArrayList<Link>();
-  private final List<Link> navigationLinks = new ArrayList<Link>();
+  private final List<Link> navigationLinks;
   private final List<Link> bindingLinks = new ArrayList<Link>();
 
+  protected Linked() {
+    navigationLinks = new ArrayList<Link>();
+  }
+
+  /**
+   * Creates an instance whose navigation links are looked up through the given index.
+   * @param index shared index of the structured type
+   */
+  protected Linked(final PropertyIndex index) {
+    navigationLinks = IndexedList.forLinks(index);
+  }
+
   protected Link getOneByTitle(final String name, final List<Link> links) {
     Link result = null;
 
@@ -68,6 +80,9 @@ public abstract class Linked extends AbstractODataObject {
    * @return navigation link with given name, if available, otherwise <tt>null</tt>
    */
   public Link getNavigationLink(final String name) {
+    if (navigationLinks instanceof IndexedList) {
+      return ((IndexedList<Link>) navigationLinks).getByName(name);
+    }
     return getOneByTitle(name, navigationLinks);
   }
 
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+
+/**
+ * Maps the member names of a structured type to fixed slots.
+ * <br/>
+ * An index is immutable and meant to be shared by all instances of the same type; {@link Entity},
+ * {@link ComplexValue} and their navigation links use it to look up properties and links by name in constant
+ * time instead of scanning their lists.
+ */
+public final class PropertyIndex {
+
+  /**
+   * Shared indexes, weakly keyed by type so that discarded EDMs can be collected; readers do not lock.
+   */
+  private static final ConcurrentMap<TypeKey, PropertyIndex> CACHE = new ConcurrentHashMap<TypeKey, PropertyIndex>();
+
+  private static final ReferenceQueue<EdmStructuredType> COLLECTED = new ReferenceQueue<EdmStructuredType>();
+
+  private final Map<String, Integer> slots;
+
+  /**
+   * Creates an index for the given member names; duplicate names share their first slot.
+   * @param names property and navigation property names
+   */
+  public PropertyIndex(final Collection<String> names) {
+    final Map<String, Integer> map = new HashMap<String, Integer>(names.size() * 4 / 3 + 1);
+    for (final String name : names) {
+      if (!map.containsKey(name)) {
+        map.put(name, map.size());
+      }
+    }
+    slots = Collections.unmodifiableMap(map);
+  }
+
+  /**
+   * Gets the shared index of the structural and navigation properties of the given type.
+   * @param type structured type
+   * @return index, created on first request for the type
+   */
+  public static PropertyIndex of(final EdmStructuredType type) {
+    PropertyIndex index = CACHE.get(new TypeKey(type, null));
+    if (index == null) {
+      expungeCollected();
+      final List<String> names = new ArrayList<String>(type.getPropertyNames());
+      names.addAll(type.getNavigationPropertyNames());
+      index = new PropertyIndex(names);
+      final PropertyIndex previous = CACHE.putIfAbsent(new TypeKey(type, COLLECTED), index);
+      if (previous != null) {
+        index = previous;
+      }
+    }
+    return index;
+  }
+
+  private static void expungeCollected() {
+    Reference<? extends EdmStructuredType> collected;
+    while ((collected = COLLECTED.poll()) != null) {
+      CACHE.remove(collected);
+    }
+  }
+
+  /**
+   * Gets the slot of a member name.
+   * @param name member name
+   * @return slot, or -1 if the name is not known to this index (e.g., a dynamic property)
+   */
+  public int getSlot(final String name) {
+    final Integer slot = name == null ? null : slots.get(name);
+    return slot == null ? -1 : slot;
+  }
+
+  /**
+   * Gets the number of slots.
+   * @return number of distinct member names
+   */
+  public int size() {
+    return slots.size();
+  }
+
+  @Override
+  public String toString() {
+    return slots.keySet().toString();
+  }
+
+  /**
+   * Weak reference to a type, comparing by identity of the referenced type.
+   */
+  private static final class TypeKey extends WeakReference<EdmStructuredType> {
+
+    private final int hash;
+
+    TypeKey(final EdmStructuredType type, final ReferenceQueue<EdmStructuredType> queue) {
+      super(type, queue);
+      hash = System.identityHashCode(type);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof TypeKey)) {
+        return false;
+      }
+      final EdmStructuredType type = get();
+      return type != null && type == ((TypeKey) obj).get();
+    }
+  }
+}
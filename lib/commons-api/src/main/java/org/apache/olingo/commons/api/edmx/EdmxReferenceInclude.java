@@ -18,10 +18,15 @@
  */
 package org.apache.olingo.commons.api.edmx;
 
+import java.io.Serializable;
+
 /**
  * edmx:Include elements that specify the schemas to include from the target document.
  */
-public class EdmxReferenceInclude {
+public class EdmxReferenceInclude implements Serializable {
+
+  private static final long serialVersionUID = -4267614459983442057L;
+
   private final String namespace;
   private final String alias;
 
@@ -18,10 +18,15 @@
  */
 package org.apache.olingo.commons.api.edmx;
 
+import java.io.Serializable;
+
 /**
  * POJO for Edmx Reference Include Annotation.
  */
-public class EdmxReferenceIncludeAnnotation {
+public class EdmxReferenceIncludeAnnotation implements Serializable {
+
+  private static final long serialVersionUID = -4015043317991551128L;
+
   private final String termNamespace;
   private String qualifier;
   private String targetNamespace;
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Iterator;
+
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection.ColumnType;
+import org.junit.Test;
+
+public class ColumnarEntityCollectionTest {
+
+  @Test
+  public void columns() {
+    final ColumnarEntityCollection collection = new ColumnarEntityCollection("Namespace.Type");
+    final int id = collection.addColumn("Id", "Edm.Int64", ColumnType.INT64);
+    final int name = collection.addColumn("Name", "Edm.String", ColumnType.STRING);
+    final int flag = collection.addColumn("Flag", "Edm.Boolean", ColumnType.BOOLEAN);
+    final int price = collection.addColumn("Price", "Edm.Decimal", ColumnType.OBJECT);
+    for (int i = 0; i < 100; i++) {
+      final int row = collection.addRow();
+      collection.setLong(row, id, i);
+      collection.setString(row, name, i % 2 == 0 ? "even" : null);
+      collection.setBoolean(row, flag, i % 3 == 0);
+      if (i % 5 == 0) {
+        collection.setValue(row, price, BigDecimal.valueOf(i));
+      }
+    }
+
+    assertEquals(100, collection.size());
+    assertEquals(4, collection.getColumnCount());
+    assertEquals(name, collection.getColumn("Name"));
+    assertEquals(-1, collection.getColumn("Unknown"));
+    assertEquals(42L, collection.getValue(42, id));
+    assertEquals("even", collection.getValue(42, name));
+    assertTrue(collection.isNull(43, name));
+    assertEquals(Boolean.TRUE, collection.getValue(42, flag));
+    assertEquals(BigDecimal.valueOf(45), collection.getValue(45, price));
+    assertNull(collection.getValue(46, price));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void wrongColumnType() {
+    final ColumnarEntityCollection collection = new ColumnarEntityCollection(null);
+    final int column = collection.addColumn("Name", "Edm.String", ColumnType.STRING);
+    collection.setInt(collection.addRow(), column, 1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void columnAfterRows() {
+    final ColumnarEntityCollection collection = new ColumnarEntityCollection(null);
+    collection.addColumn("Name", "Edm.String", ColumnType.STRING);
+    collection.addRow();
+    collection.addColumn("Other", "Edm.String", ColumnType.STRING);
+  }
+
+  @Test
+  public void iteration() {
+    final ColumnarEntityCollection collection = new ColumnarEntityCollection("Namespace.Type");
+    final int key = collection.addColumn("Key", "Edm.Int32", ColumnType.INT32);
+    final int value = collection.addColumn("Value", "Edm.Double", ColumnType.DOUBLE);
+    collection.setValue(collection.addRow(), key, 1);
+    collection.setDouble(collection.addRow(), value, 2.5);
+
+    final Iterator<Entity> iterator = collection.iterator();
+    final Entity first = iterator.next();
+    assertEquals("Namespace.Type", first.getType());
+    assertEquals(1, first.getProperty("Key").getValue());
+    assertEquals("Edm.Int32", first.getProperty("Key").getType());
+    assertTrue(first.getProperty("Value").isNull());
+    first.setId(URI.create("Set(1)"));
+
+    final Entity second = iterator.next();
+    assertSame(first, second);
+    assertNull(second.getId());
+    assertTrue(second.getProperty("Key").isNull());
+    assertEquals(2.5, second.getProperty("Value").getValue());
+    assertFalse(iterator.hasNext());
+
+    final Entity detached = collection.getEntity(0);
+    assertNotSame(detached, collection.getEntity(0));
+    assertEquals(detached, collection.getEntity(0));
+    assertEquals(1, detached.getProperty("Key").getValue());
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class IndexedListTest {
+
+  private static final PropertyIndex INDEX = new PropertyIndex(Arrays.asList("A", "B", "C", "NavA"));
+
+  @Test
+  public void entityProperties() {
+    final Entity entity = new Entity(INDEX);
+    final Property a = new Property(null, "A", ValueType.PRIMITIVE, 1);
+    final Property b = new Property(null, "B", ValueType.PRIMITIVE, 2);
+    final Property dynamic = new Property(null, "Dynamic", ValueType.PRIMITIVE, 3);
+    entity.addProperty(a).addProperty(b).addProperty(dynamic)
+        .addProperty(new Property(null, "A", ValueType.PRIMITIVE, 4));
+
+    assertSame(a, entity.getProperty("A"));
+    assertSame(b, entity.getProperty("B"));
+    assertNull(entity.getProperty("C"));
+    assertSame(dynamic, entity.getProperty("Dynamic"));
+    assertNull(entity.getProperty("Unknown"));
+
+    final Entity plain = new Entity();
+    plain.getProperties().addAll(entity.getProperties());
+    assertEquals(plain, entity);
+    assertEquals(plain.hashCode(), entity.hashCode());
+  }
+
+  @Test
+  public void modifications() {
+    final ComplexValue value = new ComplexValue(INDEX);
+    final Property a = new Property(null, "A", ValueType.PRIMITIVE, 1);
+    final Property b = new Property(null, "B", ValueType.PRIMITIVE, 2);
+    final Property c = new Property(null, "C", ValueType.PRIMITIVE, 3);
+    value.getValue().add(a);
+    value.getValue().add(0, b);
+    assertSame(b, value.getProperty("B"));
+
+    value.getValue().remove(b);
+    assertNull(value.getProperty("B"));
+    assertSame(a, value.getProperty("A"));
+
+    value.getValue().set(0, c);
+    assertNull(value.getProperty("A"));
+    assertSame(c, value.getProperty("C"));
+
+    value.getValue().clear();
+    assertTrue(value.getValue().isEmpty());
+    assertNull(value.getProperty("C"));
+  }
+
+  @Test
+  public void navigationLinks() {
+    final Entity entity = new Entity(INDEX);
+    final Link first = new Link();
+    first.setTitle("NavA");
+    final Link second = new Link();
+    second.setTitle("NavA");
+    entity.getNavigationLinks().add(first);
+    entity.getNavigationLinks().add(second);
+
+    // the last link with a title wins, as without index
+    assertSame(second, entity.getNavigationLink("NavA"));
+    entity.getNavigationLinks().remove(1);
+    assertSame(first, entity.getNavigationLink("NavA"));
+    assertNull(entity.getNavigationLink("A"));
+  }
+}
@@ -19,8 +19,6 @@
 package org.apache.olingo.commons.core.edm.primitivetype;
 
 import java.util.Calendar;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
@@ -29,8 +27,6 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
  */
 public final class EdmDate extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile("(-?\\p{Digit}{4,})-(\\p{Digit}{2})-(\\p{Digit}{2})");
-
   private static final EdmDate INSTANCE = new EdmDate();
 
   public static EdmDate getInstance() {
@@ -50,15 +46,25 @@ public final class EdmDate extends SingletonPrimitiveType {
     final Calendar dateTimeValue = Calendar.getInstance();
     dateTimeValue.clear();
 
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()) {
+    // Parse "[-]yyyy-MM-dd" without regular expressions.
+    final int length = value.length();
+    final int yearStart = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+    final int yearEnd = length - 6;
+    final int year = yearEnd - yearStart >= 4 && yearEnd - yearStart <= 9 ?
+        EdmDateTimeOffset.parseDigits(value, yearStart, yearEnd) : -1;
+    if (year < 0 || value.charAt(yearEnd) != '-' || value.charAt(yearEnd + 3) != '-') {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+    }
+    final int month = EdmDateTimeOffset.parseDigits(value, yearEnd + 1, yearEnd + 3);
+    final int day = EdmDateTimeOffset.parseDigits(value, yearEnd + 4, length);
+    if (month < 0 || day < 0) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
 
     dateTimeValue.set(
-        Integer.parseInt(matcher.group(1)),
-        Byte.parseByte(matcher.group(2)) - 1, // month is zero-based
-        Byte.parseByte(matcher.group(3)));
+        yearStart == 1 ? -year : year,
+        month - 1, // month is zero-based
+        day);
 
     try {
       return EdmDateTimeOffset.convertDateTime(dateTimeValue, 0, returnType);
@@ -23,8 +23,8 @@ import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
@@ -33,10 +33,12 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
  */
 public final class EdmDateTimeOffset extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(-?\\p{Digit}{4,})-(\\p{Digit}{2})-(\\p{Digit}{2})"
-          + "T(\\p{Digit}{2}):(\\p{Digit}{2})(?::(\\p{Digit}{2})(\\.(\\p{Digit}{0,12}?)0*)?)?"
-          + "(Z|([-+]\\p{Digit}{2}:\\p{Digit}{2}))?");
+  /** 1583-01-01T00:00:00Z; from then on, {@link java.util.GregorianCalendar} uses Gregorian rules only. */
+  private static final long GREGORIAN_START = -12212553600000L;
+  /** 10000-01-01T00:00:00Z */
+  private static final long YEAR_10000 = 253402300800000L;
+
+  private static final ConcurrentMap<Integer, TimeZone> TIME_ZONES = new ConcurrentHashMap<Integer, TimeZone>();
 
   private static final EdmDateTimeOffset INSTANCE = new EdmDateTimeOffset();
 
@@ -54,56 +56,95 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode, final Class<T> returnType) throws EdmPrimitiveTypeException {
 
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()) {
+    // Parse "[-]yyyy-MM-ddTHH:mm[:ss[.fffffffffff]][Z|(+|-)hh:mm]" without regular expressions.
+    final int length = value.length();
+    final int yearStart = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+    int pos = yearStart;
+    while (pos < length && isDigit(value.charAt(pos))) {
+      pos++;
+    }
+    if (pos - yearStart < 4 || pos - yearStart > 9 || length < pos + 12
+        || value.charAt(pos) != '-' || value.charAt(pos + 3) != '-'
+        || value.charAt(pos + 6) != 'T' || value.charAt(pos + 9) != ':') {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
-
-    final String timeZoneOffset = matcher.group(9) == null || matcher.group(10) == null
-        || matcher.group(10).matches("[-+]0+:0+") ? "" : matcher.group(10);
-    final Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT" + timeZoneOffset));
-    if (dateTimeValue.get(Calendar.ZONE_OFFSET) == 0 && !timeZoneOffset.isEmpty()) {
+    final int year = (yearStart == 1 ? -1 : 1) * parseDigits(value, yearStart, pos);
+    final int month = parseDigits(value, pos + 1, pos + 3);
+    final int day = parseDigits(value, pos + 4, pos + 6);
+    final int hour = parseDigits(value, pos + 7, pos + 9);
+    final int minute = parseDigits(value, pos + 10, pos + 12);
+    pos += 12;
+    int second = 0;
+    int fractionStart = -1;
+    int fractionEnd = -1;
+    if (pos < length && value.charAt(pos) == ':') {
+      second = pos + 3 <= length ? parseDigits(value, pos + 1, pos + 3) : -1;
+      pos += 3;
+      if (pos < length && value.charAt(pos) == '.') {
+        fractionStart = pos;
+        pos++;
+        while (pos < length && isDigit(value.charAt(pos))) {
+          pos++;
+        }
+        fractionEnd = pos;
+      }
+    }
+    int offsetMinutes = 0;
+    if (pos < length) {
+      final char sign = value.charAt(pos);
+      if (sign == 'Z' && pos + 1 == length) {
+        offsetMinutes = 0;
+      } else if ((sign == '+' || sign == '-') && pos + 6 == length && value.charAt(pos + 3) == ':') {
+        final int offsetHour = parseDigits(value, pos + 1, pos + 3);
+        final int offsetMinute = parseDigits(value, pos + 4, pos + 6);
+        if (offsetHour < 0 || offsetMinute < 0) {
+          throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+        }
+        offsetMinutes = (sign == '-' ? -1 : 1) * (offsetHour * 60 + offsetMinute);
+        if (offsetMinutes != 0 && (offsetHour > 23 || offsetMinute > 59)) {
+          throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+        }
+      } else {
+        throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+      }
+    }
+    if (month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
-    dateTimeValue.clear();
 
-    dateTimeValue.set(
-        Short.parseShort(matcher.group(1)),
-        Byte.parseByte(matcher.group(2)) - 1, // month is zero-based
-        Byte.parseByte(matcher.group(3)),
-        Byte.parseByte(matcher.group(4)),
-        Byte.parseByte(matcher.group(5)),
-        matcher.group(6) == null ? 0 : Byte.parseByte(matcher.group(6)));
-
-    int nanoSeconds = 0;
-    if (matcher.group(7) != null) {
-      if (matcher.group(7).length() == 1 || matcher.group(7).length() > 13) {
+    final boolean isNano = returnType.isAssignableFrom(Timestamp.class);
+    final int fractionalSeconds = fractionStart < 0 ? 0 :
+        parseFractionalSeconds(value, fractionStart, fractionEnd, precision, isNano, returnType);
+
+    if ((returnType == Timestamp.class || returnType == Long.class || returnType == Date.class)
+        && year >= 1583 && year <= 9999) {
+      // Compute the point in time directly, without Calendar.
+      if (month < 1 || month > 12 || day < 1 || day > getDaysInMonth(year, month)
+          || hour > 23 || minute > 59 || second > 59) {
         throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
       }
-      final String decimals = matcher.group(8);
-      if (decimals.length() > (precision == null ? 0 : precision)) {
-        throw new EdmPrimitiveTypeException("The literal '" + value + "' does not match the facets' constraints.");
-      }
-      if (returnType.isAssignableFrom(Timestamp.class)) {
-        if (decimals.length() <= 9) {
-          nanoSeconds = Integer.parseInt(decimals + "000000000".substring(decimals.length()));
-        } else {
-          throw new EdmPrimitiveTypeException("The literal '" + value
-              + "' cannot be converted to value type " + returnType + ".");
-        }
+      final long millis = ((getDaysFromEpoch(year, month, day) * 24 + hour) * 60 + minute - offsetMinutes)
+          * 60000L + second * 1000L;
+      if (returnType == Timestamp.class) {
+        final Timestamp timestamp = new Timestamp(millis);
+        timestamp.setNanos(fractionalSeconds);
+        return returnType.cast(timestamp);
+      } else if (returnType == Long.class) {
+        return returnType.cast(millis + (isNano ? 0 : fractionalSeconds));
       } else {
-        if (decimals.length() <= 3) {
-          final String milliSeconds = decimals + "000".substring(decimals.length());
-          dateTimeValue.set(Calendar.MILLISECOND, Short.parseShort(milliSeconds));
-        } else {
-          throw new EdmPrimitiveTypeException("The literal '" + value
-              + "' cannot be converted to value type " + returnType + ".");
-        }
+        return returnType.cast(new Date(millis));
       }
     }
 
+    final Calendar dateTimeValue = Calendar.getInstance(getTimeZone(offsetMinutes));
+    dateTimeValue.clear();
+    dateTimeValue.set(year, month - 1, day, hour, minute, second); // month is zero-based
+    if (!isNano) {
+      dateTimeValue.set(Calendar.MILLISECOND, fractionalSeconds);
+    }
+
     try {
-      return convertDateTime(dateTimeValue, nanoSeconds, returnType);
+      return convertDateTime(dateTimeValue, isNano ? fractionalSeconds : 0, returnType);
     } catch (final IllegalArgumentException e) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.", e);
     } catch (final ClassCastException e) {
@@ -111,6 +152,99 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
     }
   }
 
+  /**
+   * Gets a copy of the time zone with the given fixed offset; the zones are created only once.
+   */
+  private static TimeZone getTimeZone(final int offsetMinutes) {
+    TimeZone timeZone = TIME_ZONES.get(offsetMinutes);
+    if (timeZone == null) {
+      final StringBuilder id = new StringBuilder("GMT");
+      if (offsetMinutes != 0) {
+        appendOffset(id, offsetMinutes);
+      }
+      timeZone = TimeZone.getTimeZone(id.toString());
+      TIME_ZONES.putIfAbsent(offsetMinutes, timeZone);
+    }
+    return (TimeZone) timeZone.clone();
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Parses the decimal digits between the given positions, performance-optimized.
+   * @param value the literal
+   * @param start first position
+   * @param end position after the last digit
+   * @return the value, or -1 if there is a character that is not a digit
+   */
+  protected static int parseDigits(final String value, final int start, final int end) {
+    int result = 0;
+    for (int i = start; i < end; i++) {
+      final char c = value.charAt(i);
+      if (!isDigit(c)) {
+        return -1;
+      }
+      result = result * 10 + (c - '0');
+    }
+    return result;
+  }
+
+  /**
+   * Parses fractional seconds.
+   * @param value the literal
+   * @param start position of the decimal point
+   * @param end position after the last digit
+   * @param precision the upper limit for significant decimal digits (optional, defaults to zero)
+   * @param isNano whether nanoseconds are requested (milliseconds if false)
+   * @param returnType the class of the value to be returned, for the error message
+   * @return the nano- or milliseconds
+   * @throws EdmPrimitiveTypeException if the literal is not valid or does not fit
+   */
+  protected static int parseFractionalSeconds(final String value, final int start, final int end,
+      final Integer precision, final boolean isNano, final Class<?> returnType) throws EdmPrimitiveTypeException {
+    if (end - start == 1 || end - start > 13) {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+    }
+    int significantEnd = end;
+    while (significantEnd > start + 1 && value.charAt(significantEnd - 1) == '0') {
+      significantEnd--;
+    }
+    final int digits = significantEnd - start - 1;
+    if (digits > (precision == null ? 0 : precision)) {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' does not match the facets' constraints.");
+    }
+    final int maxDigits = isNano ? 9 : 3;
+    if (digits > maxDigits) {
+      throw new EdmPrimitiveTypeException("The literal '" + value
+          + "' cannot be converted to value type " + returnType + ".");
+    }
+    int result = parseDigits(value, start + 1, significantEnd);
+    for (int i = digits; i < maxDigits; i++) {
+      result *= 10;
+    }
+    return result;
+  }
+
+  private static boolean isLeapYear(final int year) {
+    return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  private static int getDaysInMonth(final int year, final int month) {
+    return month == 2 ? isLeapYear(year) ? 29 : 28 : month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /** Days since 1970-01-01 in the proleptic Gregorian calendar; valid for positive years. */
+  private static long getDaysFromEpoch(final int year, final int month, final int day) {
+    final int y = month <= 2 ? year - 1 : year;
+    final int era = y / 400;
+    final int yearOfEra = y - era * 400;
+    final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
   /**
    * <p>Converts a {@link Calendar} value into the requested return type if possible.</p>
    * <p>It is expected that the {@link Calendar} value will already be in the desired time zone.</p>
@@ -170,6 +304,13 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode) throws EdmPrimitiveTypeException {
 
+    if (value instanceof Date || value instanceof Long) {
+      final long millis = value instanceof Date ? ((Date) value).getTime() : (Long) value;
+      if (millis >= GREGORIAN_START && millis < YEAR_10000) {
+        return formatUtc(value, millis, precision);
+      }
+    }
+
     final Calendar dateTimeValue = createDateTime(value, false);
 
     StringBuilder result = new StringBuilder();
@@ -198,14 +339,71 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
 
     final int offsetInMinutes = (dateTimeValue.get(Calendar.ZONE_OFFSET)
         + dateTimeValue.get(Calendar.DST_OFFSET)) / 60 / 1000;
-    final int offsetHours = offsetInMinutes / 60;
-    final int offsetMinutes = Math.abs(offsetInMinutes % 60);
-    final String offsetString = offsetInMinutes == 0 ? "Z" : String.format("%+03d:%02d", offsetHours, offsetMinutes);
-    result.append(offsetString);
+    if (offsetInMinutes == 0) {
+      result.append('Z');
+    } else {
+      appendOffset(result, offsetInMinutes);
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Formats a point in time in UTC without Calendar; the caller has to ensure that the year is
+   * between 1583 and 9999, where the result is the same as with {@link java.util.GregorianCalendar}.
+   */
+  private static <T> String formatUtc(final T value, final long millis, final Integer precision)
+      throws EdmPrimitiveTypeException {
+    final long seconds = millis >= 0 ? millis / 1000 : (millis - 999) / 1000;
+    final long days = seconds >= 0 ? seconds / 86400 : (seconds - 86399) / 86400;
+    final int secondOfDay = (int) (seconds - days * 86400);
+
+    // civil date from days since 1970-01-01, proleptic Gregorian calendar
+    final long shifted = days + 719468;
+    final long era = shifted / 146097;
+    final int dayOfEra = (int) (shifted - era * 146097);
+    final int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    final int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    final int mp = (5 * dayOfYear + 2) / 153;
+    final int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+    final int month = mp < 10 ? mp + 3 : mp - 9;
+    final int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+    final StringBuilder result = new StringBuilder(30);
+    appendTwoDigits(result, year / 100);
+    appendTwoDigits(result, year % 100);
+    result.append('-');
+    appendTwoDigits(result, month);
+    result.append('-');
+    appendTwoDigits(result, day);
+    result.append('T');
+    appendTwoDigits(result, secondOfDay / 3600);
+    result.append(':');
+    appendTwoDigits(result, secondOfDay / 60 % 60);
+    result.append(':');
+    appendTwoDigits(result, secondOfDay % 60);
+
+    final int fractionalSecs = value instanceof Timestamp ?
+        ((Timestamp) value).getNanos() :
+        (int) (millis - seconds * 1000);
+    try {
+      appendFractionalSeconds(result, fractionalSecs, value instanceof Timestamp, precision);
+    } catch (final IllegalArgumentException e) {
+      throw new EdmPrimitiveTypeException("The value '" + value + "' does not match the facets' constraints.", e);
+    }
+    result.append('Z');
 
     return result.toString();
   }
 
+  /** Appends a time-zone offset as "+hh:mm" or "-hh:mm". */
+  private static void appendOffset(final StringBuilder result, final int offsetInMinutes) {
+    result.append(offsetInMinutes < 0 ? '-' : '+');
+    appendTwoDigits(result, Math.abs(offsetInMinutes) / 60);
+    result.append(':');
+    appendTwoDigits(result, Math.abs(offsetInMinutes) % 60);
+  }
+
   /**
    * Creates a date/time value from the given value.
    *
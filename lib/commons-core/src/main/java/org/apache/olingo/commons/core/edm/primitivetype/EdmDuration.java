@@ -20,17 +20,11 @@ package org.apache.olingo.commons.core.edm.primitivetype;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
 public class EdmDuration extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "[-+]?P(?:(\\p{Digit}+)D)?(?:T(?:(\\p{Digit}+)H)?(?:(\\p{Digit}+)M)?"
-          + "(?:(\\p{Digit}+(?:\\.(?:\\p{Digit}+?)0*)?)S)?)?");
-
   private static final EdmDuration INSTANCE = new EdmDuration();
 
   {
@@ -52,20 +46,54 @@ public class EdmDuration extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode, final Class<T> returnType) throws EdmPrimitiveTypeException {
 
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()
-        || matcher.group(1) == null && matcher.group(2) == null && matcher.group(3) == null
-        && matcher.group(4) == null) {
+    // Parse "[-+]P[nD][T[nH][nM][n[.n]S]]" without regular expressions.
+    final int length = value.length();
+    int pos = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+    if (pos >= length || value.charAt(pos) != 'P') {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+    }
+    pos++;
+    String days = null;
+    String hours = null;
+    String minutes = null;
+    String seconds = null;
+    int end = skipDigits(value, pos);
+    if (end > pos && end < length && value.charAt(end) == 'D') {
+      days = value.substring(pos, end);
+      pos = end + 1;
+    }
+    if (pos < length && value.charAt(pos) == 'T') {
+      pos++;
+      end = skipDigits(value, pos);
+      if (end > pos && end < length && value.charAt(end) == 'H') {
+        hours = value.substring(pos, end);
+        pos = end + 1;
+        end = skipDigits(value, pos);
+      }
+      if (end > pos && end < length && value.charAt(end) == 'M') {
+        minutes = value.substring(pos, end);
+        pos = end + 1;
+        end = skipDigits(value, pos);
+      }
+      if (end > pos && end < length && value.charAt(end) == '.' && skipDigits(value, end + 1) > end + 1) {
+        end = skipDigits(value, end + 1);
+      }
+      if (end > pos && end < length && value.charAt(end) == 'S') {
+        seconds = value.substring(pos, end);
+        pos = end + 1;
+      }
+    }
+    if (pos != length || days == null && hours == null && minutes == null && seconds == null) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
 
-    BigDecimal result = (matcher.group(1) == null ? BigDecimal.ZERO
-        : new BigDecimal(matcher.group(1)).multiply(BigDecimal.valueOf(24 * 60 * 60))).
-        add(matcher.group(2) == null ? BigDecimal.ZERO
-            : new BigDecimal(matcher.group(2)).multiply(BigDecimal.valueOf(60 * 60))).
-            add(matcher.group(3) == null ? BigDecimal.ZERO
-                : new BigDecimal(matcher.group(3)).multiply(BigDecimal.valueOf(60))).
-                add(matcher.group(4) == null ? BigDecimal.ZERO : new BigDecimal(matcher.group(4)));
+    BigDecimal result = (days == null ? BigDecimal.ZERO
+        : new BigDecimal(days).multiply(BigDecimal.valueOf(24 * 60 * 60))).
+        add(hours == null ? BigDecimal.ZERO
+            : new BigDecimal(hours).multiply(BigDecimal.valueOf(60 * 60))).
+            add(minutes == null ? BigDecimal.ZERO
+                : new BigDecimal(minutes).multiply(BigDecimal.valueOf(60))).
+                add(seconds == null ? BigDecimal.ZERO : new BigDecimal(seconds));
 
     if (result.scale() <= (precision == null ? 0 : precision)) {
       result = value.charAt(0) == '-' ? result.negate() : result;
@@ -83,6 +111,14 @@ public class EdmDuration extends SingletonPrimitiveType {
     }
   }
 
+  private static int skipDigits(final String value, final int start) {
+    int pos = start;
+    while (pos < value.length() && value.charAt(pos) >= '0' && value.charAt(pos) <= '9') {
+      pos++;
+    }
+    return pos;
+  }
+
   @Override
   protected <T> String internalValueToString(final T value,
       final Boolean isNullable, final Integer maxLength, final Integer precision,
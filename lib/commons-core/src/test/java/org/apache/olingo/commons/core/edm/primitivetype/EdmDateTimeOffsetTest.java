@@ -62,6 +62,10 @@ public class EdmDateTimeOffsetTest extends PrimitiveTypeBaseTest {
     dateTime.setTimeZone(TimeZone.getTimeZone("GMT+11:00"));
     assertEquals("2012-02-29T01:02:03+11:00", instance.valueToString(dateTime, null, null, null, null, null));
 
+    dateTime.setTimeZone(TimeZone.getTimeZone("GMT-0:30"));
+    assertEquals("2012-02-29T01:02:03-00:30", instance.valueToString(dateTime, null, null, null, null, null));
+
+    dateTime.setTimeZone(TimeZone.getTimeZone("GMT+11:00"));
     dateTime.set(Calendar.MILLISECOND, 503);
     assertEquals("2012-02-29T01:02:03.503+11:00", instance.valueToString(dateTime, null, null, 3, null, null));
 
@@ -82,6 +86,8 @@ public class EdmDateTimeOffsetTest extends PrimitiveTypeBaseTest {
 
     final Date date = new Date(millis);
     assertEquals("2012-02-29T23:32:03.007Z", instance.valueToString(date, null, null, 3, null, null));
+    assertEquals("1400-03-01T00:00:00Z", instance.valueToString(-17981568000000L, null, null, null, null, null));
+    assertEquals("9999-12-31T23:59:59Z", instance.valueToString(253402300799000L, null, null, null, null, null));
 
     Timestamp timestamp = new Timestamp(0);
     timestamp.setNanos(120);
@@ -132,6 +138,13 @@ public class EdmDateTimeOffsetTest extends PrimitiveTypeBaseTest {
     assertEquals(Long.valueOf(120L), instance.valueOfString("1970-01-01T00:00:00.12", null, null, 2, null, null,
         Long.class));
 
+    assertEquals(Long.valueOf(-17981568000000L), instance.valueOfString("1400-03-01T00:00:00Z", null, null, null,
+        null, null, Long.class));
+    assertEquals(Long.valueOf(253402300799000L), instance.valueOfString("9999-12-31T23:59:59Z", null, null, null,
+        null, null, Long.class));
+    assertEquals(Long.valueOf(1800000L), instance.valueOfString("1970-01-01T00:00:00-00:30", null, null, null,
+        null, null, Long.class));
+
     assertEquals(new Time(120000L), instance.valueOfString("1970-01-01T00:02", null, null, null, null, null,
         Time.class));
     // java.sql.Time does not keep track of milliseconds.
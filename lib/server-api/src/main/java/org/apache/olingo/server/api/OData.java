@@ -27,13 +27,19 @@ import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.async.AsyncSupportOptions;
 import org.apache.olingo.server.api.debug.DebugResponseHelper;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.crossjoin.CrossjoinExecutor;
+import org.apache.olingo.server.api.expand.NavigationExpander;
+import org.apache.olingo.server.api.expand.NavigationLoader;
 import org.apache.olingo.server.api.prefer.Preferences;
+import org.apache.olingo.server.api.search.SearchIndex;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
@@ -184,4 +190,34 @@ public abstract class OData {
    */
   public abstract EdmAssistedSerializer createEdmAssistedSerializer(final ContentType contentType)
       throws SerializerException;
+
+  /**
+   * Creates the support for asynchronous request processing.
+   * The created object holds the asynchronous jobs so it has to be kept over several requests
+   * and registered at every handler.
+   * @param options the options for the asynchronous processing
+   * @return the async support
+   */
+  public abstract AsyncSupport createAsyncSupport(AsyncSupportOptions options);
+
+  /**
+   * Creates a new, empty full-text index for the <code>$search</code> system query option.
+   * One index is needed per entity set; it has to be kept up-to-date by the processors.
+   * @return the search index
+   */
+  public abstract SearchIndex createSearchIndex();
+
+  /**
+   * Creates a helper that resolves <code>$expand</code> by loading the related entities
+   * of all entities of an expand level with a single call of the given loader.
+   * @param loader the application's batch loader
+   * @return the expander
+   */
+  public abstract NavigationExpander createNavigationExpander(NavigationLoader loader);
+
+  /**
+   * Creates an executor for <code>$crossjoin</code> requests that joins entity sets by means of hash tables.
+   * @return the crossjoin executor
+   */
+  public abstract CrossjoinExecutor createCrossjoinExecutor();
 }
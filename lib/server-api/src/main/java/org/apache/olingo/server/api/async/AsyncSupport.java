@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.async;
+
+import org.apache.olingo.server.api.OlingoExtension;
+
+/**
+ * <p>Support for asynchronous processing of requests carrying a <code>Prefer: respond-async</code> header.</p>
+ * <p>If registered at the ODataHandler such requests are answered immediately with
+ * <code>202 Accepted</code> and a <code>Location</code> header pointing to a status-monitor resource.
+ * The request itself is processed by a background job. The client polls the status monitor with GET
+ * until the result is available and can cancel the job with DELETE.</p>
+ * <p>Because the jobs must outlive a single request, an instance is created once with
+ * {@link org.apache.olingo.server.api.OData#createAsyncSupport(AsyncSupportOptions)},
+ * kept by the application (e.g., in the servlet), and registered at every new handler.
+ * It has to be shut down with {@link #shutdown()} when the service is stopped.</p>
+ */
+public interface AsyncSupport extends OlingoExtension {
+
+  /**
+   * Gets the number of jobs currently held, i.e., running jobs and jobs
+   * whose result has not yet been fetched and has not yet expired.
+   * @return the number of jobs
+   */
+  int getJobCount();
+
+  /**
+   * Cancels the job with the given id and releases its resources.
+   * @param jobId the id of the job, i.e., the last segment of its status-monitor URL
+   * @return <code>true</code> if the job has been found, <code>false</code> otherwise
+   */
+  boolean cancel(String jobId);
+
+  /**
+   * Removes all jobs whose result has not been fetched within the configured time to live.
+   * This is done automatically whenever jobs are added or looked up;
+   * applications can call it additionally, e.g., from a timer.
+   */
+  void evictExpired();
+
+  /**
+   * Cancels all jobs, deletes their spooled results, and shuts down the job executor
+   * if it has not been provided by the application.
+   */
+  void shutdown();
+}
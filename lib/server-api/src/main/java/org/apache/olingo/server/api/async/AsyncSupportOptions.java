@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.async;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/** Options for the asynchronous request processing. */
+public class AsyncSupportOptions {
+  /** Default value of the status-monitor path segment. */
+  public static final String DEFAULT_STATUS_MONITOR_SEGMENT = "$async";
+
+  private ExecutorService executor;
+  private int maxJobs = 100;
+  private long timeToLive = TimeUnit.MINUTES.toMillis(10);
+  private long spoolThreshold = 1024 * 1024;
+  private File spoolDirectory;
+  private int retryAfter = 1;
+  private String statusMonitorSegment = DEFAULT_STATUS_MONITOR_SEGMENT;
+
+  /**
+   * Gets the executor the jobs are run with;
+   * if <code>null</code> a fixed-size thread pool is created and owned by the async support.
+   */
+  public ExecutorService getExecutor() {
+    return executor;
+  }
+
+  /** Gets the maximum number of jobs held at the same time. */
+  public int getMaxJobs() {
+    return maxJobs;
+  }
+
+  /** Gets the time in milliseconds a finished job is kept before it is evicted. */
+  public long getTimeToLive() {
+    return timeToLive;
+  }
+
+  /** Gets the size in bytes above which a job result is spooled to disk instead of being kept in memory. */
+  public long getSpoolThreshold() {
+    return spoolThreshold;
+  }
+
+  /** Gets the directory for spooled job results; if <code>null</code> the default temporary directory is used. */
+  public File getSpoolDirectory() {
+    return spoolDirectory;
+  }
+
+  /** Gets the number of seconds sent as <code>Retry-After</code> header while a job is running. */
+  public int getRetryAfter() {
+    return retryAfter;
+  }
+
+  /** Gets the path segment (directly after the service root) under which the status monitors are served. */
+  public String getStatusMonitorSegment() {
+    return statusMonitorSegment;
+  }
+
+  private AsyncSupportOptions() {}
+
+  /** Initializes the options builder. */
+  public static Builder with() {
+    return new Builder();
+  }
+
+  /** Builder of async-support options. */
+  public static final class Builder {
+
+    private final AsyncSupportOptions options;
+
+    private Builder() {
+      options = new AsyncSupportOptions();
+    }
+
+    /** Sets the executor the jobs are run with; the caller remains responsible for shutting it down. */
+    public Builder executor(final ExecutorService executor) {
+      options.executor = executor;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of jobs held at the same time.
+     * If this number is reached, requests are processed synchronously.
+     */
+    public Builder maxJobs(final int maxJobs) {
+      options.maxJobs = maxJobs;
+      return this;
+    }
+
+    /** Sets the time a finished job is kept before it is evicted. */
+    public Builder timeToLive(final long duration, final TimeUnit unit) {
+      options.timeToLive = unit.toMillis(duration);
+      return this;
+    }
+
+    /** Sets the size in bytes above which a job result is spooled to disk. */
+    public Builder spoolThreshold(final long spoolThreshold) {
+      options.spoolThreshold = spoolThreshold;
+      return this;
+    }
+
+    /** Sets the directory for spooled job results. */
+    public Builder spoolDirectory(final File spoolDirectory) {
+      options.spoolDirectory = spoolDirectory;
+      return this;
+    }
+
+    /** Sets the number of seconds sent as <code>Retry-After</code> header while a job is running. */
+    public Builder retryAfter(final int retryAfter) {
+      options.retryAfter = retryAfter;
+      return this;
+    }
+
+    /** Sets the path segment under which the status monitors are served. */
+    public Builder statusMonitorSegment(final String statusMonitorSegment) {
+      options.statusMonitorSegment = statusMonitorSegment;
+      return this;
+    }
+
+    /** Builds the async-support options. */
+    public AsyncSupportOptions build() {
+      return options;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.crossjoin;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+
+/**
+ * Evaluates a <code>$crossjoin</code> request over in-memory entity sets.
+ * <p>
+ * Equality comparisons of properties of two different entity sets that are combined with <code>and</code>
+ * at the top level of <code>$filter</code> are executed as hash joins: all entity sets but the largest one are
+ * indexed by their join keys and the largest one is streamed. Conditions on a single entity set are applied
+ * before joining; all remaining conditions are evaluated on the joined rows.
+ * <p>
+ * Each result row is an {@link org.apache.olingo.commons.api.data.Entity Entity} without type and properties;
+ * it has one navigation link per entity set, titled with the entity-set name, with the joined entity
+ * as inline entity.
+ */
+public interface CrossjoinExecutor {
+
+  /**
+   * Joins the given entity sets.
+   * @param entitySetNames the names of the entity sets in the order of the request
+   * @param filter the <code>$filter</code> option of the request; may be <code>null</code>
+   * @param entitySets the content of each entity set, by name; an
+   * {@link org.apache.olingo.commons.api.data.EntityCollection EntityCollection} is never streamed unless it is
+   * the largest one
+   * @return the rows, computed lazily while iterating
+   * @throws ODataApplicationException if data for an entity set is missing (400) or the filter uses
+   * expressions that are not supported (501)
+   */
+  EntityIterator execute(List<String> entitySetNames, FilterOption filter,
+      Map<String, ? extends AbstractEntityCollection> entitySets) throws ODataApplicationException;
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.expand;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+
+/**
+ * Resolves the <code>$expand</code> system query option with a {@link NavigationLoader}.
+ * <p>
+ * The source entities are grouped per navigation property and expand level, so the loader is called
+ * once per group instead of once per entity. The loaded entities are set as inline content of the
+ * navigation links of the source entities, ready for serialization. <code>$levels</code> is supported;
+ * all other options of the expand items are left to the application.
+ */
+public interface NavigationExpander {
+
+  /**
+   * Expands the navigation properties of all entities of a collection.
+   * @param entities the entities
+   * @param entityType the type of the entities
+   * @param expandOption the expand option; may be <code>null</code>
+   * @throws ODataApplicationException if the loader fails or the option cannot be applied
+   */
+  void expand(EntityCollection entities, EdmEntityType entityType, ExpandOption expandOption)
+      throws ODataApplicationException;
+
+  /**
+   * Expands the navigation properties of a single entity.
+   * @param entity the entity
+   * @param entityType the type of the entity
+   * @param expandOption the expand option; may be <code>null</code>
+   * @throws ODataApplicationException if the loader fails or the option cannot be applied
+   */
+  void expand(Entity entity, EdmEntityType entityType, ExpandOption expandOption) throws ODataApplicationException;
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.expand;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Loads the targets of a navigation property for many source entities at once.
+ * Implemented by the application, e.g. with one <code>IN</code> query per call.
+ * @see NavigationExpander
+ */
+public interface NavigationLoader {
+
+  /**
+   * Loads the related entities of all given source entities.
+   * @param navigationProperty the navigation property to follow
+   * @param sources the source entities; each entity is contained only once
+   * @return one collection per source entity, in the order of <code>sources</code>;
+   * for a single-valued navigation property the collection contains at most one entity.
+   * A <code>null</code> element is treated as an empty collection.
+   * @throws ODataApplicationException if the related entities cannot be loaded
+   */
+  List<EntityCollection> loadNavigation(EdmNavigationProperty navigationProperty, List<Entity> sources)
+      throws ODataApplicationException;
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.search;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.SearchOption;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchExpression;
+
+/**
+ * Inverted full-text index over the entities of one entity set.
+ * <p>
+ * The values of all primitive properties, including those nested in complex properties, are split into
+ * case-insensitive words; a search term matches an entity if the entity contains all words of the term.
+ * Entities are identified by object identity, so an entity has to be indexed again whenever its properties change.
+ * The index is safe for concurrent use.
+ */
+public interface SearchIndex {
+
+  /**
+   * Adds an entity to the index, or updates the index entries of an already indexed entity.
+   * @param entity the entity
+   */
+  void index(Entity entity);
+
+  /**
+   * Removes an entity from the index.
+   * @param entity the entity
+   */
+  void remove(Entity entity);
+
+  /**
+   * Removes all entities from the index.
+   */
+  void clear();
+
+  /**
+   * Gets the number of indexed entities.
+   * @return the number of entities
+   */
+  int size();
+
+  /**
+   * Gets all indexed entities matching the given search expression, in the order they have been indexed first.
+   * @param expression the search expression
+   * @return the matching entities
+   * @throws ODataApplicationException if the expression contains unknown elements
+   */
+  List<Entity> search(SearchExpression expression) throws ODataApplicationException;
+
+  /**
+   * Removes all entities from the given collection not matching the given search option.
+   * Entities of the collection that have not been indexed are removed, too.
+   * @param searchOption the search option; if <code>null</code> the collection is not changed
+   * @param entityCollection the entity collection
+   * @throws ODataApplicationException if the expression contains unknown elements
+   */
+  void applySearchOption(SearchOption searchOption, EntityCollection entityCollection)
+      throws ODataApplicationException;
+}
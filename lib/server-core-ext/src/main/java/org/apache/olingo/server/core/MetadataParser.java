@@ -18,15 +18,26 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
@@ -101,6 +112,8 @@ public class MetadataParser {
   private boolean useLocalCoreVocabularies = true;
   private boolean implicitlyLoadCoreVocabularies = false;
   private boolean recusivelyLoadReferences = false;
+  private File snapshotDirectory = null;
+  private ExecutorService referenceExecutor = null;
   
   /**
    * Avoid reading the annotations in the $metadata 
@@ -142,6 +155,18 @@ public class MetadataParser {
     return this;
   }  
   
+  /**
+   * Resolve and parse the referenced documents concurrently on the given executor. Every
+   * referenced document is loaded only once, no matter how many documents refer to it.
+   * The executor is not shut down by the parser.
+   * @param executor executor to use; null to load the references in the calling thread
+   * @return
+   */
+  public MetadataParser referenceExecutor(ExecutorService executor) {
+    this.referenceExecutor = executor;
+    return this;
+  }
+  
   /**
    * Load the core vocabularies, irrespective of if they are defined in the $metadata
    * @param load
@@ -152,19 +177,64 @@ public class MetadataParser {
     return this;
   }
   
+  /**
+   * Keep a binary snapshot of the parsed model, including all loaded references, in the given
+   * directory. As long as the metadata document and the referenced documents are unchanged, the
+   * model is loaded from the snapshot instead of being parsed again.
+   * @param directory snapshot directory; null to disable snapshots
+   * @return
+   */
+  public MetadataParser snapshotDirectory(File directory) {
+    this.snapshotDirectory = directory;
+    return this;
+  }
+  
   public ServiceMetadata buildServiceMetadata(Reader csdl) throws XMLStreamException {
-    SchemaBasedEdmProvider provider = buildEdmProvider(csdl, this.referenceResolver,
-        this.implicitlyLoadCoreVocabularies, this.useLocalCoreVocabularies, true);
+    SchemaBasedEdmProvider provider = buildEdmProvider(csdl);
     return new ServiceMetadataImpl(provider, provider.getReferences(), null);
   }
 
   public SchemaBasedEdmProvider buildEdmProvider(Reader csdl) throws XMLStreamException {
+    if (this.snapshotDirectory != null) {
+      return buildEdmProviderWithSnapshot(csdl);
+    }
     XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
     XMLEventReader reader = xmlInputFactory.createXMLEventReader(csdl);    
     return buildEdmProvider(reader, this.referenceResolver,
         this.implicitlyLoadCoreVocabularies, this.useLocalCoreVocabularies, true);
   }
   
+  private SchemaBasedEdmProvider buildEdmProviderWithSnapshot(Reader csdl) throws XMLStreamException {
+    StringBuilder sb = new StringBuilder();
+    char[] buffer = new char[8192];
+    try {
+      int read;
+      while ((read = csdl.read(buffer)) != -1) {
+        sb.append(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+    String document = sb.toString();
+    
+    String options = this.parseAnnotations + "|" + this.implicitlyLoadCoreVocabularies + "|"
+        + this.useLocalCoreVocabularies + "|" + this.recusivelyLoadReferences;
+    File file = MetadataSnapshot.getFile(this.snapshotDirectory, document, options);
+    MetadataSnapshot snapshot = MetadataSnapshot.read(file);
+    if (snapshot != null && snapshot.isUpToDate(this.referenceResolver)) {
+      return snapshot.getProvider();
+    }
+    
+    // record all the documents loaded through the resolver, to validate the snapshot next time
+    MetadataSnapshot.RecordingReferenceResolver recorder = this.referenceResolver == null ? null
+        : new MetadataSnapshot.RecordingReferenceResolver(this.referenceResolver);
+    SchemaBasedEdmProvider provider = buildEdmProvider(new StringReader(document), recorder,
+        this.implicitlyLoadCoreVocabularies, this.useLocalCoreVocabularies, true);
+    new MetadataSnapshot(provider, recorder == null ? new ArrayList<MetadataSnapshot.ResolvedReference>()
+        : recorder.getReferences()).write(file);
+    return provider;
+  }
+  
   protected SchemaBasedEdmProvider buildEdmProvider(Reader csdl,
       ReferenceResolver resolver, boolean loadCore, boolean useLocal, boolean loadReferenceSchemas)
       throws XMLStreamException {
@@ -184,9 +254,27 @@ public class MetadataParser {
   protected SchemaBasedEdmProvider buildEdmProvider(XMLEventReader reader,
       ReferenceResolver resolver, boolean loadCore, boolean useLocal, boolean loadReferenceSchemas)
       throws XMLStreamException {
-    SchemaBasedEdmProvider provider = new SchemaBasedEdmProvider();
-    
     final StringBuilder xmlBase = new StringBuilder();
+    SchemaBasedEdmProvider provider = readEdmx(reader, xmlBase);
+    
+    //load core vocabularies even though they are not defined in the references
+    if (loadCore) {
+      loadCoreVocabulary(provider, "Org.OData.Core.V1");
+      loadCoreVocabulary(provider, "Org.OData.Capabilities.V1");
+      loadCoreVocabulary(provider, "Org.OData.Measures.V1");
+    }
+    
+    // load all the reference schemas
+    if (resolver != null && loadReferenceSchemas) {
+      new ReferenceLoader(resolver, useLocal).load(provider, 
+          xmlBase.length() == 0 ? null : fixXmlBase(xmlBase.toString()));
+    }
+    return provider;
+  }
+  
+  private SchemaBasedEdmProvider readEdmx(XMLEventReader reader, final StringBuilder xmlBase)
+      throws XMLStreamException {
+    SchemaBasedEdmProvider provider = new SchemaBasedEdmProvider();
     
     new ElementReader<SchemaBasedEdmProvider>() {
       @Override
@@ -213,66 +301,7 @@ public class MetadataParser {
                   event.asStartElement().getName().getLocalPart() : 
                   event.asEndElement().getName().getLocalPart()));
     }
-    
-    //load core vocabularies even though they are not defined in the references
-    if (loadCore) {
-      loadCoreVocabulary(provider, "Org.OData.Core.V1");
-      loadCoreVocabulary(provider, "Org.OData.Capabilities.V1");
-      loadCoreVocabulary(provider, "Org.OData.Measures.V1");
-    }
-    
-    // load all the reference schemas
-    if (resolver != null && loadReferenceSchemas) {
-      loadReferencesSchemas(provider, xmlBase.length() == 0 ? null
-          : fixXmlBase(xmlBase.toString()), resolver, loadCore, useLocal);
-    }
     return provider;
-  }  
-  
-  private void loadReferencesSchemas(SchemaBasedEdmProvider provider,
-      String xmlBase, ReferenceResolver resolver, boolean loadCore,
-      boolean useLocal) {    
-
-    for (EdmxReference reference:provider.getReferences()) {
-      try {
-        SchemaBasedEdmProvider refProvider = null;
-
-        for (EdmxReferenceInclude include : reference.getIncludes()) {
-
-          // check if the schema is already loaded before.
-          if (provider.getSchema(include.getNamespace()) != null) {
-            continue;
-          }
-          
-          if (isCoreVocabulary(include.getNamespace()) && useLocal) {
-            loadCoreVocabulary(provider, include.getNamespace());
-            continue;
-          }
-                    
-          if (refProvider == null) {
-            InputStream is = this.referenceResolver.resolveReference(reference.getUri(), xmlBase);
-            if (is == null) {
-              throw new EdmException("Failed to load Reference "+reference.getUri()+" loading failed");
-            } else {
-              // do not implicitly load core vocabularies any more. But if the
-              // references loading the core vocabularies try to use local if we can 
-              refProvider = buildEdmProvider(is, resolver, false, useLocal, this.recusivelyLoadReferences);
-            }
-          }
-          
-          if (refProvider != null) {
-            CsdlSchema refSchema = refProvider.getSchema(include.getNamespace(), false);
-            provider.addReferenceSchema(include.getNamespace(), refProvider);
-            if (include.getAlias() != null) {
-              refSchema.setAlias(include.getAlias());
-              provider.addReferenceSchema(include.getAlias(), refProvider);
-            }
-          }
-        }
-      } catch (XMLStreamException e) {
-        throw new EdmException("Failed to load Reference "+reference.getUri()+" parsing failed");
-      }
-    }
   }
   
   private void loadCoreVocabulary(SchemaBasedEdmProvider provider,
@@ -1237,6 +1266,164 @@ public class MetadataParser {
         throws XMLStreamException;
   }
   
+  /**
+   * Loads the references of a document. All referenced documents (and, if requested, their references)
+   * are resolved and parsed first, each one exactly once and concurrently if an executor has been
+   * configured; the reference schemas are wired into the providers afterwards.
+   */
+  private class ReferenceLoader {
+    private final ReferenceResolver resolver;
+    private final boolean useLocal;
+    private final ConcurrentMap<String, LoadedDocument> documents = 
+        new ConcurrentHashMap<String, LoadedDocument>();
+    private final CompletionService<LoadedDocument> completionService;
+    private final AtomicInteger submitted = new AtomicInteger();
+    
+    ReferenceLoader(ReferenceResolver resolver, boolean useLocal) {
+      this.resolver = resolver;
+      this.useLocal = useLocal;
+      Executor executor = referenceExecutor;
+      if (executor == null) {
+        executor = new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            command.run();
+          }
+        };
+      }
+      this.completionService = new ExecutorCompletionService<LoadedDocument>(executor);
+    }
+    
+    void load(SchemaBasedEdmProvider provider, String xmlBase) {
+      submitReferences(provider, xmlBase);
+      
+      // the count only grows while there are running tasks, so this waits for the whole tree
+      int completed = 0;
+      while (completed < this.submitted.get()) {
+        try {
+          this.completionService.take().get();
+          completed++;
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new EdmException(e);
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          } else if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+          throw new EdmException((Exception) e.getCause());
+        }
+      }
+      
+      wireReferences(provider, xmlBase);
+      if (recusivelyLoadReferences) {
+        for (LoadedDocument document : this.documents.values()) {
+          wireReferences(document.provider, document.xmlBase);
+        }
+      }
+    }
+    
+    private void submitReferences(SchemaBasedEdmProvider provider, final String xmlBase) {
+      for (final EdmxReference reference : provider.getReferences()) {
+        if (!needsLoading(provider, reference)) {
+          continue;
+        }
+        final String key = documentKey(reference.getUri(), xmlBase);
+        if (this.documents.putIfAbsent(key, LoadedDocument.PENDING) == null) {
+          this.submitted.incrementAndGet();
+          this.completionService.submit(new Callable<LoadedDocument>() {
+            @Override
+            public LoadedDocument call() {
+              LoadedDocument document = loadDocument(reference, xmlBase);
+              documents.put(key, document);
+              if (recusivelyLoadReferences) {
+                submitReferences(document.provider, document.xmlBase);
+              }
+              return document;
+            }
+          });
+        }
+      }
+    }
+    
+    private boolean needsLoading(SchemaBasedEdmProvider provider, EdmxReference reference) {
+      for (EdmxReferenceInclude include : reference.getIncludes()) {
+        if (provider.getSchema(include.getNamespace(), false) == null 
+            && !(isCoreVocabulary(include.getNamespace()) && this.useLocal)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    
+    private LoadedDocument loadDocument(EdmxReference reference, String xmlBase) {
+      InputStream is = this.resolver.resolveReference(reference.getUri(), xmlBase);
+      if (is == null) {
+        throw new EdmException("Failed to load Reference "+reference.getUri()+" loading failed");
+      }
+      try {
+        XMLEventReader reader = XMLInputFactory.newInstance().createXMLEventReader(is);
+        StringBuilder documentBase = new StringBuilder();
+        SchemaBasedEdmProvider provider = readEdmx(reader, documentBase);
+        return new LoadedDocument(provider, 
+            documentBase.length() == 0 ? null : fixXmlBase(documentBase.toString()));
+      } catch (XMLStreamException e) {
+        throw new EdmException("Failed to load Reference "+reference.getUri()+" parsing failed");
+      } finally {
+        try {
+          is.close();
+        } catch (IOException e) {
+          // ignore
+        }
+      }
+    }
+    
+    private void wireReferences(SchemaBasedEdmProvider provider, String xmlBase) {
+      for (EdmxReference reference : provider.getReferences()) {
+        for (EdmxReferenceInclude include : reference.getIncludes()) {
+          // check if the schema is already loaded before.
+          if (provider.getSchema(include.getNamespace()) != null) {
+            continue;
+          }
+          
+          if (isCoreVocabulary(include.getNamespace()) && this.useLocal) {
+            try {
+              loadCoreVocabulary(provider, include.getNamespace());
+            } catch (XMLStreamException e) {
+              throw new EdmException("Failed to load Reference "+reference.getUri()+" parsing failed");
+            }
+            continue;
+          }
+          
+          LoadedDocument document = this.documents.get(documentKey(reference.getUri(), xmlBase));
+          CsdlSchema refSchema = document.provider.getSchema(include.getNamespace(), false);
+          provider.addReferenceSchema(include.getNamespace(), document.provider);
+          if (include.getAlias() != null) {
+            refSchema.setAlias(include.getAlias());
+            provider.addReferenceSchema(include.getAlias(), document.provider);
+          }
+        }
+      }
+    }
+    
+    private String documentKey(URI uri, String xmlBase) {
+      return uri.isAbsolute() || xmlBase == null ? uri.toString() : xmlBase + uri.toString();
+    }
+  }
+  
+  private static class LoadedDocument {
+    static final LoadedDocument PENDING = new LoadedDocument(null, null);
+    
+    final SchemaBasedEdmProvider provider;
+    final String xmlBase;
+    
+    LoadedDocument(SchemaBasedEdmProvider provider, String xmlBase) {
+      this.provider = provider;
+      this.xmlBase = xmlBase;
+    }
+  }
+  
   private static class DefaultReferenceResolver implements ReferenceResolver {
     @Override
     public InputStream resolveReference(URI referenceUri, String xmlBase) {
@@ -0,0 +1,414 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.olingo.commons.api.edm.EdmException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary snapshot of a {@link SchemaBasedEdmProvider} built by the {@link MetadataParser}, together with the digests
+ * of all the referenced documents that went into it.
+ * <br/>
+ * A snapshot file starts with the name and a digest of the serializable fields of every class stored in it,
+ * followed by the deflated object stream. A snapshot written by a library version whose model classes had other
+ * fields is therefore detected before deserialization and simply ignored, no matter whether the classes declare
+ * a <code>serialVersionUID</code>.
+ */
+final class MetadataSnapshot implements Serializable {
+  private static final long serialVersionUID = 7580633466526813447L;
+  private static final Logger LOG = LoggerFactory.getLogger(MetadataSnapshot.class);
+
+  // layout of the file written by writeFile; changes of the model classes are detected from their shapes
+  private static final int FORMAT_VERSION = 2;
+  private static final String SUFFIX = ".snapshot";
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final SchemaBasedEdmProvider provider;
+  private final List<ResolvedReference> references;
+
+  MetadataSnapshot(SchemaBasedEdmProvider provider, List<ResolvedReference> references) {
+    this.provider = provider;
+    this.references = references;
+  }
+
+  SchemaBasedEdmProvider getProvider() {
+    return this.provider;
+  }
+
+  /**
+   * Checks that every referenced document still resolves to the content the snapshot has been built from.
+   */
+  boolean isUpToDate(ReferenceResolver resolver) {
+    for (ResolvedReference reference : this.references) {
+      InputStream in;
+      try {
+        in = resolver.resolveReference(reference.uri, reference.xmlBase);
+      } catch (EdmException e) {
+        return false;
+      }
+      if (in == null) {
+        return false;
+      }
+      try {
+        if (!reference.digest.equals(digest(toByteArray(in)))) {
+          return false;
+        }
+      } catch (IOException e) {
+        return false;
+      } finally {
+        closeQuietly(in);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the snapshot file for a metadata document, parsed with the given options.
+   */
+  static File getFile(File directory, String csdl, String options) {
+    return new File(directory, digest((FORMAT_VERSION + "|" + options + "|" + csdl).getBytes(UTF8)) + SUFFIX);
+  }
+
+  /**
+   * Reads a snapshot; any problem reading it is treated as if there was no snapshot.
+   * Only the classes a snapshot is made of are deserialized, see {@link SnapshotInputStream}, and only
+   * if their serializable fields are still the ones recorded when writing it.
+   */
+  static MetadataSnapshot read(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (in.readInt() != FORMAT_VERSION) {
+        LOG.debug("Ignoring metadata snapshot {} of another format", file);
+        return null;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String name = in.readUTF();
+        String shape = in.readUTF();
+        if (!SnapshotInputStream.isAllowed(name)) {
+          LOG.debug("Ignoring metadata snapshot {} containing {}", file, name);
+          return null;
+        }
+        if (!shape.equals(shape(Class.forName(name, false, MetadataSnapshot.class.getClassLoader())))) {
+          LOG.debug("Ignoring metadata snapshot {} written for another version of {}", file, name);
+          return null;
+        }
+      }
+      ObjectInputStream objects = new SnapshotInputStream(new InflaterInputStream(in));
+      return (MetadataSnapshot) objects.readObject();
+    } catch (IOException e) {
+      LOG.debug("Ignoring unreadable metadata snapshot {}", file, e);
+      return null;
+    } catch (ClassNotFoundException e) {
+      return null;
+    } catch (ClassCastException e) {
+      return null;
+    } finally {
+      closeQuietly(in);
+    }
+  }
+
+  /**
+   * Writes this snapshot. The file is written under a temporary name first, so concurrently starting
+   * processes never see a partial snapshot. Failures are logged only, the model is simply parsed again next time.
+   */
+  void write(File file) {
+    try {
+      if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+        LOG.warn("Cannot create metadata snapshot directory {}", file.getParentFile());
+        return;
+      }
+      if (!writeFile(file, this)) {
+        LOG.warn("Cannot store metadata snapshot {}", file);
+      }
+    } catch (IOException e) {
+      // the snapshot is an optimization only, but e.g. a non-serializable provider must not go unnoticed
+      LOG.warn("Cannot write metadata snapshot {}", file, e);
+    }
+  }
+
+  /**
+   * Writes the shapes of all classes making up the given content, followed by the deflated content.
+   * @return false if the file could not be renamed to its final name
+   */
+  static boolean writeFile(File file, Serializable content) throws IOException {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    ShapeRecordingOutputStream objects = new ShapeRecordingOutputStream(new DeflaterOutputStream(payload));
+    objects.writeObject(content);
+    objects.close();
+
+    File temp = File.createTempFile("olingo-", ".tmp", file.getParentFile());
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(objects.classes.size());
+      for (Class<?> cl : objects.classes) {
+        out.writeUTF(cl.getName());
+        out.writeUTF(shape(cl));
+      }
+      payload.writeTo(out);
+      out.close();
+      out = null;
+      if (!temp.renameTo(file)) {
+        // some platforms do not allow to rename over an existing file
+        file.delete();
+        return temp.renameTo(file);
+      }
+      return true;
+    } finally {
+      closeQuietly(out);
+      if (temp.exists()) {
+        temp.delete();
+      }
+    }
+  }
+
+  /**
+   * Digest of the serializable fields of a class, as seen by object serialization.
+   */
+  static String shape(Class<?> cl) {
+    StringBuilder sb = new StringBuilder(cl.getName());
+    ObjectStreamClass desc = ObjectStreamClass.lookup(cl);
+    if (desc != null) {
+      for (ObjectStreamField field : desc.getFields()) {
+        sb.append('|').append(field.getName()).append(':')
+            .append(field.isPrimitive() ? String.valueOf(field.getTypeCode()) : field.getTypeString());
+      }
+    }
+    return digest(sb.toString().getBytes(UTF8));
+  }
+
+  static String digest(byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+      StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new EdmException(e);
+    }
+  }
+
+  static byte[] toByteArray(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+
+  private static void closeQuietly(InputStream in) {
+    if (in != null) {
+      try {
+        in.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  private static void closeQuietly(OutputStream out) {
+    if (out != null) {
+      try {
+        out.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  /**
+   * Object stream remembering all the classes it writes descriptors for.
+   */
+  private static final class ShapeRecordingOutputStream extends ObjectOutputStream {
+    private final Set<Class<?>> classes = new LinkedHashSet<Class<?>>();
+
+    ShapeRecordingOutputStream(OutputStream out) throws IOException {
+      super(out);
+    }
+
+    @Override
+    protected void annotateClass(Class<?> cl) throws IOException {
+      this.classes.add(cl);
+    }
+  }
+
+  /**
+   * Object stream resolving only the classes a snapshot consists of, so that a file planted in the snapshot
+   * directory cannot make the parser instantiate arbitrary classes.
+   */
+  private static final class SnapshotInputStream extends ObjectInputStream {
+    private static final String[] ALLOWED_PACKAGES = {
+        "org.apache.olingo.commons.api.edm.",
+        "org.apache.olingo.commons.api.edmx."
+    };
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<String>(Arrays.asList(
+        MetadataSnapshot.class.getName(),
+        ResolvedReference.class.getName(),
+        SchemaBasedEdmProvider.class.getName(),
+        "java.lang.Boolean", "java.lang.Byte", "java.lang.Character", "java.lang.Double", "java.lang.Enum",
+        "java.lang.Float", "java.lang.Integer", "java.lang.Long", "java.lang.Number", "java.lang.Short",
+        "java.lang.String", "java.math.BigDecimal", "java.math.BigInteger", "java.net.URI",
+        "java.util.ArrayList", "java.util.Arrays$ArrayList", "java.util.HashMap", "java.util.HashSet",
+        "java.util.LinkedHashMap", "java.util.LinkedHashSet", "java.util.LinkedList",
+        "java.util.Collections$EmptyList", "java.util.Collections$EmptyMap", "java.util.Collections$EmptySet",
+        "java.util.Collections$SingletonList", "java.util.Collections$UnmodifiableCollection",
+        "java.util.Collections$UnmodifiableList", "java.util.Collections$UnmodifiableRandomAccessList",
+        "java.util.concurrent.ConcurrentHashMap", "java.util.concurrent.ConcurrentHashMap$Segment",
+        "java.util.concurrent.locks.AbstractOwnableSynchronizer",
+        "java.util.concurrent.locks.AbstractQueuedSynchronizer", "java.util.concurrent.locks.ReentrantLock",
+        "java.util.concurrent.locks.ReentrantLock$Sync", "java.util.concurrent.locks.ReentrantLock$NonfairSync"));
+
+    SnapshotInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      if (!isAllowed(desc.getName())) {
+        throw new InvalidClassException(desc.getName(), "not allowed in a metadata snapshot");
+      }
+      return super.resolveClass(desc);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+      throw new InvalidClassException("proxy", "not allowed in a metadata snapshot");
+    }
+
+    static boolean isAllowed(String name) {
+      String element = name;
+      while (element.startsWith("[")) {
+        element = element.substring(1);
+      }
+      if (element.length() != name.length()) {
+        // primitive arrays are fine, object arrays must hold allowed classes
+        if (!element.startsWith("L") || !element.endsWith(";")) {
+          return element.length() == 1;
+        }
+        element = element.substring(1, element.length() - 1);
+      }
+      if (ALLOWED_CLASSES.contains(element)) {
+        return true;
+      }
+      for (String allowed : ALLOWED_PACKAGES) {
+        if (element.startsWith(allowed)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Referenced document together with the digest of its content.
+   */
+  static final class ResolvedReference implements Serializable {
+    private static final long serialVersionUID = -2921839338693460221L;
+
+    private final URI uri;
+    private final String xmlBase;
+    private final String digest;
+
+    ResolvedReference(URI uri, String xmlBase, String digest) {
+      this.uri = uri;
+      this.xmlBase = xmlBase;
+      this.digest = digest;
+    }
+  }
+
+  /**
+   * Resolver recording the digests of all documents it hands out to the parser.
+   */
+  static final class RecordingReferenceResolver implements ReferenceResolver {
+    private final ReferenceResolver delegate;
+    private final List<ResolvedReference> references = new ArrayList<ResolvedReference>();
+
+    RecordingReferenceResolver(ReferenceResolver delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public InputStream resolveReference(URI referenceUri, String xmlBase) {
+      InputStream in = this.delegate.resolveReference(referenceUri, xmlBase);
+      if (in == null) {
+        return null;
+      }
+      try {
+        byte[] content = toByteArray(in);
+        synchronized (this.references) {
+          this.references.add(new ResolvedReference(referenceUri, xmlBase, digest(content)));
+        }
+        return new ByteArrayInputStream(content);
+      } catch (IOException e) {
+        throw new EdmException(e);
+      } finally {
+        closeQuietly(in);
+      }
+    }
+
+    List<ResolvedReference> getReferences() {
+      synchronized (this.references) {
+        return new ArrayList<ResolvedReference>(this.references);
+      }
+    }
+  }
+}
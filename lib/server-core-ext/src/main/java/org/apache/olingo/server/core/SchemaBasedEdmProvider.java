@@ -18,9 +18,13 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
@@ -45,7 +49,9 @@ import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.edmx.EdmxReferenceInclude;
 import org.apache.olingo.commons.api.ex.ODataException;
 
-public class SchemaBasedEdmProvider implements CsdlEdmProvider {
+public class SchemaBasedEdmProvider implements Serializable, CsdlEdmProvider {
+  private static final long serialVersionUID = -3034106879421894204L;
+
   private final List<CsdlSchema> edmSchemas = new ArrayList<CsdlSchema>();
   private final Map<String, EdmxReference> references = new ConcurrentHashMap<String, EdmxReference>();
   private final Map<String, SchemaBasedEdmProvider> referenceSchemas = 
@@ -108,20 +114,45 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
       return null;
     }
     
-    if (this.referenceSchemas.get(ns) != null) {
-      return this.referenceSchemas.get(ns).getSchema(ns);  
+    // referenced providers are shared between documents, and may refer to each other
+    Set<SchemaBasedEdmProvider> visited = 
+        Collections.newSetFromMap(new IdentityHashMap<SchemaBasedEdmProvider, Boolean>());
+    visited.add(this);
+    return getReferenceSchema(ns, visited);
+  }
+  
+  private CsdlSchema getReferenceSchema(String ns, Set<SchemaBasedEdmProvider> visited) {
+    SchemaBasedEdmProvider provider = this.referenceSchemas.get(ns);
+    if (provider != null && visited.add(provider)) {
+      CsdlSchema schema = provider.getSchema(ns, visited);
+      if (schema != null) {
+        return schema;
+      }
     }
     
     // it is possible that we may be looking for Reference schema of Reference
-    for (SchemaBasedEdmProvider provider:this.referenceSchemas.values()) {
-      CsdlSchema schema = provider.getSchema(ns);
-      if (schema != null) {
-        return schema;
+    for (SchemaBasedEdmProvider referenced:this.referenceSchemas.values()) {
+      if (visited.add(referenced)) {
+        CsdlSchema schema = referenced.getSchema(ns, visited);
+        if (schema != null) {
+          return schema;
+        }
       }
     }
     return null;
   }
   
+  private CsdlSchema getSchema(String ns, Set<SchemaBasedEdmProvider> visited) {
+    CsdlSchema s = getSchema(ns, false);
+    if (s == null) {
+      s = getReferenceSchema(ns, visited);
+    }
+    if (s == null) {
+      s = getVocabularySchema(ns);
+    }
+    return s;
+  }
+  
   @Override
   public CsdlEnumType getEnumType(FullQualifiedName fqn) throws ODataException {
     CsdlSchema schema = getSchema(fqn.getNamespace());
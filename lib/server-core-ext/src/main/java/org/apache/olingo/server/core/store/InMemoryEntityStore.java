@@ -0,0 +1,614 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.core.requests.DataRequest;
+
+/**
+ * Thread safe in-memory entity store meant to back a {@link org.apache.olingo.server.core.ServiceHandler}.
+ * <p>
+ * Every entity set keeps a hash index keyed by the canonical literal form of its key properties, so
+ * key predicates resolve in constant time instead of scanning the whole collection. Navigation links
+ * are kept in a forward index (source key to targets) and a reverse index (target key to sources), which
+ * makes both navigation and the clean up of dangling links on delete proportional to the number of
+ * links involved. Each entity set is guarded by its own read/write lock; the link indexes share a
+ * separate lock, and no operation holds more than one lock at a time.
+ */
+public class InMemoryEntityStore {
+
+  private final ConcurrentMap<String, EntitySetStore> entitySets =
+      new ConcurrentHashMap<String, EntitySetStore>();
+  private final ReadWriteLock linkLock = new ReentrantReadWriteLock();
+  private final Map<LinkKey, Set<EntityRef>> forwardLinks = new HashMap<LinkKey, Set<EntityRef>>();
+  private final Map<EntityRef, Set<LinkKey>> reverseLinks = new HashMap<EntityRef, Set<LinkKey>>();
+  private final Map<EntityRef, Set<LinkKey>> outgoingLinks = new HashMap<EntityRef, Set<LinkKey>>();
+
+  /**
+   * Adds a new entity to the given entity set.
+   * @param entitySet entity set the entity belongs to
+   * @param entity entity with all key properties set
+   * @throws ODataApplicationException with status 409 when an entity with the same key already exists
+   */
+  public void create(final EdmEntitySet entitySet, final Entity entity) throws ODataApplicationException {
+    EntitySetStore store = getStore(entitySet);
+    List<String> key = store.keyOf(entity);
+    store.lock.writeLock().lock();
+    try {
+      if (store.entities.containsKey(key)) {
+        throw new ODataApplicationException("Entity with key " + key + " already exists in "
+            + entitySet.getName(), HttpStatusCode.CONFLICT.getStatusCode(), Locale.ROOT);
+      }
+      store.entities.put(key, entity);
+    } finally {
+      store.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces the entity stored under the key of the given entity.
+   * @throws ODataApplicationException with status 404 when no such entity exists
+   */
+  public void update(final EdmEntitySet entitySet, final Entity entity) throws ODataApplicationException {
+    EntitySetStore store = getStore(entitySet);
+    List<String> key = store.keyOf(entity);
+    store.lock.writeLock().lock();
+    try {
+      if (!store.entities.containsKey(key)) {
+        throw notFound(entitySet, key);
+      }
+      store.entities.put(key, entity);
+    } finally {
+      store.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the entity addressed by the key predicates together with all links from and to it.
+   * @return the removed entity, or <code>null</code> if there was none
+   */
+  public Entity delete(final EdmEntitySet entitySet, final List<UriParameter> keys)
+      throws ODataApplicationException {
+    EntitySetStore store = getStore(entitySet);
+    List<String> key = store.keyOf(keys);
+    Entity removed;
+    store.lock.writeLock().lock();
+    try {
+      removed = store.entities.remove(key);
+    } finally {
+      store.lock.writeLock().unlock();
+    }
+    if (removed != null) {
+      removeAllLinks(new EntityRef(entitySet.getName(), key));
+    }
+    return removed;
+  }
+
+  /**
+   * Returns a snapshot of all entities in the entity set, in insertion order.
+   */
+  public EntityCollection getEntitySet(final EdmEntitySet entitySet) {
+    EntitySetStore store = getStore(entitySet);
+    EntityCollection collection = new EntityCollection();
+    store.lock.readLock().lock();
+    try {
+      collection.getEntities().addAll(store.entities.values());
+    } finally {
+      store.lock.readLock().unlock();
+    }
+    return collection;
+  }
+
+  /**
+   * Looks up a single entity by its key predicates.
+   * @return the entity, or <code>null</code> if there is none with that key
+   */
+  public Entity getEntity(final EdmEntitySet entitySet, final List<UriParameter> keys)
+      throws ODataApplicationException {
+    EntitySetStore store = getStore(entitySet);
+    return store.get(store.keyOf(keys));
+  }
+
+  /**
+   * Links <code>target</code> to <code>source</code> through the navigation property. For single valued
+   * navigation properties an existing link is replaced.
+   * @throws ODataApplicationException with status 400 when the navigation property has no binding
+   */
+  public void addLink(final EdmEntitySet sourceSet, final Entity source, final EdmNavigationProperty navigation,
+      final Entity target) throws ODataApplicationException {
+    EdmEntitySet targetSet = getTargetEntitySet(sourceSet, navigation);
+    LinkKey link = new LinkKey(new EntityRef(sourceSet.getName(), getStore(sourceSet).keyOf(source)),
+        navigation.getName());
+    EntityRef targetRef = new EntityRef(targetSet.getName(), getStore(targetSet).keyOf(target));
+
+    linkLock.writeLock().lock();
+    try {
+      Set<EntityRef> targets = forwardLinks.get(link);
+      if (targets == null) {
+        targets = new LinkedHashSet<EntityRef>();
+        forwardLinks.put(link, targets);
+        Set<LinkKey> outgoing = outgoingLinks.get(link.source);
+        if (outgoing == null) {
+          outgoing = new LinkedHashSet<LinkKey>();
+          outgoingLinks.put(link.source, outgoing);
+        }
+        outgoing.add(link);
+      } else if (!navigation.isCollection()) {
+        for (EntityRef previous : targets) {
+          removeReverse(previous, link);
+        }
+        targets.clear();
+      }
+      targets.add(targetRef);
+      Set<LinkKey> sources = reverseLinks.get(targetRef);
+      if (sources == null) {
+        sources = new LinkedHashSet<LinkKey>();
+        reverseLinks.put(targetRef, sources);
+      }
+      sources.add(link);
+    } finally {
+      linkLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the link between <code>source</code> and <code>target</code>, if present.
+   */
+  public void removeLink(final EdmEntitySet sourceSet, final Entity source, final EdmNavigationProperty navigation,
+      final Entity target) throws ODataApplicationException {
+    EdmEntitySet targetSet = getTargetEntitySet(sourceSet, navigation);
+    LinkKey link = new LinkKey(new EntityRef(sourceSet.getName(), getStore(sourceSet).keyOf(source)),
+        navigation.getName());
+    EntityRef targetRef = new EntityRef(targetSet.getName(), getStore(targetSet).keyOf(target));
+
+    linkLock.writeLock().lock();
+    try {
+      Set<EntityRef> targets = forwardLinks.get(link);
+      if (targets != null && targets.remove(targetRef)) {
+        if (targets.isEmpty()) {
+          removeForward(link);
+        }
+        removeReverse(targetRef, link);
+      }
+    } finally {
+      linkLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the entities reachable from <code>source</code> through the navigation property.
+   */
+  public EntityCollection getLinkedEntities(final EdmEntitySet sourceSet, final Entity source,
+      final EdmNavigationProperty navigation) throws ODataApplicationException {
+    return getLinkedEntities(sourceSet, getStore(sourceSet).keyOf(source), navigation);
+  }
+
+  /**
+   * Returns the entities of <code>sourceSet</code> whose navigation property points to <code>target</code>;
+   * this is answered from the reverse index without scanning the source entity set.
+   */
+  public EntityCollection getReferencingEntities(final EdmEntitySet targetSet, final Entity target,
+      final EdmEntitySet sourceSet, final EdmNavigationProperty navigation) throws ODataApplicationException {
+    EntityRef targetRef = new EntityRef(targetSet.getName(), getStore(targetSet).keyOf(target));
+    List<List<String>> sourceKeys = new ArrayList<List<String>>();
+    linkLock.readLock().lock();
+    try {
+      Set<LinkKey> sources = reverseLinks.get(targetRef);
+      if (sources != null) {
+        for (LinkKey link : sources) {
+          if (link.navigation.equals(navigation.getName()) && link.source.entitySet.equals(sourceSet.getName())) {
+            sourceKeys.add(link.source.key);
+          }
+        }
+      }
+    } finally {
+      linkLock.readLock().unlock();
+    }
+    return collect(getStore(sourceSet), sourceKeys);
+  }
+
+  /**
+   * Resolves the resource path of a data request (entity set, key predicates and navigation segments)
+   * against the store.
+   * @return the addressed collection; a single entity request yields a collection with at most one entity
+   */
+  public EntityCollection read(final DataRequest request) throws ODataApplicationException {
+    EdmEntitySet entitySet = request.getEntitySet();
+    EntitySetStore store = getStore(entitySet);
+    List<UriParameter> keys = request.getKeyPredicates();
+    if (keys == null || keys.isEmpty()) {
+      if (!request.getNavigations().isEmpty()) {
+        throw new ODataApplicationException("Navigation requires a key predicate",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+      }
+      return getEntitySet(entitySet);
+    }
+
+    List<String> key = store.keyOf(keys);
+    if (store.get(key) == null) {
+      throw notFound(entitySet, key);
+    }
+    Iterator<UriResourceNavigation> iterator = request.getNavigations().iterator();
+    while (iterator.hasNext()) {
+      UriResourceNavigation segment = iterator.next();
+      EdmNavigationProperty navigation = segment.getProperty();
+      EdmEntitySet targetSet = getTargetEntitySet(entitySet, navigation);
+      EntitySetStore targetStore = getStore(targetSet);
+      List<String> targetKey;
+      if (!segment.getKeyPredicates().isEmpty()) {
+        targetKey = targetStore.keyOf(segment.getKeyPredicates());
+        if (!isLinked(new LinkKey(new EntityRef(entitySet.getName(), key), navigation.getName()),
+            new EntityRef(targetSet.getName(), targetKey))) {
+          throw notFound(targetSet, targetKey);
+        }
+      } else if (!iterator.hasNext()) {
+        return getLinkedEntities(entitySet, key, navigation);
+      } else {
+        List<List<String>> targets = getLinkedKeys(
+            new LinkKey(new EntityRef(entitySet.getName(), key), navigation.getName()));
+        if (targets.size() != 1) {
+          throw new ODataApplicationException(
+              "Navigation " + navigation.getName() + " does not address a single entity",
+              HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+        }
+        targetKey = targets.get(0);
+      }
+      entitySet = targetSet;
+      store = targetStore;
+      key = targetKey;
+    }
+
+    EntityCollection result = new EntityCollection();
+    Entity entity = store.get(key);
+    if (entity != null) {
+      result.getEntities().add(entity);
+    }
+    return result;
+  }
+
+  /**
+   * Removes all entities and links.
+   */
+  public void clear() {
+    for (EntitySetStore store : entitySets.values()) {
+      store.lock.writeLock().lock();
+      try {
+        store.entities.clear();
+      } finally {
+        store.lock.writeLock().unlock();
+      }
+    }
+    linkLock.writeLock().lock();
+    try {
+      forwardLinks.clear();
+      reverseLinks.clear();
+      outgoingLinks.clear();
+    } finally {
+      linkLock.writeLock().unlock();
+    }
+  }
+
+  private EntityCollection getLinkedEntities(final EdmEntitySet sourceSet, final List<String> sourceKey,
+      final EdmNavigationProperty navigation) throws ODataApplicationException {
+    EdmEntitySet targetSet = getTargetEntitySet(sourceSet, navigation);
+    List<List<String>> keys = getLinkedKeys(new LinkKey(new EntityRef(sourceSet.getName(), sourceKey),
+        navigation.getName()));
+    return collect(getStore(targetSet), keys);
+  }
+
+  private List<List<String>> getLinkedKeys(final LinkKey link) {
+    linkLock.readLock().lock();
+    try {
+      Set<EntityRef> targets = forwardLinks.get(link);
+      if (targets == null) {
+        return Collections.emptyList();
+      }
+      List<List<String>> keys = new ArrayList<List<String>>(targets.size());
+      for (EntityRef target : targets) {
+        keys.add(target.key);
+      }
+      return keys;
+    } finally {
+      linkLock.readLock().unlock();
+    }
+  }
+
+  private boolean isLinked(final LinkKey link, final EntityRef target) {
+    linkLock.readLock().lock();
+    try {
+      Set<EntityRef> targets = forwardLinks.get(link);
+      return targets != null && targets.contains(target);
+    } finally {
+      linkLock.readLock().unlock();
+    }
+  }
+
+  private void removeAllLinks(final EntityRef entity) {
+    linkLock.writeLock().lock();
+    try {
+      // links pointing to the entity
+      Set<LinkKey> sources = reverseLinks.remove(entity);
+      if (sources != null) {
+        for (LinkKey link : sources) {
+          Set<EntityRef> targets = forwardLinks.get(link);
+          if (targets != null) {
+            targets.remove(entity);
+            if (targets.isEmpty()) {
+              removeForward(link);
+            }
+          }
+        }
+      }
+      // links starting at the entity
+      Set<LinkKey> outgoing = outgoingLinks.remove(entity);
+      if (outgoing != null) {
+        for (LinkKey link : outgoing) {
+          for (EntityRef target : forwardLinks.remove(link)) {
+            removeReverse(target, link);
+          }
+        }
+      }
+    } finally {
+      linkLock.writeLock().unlock();
+    }
+  }
+
+  private void removeForward(final LinkKey link) {
+    forwardLinks.remove(link);
+    Set<LinkKey> outgoing = outgoingLinks.get(link.source);
+    if (outgoing != null) {
+      outgoing.remove(link);
+      if (outgoing.isEmpty()) {
+        outgoingLinks.remove(link.source);
+      }
+    }
+  }
+
+  private void removeReverse(final EntityRef target, final LinkKey link) {
+    Set<LinkKey> sources = reverseLinks.get(target);
+    if (sources != null) {
+      sources.remove(link);
+      if (sources.isEmpty()) {
+        reverseLinks.remove(target);
+      }
+    }
+  }
+
+  private EntityCollection collect(final EntitySetStore store, final List<List<String>> keys) {
+    EntityCollection collection = new EntityCollection();
+    store.lock.readLock().lock();
+    try {
+      for (List<String> key : keys) {
+        Entity entity = store.entities.get(key);
+        if (entity != null) {
+          collection.getEntities().add(entity);
+        }
+      }
+    } finally {
+      store.lock.readLock().unlock();
+    }
+    return collection;
+  }
+
+  private EntitySetStore getStore(final EdmEntitySet entitySet) {
+    EntitySetStore store = entitySets.get(entitySet.getName());
+    if (store == null) {
+      EntitySetStore newStore = new EntitySetStore(entitySet);
+      store = entitySets.putIfAbsent(entitySet.getName(), newStore);
+      if (store == null) {
+        store = newStore;
+      }
+    }
+    return store;
+  }
+
+  private static EdmEntitySet getTargetEntitySet(final EdmEntitySet sourceSet,
+      final EdmNavigationProperty navigation) throws ODataApplicationException {
+    EdmBindingTarget target = sourceSet.getRelatedBindingTarget(navigation.getName());
+    if (!(target instanceof EdmEntitySet)) {
+      throw new ODataApplicationException("No entity set bound to navigation property " + navigation.getName()
+          + " of " + sourceSet.getName(), HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+    return (EdmEntitySet) target;
+  }
+
+  private static ODataApplicationException notFound(final EdmEntitySet entitySet, final List<String> key) {
+    return new ODataApplicationException("No entity with key " + key + " in " + entitySet.getName(),
+        HttpStatusCode.NOT_FOUND.getStatusCode(), Locale.ROOT);
+  }
+
+  private static final class EntitySetStore {
+    private final List<EdmKeyPropertyRef> keyRefs;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<List<String>, Entity> entities = new LinkedHashMap<List<String>, Entity>();
+
+    EntitySetStore(final EdmEntitySet entitySet) {
+      keyRefs = entitySet.getEntityType().getKeyPropertyRefs();
+    }
+
+    Entity get(final List<String> key) {
+      lock.readLock().lock();
+      try {
+        return entities.get(key);
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    List<String> keyOf(final Entity entity) throws ODataApplicationException {
+      List<String> key = new ArrayList<String>(keyRefs.size());
+      for (EdmKeyPropertyRef keyRef : keyRefs) {
+        Object value = getKeyValue(entity, keyRef.getName());
+        if (value == null) {
+          throw new ODataApplicationException("Key property " + keyRef.getName() + " is missing",
+              HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+        }
+        key.add(toCanonical(keyRef.getProperty(), value));
+      }
+      return Collections.unmodifiableList(key);
+    }
+
+    List<String> keyOf(final List<UriParameter> parameters) throws ODataApplicationException {
+      if (parameters.size() != keyRefs.size()) {
+        throw new ODataApplicationException("Wrong number of key properties",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+      }
+      List<String> key = new ArrayList<String>(keyRefs.size());
+      for (EdmKeyPropertyRef keyRef : keyRefs) {
+        String name = keyRef.getAlias() == null ? keyRef.getName() : keyRef.getAlias();
+        UriParameter parameter = null;
+        for (UriParameter candidate : parameters) {
+          if ((parameters.size() == 1 && candidate.getName() == null) || name.equals(candidate.getName())) {
+            parameter = candidate;
+          }
+        }
+        if (parameter == null || parameter.getText() == null) {
+          throw new ODataApplicationException("Missing value for key property " + name,
+              HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+        }
+        EdmProperty property = keyRef.getProperty();
+        EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+        try {
+          Object value = type.valueOfString(type.fromUriLiteral(parameter.getText()), property.isNullable(),
+              property.getMaxLength(), property.getPrecision(), property.getScale(), property.isUnicode(),
+              type.getDefaultType());
+          key.add(toCanonical(property, value));
+        } catch (EdmPrimitiveTypeException e) {
+          throw new ODataApplicationException("Invalid value for key property " + name,
+              HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+        }
+      }
+      return Collections.unmodifiableList(key);
+    }
+
+    private static Object getKeyValue(final Entity entity, final String path) {
+      String[] segments = path.split("/");
+      List<Property> properties = entity.getProperties();
+      for (int i = 0; i < segments.length; i++) {
+        Property property = null;
+        for (Property candidate : properties) {
+          if (segments[i].equals(candidate.getName())) {
+            property = candidate;
+            break;
+          }
+        }
+        if (property == null || property.getValue() == null) {
+          return null;
+        }
+        if (i == segments.length - 1) {
+          return property.getValue();
+        }
+        if (!(property.getValue() instanceof ComplexValue)) {
+          return null;
+        }
+        properties = ((ComplexValue) property.getValue()).getValue();
+      }
+      return null;
+    }
+
+    private static String toCanonical(final EdmProperty property, final Object value)
+        throws ODataApplicationException {
+      EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+      try {
+        return type.valueToString(value, property.isNullable(), property.getMaxLength(), property.getPrecision(),
+            property.getScale(), property.isUnicode());
+      } catch (EdmPrimitiveTypeException e) {
+        throw new ODataApplicationException("Invalid value for key property " + property.getName(),
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+      }
+    }
+  }
+
+  private static final class EntityRef {
+    private final String entitySet;
+    private final List<String> key;
+
+    EntityRef(final String entitySet, final List<String> key) {
+      this.entitySet = entitySet;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof EntityRef)) {
+        return false;
+      }
+      EntityRef other = (EntityRef) obj;
+      return entitySet.equals(other.entitySet) && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * entitySet.hashCode() + key.hashCode();
+    }
+  }
+
+  private static final class LinkKey {
+    private final EntityRef source;
+    private final String navigation;
+
+    LinkKey(final EntityRef source, final String navigation) {
+      this.source = source;
+      this.navigation = navigation;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof LinkKey)) {
+        return false;
+      }
+      LinkKey other = (LinkKey) obj;
+      return source.equals(other.source) && navigation.equals(other.navigation);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * source.hashCode() + navigation.hashCode();
+    }
+  }
+}
@@ -21,16 +21,31 @@ package org.apache.olingo.server.core;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.olingo.commons.api.ex.ODataException;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.provider.CsdlAction;
@@ -47,7 +62,9 @@ import org.apache.olingo.commons.api.edm.provider.CsdlParameter;
 import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
 import org.apache.olingo.commons.api.edm.provider.CsdlSingleton;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class MetadataParserTest {
   final String NS = "Microsoft.OData.SampleService.Models.TripPin";
@@ -56,6 +73,9 @@ public class MetadataParserTest {
 
   CsdlEdmProvider provider = null;
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Before
   public void setUp() throws Exception {
     MetadataParser parser = new MetadataParser();
@@ -213,4 +233,144 @@ public class MetadataParserTest {
     });
     provider = (CsdlEdmProvider) parser.buildEdmProvider(new FileReader("src/test/resources/test.xml"));
   }   
+
+  @Test
+  public void testSnapshot() throws Exception {
+    ReferenceResolver resolver = new ReferenceResolver() {
+      @Override
+      public InputStream resolveReference(URI uri, String xmlBase) {
+        try {
+          return new FileInputStream("src/test/resources/"+uri.toASCIIString().substring(17));
+        } catch (FileNotFoundException e) {
+          return null;
+        }
+      }
+    };
+    File directory = folder.newFolder("snapshots");
+    MetadataParser parser = new MetadataParser().recursivelyLoadReferences(false)
+        .referenceResolver(resolver).snapshotDirectory(directory);
+
+    SchemaBasedEdmProvider parsed = parser.buildEdmProvider(new FileReader("src/test/resources/test.xml"));
+    File[] snapshots = directory.listFiles();
+    assertEquals(1, snapshots.length);
+    MetadataSnapshot snapshot = MetadataSnapshot.read(snapshots[0]);
+    assertNotNull(snapshot);
+    assertTrue(snapshot.isUpToDate(resolver));
+
+    SchemaBasedEdmProvider loaded = parser.buildEdmProvider(new FileReader("src/test/resources/test.xml"));
+    assertNotSame(parsed, loaded);
+    assertEquals(1, directory.listFiles().length);
+    assertNotNull(loaded.getComplexType(new FullQualifiedName(NS, "City")));
+    assertNotNull(loaded.getSchema("org.apache.olingo.a"));
+    assertEquals(parsed.getReferences().size(), loaded.getReferences().size());
+
+    // a changed reference invalidates the snapshot
+    assertFalse(snapshot.isUpToDate(new ReferenceResolver() {
+      @Override
+      public InputStream resolveReference(URI uri, String xmlBase) {
+        return new ByteArrayInputStream(new byte[0]);
+      }
+    }));
+  }
+
+  @Test
+  public void testSnapshotWithForeignClass() throws Exception {
+    File file = new File(folder.newFolder("snapshots"), "planted.snapshot");
+    assertTrue(MetadataSnapshot.writeFile(file, new Planted()));
+    Planted.deserialized = false;
+    assertNull(MetadataSnapshot.read(file));
+    assertFalse(Planted.deserialized);
+
+    // a bare object stream is not a snapshot either
+    ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file));
+    try {
+      out.writeObject(new Planted());
+    } finally {
+      out.close();
+    }
+    assertNull(MetadataSnapshot.read(file));
+    assertFalse(Planted.deserialized);
+  }
+
+  @Test
+  public void testSnapshotOfChangedClass() throws Exception {
+    File directory = folder.newFolder("snapshots");
+    new MetadataParser().referenceResolver(null).snapshotDirectory(directory)
+        .buildEdmProvider(new FileReader("src/test/resources/test.xml"));
+    File file = directory.listFiles()[0];
+    assertNotNull(MetadataSnapshot.read(file));
+
+    // pretend the snapshot has been written while a model class had other fields
+    String shape = MetadataSnapshot.shape(CsdlProperty.class);
+    byte[] content = FileUtils.readFileToByteArray(file);
+    String text = new String(content, "ISO-8859-1");
+    int index = text.indexOf(shape);
+    assertTrue(index > 0);
+    content[index] = (byte) (content[index] == '0' ? '1' : '0');
+    FileUtils.writeByteArrayToFile(file, content);
+    assertNull(MetadataSnapshot.read(file));
+  }
+
+  static class Planted implements Serializable {
+    private static final long serialVersionUID = 1L;
+    static volatile boolean deserialized;
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      deserialized = true;
+    }
+  }
+
+  @Test
+  public void testConcurrentReferenceLoadError() throws Exception {
+    final Error error = new AssertionError("resolver failed");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      MetadataParser parser = new MetadataParser();
+      parser.referenceExecutor(executor);
+      parser.referenceResolver(new ReferenceResolver() {
+        @Override
+        public InputStream resolveReference(URI uri, String xmlBase) {
+          throw error;
+        }
+      });
+      parser.buildEdmProvider(new FileReader("src/test/resources/test.xml"));
+      fail("Expected the resolver's error");
+    } catch (AssertionError e) {
+      assertSame(error, e);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testConcurrentReferenceLoad() throws Exception {
+    final List<String> resolved = Collections.synchronizedList(new ArrayList<String>());
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      MetadataParser parser = new MetadataParser();
+      parser.recursivelyLoadReferences(true);
+      parser.referenceExecutor(executor);
+      parser.referenceResolver(new ReferenceResolver() {
+        @Override
+        public InputStream resolveReference(URI uri, String xmlBase) {
+          resolved.add(uri.toASCIIString());
+          try {
+            return new FileInputStream("src/test/resources/"+uri.toASCIIString().substring(17));
+          } catch (FileNotFoundException e) {
+            return null;
+          }
+        }
+      });
+      // a.xml and b.xml refer to each other
+      SchemaBasedEdmProvider edmProvider = parser.buildEdmProvider(new FileReader("src/test/resources/test.xml"));
+      assertNotNull(edmProvider.getSchema("org.apache.olingo.a"));
+      assertNotNull(edmProvider.getSchema("org.apache.olingo.b"));
+      assertEquals(2, resolved.size());
+      assertTrue(resolved.contains("http://localhost/a.xml"));
+      assertTrue(resolved.contains("http://localhost/b.xml"));
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FileReader;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.core.MetadataParser;
+import org.apache.olingo.server.core.uri.UriParameterImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InMemoryEntityStoreTest {
+  private EdmEntitySet people;
+  private EdmEntitySet photos;
+  private EdmNavigationProperty friends;
+  private EdmNavigationProperty photo;
+  private InMemoryEntityStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    MetadataParser parser = new MetadataParser();
+    CsdlEdmProvider provider = parser.buildEdmProvider(new FileReader("src/test/resources/trippin.xml"));
+    Edm edm = OData.newInstance().createServiceMetadata(provider, Collections.<EdmxReference> emptyList())
+        .getEdm();
+    people = edm.getEntityContainer().getEntitySet("People");
+    photos = edm.getEntityContainer().getEntitySet("Photos");
+    friends = people.getEntityType().getNavigationProperty("Friends");
+    photo = people.getEntityType().getNavigationProperty("Photo");
+    store = new InMemoryEntityStore();
+  }
+
+  @Test
+  public void keyLookup() throws Exception {
+    Entity russell = person("russellwhyte");
+    store.create(people, russell);
+    store.create(people, person("scottketchum"));
+    Entity picture = picture(42L);
+    store.create(photos, picture);
+
+    assertSame(russell, store.getEntity(people, key("UserName", "'russellwhyte'")));
+    assertNull(store.getEntity(people, key("UserName", "'unknown'")));
+    // Int64 key given as a differently typed literal still hits the index
+    assertSame(picture, store.getEntity(photos, key("Id", "42")));
+    assertEquals(2, store.getEntitySet(people).getEntities().size());
+
+    try {
+      store.create(people, person("russellwhyte"));
+      fail("Expected conflict");
+    } catch (ODataApplicationException e) {
+      assertEquals(HttpStatusCode.CONFLICT.getStatusCode(), e.getStatusCode());
+    }
+    try {
+      store.update(people, person("nobody"));
+      fail("Expected not found");
+    } catch (ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void navigationIndexes() throws Exception {
+    Entity russell = person("russellwhyte");
+    Entity scott = person("scottketchum");
+    Entity ronald = person("ronaldmundy");
+    store.create(people, russell);
+    store.create(people, scott);
+    store.create(people, ronald);
+    Entity first = picture(1L);
+    Entity second = picture(2L);
+    store.create(photos, first);
+    store.create(photos, second);
+
+    store.addLink(people, russell, friends, scott);
+    store.addLink(people, russell, friends, ronald);
+    store.addLink(people, scott, friends, ronald);
+    store.addLink(people, russell, photo, first);
+    // single valued navigation replaces the previous link
+    store.addLink(people, russell, photo, second);
+
+    assertEquals(2, store.getLinkedEntities(people, russell, friends).getEntities().size());
+    List<Entity> pictures = store.getLinkedEntities(people, russell, photo).getEntities();
+    assertEquals(1, pictures.size());
+    assertSame(second, pictures.get(0));
+    assertTrue(store.getReferencingEntities(photos, first, people, photo).getEntities().isEmpty());
+    assertEquals(2, store.getReferencingEntities(people, ronald, people, friends).getEntities().size());
+
+    store.removeLink(people, scott, friends, ronald);
+    assertEquals(1, store.getReferencingEntities(people, ronald, people, friends).getEntities().size());
+
+    // deleting an entity drops the links from and to it
+    assertSame(russell, store.delete(people, key("UserName", "'russellwhyte'")));
+    assertTrue(store.getReferencingEntities(people, ronald, people, friends).getEntities().isEmpty());
+    assertTrue(store.getReferencingEntities(photos, second, people, photo).getEntities().isEmpty());
+    store.create(people, russell);
+    assertTrue(store.getLinkedEntities(people, russell, friends).getEntities().isEmpty());
+  }
+
+  private static Entity person(final String userName) {
+    return new Entity().addProperty(new Property(null, "UserName", ValueType.PRIMITIVE, userName));
+  }
+
+  private static Entity picture(final long id) {
+    return new Entity().addProperty(new Property(null, "Id", ValueType.PRIMITIVE, id));
+  }
+
+  private static List<UriParameter> key(final String name, final String text) {
+    return Collections.<UriParameter> singletonList(new UriParameterImpl().setName(name).setText(text));
+  }
+}
@@ -18,9 +18,13 @@
  */
 package org.apache.olingo.server.core;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.format.AcceptType;
 import org.apache.olingo.commons.api.format.ContentType;
@@ -45,6 +49,19 @@ public final class ContentNegotiator {
           ContentType.APPLICATION_ATOM_XML,
           ContentType.APPLICATION_XML));
 
+  /**
+   * Maximum number of cached negotiation results; once reached, arbitrary results are evicted.
+   */
+  static final int MAX_CACHE_SIZE = 256;
+
+  /**
+   * Negotiated content types by requested format or Accept header value and supported content types.
+   * Clients tend to send the same few values, so parsing them again for each request can mostly be avoided.
+   * Lookups do not take any lock; evicting arbitrary instead of least recently used entries keeps it that way.
+   */
+  private static final ConcurrentMap<NegotiationKey, ContentType> NEGOTIATED =
+      new ConcurrentHashMap<NegotiationKey, ContentType>(MAX_CACHE_SIZE * 2);
+
   private ContentNegotiator() {}
 
   private static List<ContentType> getDefaultSupportedContentTypes(final RepresentationType type) {
@@ -88,25 +105,32 @@ public final class ContentNegotiator {
 
     if (formatOption != null && formatOption.getFormat() != null) {
       final String formatString = formatOption.getFormat().trim();
-      final ContentType contentType = mapContentType(formatString);
-
-      try {
-        result = getAcceptedType(
-            AcceptType.fromContentType(contentType == null ?
-                ContentType.create(formatOption.getFormat()) : contentType),
-                supportedContentTypes);
-      } catch (final IllegalArgumentException e) {
-        // Exception results in result = null for next check.
+      final NegotiationKey key = new NegotiationKey(formatOption.getFormat(), true, supportedContentTypes);
+      result = NEGOTIATED.get(key);
+      if (result == null) {
+        final ContentType contentType = mapContentType(formatString);
+        try {
+          result = cache(key, getAcceptedType(
+              AcceptType.fromContentType(contentType == null ?
+                  ContentType.create(formatOption.getFormat()) : contentType),
+                  supportedContentTypes));
+        } catch (final IllegalArgumentException e) {
+          // Exception results in result = null for next check.
+        }
       }
       if (result == null) {
         throw new ContentNegotiatorException("Unsupported $format = " + formatString,
             ContentNegotiatorException.MessageKeys.UNSUPPORTED_FORMAT_OPTION, formatString);
       }
     } else if (acceptHeaderValue != null) {
-      try {
-        result = getAcceptedType(AcceptType.create(acceptHeaderValue), supportedContentTypes);
-      } catch (final IllegalArgumentException e) {
-        result = null;
+      final NegotiationKey key = new NegotiationKey(acceptHeaderValue, false, supportedContentTypes);
+      result = NEGOTIATED.get(key);
+      if (result == null) {
+        try {
+          result = cache(key, getAcceptedType(AcceptType.create(acceptHeaderValue), supportedContentTypes));
+        } catch (final IllegalArgumentException e) {
+          result = null;
+        }
       }
       if (result == null) {
         throw new ContentNegotiatorException(
@@ -126,6 +150,24 @@ public final class ContentNegotiator {
     return result;
   }
 
+  private static ContentType cache(final NegotiationKey key, final ContentType contentType) {
+    if (contentType != null) {
+      final Iterator<NegotiationKey> iterator = NEGOTIATED.keySet().iterator();
+      while (NEGOTIATED.size() >= MAX_CACHE_SIZE && iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+      // the supported content types are copied, as a custom content type support could modify its list later on
+      NEGOTIATED.put(new NegotiationKey(key.value, key.format,
+          Collections.unmodifiableList(new ArrayList<ContentType>(key.supportedContentTypes))), contentType);
+    }
+    return contentType;
+  }
+
+  static int getCacheSize() {
+    return NEGOTIATED.size();
+  }
+
   private static ContentType mapContentType(final String formatString) {
     return JSON.equalsIgnoreCase(formatString) ? ContentType.JSON :
         XML.equalsIgnoreCase(formatString) ? ContentType.APPLICATION_XML :
@@ -186,4 +228,43 @@ public final class ContentNegotiator {
     }
     return false;
   }
+
+  /**
+   * Cache key of a negotiation result.
+   * <br/>
+   * The supported content types stand for the representation type and the custom content type support they have
+   * been determined from, so that a result is only reused where it would have been negotiated the same way.
+   */
+  private static final class NegotiationKey {
+
+    private final String value;
+    private final boolean format;
+    private final List<ContentType> supportedContentTypes;
+    private final int hash;
+
+    NegotiationKey(final String value, final boolean format, final List<ContentType> supportedContentTypes) {
+      this.value = value;
+      this.format = format;
+      this.supportedContentTypes = supportedContentTypes;
+      hash = (31 * value.hashCode() + (format ? 1 : 0)) * 31 + supportedContentTypes.size();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof NegotiationKey)) {
+        return false;
+      }
+      final NegotiationKey other = (NegotiationKey) obj;
+      return hash == other.hash && format == other.format && value.equals(other.value)
+          && supportedContentTypes.equals(other.supportedContentTypes);
+    }
+  }
 }
@@ -97,6 +97,8 @@ public class ODataExceptionHelper {
       serverError.setStatusCode(HttpStatusCode.BAD_REQUEST.getStatusCode());
     } else if (ODataHandlerException.MessageKeys.HTTP_METHOD_NOT_ALLOWED.equals(e.getMessageKey())) {
       serverError.setStatusCode(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode());
+    } else if (ODataHandlerException.MessageKeys.ASYNC_JOB_NOT_FOUND.equals(e.getMessageKey())) {
+      serverError.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
     }
 
     return serverError;
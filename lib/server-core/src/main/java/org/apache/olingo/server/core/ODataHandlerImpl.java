@@ -47,6 +47,7 @@ import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.queryoption.FormatOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.apache.olingo.server.core.async.AsyncSupportImpl;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.core.uri.parser.Parser;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
@@ -65,6 +66,7 @@ public class ODataHandlerImpl implements ODataHandler {
 
   private CustomContentTypeSupport customContentTypeSupport;
   private CustomETagSupport customETagSupport;
+  private AsyncSupportImpl asyncSupport;
 
   private UriInfo uriInfo;
   private Exception lastThrownException;
@@ -133,6 +135,15 @@ public class ODataHandlerImpl implements ODataHandler {
       throw e;
     }
 
+    if (asyncSupport != null && asyncSupport.isStatusMonitorRequest(request)) {
+      try {
+        asyncSupport.handleStatusMonitorRequest(request, response);
+      } finally {
+        debugger.stopRuntimeMeasurement(measurementHandle);
+      }
+      return;
+    }
+
     final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
     try {
       uriInfo = new Parser(serviceMetadata.getEdm(), odata)
@@ -155,6 +166,20 @@ public class ODataHandlerImpl implements ODataHandler {
     }
     debugger.stopRuntimeMeasurement(measurementUriValidator);
 
+    if (asyncSupport != null && asyncSupport.isRespondAsyncRequested(request)) {
+      final boolean accepted;
+      try {
+        accepted = asyncSupport.submit(createAsyncJobHandler(), request, response);
+      } catch (final ODataLibraryException e) {
+        debugger.stopRuntimeMeasurement(measurementHandle);
+        throw e;
+      }
+      if (accepted) {
+        debugger.stopRuntimeMeasurement(measurementHandle);
+        return;
+      }
+    }
+
     final int measurementDispatcher = debugger.startRuntimeMeasurement("ODataDispatcher", "dispatch");
     try {
       new ODataDispatcher(uriInfo, this).dispatch(request, response);
@@ -164,6 +189,19 @@ public class ODataHandlerImpl implements ODataHandler {
     }
   }
 
+  /**
+   * Creates a handler with the same processors and extensions as this one
+   * but without asynchronous support, used to process an asynchronous job.
+   */
+  private ODataHandlerImpl createAsyncJobHandler() {
+    ODataHandlerImpl jobHandler = new ODataHandlerImpl(odata, serviceMetadata, new ServerCoreDebugger(odata));
+    jobHandler.processors.clear();
+    jobHandler.processors.addAll(processors);
+    jobHandler.customContentTypeSupport = customContentTypeSupport;
+    jobHandler.customETagSupport = customETagSupport;
+    return jobHandler;
+  }
+
   public void handleException(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError, final Exception exception) {
     final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "handleException");
@@ -249,6 +287,8 @@ public class ODataHandlerImpl implements ODataHandler {
       this.customContentTypeSupport = (CustomContentTypeSupport) extension;
     } else if(extension instanceof CustomETagSupport) {
       this.customETagSupport = (CustomETagSupport) extension;
+    } else if(extension instanceof AsyncSupportImpl) {
+      this.asyncSupport = (AsyncSupportImpl) extension;
     } else {
       throw new ODataRuntimeException("Got not supported exception with class name " +
           extension.getClass().getSimpleName());
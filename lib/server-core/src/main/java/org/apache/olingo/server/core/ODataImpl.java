@@ -31,25 +31,35 @@ import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataHandler;
 import org.apache.olingo.server.api.ODataHttpHandler;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.async.AsyncSupportOptions;
 import org.apache.olingo.server.api.debug.DebugResponseHelper;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.crossjoin.CrossjoinExecutor;
+import org.apache.olingo.server.api.expand.NavigationExpander;
+import org.apache.olingo.server.api.expand.NavigationLoader;
 import org.apache.olingo.server.api.prefer.Preferences;
+import org.apache.olingo.server.api.search.SearchIndex;
 import org.apache.olingo.server.api.serializer.EdmAssistedSerializer;
 import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.uri.UriHelper;
+import org.apache.olingo.server.core.async.AsyncSupportImpl;
 import org.apache.olingo.server.core.debug.DebugResponseHelperImpl;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
 import org.apache.olingo.server.core.deserializer.FixedFormatDeserializerImpl;
 import org.apache.olingo.server.core.deserializer.json.ODataJsonDeserializer;
 import org.apache.olingo.server.core.deserializer.xml.ODataXmlDeserializer;
 import org.apache.olingo.server.core.etag.ETagHelperImpl;
+import org.apache.olingo.server.core.crossjoin.CrossjoinExecutorImpl;
+import org.apache.olingo.server.core.expand.NavigationExpanderImpl;
 import org.apache.olingo.server.core.prefer.PreferencesImpl;
+import org.apache.olingo.server.core.search.SearchIndexImpl;
 import org.apache.olingo.server.core.serializer.FixedFormatSerializerImpl;
 import org.apache.olingo.server.core.serializer.json.EdmAssistedJsonSerializer;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
@@ -176,4 +186,24 @@ public class ODataImpl extends OData {
     // TODO: Support more debug formats
     return new DebugResponseHelperImpl(debugFormat);
   }
+
+  @Override
+  public AsyncSupport createAsyncSupport(final AsyncSupportOptions options) {
+    return new AsyncSupportImpl(options);
+  }
+
+  @Override
+  public SearchIndex createSearchIndex() {
+    return new SearchIndexImpl();
+  }
+
+  @Override
+  public NavigationExpander createNavigationExpander(final NavigationLoader loader) {
+    return new NavigationExpanderImpl(loader);
+  }
+
+  @Override
+  public CrossjoinExecutor createCrossjoinExecutor() {
+    return new CrossjoinExecutorImpl();
+  }
 }
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Future;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+
+/**
+ * A request processed in the background.
+ * The job runs the request through its own handler and keeps the response as {@link AsyncResult}.
+ */
+public class AsyncJob implements Runnable {
+
+  /** The states of a job. */
+  public enum State {
+    RUNNING, FINISHED, CANCELLED
+  }
+
+  private final String id;
+  private final ODataHandlerImpl handler;
+  private final ODataRequest request;
+  private final long spoolThreshold;
+  private final File spoolDirectory;
+
+  private State state = State.RUNNING;
+  private Future<?> future;
+  private AsyncResult result;
+  private long finishedAt;
+
+  public AsyncJob(final String id, final ODataHandlerImpl handler, final ODataRequest request,
+      final long spoolThreshold, final File spoolDirectory) {
+    this.id = id;
+    this.handler = handler;
+    this.request = request;
+    this.spoolThreshold = spoolThreshold;
+    this.spoolDirectory = spoolDirectory;
+  }
+
+  @Override
+  public void run() {
+    AsyncResult jobResult;
+    try {
+      jobResult = AsyncResult.create(handler.process(request), spoolThreshold, spoolDirectory);
+    } catch (final IOException e) {
+      jobResult = createErrorResult();
+    } catch (final RuntimeException e) {
+      jobResult = createErrorResult();
+    }
+    finish(jobResult);
+  }
+
+  private AsyncResult createErrorResult() {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+    try {
+      return AsyncResult.create(response, spoolThreshold, spoolDirectory);
+    } catch (final IOException e) {
+      // Cannot happen since there is no content.
+      return null;
+    }
+  }
+
+  private synchronized void finish(final AsyncResult jobResult) {
+    if (state == State.CANCELLED) {
+      if (jobResult != null) {
+        jobResult.discard();
+      }
+    } else {
+      result = jobResult;
+      finishedAt = System.currentTimeMillis();
+      state = State.FINISHED;
+    }
+  }
+
+  /**
+   * Cancels the job: interrupts the processing if it is still running
+   * and discards the result if it is already available.
+   */
+  public synchronized void cancel() {
+    if (state == State.RUNNING && future != null) {
+      future.cancel(true);
+    }
+    if (result != null) {
+      result.discard();
+      result = null;
+    }
+    state = State.CANCELLED;
+  }
+
+  /**
+   * Checks whether the job is finished and its result has not been fetched
+   * within the given time to live.
+   */
+  public synchronized boolean isExpired(final long now, final long timeToLive) {
+    return state == State.CANCELLED || state == State.FINISHED && now - finishedAt > timeToLive;
+  }
+
+  synchronized void setFuture(final Future<?> future) {
+    this.future = future;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public synchronized AsyncResult getResult() {
+    return result;
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded store of asynchronous jobs.
+ * Finished jobs whose result has not been fetched within the time to live are evicted;
+ * eviction is done lazily whenever the store is accessed.
+ */
+public class AsyncJobStore {
+
+  private final Map<String, AsyncJob> jobs = new LinkedHashMap<String, AsyncJob>();
+  private final int maxJobs;
+  private final long timeToLive;
+
+  public AsyncJobStore(final int maxJobs, final long timeToLive) {
+    this.maxJobs = maxJobs;
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * Adds the job if the maximum number of jobs has not been reached (after eviction of expired jobs).
+   * @return <code>true</code> if the job has been added
+   */
+  public synchronized boolean add(final AsyncJob job) {
+    evictExpired();
+    if (jobs.size() >= maxJobs) {
+      return false;
+    }
+    jobs.put(job.getId(), job);
+    return true;
+  }
+
+  /** Gets the job with the given id or <code>null</code> if there is no such job or it has expired. */
+  public synchronized AsyncJob get(final String id) {
+    evictExpired();
+    return jobs.get(id);
+  }
+
+  /** Removes the job with the given id; the job itself is not changed. */
+  public synchronized AsyncJob remove(final String id) {
+    return jobs.remove(id);
+  }
+
+  /** Removes all jobs. */
+  public synchronized List<AsyncJob> removeAll() {
+    List<AsyncJob> removed = new ArrayList<AsyncJob>(jobs.values());
+    jobs.clear();
+    return removed;
+  }
+
+  public synchronized int size() {
+    return jobs.size();
+  }
+
+  /** Removes and cancels all expired jobs. */
+  public synchronized void evictExpired() {
+    final long now = System.currentTimeMillis();
+    for (Iterator<AsyncJob> iterator = jobs.values().iterator(); iterator.hasNext();) {
+      AsyncJob job = iterator.next();
+      if (job.isExpired(now, timeToLive)) {
+        iterator.remove();
+        job.cancel();
+      }
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.server.api.ODataResponse;
+
+/**
+ * Result of an asynchronous job, i.e., the response of the processed request.
+ * The response body is kept in memory up to a configurable threshold;
+ * larger bodies are spooled to a temporary file.
+ */
+public class AsyncResult {
+
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private final int statusCode;
+  private final Map<String, List<String>> headers;
+  private final byte[] content;
+  private final File spoolFile;
+
+  private AsyncResult(final ODataResponse response, final byte[] content, final File spoolFile) {
+    statusCode = response.getStatusCode();
+    headers = response.getAllHeaders();
+    this.content = content;
+    this.spoolFile = spoolFile;
+  }
+
+  /**
+   * Reads the complete body of the given response.
+   * @param response the response of the processed request
+   * @param spoolThreshold the body size in bytes above which the body is written to a file
+   * @param spoolDirectory the directory for the file or <code>null</code> for the default temporary directory
+   * @return the result
+   * @throws IOException if the body could not be read or written
+   */
+  public static AsyncResult create(final ODataResponse response, final long spoolThreshold,
+      final File spoolDirectory) throws IOException {
+    SpoolingOutputStream output = new SpoolingOutputStream(spoolThreshold, spoolDirectory);
+    try {
+      if (response.getContent() != null) {
+        copy(response.getContent(), output);
+      } else if (response.getODataContent() != null) {
+        response.getODataContent().write(output);
+      }
+    } catch (final IOException e) {
+      output.discard();
+      throw e;
+    } catch (final RuntimeException e) {
+      output.discard();
+      throw e;
+    } finally {
+      output.close();
+    }
+    return new AsyncResult(response, output.getContent(), output.getFile());
+  }
+
+  /**
+   * Creates an {@link ODataResponse} from this result, without content.
+   * Used to serialize the status line and the headers.
+   */
+  public ODataResponse getResponseHead() {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(statusCode);
+    for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+      response.addHeader(header.getKey(), header.getValue());
+    }
+    return response;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /** Returns <code>true</code> if the body has been spooled to disk. */
+  public boolean isSpooled() {
+    return spoolFile != null;
+  }
+
+  /**
+   * Opens the body for reading.
+   * If the body has been spooled, the file is deleted when the returned stream is closed.
+   */
+  public InputStream getContent() throws IOException {
+    if (spoolFile == null) {
+      return new ByteArrayInputStream(content == null ? new byte[0] : content);
+    } else {
+      return new FileInputStream(spoolFile) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            deleteFile(spoolFile);
+          }
+        }
+      };
+    }
+  }
+
+  /** Releases the resources held by this result. */
+  public void discard() {
+    deleteFile(spoolFile);
+  }
+
+  private static void deleteFile(final File file) {
+    if (file != null && file.exists() && !file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+
+  private static void copy(final InputStream input, final OutputStream output) throws IOException {
+    try {
+      byte[] buffer = new byte[COPY_BUFFER_SIZE];
+      int count;
+      while ((count = input.read(buffer)) != -1) {
+        output.write(buffer, 0, count);
+      }
+    } finally {
+      input.close();
+    }
+  }
+
+  /**
+   * Output stream which buffers in memory until the threshold is exceeded
+   * and continues in a temporary file afterwards.
+   */
+  static class SpoolingOutputStream extends OutputStream {
+    private final long threshold;
+    private final File directory;
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private OutputStream fileOutput;
+    private File file;
+    private long written = 0;
+
+    SpoolingOutputStream(final long threshold, final File directory) {
+      this.threshold = threshold;
+      this.directory = directory;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      if (fileOutput == null && written + len > threshold) {
+        switchToFile();
+      }
+      if (fileOutput == null) {
+        memory.write(b, off, len);
+      } else {
+        fileOutput.write(b, off, len);
+      }
+      written += len;
+    }
+
+    private void switchToFile() throws IOException {
+      file = File.createTempFile("olingo-async-", ".tmp", directory);
+      fileOutput = new FileOutputStream(file);
+      memory.writeTo(fileOutput);
+      memory = null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (fileOutput != null) {
+        fileOutput.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (fileOutput != null) {
+        fileOutput.close();
+      }
+    }
+
+    void discard() {
+      try {
+        close();
+      } catch (final IOException e) {
+        // ignore, the file is deleted anyway
+      }
+      deleteFile(file);
+      file = null;
+    }
+
+    byte[] getContent() {
+      return memory == null ? null : memory.toByteArray();
+    }
+
+    File getFile() {
+      return file;
+    }
+  }
+}
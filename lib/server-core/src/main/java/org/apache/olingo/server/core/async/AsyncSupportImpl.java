@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.format.PreferenceName;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.async.AsyncSupportOptions;
+import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.ODataHandlerException;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
+import org.apache.olingo.server.core.prefer.PreferencesImpl;
+import org.apache.olingo.server.core.serializer.AsyncResponseSerializer;
+
+/**
+ * Default implementation of the asynchronous request processing.
+ * Accepted requests are copied and run as {@link AsyncJob}s on the executor;
+ * the jobs are kept in an {@link AsyncJobStore} until their result is fetched from the status monitor,
+ * they are cancelled, or they expire.
+ */
+public class AsyncSupportImpl implements AsyncSupport {
+
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private final AsyncSupportOptions options;
+  private final ExecutorService executor;
+  private final boolean ownExecutor;
+  private final AsyncJobStore store;
+
+  public AsyncSupportImpl(final AsyncSupportOptions options) {
+    this.options = options == null ? AsyncSupportOptions.with().build() : options;
+    if (this.options.getExecutor() == null) {
+      executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new JobThreadFactory());
+      ownExecutor = true;
+    } else {
+      executor = this.options.getExecutor();
+      ownExecutor = false;
+    }
+    store = new AsyncJobStore(this.options.getMaxJobs(), this.options.getTimeToLive());
+  }
+
+  /** Checks whether the request targets a status-monitor resource. */
+  public boolean isStatusMonitorRequest(final ODataRequest request) {
+    final String path = request.getRawODataPath();
+    final String prefix = getStatusMonitorPrefix();
+    return path != null && path.length() > prefix.length() && path.startsWith(prefix);
+  }
+
+  /** Checks whether the client prefers asynchronous processing for the request. */
+  public boolean isRespondAsyncRequested(final ODataRequest request) {
+    return new PreferencesImpl(request.getHeaders(HttpHeader.PREFER)).hasRespondAsync();
+  }
+
+  /**
+   * Starts the asynchronous processing of the request.
+   * The request is copied, including its body, so that it can be processed after the current
+   * request has been completed. On success the response is filled with the <code>202 Accepted</code>
+   * status and the location of the status monitor.
+   * @param jobHandler the handler which processes the request in the background
+   * @param request the request
+   * @param response the response
+   * @return <code>true</code> if the job has been started, <code>false</code> if the maximum number of jobs
+   * has been reached or the executor rejected the job; the request should then be processed synchronously
+   * @throws ODataLibraryException if the request body could not be read
+   */
+  public boolean submit(final ODataHandlerImpl jobHandler, final ODataRequest request, final ODataResponse response)
+      throws ODataLibraryException {
+    final AsyncJob job = new AsyncJob(UUID.randomUUID().toString(), jobHandler, copyRequest(request),
+        options.getSpoolThreshold(), options.getSpoolDirectory());
+    if (!store.add(job)) {
+      return false;
+    }
+    try {
+      job.setFuture(executor.submit(job));
+    } catch (final RejectedExecutionException e) {
+      store.remove(job.getId());
+      return false;
+    }
+    response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
+    response.setHeader(HttpHeader.LOCATION, getLocation(request, job.getId()));
+    response.setHeader(HttpHeader.PREFERENCE_APPLIED, PreferenceName.RESPOND_ASYNC.getName());
+    return true;
+  }
+
+  /**
+   * Handles a request to a status-monitor resource.
+   * GET returns <code>202 Accepted</code> while the job is running and the result of the job
+   * in <code>application/http</code> format afterwards; DELETE cancels the job.
+   * @param request the request
+   * @param response the response
+   * @throws ODataLibraryException if the job is unknown, the method is not supported,
+   * or the result could not be serialized
+   */
+  public void handleStatusMonitorRequest(final ODataRequest request, final ODataResponse response)
+      throws ODataLibraryException {
+    final String jobId = request.getRawODataPath().substring(getStatusMonitorPrefix().length());
+    final HttpMethod method = request.getMethod();
+    if (method == HttpMethod.GET) {
+      final AsyncJob job = getJob(jobId);
+      if (job.getState() == AsyncJob.State.FINISHED) {
+        store.remove(jobId);
+        writeResult(job.getResult(), response);
+      } else {
+        response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
+        response.setHeader(HttpHeader.LOCATION, getLocation(request, jobId));
+        response.setHeader(HttpHeader.RETRY_AFTER, Integer.toString(options.getRetryAfter()));
+      }
+    } else if (method == HttpMethod.DELETE) {
+      if (!cancel(jobId)) {
+        throw jobNotFound(jobId);
+      }
+      response.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+    } else {
+      throw new ODataHandlerException("HTTP method " + method + " is not allowed for a status monitor.",
+          ODataHandlerException.MessageKeys.HTTP_METHOD_NOT_ALLOWED, method.toString());
+    }
+  }
+
+  @Override
+  public int getJobCount() {
+    return store.size();
+  }
+
+  @Override
+  public boolean cancel(final String jobId) {
+    final AsyncJob job = store.remove(jobId);
+    if (job == null) {
+      return false;
+    }
+    job.cancel();
+    return true;
+  }
+
+  @Override
+  public void evictExpired() {
+    store.evictExpired();
+  }
+
+  @Override
+  public void shutdown() {
+    for (final AsyncJob job : store.removeAll()) {
+      job.cancel();
+    }
+    if (ownExecutor) {
+      executor.shutdownNow();
+    }
+  }
+
+  private AsyncJob getJob(final String jobId) throws ODataHandlerException {
+    final AsyncJob job = store.get(jobId);
+    if (job == null) {
+      throw jobNotFound(jobId);
+    }
+    return job;
+  }
+
+  private ODataHandlerException jobNotFound(final String jobId) {
+    return new ODataHandlerException("No asynchronous job found with id " + jobId,
+        ODataHandlerException.MessageKeys.ASYNC_JOB_NOT_FOUND, jobId);
+  }
+
+  private void writeResult(final AsyncResult result, final ODataResponse response) throws SerializerException {
+    final InputStream head = new AsyncResponseSerializer().serialize(result.getResponseHead());
+    try {
+      response.setContent(new SequenceInputStream(head, result.getContent()));
+    } catch (final IOException e) {
+      result.discard();
+      throw new SerializerException("Spooled result of asynchronous job could not be read.", e,
+          SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_HTTP.toContentTypeString());
+    response.setHeader(BatchParserCommon.CONTENT_TRANSFER_ENCODING, BatchParserCommon.BINARY_ENCODING);
+  }
+
+  private String getStatusMonitorPrefix() {
+    return "/" + options.getStatusMonitorSegment() + "/";
+  }
+
+  private String getLocation(final ODataRequest request, final String jobId) {
+    return request.getRawBaseUri() + getStatusMonitorPrefix() + jobId;
+  }
+
+  private static ODataRequest copyRequest(final ODataRequest request) throws DeserializerException {
+    ODataRequest copy = new ODataRequest();
+    copy.setMethod(request.getMethod());
+    copy.setProtocol(request.getProtocol());
+    copy.setRawBaseUri(request.getRawBaseUri());
+    copy.setRawODataPath(request.getRawODataPath());
+    copy.setRawQueryPath(request.getRawQueryPath());
+    copy.setRawRequestUri(request.getRawRequestUri());
+    copy.setRawServiceResolutionUri(request.getRawServiceResolutionUri());
+    for (final Map.Entry<String, List<String>> header : request.getAllHeaders().entrySet()) {
+      copy.addHeader(header.getKey(), header.getValue());
+    }
+    if (request.getBody() != null) {
+      copy.setBody(copyBody(request.getBody()));
+    }
+    return copy;
+  }
+
+  private static InputStream copyBody(final InputStream body) throws DeserializerException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try {
+      byte[] bytes = new byte[COPY_BUFFER_SIZE];
+      int count;
+      while ((count = body.read(bytes)) != -1) {
+        buffer.write(bytes, 0, count);
+      }
+    } catch (final IOException e) {
+      throw new DeserializerException("An I/O exception occurred.", e,
+          DeserializerException.MessageKeys.IO_EXCEPTION);
+    }
+    return new ByteArrayInputStream(buffer.toByteArray());
+  }
+
+  /** Creates daemon threads so that the executor does not prevent the JVM from shutting down. */
+  private static class JobThreadFactory implements ThreadFactory {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, "olingo-async-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.crossjoin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.crossjoin.CrossjoinExecutor;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.Method;
+import org.apache.olingo.server.api.uri.queryoption.expression.Unary;
+
+/**
+ * Plans a crossjoin as a sequence of hash joins.
+ * <p>
+ * The largest entity set (or the one that cannot be counted without iterating) becomes the probe side and is
+ * streamed. The other entity sets are added one by one, preferring those connected to the already joined sets by
+ * an equi-join condition; each of them is indexed in a hash table by its join-key values. An entity set without
+ * such a condition is joined as a plain list, which is the Cartesian product required by the request.
+ * <p>
+ * The entities of the hash tables are kept for the whole iteration, so they are detached from collections which
+ * reuse one entity during iteration like {@link ColumnarEntityCollection}.
+ */
+public class CrossjoinExecutorImpl implements CrossjoinExecutor {
+
+  @Override
+  public EntityIterator execute(final List<String> entitySetNames, final FilterOption filter,
+      final Map<String, ? extends AbstractEntityCollection> entitySets) throws ODataApplicationException {
+    final Map<String, Integer> positions = new HashMap<String, Integer>();
+    for (final String name : entitySetNames) {
+      if (entitySets.get(name) == null) {
+        throw new ODataApplicationException("No data for entity set " + name + ".",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+      }
+      positions.put(name, positions.size());
+    }
+
+    // Classify the conjuncts of the filter.
+    final List<EquiJoin> joins = new ArrayList<EquiJoin>();
+    final Map<String, List<Expression>> local = new HashMap<String, List<Expression>>();
+    final List<Expression> residual = new ArrayList<Expression>();
+    if (filter != null && filter.getExpression() != null) {
+      for (final Expression conjunct : getConjuncts(filter.getExpression(), new ArrayList<Expression>())) {
+        RowEvaluator.check(conjunct);
+        final EquiJoin join = getEquiJoin(conjunct, positions);
+        if (join != null) {
+          joins.add(join);
+        } else {
+          final Set<String> referenced = getReferencedEntitySets(conjunct, new HashSet<String>());
+          if (referenced.size() == 1) {
+            final String name = referenced.iterator().next();
+            if (!local.containsKey(name)) {
+              local.put(name, new ArrayList<Expression>());
+            }
+            local.get(name).add(conjunct);
+          } else {
+            residual.add(conjunct);
+          }
+        }
+      }
+    }
+    final RowEvaluator evaluator = new RowEvaluator(positions);
+
+    // The probe side is the largest entity set.
+    String probe = null;
+    int probeSize = -1;
+    for (final String name : entitySetNames) {
+      final int size = getSize(entitySets.get(name));
+      if (size > probeSize) {
+        probe = name;
+        probeSize = size;
+      }
+    }
+
+    final List<JoinStep> steps = new ArrayList<JoinStep>();
+    final Set<String> bound = new HashSet<String>(Collections.singleton(probe));
+    while (bound.size() < entitySetNames.size()) {
+      String next = null;
+      boolean connected = false;
+      int nextSize = Integer.MAX_VALUE;
+      for (final String name : entitySetNames) {
+        if (!bound.contains(name)) {
+          final boolean isConnected = !getJoins(joins, name, bound).isEmpty();
+          final int size = getSize(entitySets.get(name));
+          if (next == null || isConnected && !connected || isConnected == connected && size < nextSize) {
+            next = name;
+            connected = isConnected;
+            nextSize = size;
+          }
+        }
+      }
+      steps.add(buildStep(next, positions.get(next), entitySets.get(next), getJoins(joins, next, bound),
+          local.get(next), evaluator));
+      bound.add(next);
+    }
+
+    return new CrossjoinIterator(entitySetNames, positions.get(probe), entitySets.get(probe).iterator(),
+        local.get(probe), steps, residual, evaluator);
+  }
+
+  private JoinStep buildStep(final String name, final int position, final AbstractEntityCollection entities,
+      final List<EquiJoin> joins, final List<Expression> filters, final RowEvaluator evaluator)
+      throws ODataApplicationException {
+    final List<List<String>> keyPaths = new ArrayList<List<String>>();
+    final List<Integer> probePositions = new ArrayList<Integer>();
+    final List<List<String>> probePaths = new ArrayList<List<String>>();
+    for (final EquiJoin join : joins) {
+      final boolean left = join.leftSet.equals(name);
+      keyPaths.add(left ? join.leftPath : join.rightPath);
+      probePositions.add(left ? join.rightPosition : join.leftPosition);
+      probePaths.add(left ? join.rightPath : join.leftPath);
+    }
+
+    final Map<List<Object>, List<Entity>> table = new LinkedHashMap<List<Object>, List<Entity>>();
+    final ColumnarEntityCollection columnar = entities instanceof ColumnarEntityCollection ?
+        (ColumnarEntityCollection) entities : null;
+    final Entity[] row = new Entity[evaluator.getEntitySetCount()];
+    int index = 0;
+    for (final Entity entity : entities) {
+      row[position] = entity;
+      if (evaluator.matches(filters, row)) {
+        final List<Object> key = new ArrayList<Object>(keyPaths.size());
+        for (final List<String> path : keyPaths) {
+          key.add(RowEvaluator.normalize(RowEvaluator.getValue(entity, path)));
+        }
+        List<Entity> bucket = table.get(key);
+        if (bucket == null) {
+          bucket = new ArrayList<Entity>();
+          table.put(key, bucket);
+        }
+        bucket.add(columnar == null ? entity : columnar.getEntity(index));
+      }
+      index++;
+    }
+    return new JoinStep(position, table, probePositions, probePaths);
+  }
+
+  private static int getSize(final AbstractEntityCollection entities) {
+    return entities instanceof EntityCollection ? ((EntityCollection) entities).getEntities().size() :
+        entities instanceof ColumnarEntityCollection ? ((ColumnarEntityCollection) entities).size() :
+        Integer.MAX_VALUE;
+  }
+
+  private static List<EquiJoin> getJoins(final List<EquiJoin> joins, final String name, final Set<String> bound) {
+    final List<EquiJoin> result = new ArrayList<EquiJoin>();
+    for (final EquiJoin join : joins) {
+      if (join.leftSet.equals(name) && bound.contains(join.rightSet)
+          || join.rightSet.equals(name) && bound.contains(join.leftSet)) {
+        result.add(join);
+      }
+    }
+    return result;
+  }
+
+  private static List<Expression> getConjuncts(final Expression expression, final List<Expression> conjuncts) {
+    if (expression instanceof Binary && ((Binary) expression).getOperator() == BinaryOperatorKind.AND) {
+      getConjuncts(((Binary) expression).getLeftOperand(), conjuncts);
+      getConjuncts(((Binary) expression).getRightOperand(), conjuncts);
+    } else {
+      conjuncts.add(expression);
+    }
+    return conjuncts;
+  }
+
+  private static EquiJoin getEquiJoin(final Expression expression, final Map<String, Integer> positions) {
+    if (expression instanceof Binary && ((Binary) expression).getOperator() == BinaryOperatorKind.EQ) {
+      final Binary binary = (Binary) expression;
+      final String leftSet = getEntitySetName(binary.getLeftOperand());
+      final String rightSet = getEntitySetName(binary.getRightOperand());
+      if (leftSet != null && rightSet != null && !leftSet.equals(rightSet)) {
+        final List<String> leftPath = getPropertyPath(binary.getLeftOperand());
+        final List<String> rightPath = getPropertyPath(binary.getRightOperand());
+        if (leftPath != null && rightPath != null) {
+          return new EquiJoin(leftSet, positions.get(leftSet), leftPath,
+              rightSet, positions.get(rightSet), rightPath);
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Gets the entity set a crossjoin member expression starts with, or <code>null</code>. */
+  static String getEntitySetName(final Expression expression) {
+    if (expression instanceof Member) {
+      final List<UriResource> parts = ((Member) expression).getResourcePath().getUriResourceParts();
+      if (!parts.isEmpty() && parts.get(0) instanceof UriResourceEntitySet) {
+        return ((UriResourceEntitySet) parts.get(0)).getEntitySet().getName();
+      }
+    }
+    return null;
+  }
+
+  /** Gets the names of the properties after the entity set of a crossjoin member expression, if all are single. */
+  static List<String> getPropertyPath(final Expression expression) {
+    final List<UriResource> parts = ((Member) expression).getResourcePath().getUriResourceParts();
+    if (parts.size() < 2) {
+      return null;
+    }
+    final List<String> path = new ArrayList<String>();
+    for (final UriResource part : parts.subList(1, parts.size())) {
+      if (part instanceof UriResourceProperty && !((UriResourceProperty) part).isCollection()) {
+        path.add(((UriResourceProperty) part).getProperty().getName());
+      } else {
+        return null;
+      }
+    }
+    return path;
+  }
+
+  private static Set<String> getReferencedEntitySets(final Expression expression, final Set<String> names) {
+    if (expression instanceof Binary) {
+      getReferencedEntitySets(((Binary) expression).getLeftOperand(), names);
+      getReferencedEntitySets(((Binary) expression).getRightOperand(), names);
+    } else if (expression instanceof Unary) {
+      getReferencedEntitySets(((Unary) expression).getOperand(), names);
+    } else if (expression instanceof Method) {
+      for (final Expression parameter : ((Method) expression).getParameters()) {
+        getReferencedEntitySets(parameter, names);
+      }
+    } else if (expression instanceof Member) {
+      final String name = getEntitySetName(expression);
+      if (name != null) {
+        names.add(name);
+      }
+    }
+    return names;
+  }
+
+  /** Equality of properties of two different entity sets. */
+  private static class EquiJoin {
+    private final String leftSet;
+    private final int leftPosition;
+    private final List<String> leftPath;
+    private final String rightSet;
+    private final int rightPosition;
+    private final List<String> rightPath;
+
+    EquiJoin(final String leftSet, final int leftPosition, final List<String> leftPath,
+        final String rightSet, final int rightPosition, final List<String> rightPath) {
+      this.leftSet = leftSet;
+      this.leftPosition = leftPosition;
+      this.leftPath = leftPath;
+      this.rightSet = rightSet;
+      this.rightPosition = rightPosition;
+      this.rightPath = rightPath;
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.crossjoin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+
+/**
+ * Streams the probe entity set and produces the joined rows one at a time, walking the join steps depth-first;
+ * neither the Cartesian product nor all rows of a single probe entity are materialized.
+ */
+class CrossjoinIterator extends EntityIterator {
+
+  private final List<String> entitySetNames;
+  private final int probePosition;
+  private final Iterator<Entity> probe;
+  private final List<Expression> probeFilters;
+  private final List<JoinStep> steps;
+  private final List<Expression> residual;
+  private final RowEvaluator evaluator;
+
+  private final Entity[] row;
+  private final List<Iterator<Entity>> cursors;
+  private int depth = -1;
+  private Entity next;
+
+  CrossjoinIterator(final List<String> entitySetNames, final int probePosition, final Iterator<Entity> probe,
+      final List<Expression> probeFilters, final List<JoinStep> steps, final List<Expression> residual,
+      final RowEvaluator evaluator) {
+    this.entitySetNames = entitySetNames;
+    this.probePosition = probePosition;
+    this.probe = probe;
+    this.probeFilters = probeFilters;
+    this.steps = steps;
+    this.residual = residual;
+    this.evaluator = evaluator;
+    row = new Entity[entitySetNames.size()];
+    cursors = new ArrayList<Iterator<Entity>>(Collections.<Iterator<Entity>> nCopies(steps.size(), null));
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      try {
+        next = advance();
+      } catch (final ODataApplicationException e) {
+        throw new ODataRuntimeException(e);
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public Entity next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    final Entity result = next;
+    next = null;
+    return result;
+  }
+
+  private Entity advance() throws ODataApplicationException {
+    while (true) {
+      if (depth < 0) {
+        if (!probe.hasNext()) {
+          return null;
+        }
+        row[probePosition] = probe.next();
+        if (!evaluator.matches(probeFilters, row)) {
+          continue;
+        }
+        depth = 0;
+        if (!steps.isEmpty()) {
+          cursors.set(0, steps.get(0).getMatches(row).iterator());
+        }
+      }
+      if (depth == steps.size()) {
+        depth--;
+        if (residual.isEmpty() || evaluator.matches(residual, row)) {
+          return createRow();
+        }
+        continue;
+      }
+      final Iterator<Entity> cursor = cursors.get(depth);
+      if (cursor.hasNext()) {
+        row[steps.get(depth).getPosition()] = cursor.next();
+        depth++;
+        if (depth < steps.size()) {
+          cursors.set(depth, steps.get(depth).getMatches(row).iterator());
+        }
+      } else {
+        row[steps.get(depth).getPosition()] = null;
+        depth--;
+      }
+    }
+  }
+
+  private Entity createRow() {
+    final Entity result = new Entity();
+    for (int i = 0; i < row.length; i++) {
+      final Link link = new Link();
+      link.setTitle(entitySetNames.get(i));
+      link.setInlineEntity(row[i]);
+      if (row[i].getId() != null) {
+        link.setHref(row[i].getId().toASCIIString());
+      }
+      result.getNavigationLinks().add(link);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.crossjoin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.Entity;
+
+/**
+ * Joins one entity set to the entities already bound in a row: its entities are kept in a hash table
+ * by join key; without join condition there is just one bucket with all entities.
+ */
+class JoinStep {
+
+  private final int position;
+  private final Map<List<Object>, List<Entity>> table;
+  private final List<Integer> probePositions;
+  private final List<List<String>> probePaths;
+
+  JoinStep(final int position, final Map<List<Object>, List<Entity>> table,
+      final List<Integer> probePositions, final List<List<String>> probePaths) {
+    this.position = position;
+    this.table = table;
+    this.probePositions = probePositions;
+    this.probePaths = probePaths;
+  }
+
+  int getPosition() {
+    return position;
+  }
+
+  /** Gets the entities which match the join key computed from the already bound entities of the row. */
+  List<Entity> getMatches(final Entity[] row) {
+    final List<Object> key = new ArrayList<Object>(probePaths.size());
+    for (int i = 0; i < probePaths.size(); i++) {
+      key.add(RowEvaluator.normalize(RowEvaluator.getValue(row[probePositions.get(i)], probePaths.get(i))));
+    }
+    final List<Entity> matches = table.get(key);
+    return matches == null ? Collections.<Entity> emptyList() : matches;
+  }
+}
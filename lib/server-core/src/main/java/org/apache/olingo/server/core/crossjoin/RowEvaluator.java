@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.crossjoin;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.Method;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Unary;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * Evaluates filter conditions on a row of a crossjoin.
+ * Supported are comparisons, the logical operators, and the string methods without side effects;
+ * everything else is rejected with status 501 so that rows are never filtered incorrectly.
+ */
+class RowEvaluator implements ExpressionVisitor<Object> {
+
+  private static final Set<BinaryOperatorKind> SUPPORTED_OPERATORS = EnumSet.of(
+      BinaryOperatorKind.AND, BinaryOperatorKind.OR,
+      BinaryOperatorKind.EQ, BinaryOperatorKind.NE,
+      BinaryOperatorKind.GT, BinaryOperatorKind.GE, BinaryOperatorKind.LT, BinaryOperatorKind.LE);
+  private static final Set<MethodKind> SUPPORTED_METHODS = EnumSet.of(
+      MethodKind.CONTAINS, MethodKind.STARTSWITH, MethodKind.ENDSWITH,
+      MethodKind.TOLOWER, MethodKind.TOUPPER, MethodKind.TRIM, MethodKind.LENGTH);
+
+  private final Map<String, Integer> positions;
+  private Entity[] row;
+
+  RowEvaluator(final Map<String, Integer> positions) {
+    this.positions = positions;
+  }
+
+  int getEntitySetCount() {
+    return positions.size();
+  }
+
+  /**
+   * Checks whether all conditions are true for the given row.
+   * Only the entities of the entity sets referenced by the conditions have to be set.
+   */
+  boolean matches(final List<Expression> conditions, final Entity[] row) throws ODataApplicationException {
+    if (conditions == null) {
+      return true;
+    }
+    this.row = row;
+    try {
+      for (final Expression condition : conditions) {
+        if (!Boolean.TRUE.equals(condition.accept(this))) {
+          return false;
+        }
+      }
+      return true;
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException("Invalid filter expression.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  /**
+   * Checks that a condition contains only supported expressions.
+   * @throws ODataApplicationException with status 501 otherwise
+   */
+  static void check(final Expression expression) throws ODataApplicationException {
+    if (expression instanceof Binary) {
+      final BinaryOperatorKind operator = ((Binary) expression).getOperator();
+      if (!SUPPORTED_OPERATORS.contains(operator)) {
+        throw notImplemented("Operator " + operator);
+      }
+      check(((Binary) expression).getLeftOperand());
+      check(((Binary) expression).getRightOperand());
+    } else if (expression instanceof Unary) {
+      if (((Unary) expression).getOperator() != UnaryOperatorKind.NOT) {
+        throw notImplemented("Operator " + ((Unary) expression).getOperator());
+      }
+      check(((Unary) expression).getOperand());
+    } else if (expression instanceof Method) {
+      if (!SUPPORTED_METHODS.contains(((Method) expression).getMethod())) {
+        throw notImplemented("Method " + ((Method) expression).getMethod());
+      }
+      for (final Expression parameter : ((Method) expression).getParameters()) {
+        check(parameter);
+      }
+    } else if (expression instanceof Member) {
+      if (CrossjoinExecutorImpl.getEntitySetName(expression) == null
+          || CrossjoinExecutorImpl.getPropertyPath(expression) == null) {
+        throw notImplemented("Member expression " + expression);
+      }
+    } else if (expression instanceof Literal) {
+      final EdmType type = ((Literal) expression).getType();
+      if (type != null && !(type instanceof EdmPrimitiveType)) {
+        throw notImplemented("Literal of type " + type.getName());
+      }
+    } else {
+      throw notImplemented("Expression " + expression);
+    }
+  }
+
+  /** Gets the value of a property path; <code>null</code> if a property on the path is missing or null. */
+  static Object getValue(final Entity entity, final List<String> path) {
+    Property property = entity.getProperty(path.get(0));
+    for (int i = 1; property != null && i < path.size(); i++) {
+      final ComplexValue complexValue = property.isNull() ? null : property.asComplex();
+      property = complexValue == null ? null : complexValue.getProperty(path.get(i));
+    }
+    return property == null ? null : property.getValue();
+  }
+
+  /** Makes values comparable with <code>equals</code> and <code>hashCode</code> across numeric types. */
+  static Object normalize(final Object value) {
+    if (value instanceof Number && !isNotFinite((Number) value)) {
+      final BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+      return decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+    }
+    return value;
+  }
+
+  private static boolean isNotFinite(final Number value) {
+    return value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite())
+        || value instanceof Float && (((Float) value).isNaN() || ((Float) value).isInfinite());
+  }
+
+  @Override
+  public Object visitBinaryOperator(final BinaryOperatorKind operator, final Object left, final Object right)
+      throws ExpressionVisitException, ODataApplicationException {
+    switch (operator) {
+    case AND:
+      return Boolean.TRUE.equals(left) && Boolean.TRUE.equals(right);
+    case OR:
+      return Boolean.TRUE.equals(left) || Boolean.TRUE.equals(right);
+    case EQ:
+      return left == null ? right == null : right != null && compare(left, right, true) == 0;
+    case NE:
+      return left == null ? right != null : right == null || compare(left, right, true) != 0;
+    case GT:
+      return left != null && right != null && compare(left, right, false) > 0;
+    case GE:
+      return left != null && right != null && compare(left, right, false) >= 0;
+    case LT:
+      return left != null && right != null && compare(left, right, false) < 0;
+    case LE:
+      return left != null && right != null && compare(left, right, false) <= 0;
+    default:
+      throw notImplemented("Operator " + operator);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private int compare(final Object left, final Object right, final boolean equality)
+      throws ODataApplicationException {
+    final Object normalizedLeft = normalize(left);
+    final Object normalizedRight = normalize(right);
+    if (normalizedLeft instanceof Comparable && normalizedLeft.getClass().isInstance(normalizedRight)) {
+      return ((Comparable<Object>) normalizedLeft).compareTo(normalizedRight);
+    } else if (equality) {
+      return normalizedLeft.equals(normalizedRight) ? 0 : 1;
+    }
+    throw notImplemented("Comparison of " + left.getClass().getSimpleName()
+        + " and " + right.getClass().getSimpleName());
+  }
+
+  @Override
+  public Object visitUnaryOperator(final UnaryOperatorKind operator, final Object operand)
+      throws ExpressionVisitException, ODataApplicationException {
+    if (operator == UnaryOperatorKind.NOT) {
+      return operand == null ? null : !Boolean.TRUE.equals(operand);
+    }
+    throw notImplemented("Operator " + operator);
+  }
+
+  @Override
+  public Object visitMethodCall(final MethodKind methodCall, final List<Object> parameters)
+      throws ExpressionVisitException, ODataApplicationException {
+    for (final Object parameter : parameters) {
+      if (parameter == null) {
+        return null;
+      }
+    }
+    switch (methodCall) {
+    case CONTAINS:
+      return string(parameters.get(0)).contains(string(parameters.get(1)));
+    case STARTSWITH:
+      return string(parameters.get(0)).startsWith(string(parameters.get(1)));
+    case ENDSWITH:
+      return string(parameters.get(0)).endsWith(string(parameters.get(1)));
+    case TOLOWER:
+      return string(parameters.get(0)).toLowerCase(Locale.ROOT);
+    case TOUPPER:
+      return string(parameters.get(0)).toUpperCase(Locale.ROOT);
+    case TRIM:
+      return string(parameters.get(0)).trim();
+    case LENGTH:
+      return string(parameters.get(0)).length();
+    default:
+      throw notImplemented("Method " + methodCall);
+    }
+  }
+
+  private String string(final Object value) throws ODataApplicationException {
+    if (value instanceof String) {
+      return (String) value;
+    }
+    throw notImplemented("String method on " + value.getClass().getSimpleName());
+  }
+
+  @Override
+  public Object visitLiteral(final Literal literal) throws ExpressionVisitException, ODataApplicationException {
+    final EdmType type = literal.getType();
+    if (type == null) {
+      return null;
+    }
+    if (!(type instanceof EdmPrimitiveType)) {
+      throw notImplemented("Literal of type " + type.getName());
+    }
+    final EdmPrimitiveType primitiveType = (EdmPrimitiveType) type;
+    try {
+      return primitiveType.valueOfString(primitiveType.fromUriLiteral(literal.getText()),
+          null, null, null, null, null, primitiveType.getDefaultType());
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Invalid literal " + literal.getText(),
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  @Override
+  public Object visitMember(final Member member) throws ExpressionVisitException, ODataApplicationException {
+    final String name = CrossjoinExecutorImpl.getEntitySetName(member);
+    final List<String> path = name == null ? null : CrossjoinExecutorImpl.getPropertyPath(member);
+    if (path == null) {
+      throw notImplemented("Member expression " + member);
+    }
+    return getValue(row[positions.get(name)], path);
+  }
+
+  @Override
+  public Object visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Lambda expressions");
+  }
+
+  @Override
+  public Object visitAlias(final String aliasName) throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Aliases");
+  }
+
+  @Override
+  public Object visitTypeLiteral(final EdmType type) throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Type literals");
+  }
+
+  @Override
+  public Object visitLambdaReference(final String variableName)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Lambda references");
+  }
+
+  @Override
+  public Object visitEnum(final EdmEnumType type, final List<String> enumValues)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Enumerations");
+  }
+
+  private static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException(what + " is not supported in crossjoin filters.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.expand;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.expand.NavigationExpander;
+import org.apache.olingo.server.api.expand.NavigationLoader;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
+
+/**
+ * Breadth-first implementation of the {@link NavigationExpander}: every expand item of every level
+ * results in exactly one call of the loader, with all source entities of that level.
+ */
+public class NavigationExpanderImpl implements NavigationExpander {
+
+  private final NavigationLoader loader;
+
+  public NavigationExpanderImpl(final NavigationLoader loader) {
+    this.loader = loader;
+  }
+
+  @Override
+  public void expand(final EntityCollection entities, final EdmEntityType entityType,
+      final ExpandOption expandOption) throws ODataApplicationException {
+    expand(entities.getEntities(), entityType, expandOption);
+  }
+
+  @Override
+  public void expand(final Entity entity, final EdmEntityType entityType, final ExpandOption expandOption)
+      throws ODataApplicationException {
+    expand(Collections.singletonList(entity), entityType, expandOption);
+  }
+
+  private void expand(final List<Entity> entities, final EdmEntityType entityType, final ExpandOption expandOption)
+      throws ODataApplicationException {
+    final List<Step> steps = getSteps(expandOption);
+    if (entities.isEmpty() || steps.isEmpty()) {
+      return;
+    }
+    final Queue<Level> levels = new ArrayDeque<Level>();
+    levels.add(new Level(entities, entityType, steps));
+    while (!levels.isEmpty()) {
+      final Level level = levels.poll();
+      for (final Step step : level.steps) {
+        for (final EdmNavigationProperty navigationProperty : getNavigationProperties(level.entityType, step.item)) {
+          final List<Entity> targets = load(navigationProperty, step, level.entities);
+          final List<Step> nextSteps = getSteps(step.item.getExpandOption());
+          if (step.levels > 1) {
+            nextSteps.add(new Step(step.item, step.levels - 1, step.expanded));
+          }
+          if (!targets.isEmpty() && !nextSteps.isEmpty()) {
+            levels.add(new Level(targets, navigationProperty.getType(), nextSteps));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Loads the targets of one navigation property for all sources of a level
+   * and links them to their sources.
+   * @return the loaded entities, each contained once
+   */
+  private List<Entity> load(final EdmNavigationProperty navigationProperty, final Step step,
+      final List<Entity> entities) throws ODataApplicationException {
+    final List<Entity> sources = new ArrayList<Entity>(entities.size());
+    for (final Entity entity : entities) {
+      // The same entity can be reached more than once on a level or, with $levels, on several levels.
+      if (step.expanded.add(new ExpansionKey(entity, navigationProperty.getName()))) {
+        sources.add(entity);
+      }
+    }
+    if (sources.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final List<EntityCollection> related = loader.loadNavigation(navigationProperty, sources);
+    if (related == null || related.size() != sources.size()) {
+      throw new ODataApplicationException("The navigation loader returned "
+          + (related == null ? "no result" : related.size() + " results") + " for " + sources.size() + " entities.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+    }
+
+    final Set<Entity> targets = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+    final List<Entity> result = new ArrayList<Entity>();
+    for (int i = 0; i < sources.size(); i++) {
+      final EntityCollection collection = related.get(i) == null ? new EntityCollection() : related.get(i);
+      final Entity source = sources.get(i);
+      Link link = source.getNavigationLink(navigationProperty.getName());
+      if (link == null) {
+        link = new Link();
+        link.setTitle(navigationProperty.getName());
+        source.getNavigationLinks().add(link);
+      }
+      if (navigationProperty.isCollection()) {
+        if (step.item.hasCountPath()) {
+          collection.setCount(collection.getEntities().size());
+        }
+        link.setInlineEntitySet(collection);
+      } else {
+        link.setInlineEntity(collection.getEntities().isEmpty() ? null : collection.getEntities().get(0));
+      }
+      for (final Entity target : collection.getEntities()) {
+        if (targets.add(target)) {
+          result.add(target);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static List<Step> getSteps(final ExpandOption expandOption) {
+    final List<Step> steps = new ArrayList<Step>();
+    if (expandOption != null) {
+      for (final ExpandItem item : expandOption.getExpandItems()) {
+        final LevelsExpandOption levelsOption = item.getLevelsOption();
+        final int levels = levelsOption == null ? 1 :
+            levelsOption.isMax() ? Integer.MAX_VALUE : levelsOption.getValue();
+        if (levels > 0) {
+          steps.add(new Step(item, levels, new HashSet<ExpansionKey>()));
+        }
+      }
+    }
+    return steps;
+  }
+
+  private static List<EdmNavigationProperty> getNavigationProperties(final EdmEntityType entityType,
+      final ExpandItem item) throws ODataApplicationException {
+    final List<EdmNavigationProperty> navigationProperties = new ArrayList<EdmNavigationProperty>();
+    if (item.isStar()) {
+      for (final String name : entityType.getNavigationPropertyNames()) {
+        navigationProperties.add(entityType.getNavigationProperty(name));
+      }
+    } else {
+      final List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+      final UriResource last = parts.get(parts.size() - 1);
+      if (parts.size() != 1 || !(last instanceof UriResourceNavigation)) {
+        throw new ODataApplicationException(
+            "Expanding navigation properties of complex properties is not supported.",
+            HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+      }
+      navigationProperties.add(((UriResourceNavigation) last).getProperty());
+    }
+    return navigationProperties;
+  }
+
+  /** Source entities of one expand level together with the expand items to apply to them. */
+  private static final class Level {
+    private final List<Entity> entities;
+    private final EdmEntityType entityType;
+    private final List<Step> steps;
+
+    Level(final List<Entity> entities, final EdmEntityType entityType, final List<Step> steps) {
+      this.entities = entities;
+      this.entityType = entityType;
+      this.steps = steps;
+    }
+  }
+
+  /** An expand item with the number of levels still to expand. */
+  private static final class Step {
+    private final ExpandItem item;
+    private final int levels;
+    /** Entities already expanded by this item, shared by all its levels. */
+    private final Set<ExpansionKey> expanded;
+
+    Step(final ExpandItem item, final int levels, final Set<ExpansionKey> expanded) {
+      this.item = item;
+      this.levels = levels;
+      this.expanded = expanded;
+    }
+  }
+
+  /** Identity of an entity combined with the name of a navigation property. */
+  private static final class ExpansionKey {
+    private final Entity entity;
+    private final String navigationProperty;
+
+    ExpansionKey(final Entity entity, final String navigationProperty) {
+      this.entity = entity;
+      this.navigationProperty = navigationProperty;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof ExpansionKey && entity == ((ExpansionKey) obj).entity
+          && navigationProperty.equals(((ExpansionKey) obj).navigationProperty);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(entity) + navigationProperty.hashCode();
+    }
+  }
+}
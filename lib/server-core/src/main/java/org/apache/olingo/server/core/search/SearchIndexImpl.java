@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.search.SearchIndex;
+import org.apache.olingo.server.api.uri.queryoption.SearchOption;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchBinary;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchBinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.search.SearchExpression;
+
+/**
+ * Inverted index mapping words to sorted posting lists of internal document numbers.
+ * <p>
+ * Document numbers are assigned in ascending order, so posting lists stay sorted by appending;
+ * search expressions are evaluated by merging posting lists.
+ * Removed documents are only marked as deleted; a posting list drops their numbers once they make up
+ * half of it, and all documents are renumbered once half of the document numbers are unused.
+ * Binary and date/time values are not indexed.
+ */
+public class SearchIndexImpl implements SearchIndex {
+
+  private static final int[] EMPTY = new int[0];
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Entity, Document> documents = new IdentityHashMap<Entity, Document>();
+  private final List<Entity> entities = new ArrayList<Entity>();
+  private final Map<String, Postings> postings = new HashMap<String, Postings>();
+  private final BitSet deleted = new BitSet();
+
+  @Override
+  public void index(final Entity entity) {
+    final Set<String> words = new LinkedHashSet<String>();
+    for (final Property property : entity.getProperties()) {
+      collectWords(property, words);
+    }
+
+    lock.writeLock().lock();
+    try {
+      removeDocument(documents.remove(entity));
+      compactIfSparse();
+      addDocument(entity, words.toArray(new String[words.size()]));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void remove(final Entity entity) {
+    lock.writeLock().lock();
+    try {
+      removeDocument(documents.remove(entity));
+      compactIfSparse();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      documents.clear();
+      entities.clear();
+      postings.clear();
+      deleted.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return documents.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<Entity> search(final SearchExpression expression) throws ODataApplicationException {
+    lock.readLock().lock();
+    try {
+      final int[] result = evaluate(expression);
+      final List<Entity> found = new ArrayList<Entity>(result.length);
+      for (final int number : result) {
+        found.add(entities.get(number));
+      }
+      return found;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void applySearchOption(final SearchOption searchOption, final EntityCollection entityCollection)
+      throws ODataApplicationException {
+    if (searchOption == null) {
+      return;
+    }
+    final Set<Entity> found = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+    found.addAll(search(searchOption.getSearchExpression()));
+    final Iterator<Entity> iterator = entityCollection.getEntities().iterator();
+    while (iterator.hasNext()) {
+      if (!found.contains(iterator.next())) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private int[] evaluate(final SearchExpression expression) throws ODataApplicationException {
+    if (expression.isSearchTerm()) {
+      return evaluateTerm(expression.asSearchTerm().getSearchTerm());
+    } else if (expression.isSearchUnary()) {
+      return complement(evaluate(expression.asSearchUnary().getOperand()));
+    } else if (expression.isSearchBinary()) {
+      final SearchBinary binary = expression.asSearchBinary();
+      if (binary.getOperator() == SearchBinaryOperatorKind.AND) {
+        final int[] left = evaluate(binary.getLeftOperand());
+        return left.length == 0 ? left : intersection(left, evaluate(binary.getRightOperand()));
+      } else if (binary.getOperator() == SearchBinaryOperatorKind.OR) {
+        return union(evaluate(binary.getLeftOperand()), evaluate(binary.getRightOperand()));
+      }
+      throw new ODataApplicationException("Found unknown SearchBinaryOperatorKind: " + binary.getOperator(),
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+    }
+    throw new ODataApplicationException("Found unknown SearchExpression: " + expression,
+        HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+  }
+
+  /** A term (word or phrase) matches documents containing all of its words. */
+  private int[] evaluateTerm(final String term) {
+    final Set<String> words = new LinkedHashSet<String>();
+    tokenize(term, words);
+    if (words.isEmpty()) {
+      return EMPTY;
+    }
+
+    // start with the shortest posting list to keep intermediate results small
+    final List<Postings> lists = new ArrayList<Postings>(words.size());
+    for (final String word : words) {
+      final Postings list = postings.get(word);
+      if (list == null) {
+        return EMPTY;
+      }
+      lists.add(list);
+    }
+    Postings shortest = lists.get(0);
+    for (final Postings list : lists) {
+      if (list.live() < shortest.live()) {
+        shortest = list;
+      }
+    }
+    int[] result = shortest.toArray(deleted);
+    for (final Postings list : lists) {
+      if (list != shortest && result.length > 0) {
+        result = intersection(result, list.toArray(deleted));
+      }
+    }
+    return result;
+  }
+
+  private void addDocument(final Entity entity, final String[] words) {
+    final int number = entities.size();
+    entities.add(entity);
+    documents.put(entity, new Document(number, words));
+    for (final String word : words) {
+      Postings list = postings.get(word);
+      if (list == null) {
+        list = new Postings();
+        postings.put(word, list);
+      }
+      list.add(number);
+    }
+  }
+
+  private void removeDocument(final Document document) {
+    if (document == null) {
+      return;
+    }
+    entities.set(document.number, null);
+    deleted.set(document.number);
+    for (final String word : document.words) {
+      final Postings list = postings.get(word);
+      list.deleted++;
+      if (list.live() == 0) {
+        postings.remove(word);
+      } else if (list.deleted * 2 > list.size) {
+        list.purge(deleted);
+      }
+    }
+  }
+
+  /** Renumbers all documents once more than half of the document numbers are unused. */
+  private void compactIfSparse() {
+    if (entities.size() < 1024 || documents.size() * 2 > entities.size()) {
+      return;
+    }
+    final List<Entity> live = new ArrayList<Entity>(documents.size());
+    for (final Entity entity : entities) {
+      if (entity != null) {
+        live.add(entity);
+      }
+    }
+    final Map<Entity, Document> old = new IdentityHashMap<Entity, Document>(documents);
+    documents.clear();
+    entities.clear();
+    postings.clear();
+    deleted.clear();
+    for (final Entity entity : live) {
+      addDocument(entity, old.get(entity).words);
+    }
+  }
+
+  private static void collectWords(final Property property, final Set<String> words) {
+    if (property.isNull()) {
+      return;
+    }
+    if (property.isCollection()) {
+      for (final Object value : property.asCollection()) {
+        collectValueWords(value, words);
+      }
+    } else {
+      collectValueWords(property.getValue(), words);
+    }
+  }
+
+  private static void collectValueWords(final Object value, final Set<String> words) {
+    if (value == null || value instanceof byte[] || value instanceof Calendar || value instanceof Date) {
+      return;
+    } else if (value instanceof ComplexValue) {
+      for (final Property property : ((ComplexValue) value).getValue()) {
+        collectWords(property, words);
+      }
+    } else if (value instanceof Property) {
+      collectWords((Property) value, words);
+    } else {
+      tokenize(value.toString(), words);
+    }
+  }
+
+  /** Splits a text into lower-case words consisting of letters and digits. */
+  static void tokenize(final String text, final Set<String> words) {
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      final boolean wordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordCharacter && start < 0) {
+        start = i;
+      } else if (!wordCharacter && start >= 0) {
+        words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+  }
+
+  static int[] intersection(final int[] left, final int[] right) {
+    final int[] result = new int[Math.min(left.length, right.length)];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < left.length && j < right.length) {
+      if (left[i] < right[j]) {
+        i++;
+      } else if (left[i] > right[j]) {
+        j++;
+      } else {
+        result[k++] = left[i];
+        i++;
+        j++;
+      }
+    }
+    return k == result.length ? result : Arrays.copyOf(result, k);
+  }
+
+  static int[] union(final int[] left, final int[] right) {
+    final int[] result = new int[left.length + right.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < left.length || j < right.length) {
+      if (j == right.length || i < left.length && left[i] < right[j]) {
+        result[k++] = left[i++];
+      } else if (i == left.length || right[j] < left[i]) {
+        result[k++] = right[j++];
+      } else {
+        result[k++] = left[i];
+        i++;
+        j++;
+      }
+    }
+    return k == result.length ? result : Arrays.copyOf(result, k);
+  }
+
+  /** All live document numbers except the given sorted ones, which must be live themselves. */
+  private int[] complement(final int[] excluded) {
+    final int[] result = new int[documents.size() - excluded.length];
+    int j = 0;
+    int k = 0;
+    for (int number = deleted.nextClearBit(0); number < entities.size(); number = deleted.nextClearBit(number + 1)) {
+      if (j < excluded.length && excluded[j] == number) {
+        j++;
+      } else {
+        result[k++] = number;
+      }
+    }
+    return result;
+  }
+
+  private static final class Document {
+    private final int number;
+    private final String[] words;
+
+    private Document(final int number, final String[] words) {
+      this.number = number;
+      this.words = words;
+    }
+  }
+
+  /** Sorted, growable list of document numbers, some of which may belong to deleted documents. */
+  private static final class Postings {
+    private int[] numbers = new int[4];
+    private int size;
+    private int deleted;
+
+    private void add(final int number) {
+      if (size == numbers.length) {
+        numbers = Arrays.copyOf(numbers, size * 2);
+      }
+      numbers[size++] = number;
+    }
+
+    private int live() {
+      return size - deleted;
+    }
+
+    /** Drops the numbers of deleted documents. */
+    private void purge(final BitSet deletedNumbers) {
+      size = filter(numbers, deletedNumbers);
+      deleted = 0;
+    }
+
+    private int[] toArray(final BitSet deletedNumbers) {
+      if (deleted == 0) {
+        return Arrays.copyOf(numbers, size);
+      }
+      final int[] result = new int[live()];
+      filter(result, deletedNumbers);
+      return result;
+    }
+
+    /** Moves the numbers not marked as deleted to the front of the array; returns their count. */
+    private int filter(final int[] target, final BitSet deletedNumbers) {
+      int k = 0;
+      for (int i = 0; i < size; i++) {
+        if (!deletedNumbers.get(numbers[i])) {
+          target[k++] = numbers[i];
+        }
+      }
+      return k;
+    }
+  }
+}
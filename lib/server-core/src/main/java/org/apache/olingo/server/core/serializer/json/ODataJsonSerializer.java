@@ -34,6 +34,7 @@ import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.IndexedList;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
 import org.apache.olingo.commons.api.data.Operation;
@@ -947,6 +948,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   }
 
   private Property findProperty(final String propertyName, final List<Property> properties) {
+    if (properties instanceof IndexedList) {
+      return ((IndexedList<Property>) properties).getByName(propertyName);
+    }
     for (final Property property : properties) {
       if (propertyName.equals(property.getName())) {
         return property;
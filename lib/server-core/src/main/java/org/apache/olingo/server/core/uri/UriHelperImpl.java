@@ -21,6 +21,7 @@ package org.apache.olingo.server.core.uri;
 import java.util.List;
 
 import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.IndexedList;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
@@ -126,6 +127,9 @@ public class UriHelperImpl implements UriHelper {
   }
 
   private Property findProperty(final String propertyName, final List<Property> properties) {
+    if (properties instanceof IndexedList) {
+      return ((IndexedList<Property>) properties).getByName(propertyName);
+    }
     for (final Property property : properties) {
       if (propertyName.equals(property.getName())) {
         return property;
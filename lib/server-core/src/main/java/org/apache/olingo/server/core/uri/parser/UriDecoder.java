@@ -19,7 +19,6 @@
 package org.apache.olingo.server.core.uri.parser;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.apache.olingo.commons.core.Decoder;
@@ -31,8 +30,9 @@ public class UriDecoder {
   /** Splits the path string at '/' characters and percent-decodes the resulting path segments. */
   protected static List<String> splitAndDecodePath(final String path) throws UriParserSyntaxException {
     List<String> pathSegmentsDecoded = new ArrayList<String>();
-    for (final String segment : split(path, '/')) {
-      pathSegmentsDecoded.add(decode(segment));
+    final UriDecodingTokenizer tokenizer = new UriDecodingTokenizer(path, '/');
+    while (tokenizer.next()) {
+      pathSegmentsDecoded.add(tokenizer.decode());
     }
     return pathSegmentsDecoded;
   }
@@ -45,39 +45,18 @@ public class UriDecoder {
   protected static List<QueryOption> splitAndDecodeOptions(final String queryOptionString)
       throws UriParserSyntaxException {
     List<QueryOption> queryOptions = new ArrayList<QueryOption>();
-    for (final String option : split(queryOptionString, '&')) {
-      final int pos = option.indexOf('=');
-      final String name = pos >= 0 ? option.substring(0, pos)  : option;
-      final String text = pos >= 0 ? option.substring(pos + 1) : "";
+    final UriDecodingTokenizer tokenizer = new UriDecodingTokenizer(queryOptionString, '&');
+    while (tokenizer.next()) {
+      final int pos = tokenizer.indexOf('=');
+      final int nameEnd = pos >= 0 ? pos : tokenizer.getEnd();
       //OLINGO-846 We trim the query option text to be more lenient to wrong uri constructors
       queryOptions.add(new CustomQueryOptionImpl()
-          .setName(decode(name).trim())
-          .setText(decode(text).trim()));
+          .setName(tokenizer.decodeTrimmed(tokenizer.getStart(), nameEnd))
+          .setText(pos >= 0 ? tokenizer.decodeTrimmed(pos + 1, tokenizer.getEnd()) : ""));
     }
     return queryOptions;
   }
 
-  /**
-   * Splits the input string at the given character.
-   * @param input string to split
-   * @param c character at which to split
-   * @return list of elements (can be empty)
-   */
-  private static List<String> split(final String input, final char c) {
-    List<String> list = new LinkedList<String>();
-
-    int start = 0;
-    int end;
-    while ((end = input.indexOf(c, start)) >= 0) {
-      list.add(input.substring(start, end));
-      start = end + 1;
-    }
-
-    list.add(input.substring(start));
-
-    return list;
-  }
-
   public static String decode(final String encoded) throws UriParserSyntaxException {
     try {
       return Decoder.decode(encoded);
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import org.apache.olingo.commons.core.Decoder;
+
+/**
+ * Splits a raw, still percent-encoded part of a URI at a separator character.
+ * <br/>
+ * The tokens are kept as index ranges over the raw input; {@link #decode(int, int)} creates a string only for the
+ * parts actually needed, and runs the percent-decoding only if such a part contains a percent-encoded character.
+ */
+final class UriDecodingTokenizer {
+
+  private final CharSequence raw;
+  private final char separator;
+  private final int length;
+
+  private int start = 0;
+  private int end = -1;
+
+  /**
+   * Creates a tokenizer.
+   * @param raw raw input
+   * @param separator character at which the input is split
+   */
+  UriDecodingTokenizer(final CharSequence raw, final char separator) {
+    this.raw = raw;
+    this.separator = separator;
+    length = raw.length();
+  }
+
+  /**
+   * Moves to the next token; as in splitting a string, an empty input or consecutive separators result in empty
+   * tokens.
+   * @return whether there has been a next token
+   */
+  boolean next() {
+    if (end >= length) {
+      return false;
+    }
+    start = end + 1;
+    end = indexOf(separator, start, length);
+    if (end < 0) {
+      end = length;
+    }
+    return true;
+  }
+
+  /** Returns the start index of the current token in the raw input. */
+  int getStart() {
+    return start;
+  }
+
+  /** Returns the end index (exclusive) of the current token in the raw input. */
+  int getEnd() {
+    return end;
+  }
+
+  /**
+   * Returns the index of the first occurrence of the given character in the current token.
+   * @return the index in the raw input or <code>-1</code> if the character does not occur
+   */
+  int indexOf(final char character) {
+    return indexOf(character, start, end);
+  }
+
+  /** Returns the percent-decoded current token. */
+  String decode() throws UriParserSyntaxException {
+    return decode(start, end);
+  }
+
+  /**
+   * Returns the percent-decoded text between the given indices of the raw input.
+   * @param from start index (inclusive)
+   * @param to end index (exclusive)
+   */
+  String decode(final int from, final int to) throws UriParserSyntaxException {
+    for (int i = from; i < to; i++) {
+      final char c = raw.charAt(i);
+      if (c == '%' || c > Byte.MAX_VALUE) {
+        // The decoder also rejects characters which should have been percent-encoded.
+        return UriDecoder.decode(raw.subSequence(from, to).toString());
+      }
+    }
+    return raw.subSequence(from, to).toString();
+  }
+
+  /**
+   * Returns the percent-decoded text between the given indices of the raw input without leading and trailing
+   * whitespace, as {@link String#trim()} would do on the result of {@link #decode(int, int)}.
+   * @param from start index (inclusive)
+   * @param to end index (exclusive)
+   */
+  String decodeTrimmed(final int from, final int to) throws UriParserSyntaxException {
+    int first = from;
+    int last = to;
+    while (first < last && raw.charAt(first) <= ' ') {
+      first++;
+    }
+    while (last > first && raw.charAt(last - 1) <= ' ') {
+      last--;
+    }
+    for (int i = first; i < last; i++) {
+      final char c = raw.charAt(i);
+      if (c == '%' || c > Byte.MAX_VALUE) {
+        // Whitespace could also be percent-encoded or be part of an incomplete encoding.
+        return UriDecoder.decode(raw.subSequence(from, to).toString()).trim();
+      }
+    }
+    return raw.subSequence(first, last).toString();
+  }
+
+  private int indexOf(final char character, final int from, final int to) {
+    for (int i = from; i < to; i++) {
+      if (raw.charAt(i) == character) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -723,8 +723,7 @@ public class UriTokenizer {
    */
   private boolean nextConstantIgnoreCase(final String constant) {
     final int length = constant.length();
-    if (index + length <= parseString.length()
-        && constant.equalsIgnoreCase(parseString.substring(index, index + length))) {
+    if (parseString.regionMatches(true, index, constant, 0, length)) {
       index += length;
       return true;
     } else {
@@ -1525,8 +1524,12 @@ public class UriTokenizer {
         break;
       }
     }
-    final String word = parseString.substring(index - count, index);
-    return count > 0 && !("OR".equals(word) || "AND".equals(word) || "NOT".equals(word));
+    return count > 0 && !(isWord("OR", count) || isWord("AND", count) || isWord("NOT", count));
+  }
+
+  /** Checks whether the given number of characters before the current index are equal to the given word. */
+  private boolean isWord(final String word, final int count) {
+    return count == word.length() && parseString.startsWith(word, index - count);
   }
 
   private boolean nextPhrase() {
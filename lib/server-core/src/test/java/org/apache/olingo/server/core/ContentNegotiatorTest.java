@@ -20,6 +20,7 @@ package org.apache.olingo.server.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
@@ -175,6 +176,48 @@ public class ContentNegotiatorTest {
     }
   }
 
+  @Test
+  public void repeatedNegotiation() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      serviceDocument();
+      metadata();
+      entityCollectionFail();
+    }
+  }
+
+  @Test
+  public void moreAcceptValuesThanCached() throws Exception {
+    for (int round = 0; round < 2; round++) {
+      for (int i = 1; i < 400; i++) {
+        ODataRequest request = new ODataRequest();
+        request.addHeader(HttpHeader.ACCEPT, Arrays.asList("application/json;q=" + (i / 1000.0)));
+        assertEquals(ContentType.JSON, ContentNegotiator.doContentNegotiation(
+            null, request, null, RepresentationType.ENTITY));
+        assertTrue(ContentNegotiator.getCacheSize() <= ContentNegotiator.MAX_CACHE_SIZE);
+      }
+    }
+    assertTrue(ContentNegotiator.getCacheSize() > 0);
+  }
+
+  @Test
+  public void modifiedSupportedContentTypes() throws Exception {
+    final List<ContentType> types = new ArrayList<ContentType>();
+    types.add(ContentType.create("a/a;x=y"));
+    CustomContentTypeSupport customContentTypeSupport = mock(CustomContentTypeSupport.class);
+    when(customContentTypeSupport.modifySupportedContentTypes(
+        anyListOf(ContentType.class), any(RepresentationType.class)))
+        .thenReturn(types);
+    ODataRequest request = new ODataRequest();
+    request.addHeader(HttpHeader.ACCEPT, Arrays.asList("a/a"));
+
+    assertEquals(ContentType.create("a/a;x=y"), ContentNegotiator.doContentNegotiation(
+        null, request, customContentTypeSupport, RepresentationType.ENTITY));
+
+    types.set(0, ContentType.create("a/a;v=w"));
+    assertEquals(ContentType.create("a/a;v=w"), ContentNegotiator.doContentNegotiation(
+        null, request, customContentTypeSupport, RepresentationType.ENTITY));
+  }
+
   private void testContentNegotiation(final String[] useCase, final RepresentationType representationType)
       throws ContentNegotiatorException {
 
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.expand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.expand.NavigationExpander;
+import org.apache.olingo.server.api.expand.NavigationLoader;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.core.uri.UriInfoImpl;
+import org.apache.olingo.server.core.uri.UriResourceNavigationPropertyImpl;
+import org.apache.olingo.server.core.uri.queryoption.ExpandItemImpl;
+import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.LevelsOptionImpl;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NavigationExpanderImplTest {
+
+  private EdmEntityType orderType;
+  private EdmEntityType personType;
+  private EdmNavigationProperty items;
+  private EdmNavigationProperty product;
+  private EdmNavigationProperty friends;
+  private final Map<String, List<Entity>> data = new HashMap<String, List<Entity>>();
+  private final Map<String, Integer> calls = new HashMap<String, Integer>();
+  private NavigationExpander expander;
+
+  @Before
+  public void setUp() {
+    EdmEntityType itemType = mock(EdmEntityType.class);
+    EdmEntityType productType = mock(EdmEntityType.class);
+    orderType = mock(EdmEntityType.class);
+    personType = mock(EdmEntityType.class);
+    items = navigation("Items", itemType, true);
+    product = navigation("Product", productType, false);
+    friends = navigation("Friends", personType, true);
+    when(orderType.getNavigationPropertyNames()).thenReturn(Collections.singletonList("Items"));
+    when(orderType.getNavigationProperty("Items")).thenReturn(items);
+
+    expander = new NavigationExpanderImpl(new NavigationLoader() {
+      @Override
+      public List<EntityCollection> loadNavigation(final EdmNavigationProperty navigationProperty,
+          final List<Entity> sources) throws ODataApplicationException {
+        Integer count = calls.get(navigationProperty.getName());
+        calls.put(navigationProperty.getName(), count == null ? 1 : count + 1);
+        List<EntityCollection> result = new ArrayList<EntityCollection>();
+        for (Entity source : sources) {
+          EntityCollection collection = new EntityCollection();
+          List<Entity> targets = data.get(source.getProperty("ID").getValue() + "/" + navigationProperty.getName());
+          if (targets != null) {
+            collection.getEntities().addAll(targets);
+          }
+          result.add(collection);
+        }
+        return result;
+      }
+    });
+  }
+
+  @Test
+  public void oneLoadPerLevel() throws Exception {
+    Entity hammer = entity("P1");
+    Entity saw = entity("P2");
+    EntityCollection orders = new EntityCollection();
+    for (int i = 0; i < 100; i++) {
+      Entity order = entity("O" + i);
+      orders.getEntities().add(order);
+      Entity first = entity("I" + i + "a");
+      Entity second = entity("I" + i + "b");
+      data.put("O" + i + "/Items", Arrays.asList(first, second));
+      data.put("I" + i + "a/Product", Collections.singletonList(hammer));
+      data.put("I" + i + "b/Product", Collections.singletonList(i % 2 == 0 ? saw : hammer));
+    }
+
+    ExpandItemImpl productItem = item(product);
+    ExpandItemImpl itemsItem = item(items).setSystemQueryOption(new ExpandOptionImpl().addExpandItem(productItem));
+    expander.expand(orders, orderType, new ExpandOptionImpl().addExpandItem(itemsItem));
+
+    assertEquals(Integer.valueOf(1), calls.get("Items"));
+    assertEquals(Integer.valueOf(1), calls.get("Product"));
+    Entity order = orders.getEntities().get(4);
+    List<Entity> orderItems = order.getNavigationLink("Items").getInlineEntitySet().getEntities();
+    assertEquals(2, orderItems.size());
+    assertSame(hammer, orderItems.get(0).getNavigationLink("Product").getInlineEntity());
+    assertSame(saw, orderItems.get(1).getNavigationLink("Product").getInlineEntity());
+  }
+
+  @Test
+  public void star() throws Exception {
+    Entity order = entity("O1");
+    expander.expand(order, orderType, new ExpandOptionImpl().addExpandItem(new ExpandItemImpl().setIsStar(true)));
+    assertEquals(Integer.valueOf(1), calls.get("Items"));
+    assertEquals(0, order.getNavigationLink("Items").getInlineEntitySet().getEntities().size());
+  }
+
+  @Test
+  public void levels() throws Exception {
+    Entity a = entity("A");
+    Entity b = entity("B");
+    Entity c = entity("C");
+    data.put("A/Friends", Collections.singletonList(b));
+    data.put("B/Friends", Arrays.asList(a, c));
+    data.put("C/Friends", Collections.singletonList(a));
+
+    ExpandOption max = new ExpandOptionImpl()
+        .addExpandItem(item(friends).setSystemQueryOption(new LevelsOptionImpl().setMax()));
+    expander.expand(a, personType, max);
+    // A, then B, then C; A is not loaded a second time
+    assertEquals(Integer.valueOf(3), calls.get("Friends"));
+    assertSame(b, a.getNavigationLink("Friends").getInlineEntitySet().getEntities().get(0));
+    assertSame(a, c.getNavigationLink("Friends").getInlineEntitySet().getEntities().get(0));
+
+    Entity other = entity("C");
+    calls.clear();
+    expander.expand(other, personType, new ExpandOptionImpl()
+        .addExpandItem(item(friends).setSystemQueryOption(new LevelsOptionImpl().setValue(1))));
+    assertEquals(Integer.valueOf(1), calls.get("Friends"));
+    assertSame(a, other.getNavigationLink("Friends").getInlineEntitySet().getEntities().get(0));
+  }
+
+  private static EdmNavigationProperty navigation(final String name, final EdmEntityType type,
+      final boolean isCollection) {
+    EdmNavigationProperty property = mock(EdmNavigationProperty.class);
+    when(property.getName()).thenReturn(name);
+    when(property.getType()).thenReturn(type);
+    when(property.isCollection()).thenReturn(isCollection);
+    return property;
+  }
+
+  private static ExpandItemImpl item(final EdmNavigationProperty property) {
+    return new ExpandItemImpl().setResourcePath(
+        new UriInfoImpl().addResourcePart(new UriResourceNavigationPropertyImpl(property)));
+  }
+
+  private static Entity entity(final String id) {
+    return new Entity().addProperty(new Property(null, "ID", ValueType.PRIMITIVE, id));
+  }
+}
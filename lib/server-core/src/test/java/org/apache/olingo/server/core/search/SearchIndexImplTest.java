@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.server.api.search.SearchIndex;
+import org.apache.olingo.server.api.uri.queryoption.SearchOption;
+import org.apache.olingo.server.core.uri.parser.search.SearchParser;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchIndexImplTest {
+
+  private SearchIndex index;
+  private Entity red;
+  private Entity green;
+  private Entity blue;
+
+  @Before
+  public void setUp() {
+    index = new SearchIndexImpl();
+    red = entity(1, "Red apple", "Fruit");
+    green = entity(2, "Green apple", "fruit");
+    blue = entity(3, "Blue whale", "Animal");
+    index.index(red);
+    index.index(green);
+    index.index(blue);
+  }
+
+  @Test
+  public void terms() throws Exception {
+    assertEquals(Arrays.asList(red, green), search("apple"));
+    assertEquals(Arrays.asList(red, green), search("FRUIT"));
+    assertEquals(Arrays.asList(green), search("\"green apple\""));
+    assertTrue(search("pear").isEmpty());
+  }
+
+  @Test
+  public void expressions() throws Exception {
+    assertEquals(Arrays.asList(red), search("apple AND red"));
+    assertEquals(Arrays.asList(red, blue), search("red OR whale"));
+    assertEquals(Arrays.asList(blue), search("NOT apple"));
+    assertEquals(Arrays.asList(green, blue), search("NOT red"));
+    assertEquals(Arrays.asList(red, green), search("fruit AND (red OR green)"));
+  }
+
+  @Test
+  public void updates() throws Exception {
+    green.getProperty("Name").setValue(ValueType.PRIMITIVE, "Green pear");
+    index.index(green);
+    assertEquals(Arrays.asList(red), search("apple"));
+    assertEquals(Arrays.asList(green), search("pear"));
+
+    index.remove(red);
+    assertEquals(2, index.size());
+    assertTrue(search("apple").isEmpty());
+    assertEquals(Arrays.asList(blue, green), search("NOT fruit OR pear"));
+
+    index.clear();
+    assertEquals(0, index.size());
+    assertTrue(search("whale").isEmpty());
+  }
+
+  @Test
+  public void compaction() throws Exception {
+    for (int i = 0; i < 3000; i++) {
+      index.index(entity(10 + i, "Item", "Stock"));
+    }
+    for (int i = 0; i < 5; i++) {
+      index.index(red);
+      index.index(green);
+      index.index(blue);
+    }
+    final List<Entity> items = search("item");
+    assertEquals(3000, items.size());
+    for (int i = 0; i < 2000; i++) {
+      index.remove(items.get(i));
+    }
+    assertEquals(1003, index.size());
+    assertEquals(items.subList(2000, 3000), search("stock"));
+    assertEquals(Arrays.asList(red, green), search("apple"));
+  }
+
+  @Test
+  public void repeatedUpdates() throws Exception {
+    // stays below the renumbering threshold, so only the posting lists drop deleted numbers
+    for (int i = 0; i < 300; i++) {
+      index.index(green);
+      index.index(blue);
+      assertEquals(Arrays.asList(red, green), search("fruit"));
+    }
+    assertEquals(3, index.size());
+    assertEquals(Arrays.asList(red, green, blue), search("apple OR whale"));
+    assertEquals(Arrays.asList(green, blue), search("NOT red"));
+    assertEquals(Arrays.asList(red), search("NOT green AND NOT blue"));
+
+    index.remove(green);
+    assertEquals(Arrays.asList(blue), search("NOT apple"));
+    assertEquals(Arrays.asList(red), search("NOT whale"));
+  }
+
+  @Test
+  public void applySearchOption() throws Exception {
+    final Entity notIndexed = entity(4, "Red car", "Vehicle");
+    final EntityCollection collection = new EntityCollection();
+    collection.getEntities().addAll(Arrays.asList(blue, notIndexed, red, green));
+    final SearchOption option = new SearchParser().parse("red OR blue");
+    index.applySearchOption(option, collection);
+    assertEquals(Arrays.asList(blue, red), collection.getEntities());
+
+    index.applySearchOption(null, collection);
+    assertEquals(2, collection.getEntities().size());
+  }
+
+  private List<Entity> search(final String query) throws Exception {
+    return index.search(new SearchParser().parse(query).getSearchExpression());
+  }
+
+  private Entity entity(final int id, final String name, final String category) {
+    final ComplexValue details = new ComplexValue();
+    details.getValue().add(new Property(null, "Category", ValueType.PRIMITIVE, category));
+    return new Entity()
+        .addProperty(new Property(null, "Id", ValueType.PRIMITIVE, id))
+        .addProperty(new Property(null, "Name", ValueType.PRIMITIVE, name))
+        .addProperty(new Property(null, "Details", ValueType.COMPLEX, details))
+        .addProperty(new Property(null, "Binary", ValueType.PRIMITIVE, new byte[] { 'r', 'e', 'd' }));
+  }
+}
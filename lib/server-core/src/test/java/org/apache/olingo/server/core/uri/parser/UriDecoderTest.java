@@ -74,6 +74,16 @@ public class UriDecoderTest {
 
     checkOption("a%62c=d%65f", "abc", "def");
     checkOption("a='%26%3D'", "a", "'&='");
+
+    checkOption(" a = b ", "a", "b");
+    checkOption("a=%20b%09", "a", "b");
+    checkOption("a=b%20c&d", "a", "b c");
+    checkOption("a=b=c", "a", "b=c");
+  }
+
+  @Test(expected = UriParserSyntaxException.class)
+  public void notEncodedCharacter() throws Exception {
+    UriDecoder.splitAndDecodeOptions("a=\u00e4");
   }
 
   @Test(expected = UriParserSyntaxException.class)
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.jdbc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps an entity set to a database table. Properties are mapped to columns of the same name unless
+ * a different column is configured; navigation properties are mapped to a join condition between a
+ * column of this table and a column of the table of the target entity set.
+ */
+public class EntitySetMapping {
+
+  private final String entitySetName;
+  private final String table;
+  private final Map<String, String> columns = new HashMap<String, String>();
+  private final Map<String, NavigationMapping> navigations = new HashMap<String, NavigationMapping>();
+
+  /**
+   * @param entitySetName name of the entity set
+   * @param table name of the table, as it should appear in SQL statements
+   */
+  public EntitySetMapping(final String entitySetName, final String table) {
+    this.entitySetName = entitySetName;
+    this.table = table;
+  }
+
+  public String getEntitySetName() {
+    return entitySetName;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * Maps a property to a column.
+   * @param property name of the primitive property
+   * @param column name of the column, as it should appear in SQL statements
+   * @return this mapping
+   */
+  public EntitySetMapping column(final String property, final String column) {
+    columns.put(property, column);
+    return this;
+  }
+
+  /**
+   * Gets the column a property is mapped to.
+   * @param property name of the primitive property
+   * @return the configured column, or the property name if none has been configured
+   */
+  public String getColumn(final String property) {
+    final String column = columns.get(property);
+    return column == null ? property : column;
+  }
+
+  /**
+   * Maps a navigation property to the join condition
+   * <code>sourceColumn = targetColumn</code> between this table and the table of the target entity set.
+   * @param navigationProperty name of the navigation property
+   * @param sourceColumn column of this table
+   * @param targetColumn column of the table of the target entity set
+   * @return this mapping
+   */
+  public EntitySetMapping navigation(final String navigationProperty, final String sourceColumn,
+      final String targetColumn) {
+    navigations.put(navigationProperty, new NavigationMapping(sourceColumn, targetColumn));
+    return this;
+  }
+
+  /**
+   * Gets the join condition of a navigation property.
+   * @param navigationProperty name of the navigation property
+   * @return the mapping, or <code>null</code> if the navigation property has not been mapped
+   */
+  public NavigationMapping getNavigation(final String navigationProperty) {
+    return navigations.get(navigationProperty);
+  }
+
+  /**
+   * Join condition of a navigation property.
+   */
+  public static class NavigationMapping {
+    private final String sourceColumn;
+    private final String targetColumn;
+
+    NavigationMapping(final String sourceColumn, final String targetColumn) {
+      this.sourceColumn = sourceColumn;
+      this.targetColumn = targetColumn;
+    }
+
+    public String getSourceColumn() {
+      return sourceColumn;
+    }
+
+    public String getTargetColumn() {
+      return targetColumn;
+    }
+  }
+}
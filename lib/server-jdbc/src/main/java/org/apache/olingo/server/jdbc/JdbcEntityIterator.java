@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.jdbc;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.server.jdbc.SqlQuery.ExpandQuery;
+
+/**
+ * Streams the rows of a query result as entities.
+ * <p>
+ * Rows are read in batches; the targets of expanded navigation properties are loaded with one query
+ * per batch and expanded navigation property. The statement and the connection are closed as soon as
+ * the last row has been read; {@link #close()} releases them earlier.
+ */
+public class JdbcEntityIterator extends EntityIterator implements Closeable {
+
+  private final Connection connection;
+  private final PreparedStatement statement;
+  private final ResultSet resultSet;
+  private final SqlQuery query;
+  private final int batchSize;
+  private final Queue<Entity> buffer = new ArrayDeque<Entity>();
+  private boolean closed;
+
+  JdbcEntityIterator(final Connection connection, final PreparedStatement statement, final ResultSet resultSet,
+      final SqlQuery query, final int batchSize) {
+    this.connection = connection;
+    this.statement = statement;
+    this.resultSet = resultSet;
+    this.query = query;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (buffer.isEmpty() && !closed) {
+      try {
+        fillBuffer();
+      } catch (final SQLException e) {
+        close();
+        throw new ODataRuntimeException("Reading entities from the database failed.", e);
+      }
+      if (buffer.isEmpty()) {
+        close();
+      }
+    }
+    return !buffer.isEmpty();
+  }
+
+  @Override
+  public Entity next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return buffer.poll();
+  }
+
+  /**
+   * Closes the result set, the statement and the connection; further calls have no effect.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      resultSet.close();
+      statement.close();
+    } catch (final SQLException e) {
+      // ignore, the connection is closed anyway
+    } finally {
+      try {
+        connection.close();
+      } catch (final SQLException e) {
+        // ignore
+      }
+    }
+  }
+
+  private void fillBuffer() throws SQLException {
+    final List<ExpandQuery> expands = query.getExpands();
+    final List<Entity> entities = new ArrayList<Entity>(expands.isEmpty() ? 0 : batchSize);
+    final List<Object[]> joinValues = new ArrayList<Object[]>();
+    int rows = 0;
+    while (rows < batchSize && resultSet.next()) {
+      final Entity entity = createEntity(resultSet, query.getEntitySet(), query.getProperties());
+      buffer.add(entity);
+      if (!expands.isEmpty()) {
+        entities.add(entity);
+        final Object[] values = new Object[expands.size()];
+        for (int i = 0; i < values.length; i++) {
+          values[i] = resultSet.getObject(expands.get(i).getSourceColumnIndex());
+        }
+        joinValues.add(values);
+      }
+      rows++;
+    }
+    for (int i = 0; i < expands.size() && !entities.isEmpty(); i++) {
+      expand(expands.get(i), i, entities, joinValues);
+    }
+  }
+
+  private void expand(final ExpandQuery expand, final int index, final List<Entity> entities,
+      final List<Object[]> joinValues) throws SQLException {
+    final Set<Object> keys = new LinkedHashSet<Object>();
+    for (final Object[] values : joinValues) {
+      if (values[index] != null) {
+        keys.add(values[index]);
+      }
+    }
+    final Map<String, List<Entity>> targets = new HashMap<String, List<Entity>>();
+    if (!keys.isEmpty()) {
+      final List<EdmProperty> properties = expand.getTargetProperties();
+      final PreparedStatement expandStatement = connection.prepareStatement(expand.getSql(keys.size()));
+      try {
+        SqlQuery.bind(expandStatement, new ArrayList<Object>(keys), 1);
+        final ResultSet rows = expandStatement.executeQuery();
+        try {
+          while (rows.next()) {
+            final String key = String.valueOf(rows.getObject(properties.size() + 1));
+            List<Entity> list = targets.get(key);
+            if (list == null) {
+              list = new ArrayList<Entity>();
+              targets.put(key, list);
+            }
+            list.add(createEntity(rows, expand.getTargetEntitySet(), properties));
+          }
+        } finally {
+          rows.close();
+        }
+      } finally {
+        expandStatement.close();
+      }
+    }
+
+    final boolean isCollection = expand.getNavigation().isCollection();
+    for (int i = 0; i < entities.size(); i++) {
+      final Object value = joinValues.get(i)[index];
+      final List<Entity> related = value == null ? null : targets.get(String.valueOf(value));
+      final Link link = new Link();
+      link.setTitle(expand.getNavigation().getName());
+      if (isCollection) {
+        final EntityCollection inline = new EntityCollection();
+        if (related != null) {
+          inline.getEntities().addAll(related);
+        }
+        link.setInlineEntitySet(inline);
+      } else {
+        link.setInlineEntity(related == null ? null : related.get(0));
+      }
+      entities.get(i).getNavigationLinks().add(link);
+    }
+  }
+
+  private static Entity createEntity(final ResultSet row, final EdmEntitySet entitySet,
+      final List<EdmProperty> properties) throws SQLException {
+    final Entity entity = new Entity();
+    entity.setType(entitySet.getEntityType().getFullQualifiedName().getFullQualifiedNameAsString());
+    for (int i = 0; i < properties.size(); i++) {
+      final EdmProperty property = properties.get(i);
+      entity.addProperty(new Property(property.getType().getFullQualifiedName().getFullQualifiedNameAsString(),
+          property.getName(), ValueType.PRIMITIVE, readValue(row, i + 1, property)));
+    }
+    entity.setId(createId(entity, entitySet));
+    return entity;
+  }
+
+  private static Object readValue(final ResultSet row, final int column, final EdmProperty property)
+      throws SQLException {
+    final EdmPrimitiveTypeKind kind =
+        EdmPrimitiveTypeKind.valueOfFQN(property.getType().getFullQualifiedName());
+    if (kind == EdmPrimitiveTypeKind.Binary || kind == EdmPrimitiveTypeKind.Stream) {
+      return row.getBytes(column);
+    }
+    final Object value = row.getObject(column);
+    return kind == EdmPrimitiveTypeKind.Guid && value instanceof String ? UUID.fromString((String) value) : value;
+  }
+
+  private static URI createId(final Entity entity, final EdmEntitySet entitySet) {
+    final List<EdmKeyPropertyRef> keyRefs = entitySet.getEntityType().getKeyPropertyRefs();
+    final StringBuilder id = new StringBuilder(entitySet.getName()).append('(');
+    try {
+      for (int i = 0; i < keyRefs.size(); i++) {
+        final EdmProperty property = keyRefs.get(i).getProperty();
+        final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+        final Property keyProperty = entity.getProperty(property.getName());
+        final String literal = type.toUriLiteral(type.valueToString(keyProperty == null ? null : keyProperty.getValue(),
+            property.isNullable(), property.getMaxLength(), property.getPrecision(), property.getScale(),
+            property.isUnicode()));
+        if (keyRefs.size() > 1) {
+          id.append(i == 0 ? "" : ",").append(keyRefs.get(i).getName()).append('=');
+        }
+        id.append(literal);
+      }
+      return URI.create(id.append(')').toString());
+    } catch (final EdmPrimitiveTypeException e) {
+      return null;
+    } catch (final IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+
+/**
+ * Reads entities from a relational database, pushing the query options of the request down into SQL.
+ * <p>
+ * The result of {@link #readEntityCollection(EdmEntitySet, UriInfoResource)} is meant to be handed to
+ * <code>ODataSerializer.entityCollectionStreamed</code>, so that rows travel from the database to the
+ * response without the whole collection being materialized.
+ */
+public class JdbcEntityProvider {
+
+  /** Default number of rows read ahead and expanded together. */
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  private final DataSource dataSource;
+  private final SqlQueryBuilder queryBuilder;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  public JdbcEntityProvider(final DataSource dataSource, final JdbcMapping mapping) {
+    this(dataSource, new SqlQueryBuilder(mapping));
+  }
+
+  /**
+   * @param dataSource the database
+   * @param queryBuilder the query builder, e.g. one adapted to the SQL dialect of the database
+   */
+  public JdbcEntityProvider(final DataSource dataSource, final SqlQueryBuilder queryBuilder) {
+    this.dataSource = dataSource;
+    this.queryBuilder = queryBuilder;
+  }
+
+  public SqlQueryBuilder getQueryBuilder() {
+    return queryBuilder;
+  }
+
+  /**
+   * Sets the number of rows read ahead; this is also the maximum number of keys in the queries loading
+   * expanded navigation properties.
+   */
+  public void setBatchSize(final int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive.");
+    }
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Reads the entities addressed by the request. The connection stays open until the returned iterator
+   * has been consumed or closed. If the request asks for <code>$count</code>, the count is set on the
+   * iterator.
+   */
+  public JdbcEntityIterator readEntityCollection(final EdmEntitySet entitySet, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    final SqlQuery query = queryBuilder.buildSelect(entitySet, uriInfo);
+    Connection connection = null;
+    PreparedStatement statement = null;
+    try {
+      connection = dataSource.getConnection();
+      Integer count = null;
+      if (uriInfo.getCountOption() != null && uriInfo.getCountOption().getValue()) {
+        count = count(connection, queryBuilder.buildCount(entitySet, uriInfo));
+      }
+      statement = query.prepare(connection);
+      statement.setFetchSize(batchSize);
+      final JdbcEntityIterator iterator =
+          new JdbcEntityIterator(connection, statement, statement.executeQuery(), query, batchSize);
+      iterator.setCount(count);
+      return iterator;
+    } catch (final SQLException e) {
+      close(statement, connection);
+      throw databaseError(e);
+    } catch (final RuntimeException e) {
+      close(statement, connection);
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the single entity addressed by the key predicates of the request.
+   * @return the entity, or <code>null</code> if there is none
+   */
+  public Entity readEntity(final EdmEntitySet entitySet, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    final JdbcEntityIterator iterator = readEntityCollection(entitySet, uriInfo);
+    try {
+      return iterator.hasNext() ? iterator.next() : null;
+    } finally {
+      iterator.close();
+    }
+  }
+
+  /**
+   * Counts the entities addressed by the request.
+   */
+  public int count(final EdmEntitySet entitySet, final UriInfoResource uriInfo) throws ODataApplicationException {
+    final SqlQuery query = queryBuilder.buildCount(entitySet, uriInfo);
+    Connection connection = null;
+    try {
+      connection = dataSource.getConnection();
+      return count(connection, query);
+    } catch (final SQLException e) {
+      throw databaseError(e);
+    } finally {
+      close(null, connection);
+    }
+  }
+
+  private static int count(final Connection connection, final SqlQuery query) throws SQLException {
+    final PreparedStatement statement = query.prepare(connection);
+    try {
+      final ResultSet resultSet = statement.executeQuery();
+      try {
+        resultSet.next();
+        return resultSet.getInt(1);
+      } finally {
+        resultSet.close();
+      }
+    } finally {
+      statement.close();
+    }
+  }
+
+  private static void close(final PreparedStatement statement, final Connection connection) {
+    try {
+      if (statement != null) {
+        statement.close();
+      }
+    } catch (final SQLException e) {
+      // ignore
+    }
+    try {
+      if (connection != null) {
+        connection.close();
+      }
+    } catch (final SQLException e) {
+      // ignore
+    }
+  }
+
+  private static ODataApplicationException databaseError(final SQLException e) {
+    return new ODataApplicationException("Database access failed.",
+        HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.jdbc;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Mapping of the entity sets of a service to database tables.
+ */
+public class JdbcMapping {
+
+  private final Map<String, EntitySetMapping> entitySets = new HashMap<String, EntitySetMapping>();
+
+  /**
+   * Adds the mapping of an entity set; an existing mapping for the same entity set is replaced.
+   * @return this mapping
+   */
+  public JdbcMapping add(final EntitySetMapping mapping) {
+    entitySets.put(mapping.getEntitySetName(), mapping);
+    return this;
+  }
+
+  /**
+   * Gets the mapping of an entity set.
+   * @param entitySetName name of the entity set
+   * @return the mapping
+   * @throws ODataApplicationException if the entity set has not been mapped
+   */
+  public EntitySetMapping get(final String entitySetName) throws ODataApplicationException {
+    final EntitySetMapping mapping = entitySets.get(entitySetName);
+    if (mapping == null) {
+      throw new ODataApplicationException("Entity set " + entitySetName + " is not mapped to a table.",
+          HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+    }
+    return mapping;
+  }
+}
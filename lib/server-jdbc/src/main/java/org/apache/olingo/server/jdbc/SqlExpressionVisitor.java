@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.jdbc;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * Translates <code>$filter</code> and <code>$orderby</code> expressions into SQL.
+ * All literals become statement parameters; expressions without an SQL equivalent are rejected
+ * with status 501 so that they are never evaluated incorrectly.
+ * <br/>
+ * SQL comparisons involving NULL are <i>unknown</i>, which a WHERE clause treats like <code>false</code>;
+ * that matches OData for <code>gt</code>, <code>lt</code>, etc. Where it does not, i.e., for <code>eq</code>
+ * and <code>ne</code> (in OData, null equals null and differs from every value) and for <code>not</code>
+ * (which would keep an unknown operand unknown), nullable operands are handled explicitly.
+ */
+class SqlExpressionVisitor implements ExpressionVisitor<SqlExpressionVisitor.SqlFragment> {
+
+  private static final char LIKE_ESCAPE = '\\';
+
+  private final EntitySetMapping mapping;
+
+  SqlExpressionVisitor(final EntitySetMapping mapping) {
+    this.mapping = mapping;
+  }
+
+  @Override
+  public SqlFragment visitBinaryOperator(final BinaryOperatorKind operator, final SqlFragment left,
+      final SqlFragment right) throws ExpressionVisitException, ODataApplicationException {
+    switch (operator) {
+    case AND:
+      return SqlFragment.join("(", left, " AND ", right, ")");
+    case OR:
+      return SqlFragment.join("(", left, " OR ", right, ")");
+    case EQ:
+    case NE:
+      if (left.isNull() || right.isNull()) {
+        final SqlFragment operand = left.isNull() ? right : left;
+        return SqlFragment.join("(", operand, operator == BinaryOperatorKind.EQ ? " IS NULL)" : " IS NOT NULL)")
+            .notNullable();
+      }
+      return operator == BinaryOperatorKind.EQ ? equal(left, right) : notEqual(left, right);
+    case GT:
+      return SqlFragment.join("(", left, " > ", right, ")");
+    case GE:
+      return SqlFragment.join("(", left, " >= ", right, ")");
+    case LT:
+      return SqlFragment.join("(", left, " < ", right, ")");
+    case LE:
+      return SqlFragment.join("(", left, " <= ", right, ")");
+    case ADD:
+      return SqlFragment.join("(", left, " + ", right, ")");
+    case SUB:
+      return SqlFragment.join("(", left, " - ", right, ")");
+    case MUL:
+      return SqlFragment.join("(", left, " * ", right, ")");
+    case DIV:
+      return SqlFragment.join("(", left, " / ", right, ")");
+    case MOD:
+      return SqlFragment.join("MOD(", left, ", ", right, ")");
+    default:
+      throw notImplemented("Operator " + operator);
+    }
+  }
+
+  @Override
+  public SqlFragment visitUnaryOperator(final UnaryOperatorKind operator, final SqlFragment operand)
+      throws ExpressionVisitException, ODataApplicationException {
+    if (operator == UnaryOperatorKind.NOT) {
+      // NOT keeps an unknown operand unknown, but the operand is false in OData, so its negation is true
+      return operand.isNullable() ?
+          SqlFragment.join("(CASE WHEN ", operand, " THEN 1 ELSE 0 END = 0)").notNullable() :
+          SqlFragment.join("(NOT ", operand, ")");
+    }
+    return SqlFragment.join("(- ", operand, ")");
+  }
+
+  private static SqlFragment equal(final SqlFragment left, final SqlFragment right) {
+    if (left.isNullable() && right.isNullable()) {
+      return SqlFragment.join("(", left, " = ", right, " OR (", left, " IS NULL AND ", right, " IS NULL))")
+          .notNullable();
+    }
+    // a NULL operand compared with a value is unknown, i.e. not selected, just like false in OData
+    return SqlFragment.join("(", left, " = ", right, ")");
+  }
+
+  private static SqlFragment notEqual(final SqlFragment left, final SqlFragment right) {
+    if (left.isNullable() && right.isNullable()) {
+      return SqlFragment.join("(", left, " <> ", right,
+          " OR (", left, " IS NULL AND ", right, " IS NOT NULL)",
+          " OR (", left, " IS NOT NULL AND ", right, " IS NULL))").notNullable();
+    } else if (left.isNullable() || right.isNullable()) {
+      return SqlFragment.join("(", left, " <> ", right, " OR ", left.isNullable() ? left : right, " IS NULL)")
+          .notNullable();
+    }
+    return SqlFragment.join("(", left, " <> ", right, ")");
+  }
+
+  @Override
+  public SqlFragment visitMethodCall(final MethodKind methodCall, final List<SqlFragment> parameters)
+      throws ExpressionVisitException, ODataApplicationException {
+    switch (methodCall) {
+    case CONTAINS:
+      return like(parameters.get(0), parameters.get(1), true, true);
+    case STARTSWITH:
+      return like(parameters.get(0), parameters.get(1), false, true);
+    case ENDSWITH:
+      return like(parameters.get(0), parameters.get(1), true, false);
+    case TOLOWER:
+      return SqlFragment.join("LOWER(", parameters.get(0), ")");
+    case TOUPPER:
+      return SqlFragment.join("UPPER(", parameters.get(0), ")");
+    case TRIM:
+      return SqlFragment.join("TRIM(", parameters.get(0), ")");
+    case LENGTH:
+      return SqlFragment.join("CHAR_LENGTH(", parameters.get(0), ")");
+    case CONCAT:
+      return SqlFragment.join("(", parameters.get(0), " || ", parameters.get(1), ")");
+    case INDEXOF:
+      return SqlFragment.join("(POSITION(", parameters.get(1), " IN ", parameters.get(0), ") - 1)");
+    case SUBSTRING:
+      return parameters.size() == 2 ?
+          SqlFragment.join("SUBSTRING(", parameters.get(0), " FROM ", parameters.get(1), " + 1)") :
+          SqlFragment.join("SUBSTRING(", parameters.get(0), " FROM ", parameters.get(1), " + 1 FOR ",
+              parameters.get(2), ")");
+    case YEAR:
+      return SqlFragment.join("EXTRACT(YEAR FROM ", parameters.get(0), ")");
+    case MONTH:
+      return SqlFragment.join("EXTRACT(MONTH FROM ", parameters.get(0), ")");
+    case DAY:
+      return SqlFragment.join("EXTRACT(DAY FROM ", parameters.get(0), ")");
+    case HOUR:
+      return SqlFragment.join("EXTRACT(HOUR FROM ", parameters.get(0), ")");
+    case MINUTE:
+      return SqlFragment.join("EXTRACT(MINUTE FROM ", parameters.get(0), ")");
+    case SECOND:
+      return SqlFragment.join("EXTRACT(SECOND FROM ", parameters.get(0), ")");
+    case ROUND:
+      return SqlFragment.join("ROUND(", parameters.get(0), ")");
+    case FLOOR:
+      return SqlFragment.join("FLOOR(", parameters.get(0), ")");
+    case CEILING:
+      return SqlFragment.join("CEILING(", parameters.get(0), ")");
+    default:
+      throw notImplemented("Method " + methodCall);
+    }
+  }
+
+  private SqlFragment like(final SqlFragment value, final SqlFragment pattern, final boolean wildcardBefore,
+      final boolean wildcardAfter) throws ODataApplicationException {
+    if (pattern.isLiteral() && pattern.getLiteralValue() instanceof String) {
+      final String escaped = escapeLike((String) pattern.getLiteralValue());
+      return SqlFragment.join("(", value, " LIKE ",
+          SqlFragment.parameter((wildcardBefore ? "%" : "") + escaped + (wildcardAfter ? "%" : "")),
+          " ESCAPE '" + LIKE_ESCAPE + "')");
+    }
+    throw notImplemented("Non-literal search pattern");
+  }
+
+  private static String escapeLike(final String value) {
+    final StringBuilder result = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+        result.append(LIKE_ESCAPE);
+      }
+      result.append(c);
+    }
+    return result.toString();
+  }
+
+  @Override
+  public SqlFragment visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Lambda expression");
+  }
+
+  @Override
+  public SqlFragment visitLiteral(final Literal literal) throws ExpressionVisitException, ODataApplicationException {
+    final EdmType type = literal.getType();
+    if (type == null) {
+      return SqlFragment.NULL;
+    }
+    if (!(type instanceof EdmPrimitiveType)) {
+      throw notImplemented("Literal of type " + type.getName());
+    }
+    return SqlFragment.parameter(toJdbcValue((EdmPrimitiveType) type, literal.getText()));
+  }
+
+  static Object toJdbcValue(final EdmPrimitiveType type, final String literal) throws ODataApplicationException {
+    final EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName());
+    final Class<?> returnType = kind == EdmPrimitiveTypeKind.Date ? java.sql.Date.class :
+        kind == EdmPrimitiveTypeKind.DateTimeOffset ? Timestamp.class :
+            kind == EdmPrimitiveTypeKind.TimeOfDay ? Time.class :
+                type.getDefaultType();
+    try {
+      return type.valueOfString(type.fromUriLiteral(literal), null, null, null, null, null, returnType);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Invalid literal " + literal,
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  @Override
+  public SqlFragment visitMember(final Member member) throws ExpressionVisitException, ODataApplicationException {
+    final List<UriResource> parts = member.getResourcePath().getUriResourceParts();
+    if (parts.size() != 1 || !(parts.get(0) instanceof UriResourcePrimitiveProperty)) {
+      throw notImplemented("Member expression " + member.getResourcePath().getUriResourceParts());
+    }
+    final EdmProperty property = ((UriResourcePrimitiveProperty) parts.get(0)).getProperty();
+    return new SqlFragment(mapping.getColumn(property.getName()), Collections.<Object> emptyList(), false, null,
+        property.isNullable());
+  }
+
+  @Override
+  public SqlFragment visitAlias(final String aliasName) throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Alias " + aliasName);
+  }
+
+  @Override
+  public SqlFragment visitTypeLiteral(final EdmType type) throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Type literal");
+  }
+
+  @Override
+  public SqlFragment visitLambdaReference(final String variableName)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Lambda reference");
+  }
+
+  @Override
+  public SqlFragment visitEnum(final EdmEnumType type, final List<String> enumValues)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw notImplemented("Enumeration literal");
+  }
+
+  private static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException(what + " cannot be translated to SQL.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  /**
+   * Piece of SQL together with the values of the parameters it contains, in order,
+   * and whether it may evaluate to NULL (or, for a condition, to unknown).
+   */
+  static final class SqlFragment {
+    static final SqlFragment NULL = new SqlFragment("NULL", Collections.<Object> emptyList(), true, null, true);
+
+    private final String sql;
+    private final List<Object> parameters;
+    private final boolean literal;
+    private final Object literalValue;
+    private final boolean nullable;
+
+    SqlFragment(final String sql, final List<Object> parameters, final boolean literal, final Object literalValue,
+        final boolean nullable) {
+      this.sql = sql;
+      this.parameters = parameters;
+      this.literal = literal;
+      this.literalValue = literalValue;
+      this.nullable = nullable;
+    }
+
+    static SqlFragment parameter(final Object value) {
+      return new SqlFragment("?", Collections.<Object> singletonList(value), true, value, false);
+    }
+
+    /**
+     * Concatenates strings and fragments, collecting the parameters in order;
+     * the result is nullable if any of the fragments is.
+     */
+    static SqlFragment join(final Object... parts) {
+      final StringBuilder sql = new StringBuilder();
+      final List<Object> parameters = new ArrayList<Object>();
+      boolean nullable = false;
+      for (final Object part : parts) {
+        if (part instanceof SqlFragment) {
+          sql.append(((SqlFragment) part).sql);
+          parameters.addAll(((SqlFragment) part).parameters);
+          nullable |= ((SqlFragment) part).nullable;
+        } else {
+          sql.append(part);
+        }
+      }
+      return new SqlFragment(sql.toString(), parameters, false, null, nullable);
+    }
+
+    /** Marks this fragment as never evaluating to NULL, e.g., for conditions built from IS NULL tests. */
+    SqlFragment notNullable() {
+      return new SqlFragment(sql, parameters, literal, literalValue, false);
+    }
+
+    String getSql() {
+      return sql;
+    }
+
+    List<Object> getParameters() {
+      return parameters;
+    }
+
+    boolean isLiteral() {
+      return literal;
+    }
+
+    boolean isNull() {
+      return this == NULL;
+    }
+
+    boolean isNullable() {
+      return nullable;
+    }
+
+    Object getLiteralValue() {
+      return literalValue;
+    }
+  }
+}
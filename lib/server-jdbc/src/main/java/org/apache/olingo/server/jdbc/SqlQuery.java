@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+
+/**
+ * Parameterized SQL statement compiled from a request, together with the information needed to turn
+ * the rows of its result into entities.
+ */
+public class SqlQuery {
+
+  private final String sql;
+  private final List<Object> parameters;
+  private final EdmEntitySet entitySet;
+  private final List<EdmProperty> properties;
+  private final List<ExpandQuery> expands;
+
+  SqlQuery(final String sql, final List<Object> parameters, final EdmEntitySet entitySet,
+      final List<EdmProperty> properties, final List<ExpandQuery> expands) {
+    this.sql = sql;
+    this.parameters = Collections.unmodifiableList(parameters);
+    this.entitySet = entitySet;
+    this.properties = properties;
+    this.expands = expands;
+  }
+
+  /**
+   * Gets the SQL text; parameters are represented by <code>?</code>.
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * Gets the parameter values, in the order of their appearance in the SQL text.
+   */
+  public List<Object> getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Creates a prepared statement for this query and binds its parameters.
+   */
+  public PreparedStatement prepare(final Connection connection) throws SQLException {
+    final PreparedStatement statement = connection.prepareStatement(sql);
+    try {
+      bind(statement, parameters, 1);
+    } catch (final SQLException e) {
+      statement.close();
+      throw e;
+    }
+    return statement;
+  }
+
+  static int bind(final PreparedStatement statement, final List<Object> values, final int first)
+      throws SQLException {
+    int index = first;
+    for (final Object value : values) {
+      statement.setObject(index++, value);
+    }
+    return index;
+  }
+
+  EdmEntitySet getEntitySet() {
+    return entitySet;
+  }
+
+  /** Properties read from the result columns 1 to <code>properties.size()</code>. */
+  List<EdmProperty> getProperties() {
+    return properties;
+  }
+
+  List<ExpandQuery> getExpands() {
+    return expands;
+  }
+
+  /**
+   * Query loading the targets of an expanded navigation property for a batch of source rows,
+   * as <code>SELECT ... WHERE targetColumn IN (...)</code>.
+   */
+  static final class ExpandQuery {
+    private final EdmNavigationProperty navigation;
+    private final EdmEntitySet targetEntitySet;
+    private final String selectPrefix;
+    private final List<EdmProperty> targetProperties;
+    private final int sourceColumnIndex;
+
+    ExpandQuery(final EdmNavigationProperty navigation, final EdmEntitySet targetEntitySet,
+        final String selectPrefix, final List<EdmProperty> targetProperties, final int sourceColumnIndex) {
+      this.navigation = navigation;
+      this.targetEntitySet = targetEntitySet;
+      this.selectPrefix = selectPrefix;
+      this.targetProperties = targetProperties;
+      this.sourceColumnIndex = sourceColumnIndex;
+    }
+
+    EdmNavigationProperty getNavigation() {
+      return navigation;
+    }
+
+    EdmEntitySet getTargetEntitySet() {
+      return targetEntitySet;
+    }
+
+    /** Target properties are read from columns 1 to <code>n</code>, the join column from <code>n + 1</code>. */
+    List<EdmProperty> getTargetProperties() {
+      return targetProperties;
+    }
+
+    /** Index of the join column in the result of the main query. */
+    int getSourceColumnIndex() {
+      return sourceColumnIndex;
+    }
+
+    String getSql(final int keyCount) {
+      final StringBuilder sql = new StringBuilder(selectPrefix.length() + 3 * keyCount + 1).append(selectPrefix);
+      for (int i = 0; i < keyCount; i++) {
+        sql.append(i == 0 ? "?" : ", ?");
+      }
+      return sql.append(')').toString();
+    }
+  }
+}
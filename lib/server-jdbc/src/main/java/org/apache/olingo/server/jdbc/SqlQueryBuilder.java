@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceCount;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.jdbc.EntitySetMapping.NavigationMapping;
+import org.apache.olingo.server.jdbc.SqlExpressionVisitor.SqlFragment;
+import org.apache.olingo.server.jdbc.SqlQuery.ExpandQuery;
+
+/**
+ * Compiles the resource path and the system query options of a request into SQL.
+ * <p>
+ * Key predicates and <code>$filter</code> become the <code>WHERE</code> clause, <code>$orderby</code> the
+ * <code>ORDER BY</code> clause, <code>$select</code> restricts the selected columns, and <code>$top</code> and
+ * <code>$skip</code> are applied by the database. Expanded navigation properties are loaded by one additional
+ * query per batch of rows. Only primitive properties are mapped. Everything that cannot be translated
+ * faithfully, e.g. <code>$search</code> or lambda expressions, is rejected with status 501.
+ * <p>
+ * The pagination syntax defaults to the standard <code>OFFSET ? ROWS FETCH NEXT ? ROWS ONLY</code>; override
+ * {@link #appendPagination(StringBuilder, List, Integer, Integer)} for databases that use a different syntax.
+ */
+public class SqlQueryBuilder {
+
+  private final JdbcMapping mapping;
+
+  public SqlQueryBuilder(final JdbcMapping mapping) {
+    this.mapping = mapping;
+  }
+
+  public JdbcMapping getMapping() {
+    return mapping;
+  }
+
+  /**
+   * Compiles a query reading the entities addressed by the request.
+   * @param entitySet the requested entity set
+   * @param uriInfo the request; its resource path must consist of the entity set, optionally with key
+   * predicates
+   */
+  public SqlQuery buildSelect(final EdmEntitySet entitySet, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    final EntitySetMapping entitySetMapping = mapping.get(entitySet.getName());
+    final SqlExpressionVisitor visitor = new SqlExpressionVisitor(entitySetMapping);
+
+    final List<EdmProperty> properties = getSelectedProperties(entitySet.getEntityType(), uriInfo.getSelectOption());
+    final List<String> columns = new ArrayList<String>(properties.size());
+    for (final EdmProperty property : properties) {
+      columns.add(entitySetMapping.getColumn(property.getName()));
+    }
+    final List<ExpandQuery> expands = getExpands(entitySet, entitySetMapping, uriInfo, columns);
+
+    final StringBuilder sql = new StringBuilder("SELECT ");
+    appendList(sql, columns);
+    sql.append(" FROM ").append(entitySetMapping.getTable());
+    final List<Object> parameters = new ArrayList<Object>();
+    appendWhere(sql, parameters, entitySet, entitySetMapping, uriInfo, visitor);
+
+    final Integer top = uriInfo.getTopOption() == null ? null : uriInfo.getTopOption().getValue();
+    final Integer skip = uriInfo.getSkipOption() == null ? null : uriInfo.getSkipOption().getValue();
+    final List<String> order = new ArrayList<String>();
+    if (uriInfo.getOrderByOption() != null) {
+      for (final OrderByItem item : uriInfo.getOrderByOption().getOrders()) {
+        final SqlFragment fragment = accept(item.getExpression(), visitor);
+        order.add(fragment.getSql() + (item.isDescending() ? " DESC" : " ASC"));
+        parameters.addAll(fragment.getParameters());
+      }
+    }
+    if (top != null || skip != null) {
+      // Pages are only well defined on a total order.
+      for (final EdmKeyPropertyRef keyRef : entitySet.getEntityType().getKeyPropertyRefs()) {
+        order.add(entitySetMapping.getColumn(keyRef.getName()) + " ASC");
+      }
+    }
+    if (!order.isEmpty()) {
+      sql.append(" ORDER BY ");
+      appendList(sql, order);
+    }
+    appendPagination(sql, parameters, top, skip);
+
+    return new SqlQuery(sql.toString(), parameters, entitySet, properties, expands);
+  }
+
+  /**
+   * Compiles a query counting the entities addressed by the request, ignoring <code>$top</code>
+   * and <code>$skip</code> as required for <code>$count</code>.
+   */
+  public SqlQuery buildCount(final EdmEntitySet entitySet, final UriInfoResource uriInfo)
+      throws ODataApplicationException {
+    final EntitySetMapping entitySetMapping = mapping.get(entitySet.getName());
+    final StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ").append(entitySetMapping.getTable());
+    final List<Object> parameters = new ArrayList<Object>();
+    appendWhere(sql, parameters, entitySet, entitySetMapping, uriInfo, new SqlExpressionVisitor(entitySetMapping));
+    return new SqlQuery(sql.toString(), parameters, entitySet, Collections.<EdmProperty> emptyList(),
+        Collections.<ExpandQuery> emptyList());
+  }
+
+  /**
+   * Appends the clause restricting the result to the requested page.
+   * @param sql the statement up to and including the <code>ORDER BY</code> clause
+   * @param parameters the parameters of the statement, to be extended by the page bounds
+   * @param top the value of <code>$top</code>, or <code>null</code>
+   * @param skip the value of <code>$skip</code>, or <code>null</code>
+   */
+  protected void appendPagination(final StringBuilder sql, final List<Object> parameters, final Integer top,
+      final Integer skip) {
+    if (skip != null) {
+      sql.append(" OFFSET ? ROWS");
+      parameters.add(skip);
+    }
+    if (top != null) {
+      sql.append(" FETCH NEXT ? ROWS ONLY");
+      parameters.add(top);
+    }
+  }
+
+  private void appendWhere(final StringBuilder sql, final List<Object> parameters, final EdmEntitySet entitySet,
+      final EntitySetMapping entitySetMapping, final UriInfoResource uriInfo, final SqlExpressionVisitor visitor)
+      throws ODataApplicationException {
+    if (uriInfo.getSearchOption() != null) {
+      throw notImplemented("$search");
+    }
+    final List<String> conditions = new ArrayList<String>();
+    for (final UriParameter key : getKeyPredicates(uriInfo)) {
+      final EdmProperty property = entitySet.getEntityType().getStructuralProperty(key.getName());
+      if (key.getText() == null) {
+        throw notImplemented("Key predicate " + key.getName());
+      }
+      conditions.add(entitySetMapping.getColumn(key.getName()) + " = ?");
+      parameters.add(SqlExpressionVisitor.toJdbcValue((EdmPrimitiveType) property.getType(), key.getText()));
+    }
+    if (uriInfo.getFilterOption() != null) {
+      final SqlFragment filter = accept(uriInfo.getFilterOption().getExpression(), visitor);
+      conditions.add(filter.getSql());
+      parameters.addAll(filter.getParameters());
+    }
+    for (int i = 0; i < conditions.size(); i++) {
+      sql.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+    }
+  }
+
+  private static List<UriParameter> getKeyPredicates(final UriInfoResource uriInfo) throws ODataApplicationException {
+    List<UriParameter> keys = Collections.emptyList();
+    final List<UriResource> parts = uriInfo.getUriResourceParts();
+    for (int i = 0; i < parts.size(); i++) {
+      final UriResource part = parts.get(i);
+      if (i == 0 && part instanceof UriResourceEntitySet) {
+        keys = ((UriResourceEntitySet) part).getKeyPredicates();
+      } else if (!(part instanceof UriResourceCount)) {
+        throw notImplemented("Resource path segment " + part.getSegmentValue());
+      }
+    }
+    return keys;
+  }
+
+  private static List<EdmProperty> getSelectedProperties(final EdmEntityType type, final SelectOption select)
+      throws ODataApplicationException {
+    final List<EdmProperty> properties = new ArrayList<EdmProperty>();
+    final List<String> selected = new ArrayList<String>();
+    boolean all = select == null;
+    if (!all) {
+      for (final SelectItem item : select.getSelectItems()) {
+        if (item.isStar()) {
+          all = true;
+        } else if (item.getResourcePath() != null) {
+          final List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+          if (parts.size() != 1 || !(parts.get(0) instanceof UriResourcePrimitiveProperty)) {
+            throw notImplemented("Selection of " + parts);
+          }
+          selected.add(((UriResourcePrimitiveProperty) parts.get(0)).getProperty().getName());
+        }
+      }
+    }
+    for (final String name : type.getPropertyNames()) {
+      final EdmProperty property = type.getStructuralProperty(name);
+      if (property.isPrimitive() && !property.isCollection()
+          && (all || selected.contains(name) || type.getKeyPredicateNames().contains(name))) {
+        properties.add(property);
+      }
+    }
+    return properties;
+  }
+
+  private List<ExpandQuery> getExpands(final EdmEntitySet entitySet, final EntitySetMapping entitySetMapping,
+      final UriInfoResource uriInfo, final List<String> columns) throws ODataApplicationException {
+    if (uriInfo.getExpandOption() == null) {
+      return Collections.emptyList();
+    }
+    final List<ExpandQuery> expands = new ArrayList<ExpandQuery>();
+    for (final ExpandItem item : uriInfo.getExpandOption().getExpandItems()) {
+      if (item.isStar() || item.isRef() || item.hasCountPath() || item.getLevelsOption() != null
+          || item.getFilterOption() != null || item.getSearchOption() != null || item.getOrderByOption() != null
+          || item.getTopOption() != null || item.getSkipOption() != null || item.getCountOption() != null
+          || item.getExpandOption() != null || item.getApplyOption() != null) {
+        throw notImplemented("$expand with options");
+      }
+      final List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+      if (parts.size() != 1 || !(parts.get(0) instanceof UriResourceNavigation)) {
+        throw notImplemented("$expand of " + parts);
+      }
+      final EdmNavigationProperty navigation = ((UriResourceNavigation) parts.get(0)).getProperty();
+      final NavigationMapping navigationMapping = entitySetMapping.getNavigation(navigation.getName());
+      final EdmBindingTarget target = entitySet.getRelatedBindingTarget(navigation.getName());
+      if (navigationMapping == null || !(target instanceof EdmEntitySet)) {
+        throw new ODataApplicationException("Navigation property " + navigation.getName() + " is not mapped.",
+            HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+      }
+      final EdmEntitySet targetEntitySet = (EdmEntitySet) target;
+      final EntitySetMapping targetMapping = mapping.get(targetEntitySet.getName());
+
+      final List<EdmProperty> targetProperties =
+          getSelectedProperties(targetEntitySet.getEntityType(), item.getSelectOption());
+      final List<String> targetColumns = new ArrayList<String>(targetProperties.size() + 1);
+      for (final EdmProperty property : targetProperties) {
+        targetColumns.add(targetMapping.getColumn(property.getName()));
+      }
+      targetColumns.add(navigationMapping.getTargetColumn());
+      final StringBuilder prefix = new StringBuilder("SELECT ");
+      appendList(prefix, targetColumns);
+      prefix.append(" FROM ").append(targetMapping.getTable())
+          .append(" WHERE ").append(navigationMapping.getTargetColumn()).append(" IN (");
+
+      columns.add(navigationMapping.getSourceColumn());
+      expands.add(new ExpandQuery(navigation, targetEntitySet, prefix.toString(), targetProperties, columns.size()));
+    }
+    return expands;
+  }
+
+  private static SqlFragment accept(final Expression expression, final SqlExpressionVisitor visitor)
+      throws ODataApplicationException {
+    try {
+      return expression.accept(visitor);
+    } catch (final ExpressionVisitException e) {
+      throw new ODataApplicationException(e.getMessage(), HttpStatusCode.BAD_REQUEST.getStatusCode(),
+          Locale.ROOT, e);
+    }
+  }
+
+  private static void appendList(final StringBuilder sql, final List<String> items) {
+    for (int i = 0; i < items.size(); i++) {
+      sql.append(i == 0 ? "" : ", ").append(items.get(i));
+    }
+  }
+
+  private static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException(what + " cannot be translated to SQL.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+}
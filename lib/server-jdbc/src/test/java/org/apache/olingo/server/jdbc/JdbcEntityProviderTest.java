@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainerInfo;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edm.provider.CsdlNavigationProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlNavigationPropertyBinding;
+import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlPropertyRef;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JdbcEntityProviderTest {
+  private static final String NAMESPACE = "Jdbc";
+  private static final FullQualifiedName CONTAINER = new FullQualifiedName(NAMESPACE, "Container");
+  private static final FullQualifiedName PRODUCT = new FullQualifiedName(NAMESPACE, "Product");
+  private static final FullQualifiedName CATEGORY = new FullQualifiedName(NAMESPACE, "Category");
+
+  private final OData odata = OData.newInstance();
+  private Edm edm;
+  private EdmEntitySet products;
+  private Connection keepAlive;
+  private JdbcEntityProvider provider;
+
+  @Before
+  public void setUp() throws Exception {
+    edm = odata.createServiceMetadata(new TestEdmProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+    products = edm.getEntityContainer().getEntitySet("Products");
+
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:odata;DB_CLOSE_DELAY=-1");
+    keepAlive = dataSource.getConnection();
+    Statement statement = keepAlive.createStatement();
+    statement.execute("CREATE TABLE CATEGORY (CAT_ID INT PRIMARY KEY, CAT_NAME VARCHAR(50))");
+    statement.execute("CREATE TABLE PRODUCT (PROD_ID INT PRIMARY KEY, NAME VARCHAR(50), PRICE DECIMAL(10,2), "
+        + "CATEGORY_ID INT)");
+    statement.execute("INSERT INTO CATEGORY VALUES (1, 'Tools'), (2, 'Toys'), (3, 'Empty')");
+    statement.execute("INSERT INTO PRODUCT VALUES (1, 'Hammer', 12.50, 1), (2, 'Saw', 20.00, 1), "
+        + "(3, 'Ball', 3.25, 2), (4, '100% Cotton Kite', 15.00, 2), (5, 'Mystery', NULL, NULL)");
+    statement.close();
+
+    JdbcMapping mapping = new JdbcMapping()
+        .add(new EntitySetMapping("Products", "PRODUCT")
+            .column("ID", "PROD_ID").column("Name", "NAME").column("Price", "PRICE")
+            .column("CategoryID", "CATEGORY_ID")
+            .navigation("Category", "CATEGORY_ID", "CAT_ID"))
+        .add(new EntitySetMapping("Categories", "CATEGORY")
+            .column("ID", "CAT_ID").column("Name", "CAT_NAME")
+            .navigation("Products", "CAT_ID", "CATEGORY_ID"));
+    provider = new JdbcEntityProvider(dataSource, mapping);
+    provider.setBatchSize(2);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Statement statement = keepAlive.createStatement();
+    statement.execute("DROP ALL OBJECTS");
+    statement.close();
+    keepAlive.close();
+  }
+
+  @Test
+  public void sqlPushdown() throws Exception {
+    SqlQuery query = new SqlQueryBuilder(provider.getQueryBuilder().getMapping()).buildSelect(products,
+        parse("Products", "$select=Name&$filter=Price gt 5 and contains(Name,'a')&$orderby=Price desc"
+            + "&$top=2&$skip=1"));
+    assertEquals("SELECT PROD_ID, NAME FROM PRODUCT WHERE ((PRICE > ?) AND (NAME LIKE ? ESCAPE '\\'))"
+        + " ORDER BY PRICE DESC, PROD_ID ASC OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", query.getSql());
+    assertEquals("[5, %a%, 1, 2]", query.getParameters().toString());
+  }
+
+  @Test
+  public void filterOrderAndPage() throws Exception {
+    assertEquals(Arrays.asList("Saw", "100% Cotton Kite"),
+        names(provider.readEntityCollection(products, parse("Products",
+            "$filter=Price ge 10 and Price lt 100&$orderby=Price desc&$top=2"))));
+    assertEquals(Arrays.asList("Saw", "Ball"),
+        names(provider.readEntityCollection(products, parse("Products", "$filter=length(Name) le 6&$skip=1"))));
+    assertEquals(Arrays.asList("Mystery"),
+        names(provider.readEntityCollection(products, parse("Products", "$filter=Price eq null"))));
+    // LIKE wildcards in the literal are matched literally
+    assertEquals(Arrays.asList("100% Cotton Kite"),
+        names(provider.readEntityCollection(products, parse("Products", "$filter=startswith(Name,'100%25')"))));
+  }
+
+  @Test
+  public void nullComparisons() throws Exception {
+    // rows with NULL columns are selected as in OData, not dropped as unknown
+    assertEquals(Arrays.asList("Ball", "100% Cotton Kite", "Mystery"),
+        names(provider.readEntityCollection(products, parse("Products", "$filter=CategoryID ne 1"))));
+    assertEquals(Arrays.asList("Ball", "Mystery"),
+        names(provider.readEntityCollection(products, parse("Products", "$filter=not (Price gt 5)"))));
+    assertEquals(Arrays.asList("Hammer", "Saw", "Ball", "100% Cotton Kite"),
+        names(provider.readEntityCollection(products, parse("Products", "$filter=not (Price eq null)"))));
+    assertEquals(Arrays.asList("Mystery"),
+        names(provider.readEntityCollection(products, parse("Products", "$filter=CategoryID eq Price"))));
+    assertEquals(Arrays.asList("Hammer", "Saw", "Ball", "100% Cotton Kite"),
+        names(provider.readEntityCollection(products, parse("Products", "$filter=CategoryID ne Price"))));
+    assertEquals(Arrays.asList("Hammer", "Saw", "Ball", "100% Cotton Kite", "Mystery"),
+        names(provider.readEntityCollection(products,
+            parse("Products", "$filter=not (Price gt 5 and Price lt 5)"))));
+
+    SqlQuery query = new SqlQueryBuilder(provider.getQueryBuilder().getMapping()).buildSelect(products,
+        parse("Products", "$select=Name&$filter=not (CategoryID ne 1)"));
+    assertEquals("SELECT PROD_ID, NAME FROM PRODUCT WHERE (NOT (CATEGORY_ID <> ? OR CATEGORY_ID IS NULL))",
+        query.getSql());
+  }
+
+  @Test
+  public void selectAndCount() throws Exception {
+    JdbcEntityIterator iterator = provider.readEntityCollection(products,
+        parse("Products", "$select=Name&$filter=CategoryID eq 1&$count=true&$top=1"));
+    assertEquals(Integer.valueOf(2), iterator.getCount());
+    Entity entity = iterator.next();
+    assertEquals(2, entity.getProperties().size());
+    assertEquals(1, entity.getProperty("ID").getValue());
+    assertNull(entity.getProperty("Price"));
+    assertEquals("Products(1)", entity.getId().toString());
+    assertFalse(iterator.hasNext());
+
+    assertEquals(5, provider.count(products, parse("Products/$count", null)));
+  }
+
+  @Test
+  public void readByKey() throws Exception {
+    Entity entity = provider.readEntity(products, parse("Products(3)", null));
+    assertNotNull(entity);
+    assertEquals("Ball", entity.getProperty("Name").getValue());
+    assertNull(provider.readEntity(products, parse("Products(42)", null)));
+  }
+
+  @Test
+  public void expand() throws Exception {
+    List<Entity> entities = list(provider.readEntityCollection(products,
+        parse("Products", "$expand=Category&$orderby=ID")));
+    assertEquals(5, entities.size());
+    assertEquals("Tools", entities.get(1).getNavigationLink("Category").getInlineEntity()
+        .getProperty("Name").getValue());
+    assertEquals("Toys", entities.get(3).getNavigationLink("Category").getInlineEntity()
+        .getProperty("Name").getValue());
+    assertNull(entities.get(4).getNavigationLink("Category").getInlineEntity());
+
+    EdmEntitySet categories = edm.getEntityContainer().getEntitySet("Categories");
+    entities = list(provider.readEntityCollection(categories, parse("Categories", "$expand=Products&$orderby=ID")));
+    assertEquals(3, entities.size());
+    assertEquals(2, entities.get(0).getNavigationLink("Products").getInlineEntitySet().getEntities().size());
+    assertEquals(2, entities.get(1).getNavigationLink("Products").getInlineEntitySet().getEntities().size());
+    assertTrue(entities.get(2).getNavigationLink("Products").getInlineEntitySet().getEntities().isEmpty());
+  }
+
+  @Test
+  public void notTranslatable() throws Exception {
+    try {
+      provider.readEntityCollection(products, parse("Products", "$filter=Name eq $it/Name"));
+      fail("Expected exception");
+    } catch (ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private UriInfo parse(final String path, final String query) throws Exception {
+    return new Parser(edm, odata).parseUri(path, query, null, null);
+  }
+
+  private static List<Entity> list(final JdbcEntityIterator iterator) {
+    List<Entity> entities = new ArrayList<Entity>();
+    while (iterator.hasNext()) {
+      entities.add(iterator.next());
+    }
+    return entities;
+  }
+
+  private static List<String> names(final JdbcEntityIterator iterator) {
+    List<String> names = new ArrayList<String>();
+    for (Entity entity : list(iterator)) {
+      names.add((String) entity.getProperty("Name").getValue());
+    }
+    return names;
+  }
+
+  private static class TestEdmProvider extends CsdlAbstractEdmProvider {
+    @Override
+    public CsdlEntityContainerInfo getEntityContainerInfo(final FullQualifiedName entityContainerName) {
+      return new CsdlEntityContainerInfo().setContainerName(CONTAINER);
+    }
+
+    @Override
+    public CsdlEntityType getEntityType(final FullQualifiedName entityTypeName) {
+      if (PRODUCT.equals(entityTypeName)) {
+        return new CsdlEntityType().setName(PRODUCT.getName())
+            .setKey(Collections.singletonList(new CsdlPropertyRef().setName("ID")))
+            .setProperties(Arrays.asList(
+                property("ID", EdmPrimitiveTypeKind.Int32),
+                property("Name", EdmPrimitiveTypeKind.String),
+                property("Price", EdmPrimitiveTypeKind.Decimal).setScale(2),
+                property("CategoryID", EdmPrimitiveTypeKind.Int32)))
+            .setNavigationProperties(Collections.singletonList(
+                new CsdlNavigationProperty().setName("Category").setType(CATEGORY)));
+      } else if (CATEGORY.equals(entityTypeName)) {
+        return new CsdlEntityType().setName(CATEGORY.getName())
+            .setKey(Collections.singletonList(new CsdlPropertyRef().setName("ID")))
+            .setProperties(Arrays.asList(
+                property("ID", EdmPrimitiveTypeKind.Int32),
+                property("Name", EdmPrimitiveTypeKind.String)))
+            .setNavigationProperties(Collections.singletonList(
+                new CsdlNavigationProperty().setName("Products").setType(PRODUCT).setCollection(true)));
+      }
+      return null;
+    }
+
+    @Override
+    public CsdlEntitySet getEntitySet(final FullQualifiedName entityContainer, final String entitySetName) {
+      if ("Products".equals(entitySetName)) {
+        return new CsdlEntitySet().setName(entitySetName).setType(PRODUCT)
+            .setNavigationPropertyBindings(Collections.singletonList(
+                new CsdlNavigationPropertyBinding().setPath("Category").setTarget("Categories")));
+      } else if ("Categories".equals(entitySetName)) {
+        return new CsdlEntitySet().setName(entitySetName).setType(CATEGORY)
+            .setNavigationPropertyBindings(Collections.singletonList(
+                new CsdlNavigationPropertyBinding().setPath("Products").setTarget("Products")));
+      }
+      return null;
+    }
+
+    private static CsdlProperty property(final String name, final EdmPrimitiveTypeKind kind) {
+      return new CsdlProperty().setName(name).setType(kind.getFullQualifiedName());
+    }
+  }
+}
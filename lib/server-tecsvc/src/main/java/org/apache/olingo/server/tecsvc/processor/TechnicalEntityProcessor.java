@@ -443,7 +443,7 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
     final SelectOption select = uriInfo.getSelectOption();
 
     final ExpandSystemQueryOptionHandler expandHandler = new ExpandSystemQueryOptionHandler();
-    final Entity entitySerialization = expandHandler.transformEntityGraphToTree(entity, edmEntitySet, expand, null);
+    final Entity entitySerialization = expandHandler.createExpandView(entity, edmEntitySet, expand);
     expandHandler.applyExpandQueryOptions(entitySerialization, edmEntitySet, expand, uriInfo,
         serviceMetadata.getEdm());
 
@@ -542,14 +542,12 @@ public class TechnicalEntityProcessor extends TechnicalProcessor
     final ExpandOption expand = uriInfo.getExpandOption();
     final SelectOption select = uriInfo.getSelectOption();
 
-    // Transform the entity graph to a tree. The construction is controlled by the expand tree.
-    // Apply all expand system query options to the tree.
+    // Create a view of the entity graph that is cut to a tree by the expand tree.
+    // Apply all expand system query options to the view.
     // So the expanded navigation properties can be modified for serialization,
-    // without affecting the data stored in the database.
+    // without affecting or copying the data stored in the database.
     final ExpandSystemQueryOptionHandler expandHandler = new ExpandSystemQueryOptionHandler();
-    final EntityCollection entitySetSerialization = expandHandler.transformEntitySetGraphToTree(entitySet,
-        edmEntitySet,
-        expand, null);
+    final EntityCollection entitySetSerialization = expandHandler.createExpandView(entitySet, edmEntitySet, expand);
     expandHandler.applyExpandQueryOptions(entitySetSerialization, edmEntitySet, expand, uriInfo,
         serviceMetadata.getEdm());
     final CountOption countOption = uriInfo.getCountOption();
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.tecsvc.processor.queryoptions;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Annotation;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Operation;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.ExpandEntityView.Step;
+
+/**
+ * View of an entity collection whose entities are wrapped in {@link ExpandEntityView}s.
+ * <p>
+ * The underlying collection is never modified. Filtering and ordering work on the list of
+ * {@link #getCandidates() candidates}, which holds views only; <code>$skip</code> and <code>$top</code>
+ * of the expand item are applied lazily when the entities are read.
+ */
+class ExpandEntityCollectionView extends EntityCollection {
+
+  private final EntityCollection entityCollection;
+  private final EdmBindingTarget bindingTarget;
+  private final List<Step> steps;
+  private final ExpandItem expandItem;
+  private EntityCollection candidates;
+  private List<Entity> entities;
+
+  /**
+   * @param expandItem the item that expanded this collection, <code>null</code> for the top-level collection
+   */
+  ExpandEntityCollectionView(final EntityCollection entityCollection, final EdmBindingTarget bindingTarget,
+      final List<Step> steps, final ExpandItem expandItem) {
+    this.entityCollection = entityCollection;
+    this.bindingTarget = bindingTarget;
+    this.steps = steps;
+    this.expandItem = expandItem;
+  }
+
+  /**
+   * Gets the mutable collection of entity views before <code>$skip</code> and <code>$top</code>
+   * have been applied.
+   */
+  EntityCollection getCandidates() {
+    if (candidates == null) {
+      candidates = new EntityCollection();
+      final List<Entity> list = candidates.getEntities();
+      for (final Entity entity : entityCollection.getEntities()) {
+        list.add(new ExpandEntityView(entity, bindingTarget, steps));
+      }
+      if (expandItem != null && expandItem.hasCountPath()) {
+        candidates.setCount(list.size());
+      }
+    }
+    return candidates;
+  }
+
+  @Override
+  public List<Entity> getEntities() {
+    if (entities == null) {
+      final List<Entity> list = getCandidates().getEntities();
+      int from = 0;
+      int to = list.size();
+      if (expandItem != null && expandItem.getSkipOption() != null) {
+        from = Math.min(Math.max(expandItem.getSkipOption().getValue(), 0), to);
+      }
+      if (expandItem != null && expandItem.getTopOption() != null) {
+        to = Math.min(from + Math.max(expandItem.getTopOption().getValue(), 0), to);
+      }
+      entities = Collections.unmodifiableList(from == 0 && to == list.size() ? list : list.subList(from, to));
+    }
+    return entities;
+  }
+
+  @Override
+  public Iterator<Entity> iterator() {
+    return getEntities().iterator();
+  }
+
+  @Override
+  public Integer getCount() {
+    final Integer count = getCandidates().getCount();
+    return count == null ? entityCollection.getCount() : count;
+  }
+
+  @Override
+  public URI getNext() {
+    return entityCollection.getNext();
+  }
+
+  @Override
+  public URI getDeltaLink() {
+    return entityCollection.getDeltaLink();
+  }
+
+  @Override
+  public List<Operation> getOperations() {
+    return Collections.unmodifiableList(entityCollection.getOperations());
+  }
+
+  @Override
+  public URI getId() {
+    return entityCollection.getId();
+  }
+
+  @Override
+  public URI getBaseURI() {
+    return entityCollection.getBaseURI();
+  }
+
+  @Override
+  public String getTitle() {
+    return entityCollection.getTitle();
+  }
+
+  @Override
+  public List<Annotation> getAnnotations() {
+    return Collections.unmodifiableList(entityCollection.getAnnotations());
+  }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.tecsvc.processor.queryoptions;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Annotation;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Operation;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
+
+/**
+ * Read-only view of an entity in which the navigation links selected by the expand tree are replaced
+ * by views. Properties and all other data are taken from the underlying entity without copying;
+ * the views of the navigation links are created on first access.
+ */
+class ExpandEntityView extends Entity {
+
+  private final Entity entity;
+  private final EdmBindingTarget bindingTarget;
+  private final List<Step> steps;
+  private List<Link> navigationLinks;
+
+  ExpandEntityView(final Entity entity, final EdmBindingTarget bindingTarget, final List<Step> steps) {
+    this.entity = entity;
+    this.bindingTarget = bindingTarget;
+    this.steps = steps;
+  }
+
+  Entity getEntity() {
+    return entity;
+  }
+
+  @Override
+  public List<Link> getNavigationLinks() {
+    if (navigationLinks == null) {
+      final List<Link> links = new ArrayList<Link>(entity.getNavigationLinks().size());
+      for (final Link link : entity.getNavigationLinks()) {
+        final Step step = steps.isEmpty() ? null : getStep(link.getTitle());
+        links.add(step == null ? link : new ExpandLinkView(link,
+            bindingTarget == null ? null : bindingTarget.getRelatedBindingTarget(link.getTitle()),
+            step));
+      }
+      navigationLinks = Collections.unmodifiableList(links);
+    }
+    return navigationLinks;
+  }
+
+  @Override
+  public Link getNavigationLink(final String name) {
+    for (final Link link : getNavigationLinks()) {
+      if (name.equals(link.getTitle())) {
+        return link;
+      }
+    }
+    return null;
+  }
+
+  private Step getStep(final String navigationPropertyName) {
+    Step star = null;
+    for (final Step step : steps) {
+      if (step.item.isStar()) {
+        star = star == null ? step : star;
+      } else {
+        final List<UriResource> parts = step.item.getResourcePath().getUriResourceParts();
+        if (parts.get(0) instanceof UriResourceNavigation
+            && navigationPropertyName.equals(((UriResourceNavigation) parts.get(0)).getProperty().getName())) {
+          return step;
+        }
+      }
+    }
+    return star;
+  }
+
+  @Override
+  public List<Property> getProperties() {
+    return Collections.unmodifiableList(entity.getProperties());
+  }
+
+  @Override
+  public Property getProperty(final String name) {
+    return entity.getProperty(name);
+  }
+
+  @Override
+  public List<Annotation> getAnnotations() {
+    return Collections.unmodifiableList(entity.getAnnotations());
+  }
+
+  @Override
+  public List<Operation> getOperations() {
+    return Collections.unmodifiableList(entity.getOperations());
+  }
+
+  @Override
+  public List<Link> getMediaEditLinks() {
+    return Collections.unmodifiableList(entity.getMediaEditLinks());
+  }
+
+  @Override
+  public Link getAssociationLink(final String name) {
+    return entity.getAssociationLink(name);
+  }
+
+  @Override
+  public List<Link> getAssociationLinks() {
+    return Collections.unmodifiableList(entity.getAssociationLinks());
+  }
+
+  @Override
+  public Link getNavigationBinding(final String name) {
+    return entity.getNavigationBinding(name);
+  }
+
+  @Override
+  public List<Link> getNavigationBindings() {
+    return Collections.unmodifiableList(entity.getNavigationBindings());
+  }
+
+  @Override
+  public URI getId() {
+    return entity.getId();
+  }
+
+  @Override
+  public URI getBaseURI() {
+    return entity.getBaseURI();
+  }
+
+  @Override
+  public String getTitle() {
+    return entity.getTitle();
+  }
+
+  @Override
+  public String getETag() {
+    return entity.getETag();
+  }
+
+  @Override
+  public String getType() {
+    return entity.getType();
+  }
+
+  @Override
+  public Link getSelfLink() {
+    return entity.getSelfLink();
+  }
+
+  @Override
+  public Link getEditLink() {
+    return entity.getEditLink();
+  }
+
+  @Override
+  public String getMediaContentType() {
+    return entity.getMediaContentType();
+  }
+
+  @Override
+  public URI getMediaContentSource() {
+    return entity.getMediaContentSource();
+  }
+
+  @Override
+  public String getMediaETag() {
+    return entity.getMediaETag();
+  }
+
+  @Override
+  public boolean isMediaEntity() {
+    return entity.isMediaEntity();
+  }
+
+  /**
+   * Creates the steps for the items of an expand option.
+   * @param expandOption the expand option; may be <code>null</code>
+   */
+  static List<Step> getSteps(final ExpandOption expandOption) {
+    if (expandOption == null || expandOption.getExpandItems() == null || expandOption.getExpandItems().isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<Step> steps = new ArrayList<Step>(expandOption.getExpandItems().size());
+    for (final ExpandItem item : expandOption.getExpandItems()) {
+      final LevelsExpandOption levelsOption = item.getLevelsOption();
+      steps.add(new Step(item, levelsOption == null ? 1 :
+          levelsOption.isMax() ? Integer.MAX_VALUE : levelsOption.getValue()));
+    }
+    return steps;
+  }
+
+  /**
+   * An expand item together with the number of levels it still expands.
+   */
+  static final class Step {
+    final ExpandItem item;
+    final int levels;
+
+    Step(final ExpandItem item, final int levels) {
+      this.item = item;
+      this.levels = levels;
+    }
+
+    /**
+     * Steps for the entities reached through this step: this item for the next level, plus the nested items.
+     * The next level comes first so that it is not cut short by a nested item for the same navigation property;
+     * that item then applies below the last level.
+     */
+    List<Step> getInnerSteps() {
+      final List<Step> inner = getSteps(item.getExpandOption());
+      if (levels <= 1) {
+        return inner;
+      }
+      final List<Step> result = new ArrayList<Step>(inner.size() + 1);
+      result.add(new Step(item, levels - 1));
+      result.addAll(inner);
+      return result;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.tecsvc.processor.queryoptions;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Annotation;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.server.tecsvc.processor.queryoptions.ExpandEntityView.Step;
+
+/**
+ * Read-only view of an expanded navigation link; the inline content is wrapped in views on first access.
+ */
+class ExpandLinkView extends Link {
+
+  private final Link link;
+  private final EdmBindingTarget bindingTarget;
+  private final Step step;
+  private Entity inlineEntity;
+  private ExpandEntityCollectionView inlineEntitySet;
+
+  ExpandLinkView(final Link link, final EdmBindingTarget bindingTarget, final Step step) {
+    this.link = link;
+    this.bindingTarget = bindingTarget;
+    this.step = step;
+  }
+
+  Step getStep() {
+    return step;
+  }
+
+  @Override
+  public Entity getInlineEntity() {
+    if (inlineEntity == null && link.getInlineEntity() != null) {
+      inlineEntity = new ExpandEntityView(link.getInlineEntity(), bindingTarget, step.getInnerSteps());
+    }
+    return inlineEntity;
+  }
+
+  @Override
+  public ExpandEntityCollectionView getInlineEntitySet() {
+    if (inlineEntitySet == null && link.getInlineEntitySet() != null) {
+      inlineEntitySet = new ExpandEntityCollectionView(link.getInlineEntitySet(), bindingTarget,
+          step.getInnerSteps(), step.item);
+    }
+    return inlineEntitySet;
+  }
+
+  @Override
+  public String getTitle() {
+    return link.getTitle();
+  }
+
+  @Override
+  public String getRel() {
+    return link.getRel();
+  }
+
+  @Override
+  public String getHref() {
+    return link.getHref();
+  }
+
+  @Override
+  public String getType() {
+    return link.getType();
+  }
+
+  @Override
+  public String getMediaETag() {
+    return link.getMediaETag();
+  }
+
+  @Override
+  public String getBindingLink() {
+    return link.getBindingLink();
+  }
+
+  @Override
+  public List<String> getBindingLinks() {
+    return Collections.unmodifiableList(link.getBindingLinks());
+  }
+
+  @Override
+  public List<Annotation> getAnnotations() {
+    return Collections.unmodifiableList(link.getAnnotations());
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.tecsvc.processor.queryoptions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class ExpandViewTest {
+
+  private static final String NAV_TWO_KEY_NAV_MANY = "NavPropertyETTwoKeyNavMany";
+
+  private final OData odata = OData.newInstance();
+  private final Edm edm = odata.createServiceMetadata(new EdmTechProvider(), Collections.<EdmxReference> emptyList())
+      .getEdm();
+  private final DataProvider data = new DataProvider(odata, edm);
+  private final ExpandSystemQueryOptionHandler handler = new ExpandSystemQueryOptionHandler();
+
+  @Test
+  public void entityView() throws Exception {
+    final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final Link originalLink = entity.getNavigationLink("NavPropertyETTwoPrimMany");
+    final Entity view = handler.createExpandView(entity, edmEntitySet, expand("ESAllPrim", "NavPropertyETTwoPrimMany"));
+
+    assertTrue(view instanceof ExpandEntityView);
+    assertSame(entity, ((ExpandEntityView) view).getEntity());
+    assertEquals(entity.getProperties(), view.getProperties());
+    assertSame(entity.getProperty("PropertyString"), view.getProperty("PropertyString"));
+    assertEquals(entity.getType(), view.getType());
+    assertEquals(entity.getId(), view.getId());
+
+    final Link link = view.getNavigationLink("NavPropertyETTwoPrimMany");
+    assertTrue(link instanceof ExpandLinkView);
+    assertSame(link, view.getNavigationLink("NavPropertyETTwoPrimMany"));
+    assertSame(entity.getNavigationLink("NavPropertyETTwoPrimOne"), view.getNavigationLink("NavPropertyETTwoPrimOne"));
+    assertSame(originalLink, entity.getNavigationLink("NavPropertyETTwoPrimMany"));
+
+    try {
+      view.getProperties().clear();
+      fail("Expected an exception.");
+    } catch (final UnsupportedOperationException e) {
+      assertEquals(16, entity.getProperties().size());
+    }
+    try {
+      view.getNavigationLinks().clear();
+      fail("Expected an exception.");
+    } catch (final UnsupportedOperationException e) {
+      assertEquals(2, entity.getNavigationLinks().size());
+    }
+  }
+
+  @Test
+  public void linkView() throws Exception {
+    final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet("ESKeyNav");
+    final Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final Link originalLink = entity.getNavigationLink("NavPropertyETKeyNavOne");
+    final Link link = handler.createExpandView(entity, edmEntitySet, expand("ESKeyNav", "NavPropertyETKeyNavOne"))
+        .getNavigationLink("NavPropertyETKeyNavOne");
+
+    assertTrue(link instanceof ExpandLinkView);
+    assertEquals(originalLink.getTitle(), link.getTitle());
+    assertEquals(originalLink.getType(), link.getType());
+    assertNull(link.getInlineEntitySet());
+
+    final Entity inlineEntity = link.getInlineEntity();
+    assertTrue(inlineEntity instanceof ExpandEntityView);
+    assertSame(originalLink.getInlineEntity(), ((ExpandEntityView) inlineEntity).getEntity());
+    assertSame(inlineEntity, link.getInlineEntity());
+    // Only one level is expanded.
+    assertSame(originalLink.getInlineEntity().getNavigationLink("NavPropertyETKeyNavOne"),
+        inlineEntity.getNavigationLink("NavPropertyETKeyNavOne"));
+  }
+
+  @Test
+  public void entityCollectionView() throws Exception {
+    final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet("ESKeyNav");
+    final EntityCollection entityCollection = data.readAll(edmEntitySet);
+    final EntityCollection view = handler.createExpandView(entityCollection, edmEntitySet,
+        expand("ESKeyNav", NAV_TWO_KEY_NAV_MANY + "($skip=1;$top=1)"));
+
+    assertEquals(3, view.getEntities().size());
+    assertSame(entityCollection.getEntities().get(1),
+        ((ExpandEntityView) view.getEntities().get(1)).getEntity());
+    try {
+      view.getEntities().clear();
+      fail("Expected an exception.");
+    } catch (final UnsupportedOperationException e) {
+      assertEquals(3, entityCollection.getEntities().size());
+    }
+
+    final ExpandEntityCollectionView inlineEntitySet = (ExpandEntityCollectionView)
+        view.getEntities().get(0).getNavigationLink(NAV_TWO_KEY_NAV_MANY).getInlineEntitySet();
+    final EntityCollection original =
+        entityCollection.getEntities().get(0).getNavigationLink(NAV_TWO_KEY_NAV_MANY).getInlineEntitySet();
+    assertEquals(2, inlineEntitySet.getCandidates().getEntities().size());
+    assertEquals(1, inlineEntitySet.getEntities().size());
+    assertSame(original.getEntities().get(1), ((ExpandEntityView) inlineEntitySet.getEntities().get(0)).getEntity());
+    assertEquals(2, original.getEntities().size());
+  }
+
+  @Test
+  public void levels() throws Exception {
+    assertEquals(1, depth(NAV_TWO_KEY_NAV_MANY));
+    assertEquals(2, depth(NAV_TWO_KEY_NAV_MANY + "($levels=2)"));
+    assertEquals(2, depth("*($levels=2)"));
+    assertEquals(3, depth(NAV_TWO_KEY_NAV_MANY + "($expand=" + NAV_TWO_KEY_NAV_MANY + "($levels=2))"));
+    assertEquals(5, depth(NAV_TWO_KEY_NAV_MANY + "($expand=" + NAV_TWO_KEY_NAV_MANY + "($levels=2);$levels=3)"));
+    // The entities of ESTwoKeyNav refer to each other in a cycle, so the depth is only limited by the maximum.
+    assertEquals(7, depth(NAV_TWO_KEY_NAV_MANY + "($levels=7)"));
+  }
+
+  private int depth(final String expand) throws Exception {
+    final EdmEntitySet edmEntitySet = edm.getEntityContainer().getEntitySet("ESKeyNav");
+    return depth(handler.createExpandView(data.readAll(edmEntitySet).getEntities().get(0), edmEntitySet,
+        expand("ESKeyNav", expand)));
+  }
+
+  private int depth(final Entity entity) {
+    final Link link = entity.getNavigationLink(NAV_TWO_KEY_NAV_MANY);
+    int depth = 0;
+    if (link instanceof ExpandLinkView && link.getInlineEntitySet() != null) {
+      for (final Entity inlineEntity : link.getInlineEntitySet().getEntities()) {
+        depth = Math.max(depth, 1 + depth(inlineEntity));
+      }
+    }
+    return depth;
+  }
+
+  private ExpandOption expand(final String entitySet, final String expand) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySet, "$expand=" + expand, null, null).getExpandOption();
+  }
+}
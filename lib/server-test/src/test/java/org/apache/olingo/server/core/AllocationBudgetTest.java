@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
+import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.MetadataETagSupport;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.data.DataProvider.DataProviderException;
+import org.apache.olingo.server.tecsvc.processor.TechnicalEntityProcessor;
+import org.apache.olingo.server.tecsvc.processor.TechnicalPrimitiveComplexProcessor;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Allocation budgets of canonical requests against the technical service.
+ * <br/>
+ * Every operation is warmed up and then run repeatedly; the average number of bytes allocated per run by the
+ * current thread is compared with the reference value in <code>allocation-budgets.properties</code>.
+ * <br/>
+ * Object sizes depend on the JVM (e.g. compressed references), so a fixed calibration workload is measured in
+ * the same run and the references are scaled by how it compares to the calibration value recorded with them.
+ * On top of that, the configured headroom applies, so that only real regressions are reported; it can be
+ * overridden with the system property <code>allocationBudget.headroom</code>.
+ * When an intended change makes an operation cheaper, lower its reference accordingly.
+ * <br/>
+ * The tests are skipped on JVMs without support for measuring thread allocations and when a Java agent, e.g. for
+ * code coverage, is attached, as agents add allocations of their own.
+ */
+public class AllocationBudgetTest {
+
+  private static final String BASE_URI = "http://localhost/odata";
+  private static final int WARM_UP_RUNS = 500;
+  private static final int MEASURED_RUNS = 200;
+
+  private static final OData odata = OData.newInstance();
+  private static final ServiceMetadata metadata = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList(), new MetadataETagSupport("W/\"metadataETag\""));
+  private static final DataProvider data = new DataProvider(odata, metadata.getEdm());
+
+  private static com.sun.management.ThreadMXBean threads;
+  private static Properties budgets;
+  private static double scale;
+  private static double headroom;
+
+  /** Keeps the results of the calibration workload reachable, so that its allocations cannot be optimized away. */
+  private static Object sink;
+
+  private final byte[] buffer = new byte[8192];
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+    threads = (com.sun.management.ThreadMXBean) threadBean;
+    assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+    for (final String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      assumeFalse("Allocations are not measured with a Java agent attached", argument.startsWith("-javaagent:"));
+    }
+
+    budgets = new Properties();
+    final InputStream budgetFile =
+        Thread.currentThread().getContextClassLoader().getResourceAsStream("allocation-budgets.properties");
+    assertNotNull(budgetFile);
+    try {
+      budgets.load(budgetFile);
+    } finally {
+      budgetFile.close();
+    }
+
+    headroom = Double.parseDouble(System.getProperty("allocationBudget.headroom",
+        getProperty("headroom")));
+    final long calibration = measure(new Operation() {
+      @Override
+      public void run() {
+        sink = calibrate();
+      }
+    });
+    scale = (double) calibration / Long.parseLong(getProperty("calibration"));
+  }
+
+  /** Allocates a mix of objects, arrays and strings similar to what the operations under test allocate. */
+  private static Object calibrate() {
+    final Map<String, List<Integer>> map = new HashMap<String, List<Integer>>();
+    for (int i = 0; i < 100; i++) {
+      final List<Integer> values = new ArrayList<Integer>();
+      for (int j = 0; j < 10; j++) {
+        values.add(1000 + 10 * i + j);
+      }
+      map.put("key" + i, values);
+    }
+    return map;
+  }
+
+  @Test
+  public void handlerReadEntity() throws Exception {
+    assertWithinBudget("handler.readEntity", handle("ESAllPrim(32767)", null));
+  }
+
+  @Test
+  public void handlerReadEntityXml() throws Exception {
+    assertWithinBudget("handler.readEntityXml", handle("ESAllPrim(32767)", "$format=xml"));
+  }
+
+  @Test
+  public void handlerReadFilteredCollection() throws Exception {
+    assertWithinBudget("handler.readFilteredCollection",
+        handle("ESAllPrim", "$filter=PropertyInt16%20gt%200&$orderby=PropertyString%20desc&$top=2"));
+  }
+
+  @Test
+  public void handlerReadExpandedEntity() throws Exception {
+    assertWithinBudget("handler.readExpandedEntity",
+        handle("ESKeyNav(1)", "$expand=NavPropertyETTwoKeyNavMany($expand=NavPropertyETKeyNavOne)"));
+  }
+
+  @Test
+  public void handlerReadServiceDocument() throws Exception {
+    assertWithinBudget("handler.readServiceDocument", handle("/", null));
+  }
+
+  @Test
+  public void parserResourcePath() throws Exception {
+    final Parser parser = new Parser(metadata.getEdm(), odata);
+    assertWithinBudget("parser.resourcePath", new Operation() {
+      @Override
+      public void run() throws Exception {
+        parser.parseUri("ESTwoKeyNav(PropertyInt16=1,PropertyString='1')/NavPropertyETKeyNavMany(1)"
+            + "/PropertyCompNav/PropertyInt16", null, null, BASE_URI);
+      }
+    });
+  }
+
+  @Test
+  public void parserQueryOptions() throws Exception {
+    final Parser parser = new Parser(metadata.getEdm(), odata);
+    assertWithinBudget("parser.queryOptions", new Operation() {
+      @Override
+      public void run() throws Exception {
+        parser.parseUri("ESAllPrim",
+            "$filter=PropertyInt16 gt 1 and startswith(PropertyString,'F')&$orderby=PropertyString desc"
+                + "&$top=10&$skip=2&$select=PropertyInt16,PropertyString&$count=true",
+            null, BASE_URI);
+      }
+    });
+  }
+
+  @Test
+  public void jsonSerializerEntityCollection() throws Exception {
+    assertWithinBudget("serializer.jsonEntityCollection", serialize(new ODataJsonSerializer(ContentType.JSON)));
+  }
+
+  @Test
+  public void xmlSerializerEntityCollection() throws Exception {
+    assertWithinBudget("serializer.xmlEntityCollection", serialize(new ODataXmlSerializer()));
+  }
+
+  private Operation handle(final String path, final String query) {
+    final ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(new TechnicalEntityProcessor(data, metadata));
+    handler.register(new TechnicalPrimitiveComplexProcessor(data, metadata));
+
+    final ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath(path);
+    request.setRawQueryPath(query);
+    request.setRawRequestUri(BASE_URI + '/' + path + (query == null ? "" : '?' + query));
+    request.addHeader(HttpHeader.ACCEPT, Collections.singletonList(ContentType.APPLICATION_JSON.toContentTypeString()));
+
+    return new Operation() {
+      @Override
+      public void run() throws Exception {
+        final ODataResponse response = handler.process(request);
+        assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+        consume(response.getContent());
+      }
+    };
+  }
+
+  private Operation serialize(final ODataSerializer serializer) throws DataProviderException {
+    final EdmEntitySet edmEntitySet = metadata.getEdm().getEntityContainer().getEntitySet("ESAllPrim");
+    final EntityCollection entities = data.readAll(edmEntitySet);
+    final EntityCollectionSerializerOptions options = EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+        .build();
+
+    return new Operation() {
+      @Override
+      public void run() throws Exception {
+        consume(serializer.entityCollection(metadata, edmEntitySet.getEntityType(), entities, options).getContent());
+      }
+    };
+  }
+
+  private void consume(final InputStream content) throws IOException {
+    while (content.read(buffer) >= 0) {
+      // only the allocations matter
+    }
+    content.close();
+  }
+
+  private void assertWithinBudget(final String name, final Operation operation) throws Exception {
+    final long reference = Long.parseLong(getProperty(name));
+    final long budget = Math.round(reference * scale * (1 + headroom));
+    final long allocated = measure(operation);
+    assertTrue(name + " allocated " + allocated + " bytes per run; budget: " + budget + " bytes (reference "
+        + reference + ", calibration scale " + scale + ", headroom " + headroom + ")",
+        allocated <= budget);
+  }
+
+  /** Gets the average number of bytes allocated per run by the current thread, after warming up. */
+  private static long measure(final Operation operation) throws Exception {
+    for (int i = 0; i < WARM_UP_RUNS; i++) {
+      operation.run();
+    }
+
+    final long threadId = Thread.currentThread().getId();
+    final long before = threads.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED_RUNS; i++) {
+      operation.run();
+    }
+    return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_RUNS;
+  }
+
+  private static String getProperty(final String name) {
+    final String value = budgets.getProperty(name);
+    assertNotNull("No allocation budget value for " + name, value);
+    return value.trim();
+  }
+
+  private interface Operation {
+    void run() throws Exception;
+  }
+}
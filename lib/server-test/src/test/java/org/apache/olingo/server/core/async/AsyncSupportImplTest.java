@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.async.AsyncSupportOptions;
+import org.apache.olingo.server.api.processor.EntityCollectionProcessor;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.ODataHandlerImpl;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class AsyncSupportImplTest {
+
+  private static final String BASE_URI = "http://localhost/odata";
+  private static final String CONTENT = "{\"value\":[]}";
+
+  private final OData odata = OData.newInstance();
+  private final ServiceMetadata metadata = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList());
+  private AsyncSupport asyncSupport;
+
+  @After
+  public void shutdown() {
+    if (asyncSupport != null) {
+      asyncSupport.shutdown();
+    }
+  }
+
+  @Test
+  public void acceptAndFetchResult() throws Exception {
+    asyncSupport = odata.createAsyncSupport(AsyncSupportOptions.with().executor(new CallerRunsExecutor()).build());
+    final ODataResponse accepted = dispatch(HttpMethod.GET, "/ESAllPrim", "respond-async", processor(null));
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), accepted.getStatusCode());
+    assertEquals("respond-async", accepted.getHeader(HttpHeader.PREFERENCE_APPLIED));
+    final String location = accepted.getHeader(HttpHeader.LOCATION);
+    assertThat(location, startsWith(BASE_URI + "/$async/"));
+    assertEquals(1, asyncSupport.getJobCount());
+
+    final ODataResponse result = dispatch(HttpMethod.GET, location.substring(BASE_URI.length()), null, null);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), result.getStatusCode());
+    assertEquals(ContentType.APPLICATION_HTTP.toContentTypeString(), result.getHeader(HttpHeader.CONTENT_TYPE));
+    final String body = IOUtils.toString(result.getContent());
+    assertThat(body, startsWith("HTTP/1.1 200 OK\r\n"));
+    assertThat(body, containsString("\r\n\r\n" + CONTENT));
+    assertEquals(0, asyncSupport.getJobCount());
+
+    final ODataResponse fetchedAgain = dispatch(HttpMethod.GET, location.substring(BASE_URI.length()), null, null);
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), fetchedAgain.getStatusCode());
+  }
+
+  @Test
+  public void pollAndCancel() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      asyncSupport = odata.createAsyncSupport(AsyncSupportOptions.with().executor(executor).retryAfter(5).build());
+      final ODataResponse accepted = dispatch(HttpMethod.GET, "/ESAllPrim", "respond-async", processor(latch));
+      final String monitor = accepted.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length());
+
+      final ODataResponse running = dispatch(HttpMethod.GET, monitor, null, null);
+      assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), running.getStatusCode());
+      assertEquals("5", running.getHeader(HttpHeader.RETRY_AFTER));
+
+      final ODataResponse cancelled = dispatch(HttpMethod.DELETE, monitor, null, null);
+      assertEquals(HttpStatusCode.NO_CONTENT.getStatusCode(), cancelled.getStatusCode());
+      assertEquals(0, asyncSupport.getJobCount());
+      assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+          dispatch(HttpMethod.DELETE, monitor, null, null).getStatusCode());
+    } finally {
+      latch.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void maxJobsReachedProcessesSynchronously() throws Exception {
+    asyncSupport = odata.createAsyncSupport(AsyncSupportOptions.with()
+        .executor(new CallerRunsExecutor()).maxJobs(1).build());
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(),
+        dispatch(HttpMethod.GET, "/ESAllPrim", "respond-async", processor(null)).getStatusCode());
+
+    final ODataResponse response = dispatch(HttpMethod.GET, "/ESAllPrim", "respond-async", processor(null));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertNull(response.getHeader(HttpHeader.PREFERENCE_APPLIED));
+    assertEquals(CONTENT, IOUtils.toString(response.getContent()));
+  }
+
+  @Test
+  public void expiredJobIsEvicted() throws Exception {
+    asyncSupport = odata.createAsyncSupport(AsyncSupportOptions.with()
+        .executor(new CallerRunsExecutor()).timeToLive(0, TimeUnit.MILLISECONDS).build());
+    dispatch(HttpMethod.GET, "/ESAllPrim", "respond-async", processor(null));
+    Thread.sleep(5);
+    asyncSupport.evictExpired();
+    assertEquals(0, asyncSupport.getJobCount());
+  }
+
+  @Test
+  public void spooledResult() throws Exception {
+    final File directory = new File(System.getProperty("java.io.tmpdir"), "olingo-async-test-" + System.nanoTime());
+    assertTrue(directory.mkdirs());
+    try {
+      asyncSupport = odata.createAsyncSupport(AsyncSupportOptions.with()
+          .executor(new CallerRunsExecutor()).spoolThreshold(4).spoolDirectory(directory).build());
+      final ODataResponse accepted = dispatch(HttpMethod.GET, "/ESAllPrim", "respond-async", processor(null));
+      assertEquals(1, directory.list().length);
+
+      final ODataResponse result = dispatch(HttpMethod.GET,
+          accepted.getHeader(HttpHeader.LOCATION).substring(BASE_URI.length()), null, null);
+      final InputStream content = result.getContent();
+      assertThat(IOUtils.toString(content), containsString(CONTENT));
+      content.close();
+      assertEquals(0, directory.list().length);
+    } finally {
+      for (final File file : directory.listFiles()) {
+        file.delete();
+      }
+      directory.delete();
+    }
+  }
+
+  @Test
+  public void unsupportedMethodOnStatusMonitor() throws Exception {
+    asyncSupport = odata.createAsyncSupport(AsyncSupportOptions.with().build());
+    assertEquals(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode(),
+        dispatch(HttpMethod.POST, "/$async/1", null, null).getStatusCode());
+  }
+
+  private EntityCollectionProcessor processor(final CountDownLatch latch) throws Exception {
+    EntityCollectionProcessor processor = mock(EntityCollectionProcessor.class);
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(final InvocationOnMock invocation) throws Throwable {
+        if (latch != null) {
+          latch.await();
+        }
+        final ODataResponse response = (ODataResponse) invocation.getArguments()[1];
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.JSON.toContentTypeString());
+        response.setContent(new ByteArrayInputStream(CONTENT.getBytes("UTF-8")));
+        return null;
+      }
+    }).when(processor).readEntityCollection(any(ODataRequest.class), any(ODataResponse.class),
+        any(UriInfo.class), any(ContentType.class));
+    return processor;
+  }
+
+  private ODataResponse dispatch(final HttpMethod method, final String path, final String prefer,
+      final EntityCollectionProcessor processor) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath(path);
+    request.setRawRequestUri(BASE_URI + path);
+    if (prefer != null) {
+      request.addHeader(HttpHeader.PREFER, prefer);
+    }
+
+    ODataHandlerImpl handler = new ODataHandlerImpl(odata, metadata, new ServerCoreDebugger(odata));
+    handler.register(asyncSupport);
+    if (processor != null) {
+      handler.register(processor);
+    }
+    return handler.process(request);
+  }
+
+  /** Executor running the jobs directly in the calling thread. */
+  private static class CallerRunsExecutor extends AbstractExecutorService {
+    @Override
+    public void execute(final Runnable command) {
+      command.run();
+    }
+
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+      return true;
+    }
+  }
+}
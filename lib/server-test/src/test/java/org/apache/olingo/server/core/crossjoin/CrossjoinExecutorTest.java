@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.crossjoin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection.ColumnType;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class CrossjoinExecutorTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  @Test
+  public void withoutFilter() throws Exception {
+    assertEquals(12, execute(null).size());
+  }
+
+  @Test
+  public void equiJoin() throws Exception {
+    assertEquals("[1 x, 1 y, 3 c]", execute("ESTwoPrim/PropertyInt16 eq ESAllPrim/PropertyInt16").toString());
+    assertEquals("[1 x, 1 y, 3 c]", execute("ESAllPrim/PropertyInt16 eq ESTwoPrim/PropertyInt16").toString());
+  }
+
+  @Test
+  public void compositeKeyAndLocalConditions() throws Exception {
+    assertEquals("[3 c]", execute("ESTwoPrim/PropertyInt16 eq ESAllPrim/PropertyInt16"
+        + " and ESTwoPrim/PropertyString eq ESAllPrim/PropertyString").toString());
+    assertEquals("[1 x]", execute("ESTwoPrim/PropertyInt16 eq ESAllPrim/PropertyInt16"
+        + " and ESAllPrim/PropertyString ne 'y' and ESTwoPrim/PropertyString eq 'a'").toString());
+  }
+
+  @Test
+  public void residualConditions() throws Exception {
+    assertEquals("[1 c, 1 d, 2 c, 2 d, 3 d]",
+        sorted(execute("ESTwoPrim/PropertyInt16 lt ESAllPrim/PropertyInt16")));
+    assertEquals("[1 x, 3 c]", execute("ESTwoPrim/PropertyInt16 eq ESAllPrim/PropertyInt16"
+        + " and (startswith(ESTwoPrim/PropertyString,'c') or ESAllPrim/PropertyString eq 'x')").toString());
+  }
+
+  @Test
+  public void notImplemented() throws Exception {
+    try {
+      execute("ESTwoPrim/PropertyInt16 add 1 eq ESAllPrim/PropertyInt16");
+      fail("Expected an exception.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void rows() throws Exception {
+    final EntityIterator iterator = odata.createCrossjoinExecutor().execute(
+        Arrays.asList("ESTwoPrim", "ESAllPrim"),
+        parse("ESTwoPrim/PropertyInt16 eq 3 and ESAllPrim/PropertyInt16 eq 3").getFilterOption(),
+        data());
+    final Entity row = iterator.next();
+    assertNull(row.getType());
+    assertEquals(2, row.getNavigationLinks().size());
+    assertEquals("ESTwoPrim", row.getNavigationLinks().get(0).getTitle());
+    assertEquals("c", row.getNavigationLink("ESAllPrim").getInlineEntity().getProperty("PropertyString").getValue());
+    assertEquals(false, iterator.hasNext());
+  }
+
+  @Test
+  public void columnarEntitySets() throws Exception {
+    final Map<String, AbstractEntityCollection> data = new HashMap<String, AbstractEntityCollection>();
+    data.put("ESTwoPrim", columnar(1, "a", 2, "b"));
+    data.put("ESAllPrim", columnar(10, "x", 20, "y"));
+    assertEquals("[1 x, 1 y, 2 x, 2 y]", sorted(execute(null, data)));
+
+    data.put("ESTwoPrim", columnar(1, "a", 2, "b", 3, "c"));
+    data.put("ESAllPrim", columnar(1, "x", 1, "y", 3, "c", 4, "d"));
+    assertEquals("[1 x, 1 y, 3 c]", sorted(execute("ESTwoPrim/PropertyInt16 eq ESAllPrim/PropertyInt16", data)));
+    assertEquals("[1 c, 1 d, 2 c, 2 d, 3 d]",
+        sorted(execute("ESTwoPrim/PropertyInt16 lt ESAllPrim/PropertyInt16", data)));
+  }
+
+  private List<String> execute(final String filter) throws Exception {
+    return execute(filter, data());
+  }
+
+  private List<String> execute(final String filter, final Map<String, ? extends AbstractEntityCollection> data)
+      throws Exception {
+    final UriInfo uriInfo = parse(filter);
+    final List<String> result = new ArrayList<String>();
+    for (final Entity row : odata.createCrossjoinExecutor()
+        .execute(uriInfo.getEntitySetNames(), uriInfo.getFilterOption(), data)) {
+      result.add(row.getNavigationLink("ESTwoPrim").getInlineEntity().getProperty("PropertyInt16").getValue()
+          + " " + row.getNavigationLink("ESAllPrim").getInlineEntity().getProperty("PropertyString").getValue());
+    }
+    return result;
+  }
+
+  private String sorted(final List<String> rows) {
+    Collections.sort(rows);
+    return rows.toString();
+  }
+
+  private UriInfo parse(final String filter) throws Exception {
+    return new Parser(edm, odata).parseUri("$crossjoin(ESTwoPrim,ESAllPrim)",
+        filter == null ? null : "$filter=" + filter, null, null);
+  }
+
+  private Map<String, EntityCollection> data() {
+    final Map<String, EntityCollection> data = new HashMap<String, EntityCollection>();
+    data.put("ESTwoPrim", collection(1, "a", 2, "b", 3, "c"));
+    data.put("ESAllPrim", collection(1, "x", 1, "y", 3, "c", 4, "d"));
+    return data;
+  }
+
+  private EntityCollection collection(final Object... values) {
+    final EntityCollection collection = new EntityCollection();
+    for (int i = 0; i < values.length; i += 2) {
+      collection.getEntities().add(new Entity()
+          .addProperty(new Property(null, "PropertyInt16", ValueType.PRIMITIVE, ((Integer) values[i]).shortValue()))
+          .addProperty(new Property(null, "PropertyString", ValueType.PRIMITIVE, values[i + 1])));
+    }
+    return collection;
+  }
+
+  private ColumnarEntityCollection columnar(final Object... values) {
+    final ColumnarEntityCollection collection = new ColumnarEntityCollection(null);
+    final int int16Column = collection.addColumn("PropertyInt16", "Edm.Int16", ColumnType.INT32);
+    final int stringColumn = collection.addColumn("PropertyString", "Edm.String", ColumnType.STRING);
+    for (int i = 0; i < values.length; i += 2) {
+      final int row = collection.addRow();
+      collection.setInt(row, int16Column, (Integer) values[i]);
+      collection.setString(row, stringColumn, (String) values[i + 1]);
+    }
+    return collection;
+  }
+}
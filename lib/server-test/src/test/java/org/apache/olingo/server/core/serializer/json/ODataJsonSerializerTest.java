@@ -33,6 +33,8 @@ import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection.ColumnType;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
@@ -925,6 +927,34 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(expectedResult, resultString);
   }
 
+  @Test
+  public void entitySetTwoPrimColumnar() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESTwoPrim");
+    final ColumnarEntityCollection entitySet = new ColumnarEntityCollection("olingo.odata.test1.ETTwoPrim");
+    final int int16 = entitySet.addColumn("PropertyInt16", "Edm.Int16", ColumnType.INT32);
+    final int string = entitySet.addColumn("PropertyString", "Edm.String", ColumnType.STRING);
+    for (final Entity entity : data.readAll(edmEntitySet)) {
+      final int row = entitySet.addRow();
+      entitySet.setInt(row, int16, ((Number) entity.getProperty("PropertyInt16").getValue()).intValue());
+      entitySet.setString(row, string, (String) entity.getProperty("PropertyString").getValue());
+    }
+    entitySet.setCount(4);
+    CountOption countOption = Mockito.mock(CountOption.class);
+    Mockito.when(countOption.getValue()).thenReturn(true);
+    final String resultString = IOUtils.toString(serializerNoMetadata
+        .entityCollection(metadata, edmEntitySet.getEntityType(), entitySet,
+            EntityCollectionSerializerOptions.with()
+                .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+                .count(countOption)
+                .build()).getContent());
+    final String expectedResult = "{\"@odata.count\":4,\"value\":["
+        + "{\"PropertyInt16\":32766,\"PropertyString\":\"Test String1\"},"
+        + "{\"PropertyInt16\":-365,\"PropertyString\":\"Test String2\"},"
+        + "{\"PropertyInt16\":-32766,\"PropertyString\":null},"
+        + "{\"PropertyInt16\":32767,\"PropertyString\":\"Test String4\"}]}";
+    Assert.assertEquals(expectedResult, resultString);
+  }
+
   @Test
   public void entityMedia() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESMedia");
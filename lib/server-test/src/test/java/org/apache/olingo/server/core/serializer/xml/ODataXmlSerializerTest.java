@@ -29,6 +29,8 @@ import java.util.Date;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection.ColumnType;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
@@ -834,6 +836,117 @@ public class ODataXmlSerializerTest {
     Assert.assertEquals(expectedResult, resultString);
   }
 
+  @Test
+  public void entitySetTwoPrimColumnar() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESTwoPrim");
+    final ColumnarEntityCollection entitySet = new ColumnarEntityCollection("olingo.odata.test1.ETTwoPrim");
+    final int int16 = entitySet.addColumn("PropertyInt16", "Edm.Int16", ColumnType.INT32);
+    final int string = entitySet.addColumn("PropertyString", "Edm.String", ColumnType.STRING);
+    for (final Entity entity : data.readAll(edmEntitySet)) {
+      final int row = entitySet.addRow();
+      entitySet.setInt(row, int16, ((Number) entity.getProperty("PropertyInt16").getValue()).intValue());
+      entitySet.setString(row, string, (String) entity.getProperty("PropertyString").getValue());
+    }
+    entitySet.setCount(4);
+    CountOption countOption = Mockito.mock(CountOption.class);
+    Mockito.when(countOption.getValue()).thenReturn(true);
+    long currentTimeMillis = System.currentTimeMillis();
+    final String resultString = IOUtils.toString(serializer
+        .entityCollection(metadata, edmEntitySet.getEntityType(), entitySet,
+            EntityCollectionSerializerOptions.with()
+                .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+                .count(countOption)
+                .build()).getContent());
+    final String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+        + "<a:feed xmlns:a=\"http://www.w3.org/2005/Atom\" "
+        + "xmlns:d=\"http://docs.oasis-open.org/odata/ns/data\" "
+        + "xmlns:m=\"http://docs.oasis-open.org/odata/ns/metadata\" "
+        + "m:context=\"$metadata#ESTwoPrim\" m:metadata-etag=\"metadataETag\">\n"
+        + "   <m:count>4</m:count>\n"
+        + "   <a:entry>\n"
+        + "      <a:title />\n"
+        + "      <a:summary />\n"
+        + "      <a:updated>" + UPDATED_FORMAT.format(new Date(currentTimeMillis)) + "</a:updated>\n"
+        + "      <a:author>\n"
+        + "         <a:name />\n"
+        + "      </a:author>\n"
+        + "      <a:link rel=\"http://docs.oasis-open.org/odata/ns/related/NavPropertyETAllPrimOne\" "
+        + "type=\"application/atom+xml;type=feed\" title=\"NavPropertyETAllPrimOne\" />\n"
+        + "      <a:link rel=\"http://docs.oasis-open.org/odata/ns/related/NavPropertyETAllPrimMany\" "
+        + "type=\"application/atom+xml;type=feed\" title=\"NavPropertyETAllPrimMany\" />\n"
+        + "      <a:category scheme=\"http://docs.oasis-open.org/odata/ns/scheme\" "
+        + "term=\"#olingo.odata.test1.ETTwoPrim\" />\n"
+        + "      <a:content type=\"application/xml\">\n"
+        + "         <m:properties>\n"
+        + "            <d:PropertyInt16 m:type=\"Int16\">32766</d:PropertyInt16>\n"
+        + "            <d:PropertyString>Test String1</d:PropertyString>\n"
+        + "         </m:properties>\n"
+        + "      </a:content>\n"
+        + "   </a:entry>\n"
+        + "   <a:entry>\n"
+        + "      <a:title />\n"
+        + "      <a:summary />\n"
+        + "      <a:updated>" + UPDATED_FORMAT.format(new Date(currentTimeMillis)) + "</a:updated>\n"
+        + "      <a:author>\n"
+        + "         <a:name />\n"
+        + "      </a:author>\n"
+        + "      <a:link rel=\"http://docs.oasis-open.org/odata/ns/related/NavPropertyETAllPrimOne\" "
+        + "type=\"application/atom+xml;type=feed\" title=\"NavPropertyETAllPrimOne\" />\n"
+        + "      <a:link rel=\"http://docs.oasis-open.org/odata/ns/related/NavPropertyETAllPrimMany\" "
+        + "type=\"application/atom+xml;type=feed\" title=\"NavPropertyETAllPrimMany\" />\n"
+        + "      <a:category scheme=\"http://docs.oasis-open.org/odata/ns/scheme\" "
+        + "term=\"#olingo.odata.test1.ETTwoPrim\" />\n"
+        + "      <a:content type=\"application/xml\">\n"
+        + "         <m:properties>\n"
+        + "            <d:PropertyInt16 m:type=\"Int16\">-365</d:PropertyInt16>\n"
+        + "            <d:PropertyString>Test String2</d:PropertyString>\n"
+        + "         </m:properties>\n"
+        + "      </a:content>\n"
+        + "   </a:entry>\n"
+        + "   <a:entry>\n"
+        + "      <a:title />\n"
+        + "      <a:summary />\n"
+        + "      <a:updated>" + UPDATED_FORMAT.format(new Date(currentTimeMillis)) + "</a:updated>\n"
+        + "      <a:author>\n"
+        + "         <a:name />\n"
+        + "      </a:author>\n"
+        + "      <a:link rel=\"http://docs.oasis-open.org/odata/ns/related/NavPropertyETAllPrimOne\" "
+        + "type=\"application/atom+xml;type=feed\" title=\"NavPropertyETAllPrimOne\" />\n"
+        + "      <a:link rel=\"http://docs.oasis-open.org/odata/ns/related/NavPropertyETAllPrimMany\" "
+        + "type=\"application/atom+xml;type=feed\" title=\"NavPropertyETAllPrimMany\" />\n"
+        + "      <a:category scheme=\"http://docs.oasis-open.org/odata/ns/scheme\" "
+        + "term=\"#olingo.odata.test1.ETTwoPrim\" />\n"
+        + "      <a:content type=\"application/xml\">\n"
+        + "         <m:properties>\n"
+        + "            <d:PropertyInt16 m:type=\"Int16\">-32766</d:PropertyInt16>\n"
+        + "            <d:PropertyString m:null=\"true\" />\n"
+        + "         </m:properties>\n"
+        + "      </a:content>\n"
+        + "   </a:entry>\n"
+        + "   <a:entry>\n"
+        + "      <a:title />\n"
+        + "      <a:summary />\n"
+        + "      <a:updated>" + UPDATED_FORMAT.format(new Date(currentTimeMillis)) + "</a:updated>\n"
+        + "      <a:author>\n"
+        + "         <a:name />\n"
+        + "      </a:author>\n"
+        + "      <a:link rel=\"http://docs.oasis-open.org/odata/ns/related/NavPropertyETAllPrimOne\" "
+        + "type=\"application/atom+xml;type=feed\" title=\"NavPropertyETAllPrimOne\" />\n"
+        + "      <a:link rel=\"http://docs.oasis-open.org/odata/ns/related/NavPropertyETAllPrimMany\" "
+        + "type=\"application/atom+xml;type=feed\" title=\"NavPropertyETAllPrimMany\" />\n"
+        + "      <a:category scheme=\"http://docs.oasis-open.org/odata/ns/scheme\" "
+        + "term=\"#olingo.odata.test1.ETTwoPrim\" />\n"
+        + "      <a:content type=\"application/xml\">\n"
+        + "         <m:properties>\n"
+        + "            <d:PropertyInt16 m:type=\"Int16\">32767</d:PropertyInt16>\n"
+        + "            <d:PropertyString>Test String4</d:PropertyString>\n"
+        + "         </m:properties>\n"
+        + "      </a:content>\n"
+        + "   </a:entry>\n"
+        + "</a:feed>";
+    checkXMLEqual(expected, resultString);
+  }
+
   @Test
   public void entityMedia() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESMedia");